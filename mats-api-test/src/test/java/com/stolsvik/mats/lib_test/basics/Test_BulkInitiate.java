@@ -0,0 +1,85 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.MatsInitiator.BulkInitiateReport;
+import com.stolsvik.mats.MatsInitiator.ChunkReport;
+import com.stolsvik.mats.MatsInitiator.MatsBackendException;
+import com.stolsvik.mats.MatsInitiator.MatsMessageSendException;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests the {@link com.stolsvik.mats.MatsInitiator#initiateBulk(java.util.Iterator, int,
+ * com.stolsvik.mats.MatsInitiator.BulkInitiateLambda) bulk initiation}: Sets up a Terminator endpoint, and then
+ * bulk-initiates a bunch of messages to it in chunks, checking that all arrive, and that the chunking is as expected.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]  - bulk send, chunked
+ * [Terminator]
+ * </pre>
+ */
+public class Test_BulkInitiate {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final int NUMBER_OF_MESSAGES = 250;
+
+    private static final int CHUNK_SIZE = 100;
+
+    private static final Set<Integer> _received = ConcurrentHashMap.newKeySet();
+
+    private static final CountDownLatch _latch = new CountDownLatch(NUMBER_OF_MESSAGES);
+
+    @BeforeClass
+    public static void setupTerminator() {
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> {
+                    _received.add((int) dto.number);
+                    _latch.countDown();
+                });
+    }
+
+    @Test
+    public void doTest() throws MatsBackendException, MatsMessageSendException, InterruptedException {
+        BulkInitiateReport report = MATS.getMatsInitiator().initiateBulk(
+                IntStream.range(0, NUMBER_OF_MESSAGES).boxed(), CHUNK_SIZE,
+                (msg, i) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(TERMINATOR)
+                        .send(new DataTO(i, "Bulk")));
+        log.info("Got report: " + report);
+
+        // :: Assert the report
+        Assert.assertEquals(3, report.getNumberOfChunks());
+        Assert.assertEquals(NUMBER_OF_MESSAGES, report.getNumberOfItems());
+        Assert.assertEquals(CHUNK_SIZE, report.getChunkReports().get(0).getNumberOfItems());
+        Assert.assertEquals(CHUNK_SIZE, report.getChunkReports().get(1).getNumberOfItems());
+        Assert.assertEquals(NUMBER_OF_MESSAGES - 2 * CHUNK_SIZE, report.getChunkReports().get(2).getNumberOfItems());
+        for (ChunkReport chunkReport : report.getChunkReports()) {
+            Assert.assertTrue(chunkReport.getMillisTotal() >= 0);
+        }
+
+        // :: Assert that all messages arrived
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(NUMBER_OF_MESSAGES, _received.size());
+    }
+}
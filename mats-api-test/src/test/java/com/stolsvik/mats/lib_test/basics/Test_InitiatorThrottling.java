@@ -0,0 +1,224 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.BulkInitiateReport;
+import com.stolsvik.mats.MatsInitiator.MatsBackendException;
+import com.stolsvik.mats.MatsInitiator.MatsMessageSendException;
+import com.stolsvik.mats.MatsInitiator.MatsThrottledException;
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests the throttling of initiations: {@link JmsMatsFactory#setInitiatorRateLimit(String, double, int) rate limits}
+ * holding back or failing initiations (giving back the tokens), rejecting batches larger than the burst up front,
+ * capping the chunks of bulk initiations at the burst, and the
+ * {@link JmsMatsFactory#setInitiatorBackpressureSignal backpressure signal} failing them.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]  - send, rate limited or backpressured
+ * [Terminator] (and a second Terminator)
+ * </pre>
+ */
+public class Test_InitiatorThrottling {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String TERMINATOR_OTHER = MatsTestHelp.endpointId("otherTerminator");
+
+    private static volatile CountDownLatch _latch;
+
+    private static final AtomicInteger _throttledTimings = new AtomicInteger();
+
+    @BeforeClass
+    public static void setupTerminator() {
+        factory().setMetrics(new JmsMatsMetrics() {
+            @Override
+            public void recordTiming(Origin origin, String id, Timing timing, long nanos) {
+                if (timing == Timing.THROTTLED) {
+                    _throttledTimings.incrementAndGet();
+                }
+            }
+        });
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+        MATS.getMatsFactory().terminator(TERMINATOR_OTHER, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+    }
+
+    @After
+    public void resetThrottling() {
+        factory().setInitiatorRateLimit(TERMINATOR, 0, 0);
+        factory().setInitiatorRateLimit(TERMINATOR_OTHER, 0, 0);
+        factory().setInitiatorBackpressureSignal(null);
+        factory().setInitiatorThrottleMaxWaitMillis(JmsMatsFactory.DEFAULT_INITIATOR_THROTTLE_MAX_WAIT_MILLIS);
+        _throttledTimings.set(0);
+    }
+
+    private static JmsMatsFactory<?> factory() {
+        return (JmsMatsFactory<?>) MATS.getMatsFactory();
+    }
+
+    private static void send(int msgNum) {
+        send(TERMINATOR, msgNum);
+    }
+
+    private static void send(String to, int msgNum) {
+        MATS.getMatsInitiator().initiateUnchecked(
+                (msg) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(to)
+                        .send(new DataTO(msgNum, "Msg" + msgNum)));
+    }
+
+    @Test
+    public void rateLimitHoldsBack() throws InterruptedException {
+        // 20 msgs/s, burst 1: The first goes directly, the next 5 are held back 50 ms each.
+        factory().setInitiatorRateLimit(TERMINATOR, 20, 1);
+        factory().setInitiatorThrottleMaxWaitMillis(1000);
+        _latch = new CountDownLatch(6);
+        long nanosStart = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            send(i);
+        }
+        long millisTaken = (System.nanoTime() - nanosStart) / 1_000_000;
+        Assert.assertTrue("Not held back, took [" + millisTaken + " ms]", millisTaken >= 200);
+        Assert.assertTrue("Did not get all messages", _latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(6, _throttledTimings.get());
+    }
+
+    @Test
+    public void rateLimitFailsFast() throws InterruptedException {
+        // Default max wait is 0, i.e. fail fast.
+        factory().setInitiatorRateLimit(TERMINATOR, 1, 1);
+        _latch = new CountDownLatch(1);
+        // The first goes, as the bucket starts full.
+        send(0);
+        try {
+            send(1);
+            Assert.fail("Should have been throttled.");
+        }
+        catch (MatsThrottledException e) {
+            Assert.assertEquals(TERMINATOR, e.getTargetEndpointId());
+        }
+        Assert.assertTrue("Did not get the first message", _latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void tokensGivenBackOnRejection() throws InterruptedException {
+        // Very slow refill, burst 2 - and burst 1 for the other, which we empty.
+        factory().setInitiatorRateLimit(TERMINATOR, 0.01, 2);
+        factory().setInitiatorRateLimit(TERMINATOR_OTHER, 0.01, 1);
+        _latch = new CountDownLatch(1);
+        send(TERMINATOR_OTHER, 0);
+        Assert.assertTrue("Did not get the message", _latch.await(10, TimeUnit.SECONDS));
+        // :: An initiation of 2 messages to the first, and 1 to the other, takes the 2 tokens of the first, but fails
+        // on the other - and must give the 2 back.
+        try {
+            MATS.getMatsInitiator().initiateUnchecked((msg) -> {
+                for (int i = 0; i < 3; i++) {
+                    msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("test"))
+                            .to(i < 2 ? TERMINATOR : TERMINATOR_OTHER)
+                            .send(new DataTO(i, "Msg" + i));
+                }
+            });
+            Assert.fail("Should have been throttled.");
+        }
+        catch (MatsThrottledException e) {
+            Assert.assertEquals(TERMINATOR_OTHER, e.getTargetEndpointId());
+        }
+        // :: .. thus, 2 single initiations to the first still go.
+        _latch = new CountDownLatch(2);
+        send(0);
+        send(1);
+        Assert.assertTrue("Did not get the messages", _latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void batchLargerThanBurstRejectedUpFront() throws InterruptedException {
+        // Even though it may wait for long, an initiation of 3 messages can never pass a burst of 2.
+        factory().setInitiatorRateLimit(TERMINATOR, 1000, 2);
+        factory().setInitiatorThrottleMaxWaitMillis(10_000);
+        long nanosStart = System.nanoTime();
+        try {
+            MATS.getMatsInitiator().initiateUnchecked((msg) -> {
+                for (int i = 0; i < 3; i++) {
+                    msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("test"))
+                            .to(TERMINATOR)
+                            .send(new DataTO(i, "Msg" + i));
+                }
+            });
+            Assert.fail("Should have been throttled.");
+        }
+        catch (MatsThrottledException e) {
+            Assert.assertEquals(TERMINATOR, e.getTargetEndpointId());
+        }
+        long millisTaken = (System.nanoTime() - nanosStart) / 1_000_000;
+        Assert.assertTrue("Was not rejected up front, took [" + millisTaken + " ms]", millisTaken < 1000);
+        // :: No tokens were taken, so the full burst still goes.
+        _latch = new CountDownLatch(2);
+        send(0);
+        send(1);
+        Assert.assertTrue("Did not get the messages", _latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void bulkChunksCappedAtBurst() throws MatsBackendException, MatsMessageSendException,
+            InterruptedException {
+        // 20 msgs/s, burst 2, and the default fail fast: The chunks are ended at 2 messages, and the bulk waits
+        // (outside of the transactions) for the refill of 100 ms between them - so none of them are throttled.
+        factory().setInitiatorRateLimit(TERMINATOR, 20, 2);
+        _latch = new CountDownLatch(6);
+        long nanosStart = System.nanoTime();
+        BulkInitiateReport report = MATS.getMatsInitiator().initiateBulk(IntStream.range(0, 6).boxed(), 100,
+                (msg, i) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(TERMINATOR)
+                        .send(new DataTO(i, "Msg" + i)));
+        long millisTaken = (System.nanoTime() - nanosStart) / 1_000_000;
+        Assert.assertEquals(3, report.getNumberOfChunks());
+        Assert.assertEquals(6, report.getNumberOfItems());
+        Assert.assertTrue("Did not wait between the chunks, took [" + millisTaken + " ms]", millisTaken >= 150);
+        Assert.assertTrue("Did not get all messages", _latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void backpressure() throws InterruptedException {
+        factory().setInitiatorThrottleMaxWaitMillis(100);
+        factory().setInitiatorBackpressureSignal(TERMINATOR::equals);
+        long nanosStart = System.nanoTime();
+        try {
+            send(0);
+            Assert.fail("Should have been throttled.");
+        }
+        catch (MatsThrottledException e) {
+            Assert.assertEquals(TERMINATOR, e.getTargetEndpointId());
+        }
+        long millisTaken = (System.nanoTime() - nanosStart) / 1_000_000;
+        Assert.assertTrue("Did not wait before failing, took [" + millisTaken + " ms]", millisTaken >= 80);
+
+        // :: When the backpressure clears, it goes through.
+        factory().setInitiatorBackpressureSignal(endpointId -> false);
+        _latch = new CountDownLatch(1);
+        send(1);
+        Assert.assertTrue("Did not get the message", _latch.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,89 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsEndpoint;
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.MatsTestLatch.Result;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests {@link JmsMatsFactory#setInlineNextStage(boolean)}: The next() calls of a three-stage Service shall be
+ * processed directly by the next Stage within the same transaction - which the Stages tell by appending the name of
+ * the processing thread, which thus shall be the same for all three. Also checks that doAfterCommit(..) of both the
+ * first and the last Stage is run.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]              - request
+ *     [Service S0 - init]  - next
+ *     [Service S1]         - next
+ *     [Service S2 - last]  - reply
+ * [Terminator]
+ * </pre>
+ */
+public class Test_InlineNextStage {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final CountDownLatch _doAfterCommitLatch = new CountDownLatch(2);
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setInlineNextStage(true);
+        MatsEndpoint<DataTO, StateTO> ep = MATS.getMatsFactory().staged(SERVICE, DataTO.class, StateTO.class);
+        ep.stage(DataTO.class, (context, sto, dto) -> {
+            context.doAfterCommit(_doAfterCommitLatch::countDown);
+            sto.number1 = 1;
+            context.next(new DataTO(dto.number, dto.string + "|" + Thread.currentThread().getName()));
+        });
+        ep.stage(DataTO.class, (context, sto, dto) -> {
+            Assert.assertEquals(1, sto.number1);
+            sto.number1 = 2;
+            context.next(new DataTO(dto.number, dto.string + "|" + Thread.currentThread().getName()));
+        });
+        ep.lastStage(DataTO.class, (context, sto, dto) -> {
+            Assert.assertEquals(2, sto.number1);
+            context.doAfterCommit(_doAfterCommitLatch::countDown);
+            return new DataTO(dto.number, dto.string + "|" + Thread.currentThread().getName());
+        });
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto, dto));
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        DataTO dto = new DataTO(42, "Request");
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked(
+                (msg) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(SERVICE)
+                        .replyTo(TERMINATOR, sto)
+                        .request(dto));
+
+        Result<StateTO, DataTO> result = MATS.getMatsTestLatch().waitForResult();
+        Assert.assertEquals(sto, result.getState());
+        String[] parts = result.getData().string.split("\\|");
+        Assert.assertEquals("Request", parts[0]);
+        Assert.assertEquals(4, parts.length);
+        // All three Stages processed on the first Stage's thread.
+        Assert.assertTrue(parts[1], parts[1].contains(SERVICE + '#'));
+        Assert.assertEquals(parts[1], parts[2]);
+        Assert.assertEquals(parts[1], parts[3]);
+        Assert.assertTrue("doAfterCommit not run for both Stages", _doAfterCommitLatch.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,95 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.MatsTestLatch.Result;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests {@link JmsMatsFactory#setInteractiveLaneConcurrency(int)}: An interactive request shall be processed by the
+ * Service's and Terminator's interactive lane StageProcessors, while an ordinary request shall be processed by the
+ * ordinary StageProcessors. The Service and Terminator tell which by the name of the processing thread. An interactive
+ * request to a Terminator that was started without an interactive lane shall go to its ordinary queue, not be lost.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]   - request, interactive or not
+ *     [Service] - reply
+ * [Terminator]
+ * </pre>
+ */
+public class Test_InteractiveLane {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String TERMINATOR_WITHOUT_LANE = MatsTestHelp.endpointId("terminatorWithoutLane");
+
+    private static final String INTERACTIVE_THREAD = ".interactive#";
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        // Started before interactive lanes are enabled, thus without an interactive lane.
+        MATS.getMatsFactory().terminator(TERMINATOR_WITHOUT_LANE, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto,
+                        new DataTO(dto.number, dto.string + ":" + isInteractiveThread())));
+        // Must be set before the endpoints are made, as it is read when the Stages start.
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setInteractiveLaneConcurrency(1);
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, dto) -> new DataTO(dto.number, dto.string + ":" + isInteractiveThread()));
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto,
+                        new DataTO(dto.number, dto.string + ":" + isInteractiveThread())));
+    }
+
+    private static boolean isInteractiveThread() {
+        return Thread.currentThread().getName().contains(INTERACTIVE_THREAD);
+    }
+
+    @Test
+    public void interactive() {
+        Assert.assertEquals("Request:true:true", requestAndGetReply(true));
+    }
+
+    @Test
+    public void ordinary() {
+        Assert.assertEquals("Request:false:false", requestAndGetReply(false));
+    }
+
+    @Test
+    public void interactiveToStageWithoutLane() {
+        Assert.assertEquals("Request:true:false", requestAndGetReply(true, TERMINATOR_WITHOUT_LANE));
+    }
+
+    private String requestAndGetReply(boolean interactive) {
+        return requestAndGetReply(interactive, TERMINATOR);
+    }
+
+    private String requestAndGetReply(boolean interactive, String replyTo) {
+        DataTO dto = new DataTO(42, "Request");
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked((msg) -> {
+            msg.traceId(MatsTestHelp.traceId())
+                    .from(MatsTestHelp.from("test"))
+                    .to(SERVICE)
+                    .replyTo(replyTo, sto);
+            if (interactive) {
+                msg.interactive();
+            }
+            msg.request(dto);
+        });
+
+        Result<StateTO, DataTO> result = MATS.getMatsTestLatch().waitForResult();
+        Assert.assertEquals(sto, result.getState());
+        return result.getData().string;
+    }
+}
@@ -0,0 +1,146 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.MatsTestLatch.Result;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests that the {@link JmsMatsMetrics} installed on the factory gets the timings and sizes from both the Initiator
+ * and the Stages.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]   - request
+ *     [Service] - reply
+ * [Terminator]
+ * </pre>
+ */
+public class Test_JmsMatsMetrics {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final RecordingMetrics _metrics = new RecordingMetrics();
+
+    @BeforeClass
+    public static void setupMetrics() {
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setMetrics(_metrics);
+    }
+
+    @BeforeClass
+    public static void setupService() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, dto) -> new DataTO(dto.number * 2, dto.string + ":FromService"));
+    }
+
+    @BeforeClass
+    public static void setupTerminator() {
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto, dto));
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        DataTO dto = new DataTO(42, "TheAnswer");
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked(
+                (msg) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(SERVICE)
+                        .replyTo(TERMINATOR, sto)
+                        .request(dto));
+
+        Result<StateTO, DataTO> result = MATS.getMatsTestLatch().waitForResult();
+        Assert.assertEquals(new DataTO(dto.number * 2, dto.string + ":FromService"), result.getData());
+
+        // The Terminator's TOTAL is recorded after its lambda has resolved the latch, so wait for it.
+        String terminatorTotal = RecordingMetrics.key(JmsMatsMetrics.Origin.STAGE, TERMINATOR,
+                JmsMatsMetrics.Timing.TOTAL);
+        for (int i = 0; (i < 100) && (_metrics.count(terminatorTotal) == 0); i++) {
+            Thread.sleep(10);
+        }
+        log.info("Recorded metrics: " + _metrics._counts);
+
+        // :: The Initiator
+        String initiator = MATS.getMatsInitiator().getName();
+        for (JmsMatsMetrics.Timing timing : new JmsMatsMetrics.Timing[] {
+                JmsMatsMetrics.Timing.LAMBDA, JmsMatsMetrics.Timing.SERIALIZE, JmsMatsMetrics.Timing.SEND,
+                JmsMatsMetrics.Timing.COMMIT, JmsMatsMetrics.Timing.TOTAL }) {
+            Assert.assertEquals("Initiator " + timing, 1, _metrics.count(RecordingMetrics.key(
+                    JmsMatsMetrics.Origin.INITIATOR, initiator, timing)));
+        }
+        Assert.assertEquals(1, _metrics.count(RecordingMetrics.key(JmsMatsMetrics.Origin.INITIATOR, initiator,
+                JmsMatsMetrics.Size.SENT)));
+
+        // :: The Service, which both receives and sends
+        for (JmsMatsMetrics.Timing timing : JmsMatsMetrics.Timing.values()) {
+            // THROTTLED is Initiator only
+            if (timing == JmsMatsMetrics.Timing.THROTTLED) {
+                continue;
+            }
+            Assert.assertEquals("Service " + timing, 1, _metrics.count(RecordingMetrics.key(
+                    JmsMatsMetrics.Origin.STAGE, SERVICE, timing)));
+        }
+        for (JmsMatsMetrics.Size size : JmsMatsMetrics.Size.values()) {
+            Assert.assertEquals("Service " + size, 1, _metrics.count(RecordingMetrics.key(
+                    JmsMatsMetrics.Origin.STAGE, SERVICE, size)));
+        }
+
+        // :: The Terminator, which only receives
+        Assert.assertEquals(1, _metrics.count(terminatorTotal));
+        Assert.assertEquals(0, _metrics.count(RecordingMetrics.key(JmsMatsMetrics.Origin.STAGE, TERMINATOR,
+                JmsMatsMetrics.Timing.SEND)));
+
+        // :: No errors
+        Assert.assertEquals(0, _metrics._errors.sum());
+    }
+
+    private static class RecordingMetrics implements JmsMatsMetrics {
+        private final ConcurrentHashMap<String, LongAdder> _counts = new ConcurrentHashMap<>();
+        private final LongAdder _errors = new LongAdder();
+
+        static String key(Origin origin, String id, Object what) {
+            return origin + "|" + id + "|" + what;
+        }
+
+        long count(String key) {
+            LongAdder adder = _counts.get(key);
+            return adder == null ? 0 : adder.sum();
+        }
+
+        @Override
+        public void recordTiming(Origin origin, String id, Timing timing, long nanos) {
+            Assert.assertTrue("Negative timing", nanos >= 0);
+            _counts.computeIfAbsent(key(origin, id, timing), k -> new LongAdder()).increment();
+        }
+
+        @Override
+        public void recordSize(Origin origin, String id, Size size, int bytes) {
+            Assert.assertTrue("Empty message", bytes > 0);
+            _counts.computeIfAbsent(key(origin, id, size), k -> new LongAdder()).increment();
+        }
+
+        @Override
+        public void recordError(Origin origin, String id, ErrorKind error) {
+            _errors.increment();
+        }
+    }
+}
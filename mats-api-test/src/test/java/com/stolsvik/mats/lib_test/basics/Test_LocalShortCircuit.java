@@ -0,0 +1,186 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsEndpoint.MatsRefuseMessageException;
+import com.stolsvik.mats.MatsInitiator.InitiateLambda;
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.MatsTestLatch.Result;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests {@link JmsMatsFactory#setLocalShortCircuitConcurrency(int)}: A non-persistent message shall be short-circuited
+ * in-JVM to the local StageProcessors, while a persistent shall go via the broker to the ordinary StageProcessors.
+ * When the in-memory queue is full (ref. {@link JmsMatsFactory#setLocalShortCircuitQueueCapacity(int)}), the messages
+ * shall go via the broker instead. A short-circuited message that fails or is refused in processing shall be forwarded to the broker, and thus be
+ * processed again by the ordinary StageProcessors - unless its time-to-live has passed. The endpoints tell which
+ * StageProcessor they ran on by the name of the processing thread.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]   - request, non-persistent or not
+ *     [Service] - reply, or failing/refusing on the local StageProcessor
+ * [Terminator]
+ *
+ * [Initiator]   - many sends, non-persistent
+ * [Terminator]  - counting, slow on the local StageProcessor
+ * </pre>
+ */
+public class Test_LocalShortCircuit {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String SERVICE_FAILING = MatsTestHelp.endpointId("failing");
+    private static final String SERVICE_REFUSING = MatsTestHelp.endpointId("refusing");
+    private static final String SERVICE_SLOW_FAILING = MatsTestHelp.endpointId("slowFailing");
+    private static final String TERMINATOR_COUNTING = MatsTestHelp.endpointId("countingTerminator");
+
+    private static final String LOCAL_THREAD = ".local#";
+
+    private static volatile CountDownLatch _slowFailingLocalLatch;
+    private static final AtomicInteger _slowFailingOrdinaryCount = new AtomicInteger();
+
+    private static volatile CountDownLatch _countingLatch;
+    private static final AtomicInteger _countingOrdinaryCount = new AtomicInteger();
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        // Must be set before the endpoints are made, as it is read when the Stages start.
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setLocalShortCircuitConcurrency(1);
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setLocalShortCircuitQueueCapacity(2);
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto,
+                        new DataTO(dto.number, dto.string + ":" + isLocalThread())));
+        MATS.getMatsFactory().single(SERVICE_FAILING, DataTO.class, DataTO.class, (context, dto) -> {
+            if (isLocalThread()) {
+                throw new IllegalStateException("Failing on the local StageProcessor.");
+            }
+            return new DataTO(dto.number, dto.string + ":" + isLocalThread());
+        });
+        MATS.getMatsFactory().single(SERVICE_REFUSING, DataTO.class, DataTO.class, (context, dto) -> {
+            if (isLocalThread()) {
+                throw new MatsRefuseMessageException("Refusing on the local StageProcessor.");
+            }
+            return new DataTO(dto.number, dto.string + ":" + isLocalThread());
+        });
+        MATS.getMatsFactory().single(SERVICE_SLOW_FAILING, DataTO.class, DataTO.class, (context, dto) -> {
+            if (isLocalThread()) {
+                // Outlive the message's time-to-live, then fail.
+                MatsTestHelp.takeNap(300);
+                _slowFailingLocalLatch.countDown();
+                throw new IllegalStateException("Failing on the local StageProcessor, after the time-to-live.");
+            }
+            _slowFailingOrdinaryCount.incrementAndGet();
+            return new DataTO(dto.number, dto.string + ":" + isLocalThread());
+        });
+        MATS.getMatsFactory().terminator(TERMINATOR_COUNTING, StateTO.class, DataTO.class, (context, sto, dto) -> {
+            if (isLocalThread()) {
+                MatsTestHelp.takeNap(10);
+            }
+            else {
+                _countingOrdinaryCount.incrementAndGet();
+            }
+            _countingLatch.countDown();
+        });
+    }
+
+    private static boolean isLocalThread() {
+        return Thread.currentThread().getName().contains(LOCAL_THREAD);
+    }
+
+    @Test
+    public void nonPersistentIsShortCircuited() {
+        Assert.assertEquals("Send:true", sendAndGetResult(MatsInitiate::nonPersistent));
+    }
+
+    @Test
+    public void persistentGoesViaBroker() {
+        Assert.assertEquals("Send:false", sendAndGetResult(msg -> {
+        }));
+    }
+
+    @Test
+    public void failedIsForwardedToBroker() {
+        // The Service fails locally, succeeds on the ordinary StageProcessor - and the reply is short-circuited.
+        Assert.assertEquals("Request:false:true", requestAndGetReply(SERVICE_FAILING));
+    }
+
+    @Test
+    public void refusedIsForwardedToBroker() {
+        // The Service refuses locally, succeeds on the ordinary StageProcessor - and the reply is short-circuited.
+        Assert.assertEquals("Request:false:true", requestAndGetReply(SERVICE_REFUSING));
+    }
+
+    @Test
+    public void expiredIsNotForwarded() throws InterruptedException {
+        _slowFailingLocalLatch = new CountDownLatch(1);
+        MATS.getMatsInitiator().initiateUnchecked((msg) -> msg.traceId(MatsTestHelp.traceId())
+                .from(MatsTestHelp.from("expired"))
+                .to(SERVICE_SLOW_FAILING)
+                .replyTo(TERMINATOR, new StateTO(1, 1))
+                .nonPersistent(100)
+                .request(new DataTO(1, "Request")));
+        Assert.assertTrue("Was not processed locally", _slowFailingLocalLatch.await(10, TimeUnit.SECONDS));
+        // Give a forwarded message (if any, which would be wrong) time to arrive at the ordinary StageProcessor.
+        Thread.sleep(500);
+        Assert.assertEquals("The expired message was forwarded", 0, _slowFailingOrdinaryCount.get());
+    }
+
+    @Test
+    public void fullLocalQueueGoesViaBroker() throws InterruptedException {
+        // All 20 pass the capacity check when sent, but the local queue of 2 fills up when they are delivered after
+        // the commit - so the rest must go via the broker.
+        _countingLatch = new CountDownLatch(20);
+        MATS.getMatsInitiator().initiateUnchecked((msg) -> {
+            for (int i = 0; i < 20; i++) {
+                msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("full"))
+                        .to(TERMINATOR_COUNTING)
+                        .nonPersistent()
+                        .send(new DataTO(i, "Send"));
+            }
+        });
+        Assert.assertTrue("Did not get all messages", _countingLatch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue("None went via the broker", _countingOrdinaryCount.get() > 0);
+    }
+
+    private String sendAndGetResult(InitiateLambda persistence) {
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked((msg) -> {
+            msg.traceId(MatsTestHelp.traceId())
+                    .from(MatsTestHelp.from("send"))
+                    .to(TERMINATOR);
+            persistence.initiate(msg);
+            msg.send(new DataTO(42, "Send"), sto);
+        });
+        Result<StateTO, DataTO> result = MATS.getMatsTestLatch().waitForResult();
+        Assert.assertEquals(sto, result.getState());
+        return result.getData().string;
+    }
+
+    private String requestAndGetReply(String service) {
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked((msg) -> msg.traceId(MatsTestHelp.traceId())
+                .from(MatsTestHelp.from("request"))
+                .to(service)
+                .replyTo(TERMINATOR, sto)
+                .nonPersistent()
+                .request(new DataTO(42, "Request")));
+        Result<StateTO, DataTO> result = MATS.getMatsTestLatch().waitForResult();
+        Assert.assertEquals(sto, result.getState());
+        return result.getData().string;
+    }
+}
@@ -0,0 +1,89 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests that a stage which produces many outgoing messages gets them all sent when the serialization is done in
+ * parallel, ref. {@link JmsMatsFactory#setParallelSerializationThreshold(int)}: The threshold is set low, and a
+ * "fan-out" single-stage endpoint sends a bunch of messages to a Terminator, replying with the count.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]   - request
+ *     [Service] - sends N messages to Terminator, and replies
+ * [Terminator]  - receives N messages, and the reply
+ * </pre>
+ */
+public class Test_ParallelSerialization {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String REPLY_TERMINATOR = MatsTestHelp.endpointId("replyTerminator");
+
+    private static final int NUMBER_OF_MESSAGES = 50;
+
+    private static final Set<Integer> _received = ConcurrentHashMap.newKeySet();
+
+    private static final CountDownLatch _latch = new CountDownLatch(NUMBER_OF_MESSAGES);
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setParallelSerializationThreshold(2);
+
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, dto) -> {
+                    context.initiate(init -> {
+                        for (int i = 0; i < dto.number; i++) {
+                            init.traceId("fanout" + i)
+                                    .to(TERMINATOR)
+                                    .send(new DataTO(i, "FanOut"));
+                        }
+                    });
+                    return new DataTO(dto.number, dto.string + ":FromService");
+                });
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> {
+                    _received.add((int) dto.number);
+                    _latch.countDown();
+                });
+        MATS.getMatsFactory().terminator(REPLY_TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto, dto));
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        DataTO dto = new DataTO(NUMBER_OF_MESSAGES, "TheCount");
+        StateTO sto = new StateTO(420, 420.024);
+        MATS.getMatsInitiator().initiateUnchecked(
+                (msg) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(SERVICE)
+                        .replyTo(REPLY_TERMINATOR, sto)
+                        .request(dto));
+
+        // :: Assert the reply
+        Assert.assertEquals(new DataTO(NUMBER_OF_MESSAGES, "TheCount:FromService"),
+                MATS.getMatsTestLatch().waitForResult().getData());
+
+        // :: Assert that all the fanned out messages arrived
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(NUMBER_OF_MESSAGES, _received.size());
+    }
+}
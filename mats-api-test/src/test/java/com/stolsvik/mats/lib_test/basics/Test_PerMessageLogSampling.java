@@ -0,0 +1,116 @@
+package com.stolsvik.mats.lib_test.basics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Tests {@link JmsMatsFactory#setPerMessageLogSampleRate(String, int)}: With sample rate 0 for both the Initiator and
+ * the Terminator, none of the per-message log lines shall be output - and with 1, all shall.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator]  - send x 10
+ * [Terminator]
+ * </pre>
+ */
+public class Test_PerMessageLogSampling {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final int MESSAGES = 10;
+
+    private static volatile CountDownLatch _latch;
+
+    private static final ListAppender<ILoggingEvent> _appender = new ListAppender<>();
+
+    @BeforeClass
+    public static void setupTerminator() {
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+    }
+
+    @BeforeClass
+    public static void setupAppender() {
+        _appender.start();
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).addAppender(_appender);
+    }
+
+    @AfterClass
+    public static void removeAppender() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).detachAppender(_appender);
+    }
+
+    private static JmsMatsFactory<?> factory() {
+        return (JmsMatsFactory<?>) MATS.getMatsFactory();
+    }
+
+    private int sendAndCountLines(String prefix) throws InterruptedException {
+        synchronized (_appender) {
+            _appender.list.clear();
+        }
+        _latch = new CountDownLatch(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            int msgNum = i;
+            MATS.getMatsInitiator().initiateUnchecked(
+                    (msg) -> msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("test"))
+                            .to(TERMINATOR)
+                            .send(new DataTO(msgNum, "Msg" + msgNum)));
+        }
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+        // The PROCESSED line is output after the Terminator's lambda has counted down, so give it a moment.
+        Thread.sleep(100);
+        return countLines(prefix);
+    }
+
+    private int countLines(String prefix) {
+        // The appender appends synchronized on itself.
+        synchronized (_appender) {
+            return (int) _appender.list.stream()
+                    .filter(e -> e.getFormattedMessage().startsWith(prefix))
+                    .count();
+        }
+    }
+
+    @Test
+    public void sampleRates() throws InterruptedException {
+        String initiatorName = MATS.getMatsInitiator().getName();
+        try {
+            // :: Nothing
+            factory().setPerMessageLogSampleRate(initiatorName, 0);
+            factory().setPerMessageLogSampleRate(TERMINATOR, 0);
+            Assert.assertEquals(0, sendAndCountLines("#JMATS# SENT"));
+            Assert.assertEquals(0, countLines("#JMATS# RECEIVED"));
+
+            // :: Everything
+            factory().setPerMessageLogSampleRate(initiatorName, 1);
+            factory().setPerMessageLogSampleRate(TERMINATOR, 1);
+            Assert.assertEquals(MESSAGES, sendAndCountLines("#JMATS# SENT"));
+            Assert.assertEquals(MESSAGES, countLines("#JMATS# RECEIVED"));
+        }
+        finally {
+            factory().setPerMessageLogSampleRate(initiatorName, -1);
+            factory().setPerMessageLogSampleRate(TERMINATOR, -1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.stolsvik.mats.lib_test.concurrency;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests {@link JmsMatsFactory#setPipelinedCommit(boolean)}: With the StageProcessors alternating between two JMS
+ * Sessions, handing the commits off to a committer thread, all messages shall still get through the Service to the
+ * Terminator exactly once, and the doAfterCommit lambda shall be run for every message. Also, a lone message shall be
+ * picked up right away whichever of the two Sessions' MessageConsumers it is dispatched to, i.e. sequential
+ * request-replies shall not be held up by the StageProcessor waiting on the other Session.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator] x 100 messages
+ *     [Service] - reply, with doAfterCommit
+ * [Terminator] counting down a 100-latch.
+ * </pre>
+ */
+public class Test_PipelinedCommit {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String TERMINATOR_SEQUENTIAL = MatsTestHelp.endpointId("sequentialTerminator");
+
+    private static final int MESSAGES = 100;
+
+    private static final CountDownLatch _terminatorLatch = new CountDownLatch(MESSAGES);
+    private static final CountDownLatch _doAfterCommitLatch = new CountDownLatch(MESSAGES);
+    private static final Set<Integer> _received = ConcurrentHashMap.newKeySet();
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        // Must be set before the endpoints are made, as it is read when the StageProcessors establish their Sessions.
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setPipelinedCommit(true);
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class, (context, dto) -> {
+            context.doAfterCommit(_doAfterCommitLatch::countDown);
+            return new DataTO(dto.number, dto.string + ":FromService");
+        });
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class, (context, sto, dto) -> {
+            Assert.assertTrue("Got message twice: " + dto, _received.add((int) dto.number));
+            _terminatorLatch.countDown();
+        });
+        MATS.getMatsFactory().terminator(TERMINATOR_SEQUENTIAL, StateTO.class, DataTO.class,
+                (context, sto, dto) -> MATS.getMatsTestLatch().resolve(sto, dto));
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            int msgNum = i;
+            MATS.getMatsInitiator().initiateUnchecked(
+                    (msg) -> msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("test"))
+                            .to(SERVICE)
+                            .replyTo(TERMINATOR, new StateTO(msgNum, msgNum))
+                            .request(new DataTO(msgNum, "Msg" + msgNum)));
+        }
+        Assert.assertTrue("Did not get all messages", _terminatorLatch.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue("Did not run all doAfterCommits", _doAfterCommitLatch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(MESSAGES, _received.size());
+    }
+
+    @Test
+    public void sequentialRequestsNotHeldUp() {
+        int requests = 20;
+        long nanosStart = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int msgNum = i;
+            MATS.getMatsInitiator().initiateUnchecked(
+                    (msg) -> msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("sequential"))
+                            .to(SERVICE)
+                            .replyTo(TERMINATOR_SEQUENTIAL, new StateTO(msgNum, msgNum))
+                            .request(new DataTO(msgNum, "Msg" + msgNum)));
+            Assert.assertEquals(new DataTO(msgNum, "Msg" + msgNum + ":FromService"),
+                    MATS.getMatsTestLatch().waitForResult().getData());
+        }
+        long millisPerRequest = (System.nanoTime() - nanosStart) / 1_000_000 / requests;
+        // Locally, this is some few ms - while a StageProcessor polling its two Sessions in turn easily used 40.
+        Assert.assertTrue("Sequential requests were held up, [" + millisPerRequest + " ms] per request",
+                millisPerRequest < 20);
+    }
+}
@@ -0,0 +1,111 @@
+package com.stolsvik.mats.lib_test.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling.PoolStatistics;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Hammers the {@link JmsMatsJmsSessionHandler_Pooling} by having many threads initiate concurrently using the same
+ * MatsInitiator (i.e. the same pooling key), checking that all messages arrive, and that the pool's statistics add up:
+ * Every get of a SessionHolder shall either have reused an available SessionHolder, or have created a new one.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator] x 16 threads, each firing off 50 messages.
+ * [Terminator] counting down a 800-latch.
+ * </pre>
+ */
+public class Test_SessionPoolConcurrentInitiations {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final int THREADS = 16;
+    private static final int MESSAGES_PER_THREAD = 50;
+
+    private static final CountDownLatch _latch = new CountDownLatch(THREADS * MESSAGES_PER_THREAD);
+
+    @BeforeClass
+    public static void setupTerminator() {
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        JmsMatsJmsSessionHandler_Pooling pool = (JmsMatsJmsSessionHandler_Pooling) ((JmsMatsFactory<?>) MATS
+                .getMatsFactory()).getJmsMatsJmsSessionHandler();
+        PoolStatistics before = settledPoolStatistics(pool);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int threadNum = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    int msgNum = i;
+                    MATS.getMatsInitiator().initiateUnchecked(
+                            (msg) -> msg.traceId(MatsTestHelp.traceId())
+                                    .from(MatsTestHelp.from("test"))
+                                    .to(TERMINATOR)
+                                    .send(new DataTO(threadNum, "Msg" + msgNum)));
+                }
+            }, "Test_SessionPoolConcurrentInitiations#" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+
+        PoolStatistics after = settledPoolStatistics(pool);
+        log.info("Pool statistics before: " + before);
+        log.info("Pool statistics after:  " + after);
+
+        long gets = after.getSessionHolderGets() - before.getSessionHolderGets();
+        long reused = after.getSessionHoldersReused() - before.getSessionHoldersReused();
+        long created = after.getSessionHoldersCreated() - before.getSessionHoldersCreated();
+        // At least one get per initiation (the Terminator's StageProcessor also gets its Session from the pool).
+        Assert.assertTrue("Gets: " + gets, gets >= THREADS * MESSAGES_PER_THREAD);
+        Assert.assertEquals(gets, reused + created);
+        // There cannot have been more concurrently employed Sessions than there are threads (+1 for the Terminator).
+        Assert.assertTrue("Created: " + created, created <= THREADS + 1);
+        Assert.assertEquals(0, after.getCrashedPools());
+    }
+
+    /**
+     * The Terminator's StageProcessors get their Sessions concurrently with the test, and the statistics' counters are
+     * not read atomically - so wait until there is no get in flight, i.e. until the gets add up.
+     */
+    private static PoolStatistics settledPoolStatistics(JmsMatsJmsSessionHandler_Pooling pool)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            PoolStatistics stats = pool.getPoolStatistics();
+            if (stats.getSessionHolderGets() == stats.getSessionHoldersReused() + stats.getSessionHoldersCreated()) {
+                return stats;
+            }
+            Thread.sleep(10);
+        }
+        return pool.getPoolStatistics();
+    }
+}
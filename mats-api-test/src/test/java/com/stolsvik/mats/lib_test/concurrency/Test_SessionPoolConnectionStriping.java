@@ -0,0 +1,75 @@
+package com.stolsvik.mats.lib_test.concurrency;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling.PoolStatistics;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests that {@link JmsMatsJmsSessionHandler_Pooling#setConnectionsPerPoolingKey(int)} stripes the Sessions over
+ * several JMS Connections for the same pooling key, and that messages still flow as normal.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator] x 100 messages, round-robin over the Connections.
+ * [Terminator] with its StageProcessors spread over the Connections, counting down a 100-latch.
+ * </pre>
+ */
+public class Test_SessionPoolConnectionStriping {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final int CONNECTIONS = 4;
+    private static final int MESSAGES = 100;
+
+    private static final CountDownLatch _latch = new CountDownLatch(MESSAGES);
+
+    private static JmsMatsJmsSessionHandler_Pooling pool() {
+        return (JmsMatsJmsSessionHandler_Pooling) ((JmsMatsFactory<?>) MATS.getMatsFactory())
+                .getJmsMatsJmsSessionHandler();
+    }
+
+    @BeforeClass
+    public static void setupTerminator() {
+        // Stripe before the Terminator is made, so that its StageProcessors are also spread.
+        pool().setConnectionsPerPoolingKey(CONNECTIONS);
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+    }
+
+    @Test
+    public void doTest() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            int msgNum = i;
+            MATS.getMatsInitiator().initiateUnchecked(
+                    (msg) -> msg.traceId(MatsTestHelp.traceId())
+                            .from(MatsTestHelp.from("test"))
+                            .to(TERMINATOR)
+                            .send(new DataTO(msgNum, "Msg" + msgNum)));
+        }
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+
+        PoolStatistics stats = pool().getPoolStatistics();
+        log.info("Pool statistics: " + stats);
+        // The Initiator goes round-robin, so all the Connections shall be in use (for the same pooling key).
+        Assert.assertTrue("LivePools: " + stats, stats.getLivePools() >= CONNECTIONS);
+        Assert.assertEquals(0, stats.getCrashedPools());
+    }
+}
@@ -0,0 +1,126 @@
+package com.stolsvik.mats.lib_test.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler_Pooling.PoolStatistics;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+/**
+ * Tests the sizing limits of the {@link JmsMatsJmsSessionHandler_Pooling}: With a max number of Sessions per
+ * Connection, many threads initiating concurrently shall wait for each other instead of creating more Sessions - and
+ * with an idle timeout, the surplus Sessions shall be evicted afterwards.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator] x 16 threads, each firing off 20 messages, sharing only 2 more Sessions than what is already there.
+ * [Terminator] counting down a 320-latch.
+ * </pre>
+ */
+public class Test_SessionPoolSizing {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+
+    private static final int THREADS = 16;
+    private static final int MESSAGES_PER_THREAD = 20;
+
+    private static volatile CountDownLatch _latch;
+
+    @BeforeClass
+    public static void setupTerminator() {
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                (context, sto, dto) -> _latch.countDown());
+    }
+
+    private static JmsMatsJmsSessionHandler_Pooling pool() {
+        return (JmsMatsJmsSessionHandler_Pooling) ((JmsMatsFactory<?>) MATS.getMatsFactory())
+                .getJmsMatsJmsSessionHandler();
+    }
+
+    @After
+    public void resetPool() {
+        pool().setMaxSessionsPerConnection(0, 0).setIdleTimeoutMillis(0);
+    }
+
+    private void sendFromManyThreads() throws InterruptedException {
+        _latch = new CountDownLatch(THREADS * MESSAGES_PER_THREAD);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int threadNum = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    sendOne(threadNum, i);
+                }
+            }, "Test_SessionPoolSizing#" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue("Did not get all messages", _latch.await(30, TimeUnit.SECONDS));
+    }
+
+    private void sendOne(int threadNum, int msgNum) {
+        MATS.getMatsInitiator().initiateUnchecked(
+                (msg) -> msg.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("test"))
+                        .to(TERMINATOR)
+                        .send(new DataTO(threadNum, "Msg" + msgNum)));
+    }
+
+    @Test
+    public void maxSessionsAndIdleEviction() throws InterruptedException {
+        JmsMatsJmsSessionHandler_Pooling pool = pool();
+
+        // :: Get the Terminator's StageProcessors going, so that their Sessions are employed.
+        _latch = new CountDownLatch(1);
+        sendOne(-1, -1);
+        Assert.assertTrue("Did not get the first message", _latch.await(30, TimeUnit.SECONDS));
+
+        PoolStatistics before = pool.getPoolStatistics();
+        int maxSessions = before.getEmployedSessions() + before.getAvailableSessions() + 2;
+        pool.setMaxSessionsPerConnection(maxSessions, 30_000);
+
+        sendFromManyThreads();
+
+        PoolStatistics after = pool.getPoolStatistics();
+        log.info("Pool statistics before: " + before);
+        log.info("Pool statistics after:  " + after);
+        Assert.assertEquals(0, after.getRejectedGets() - before.getRejectedGets());
+        Assert.assertTrue("Sessions: " + after, after.getEmployedSessions() + after.getAvailableSessions()
+                <= maxSessions);
+        Assert.assertEquals(0, after.getCrashedPools());
+
+        // :: Now let the available Sessions go idle, and have the next release evict them.
+        pool.setIdleTimeoutMillis(1);
+        Thread.sleep(50);
+        _latch = new CountDownLatch(1);
+        sendOne(-1, -2);
+        Assert.assertTrue("Did not get the last message", _latch.await(30, TimeUnit.SECONDS));
+
+        PoolStatistics evicted = pool.getPoolStatistics();
+        log.info("Pool statistics evicted: " + evicted);
+        Assert.assertTrue("Evicted: " + evicted, evicted.getSessionHoldersEvicted() > 0);
+        Assert.assertEquals(0, evicted.getCrashedPools());
+    }
+}
@@ -0,0 +1,93 @@
+package com.stolsvik.mats.lib_test.performance;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.slf4j.Logger;
+
+import com.stolsvik.mats.test.MatsTestHelp;
+
+/**
+ * Harness for measuring the steady-state bytes allocated per message by the StageProcessor threads of an endpoint,
+ * using {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}: Runs a warmup round of messages, then
+ * sums the allocations of the threads whose name contains the given part over a measured round, and fails if the
+ * average per message exceeds the budget.
+ * <p/>
+ * The threads are found after the warmup, so they must be running by then - i.e. the StageProcessors. Only the
+ * allocations of those threads are counted, not e.g. the initiator's or the broker's.
+ */
+final class AllocationMeter {
+    private static final Logger log = MatsTestHelp.getClassLogger();
+
+    /**
+     * A round of messages: Sends the given number of messages through the endpoint under test, and waits for them to
+     * be processed.
+     */
+    @FunctionalInterface
+    interface MessageRound {
+        void sendAndWait(int messages) throws InterruptedException;
+    }
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @param what
+     *            description used in the log line and the assertion message.
+     * @param threadNamePart
+     *            the part of the thread names to measure, e.g. the endpointId + '#' for all StageProcessors of a
+     *            single-stage endpoint.
+     * @param warmupMessages
+     *            number of messages to run before measuring, to get JIT and pools into steady state.
+     * @param measuredMessages
+     *            number of messages to average over.
+     * @param budgetBytesPerMessage
+     *            the max average number of bytes allocated per message.
+     * @param round
+     *            sends the messages and waits for them.
+     * @return the measured bytes per message.
+     */
+    static long assertWithinBudget(String what, String threadNamePart, int warmupMessages, int measuredMessages,
+            long budgetBytesPerMessage, MessageRound round) throws InterruptedException {
+        Assume.assumeTrue("Thread allocation measurement not supported by this JVM",
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue("Thread allocation measurement not enabled in this JVM",
+                threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        round.sendAndWait(warmupMessages);
+        List<Thread> threads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().contains(threadNamePart))
+                .collect(Collectors.toList());
+        Assert.assertFalse("Did not find any threads containing [" + threadNamePart + "].", threads.isEmpty());
+
+        long bytesBefore = allocatedBytes(threadMXBean, threads);
+        round.sendAndWait(measuredMessages);
+        long bytesAfter = allocatedBytes(threadMXBean, threads);
+
+        long bytesPerMessage = (bytesAfter - bytesBefore) / measuredMessages;
+        log.info(what + ": The [" + threads.size() + "] threads containing [" + threadNamePart + "] allocated ["
+                + bytesPerMessage + " B] per message, averaged over [" + measuredMessages + "] messages. Budget: ["
+                + budgetBytesPerMessage + " B].");
+        Assert.assertTrue("Allocation measurement did not work for " + what, bytesPerMessage > 0);
+        Assert.assertTrue(what + ": Allocated [" + bytesPerMessage + " B] per message, which is above the budget of ["
+                + budgetBytesPerMessage + " B].", bytesPerMessage <= budgetBytesPerMessage);
+        return bytesPerMessage;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threadMXBean, List<Thread> threads) {
+        long sum = 0;
+        for (Thread thread : threads) {
+            long allocated = threadMXBean.getThreadAllocatedBytes(thread.getId());
+            // ?: Is the thread still alive? (-1 if not)
+            if (allocated > 0) {
+                sum += allocated;
+            }
+        }
+        return sum;
+    }
+}
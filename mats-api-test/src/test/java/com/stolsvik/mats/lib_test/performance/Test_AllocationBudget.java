@@ -0,0 +1,162 @@
+package com.stolsvik.mats.lib_test.performance;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import com.stolsvik.mats.MatsEndpoint;
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.lib_test.StateTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Regression guard for the steady-state allocations per stage hop, using the {@link AllocationMeter}: Measures the
+ * bytes allocated per message by the StageProcessor threads of a Terminator, a single-stage Service and a three-stage
+ * Service, and fails if above the budget. The measuring is done as in production, i.e. with the per-message log lines
+ * sampled off ({@link JmsMatsFactory#setPerMessageLogSampleRate(int)}) and without any DEBUG logging - neither Mats'
+ * nor ActiveMQ's, whatever the runner's logback configuration says.
+ * The budgets are about 25% above what was measured when they were set, which leaves room for JVM variations, but
+ * trips on real regressions. If an improvement to e.g. MatsTraceStringImpl, MatsSerializerJson or JmsMatsStatics
+ * lowers the numbers, lower the budgets correspondingly, so that the improvement stays put.
+ * <p>
+ * ASCII-artsy, it looks like this:
+ *
+ * <pre>
+ * [Initiator] x warmup + measured messages, for each of:
+ * [Terminator]                 - measured
+ *
+ * [Initiator]
+ *     [Single]                 - measured, reply
+ * [Sink Terminator]
+ *
+ * [Initiator]
+ *     [Multi S0 - init]        - measured, next
+ *     [Multi S1]               - measured, next
+ *     [Multi S2 - last]        - measured, reply
+ * [Sink Terminator]
+ * </pre>
+ */
+public class Test_AllocationBudget {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String TERMINATOR = MatsTestHelp.terminator();
+    private static final String SINK = MatsTestHelp.endpointId("Sink");
+    private static final String SINGLE = MatsTestHelp.endpointId("Single");
+    private static final String MULTI = MatsTestHelp.endpointId("Multi");
+
+    private static final int WARMUP_MESSAGES = 500;
+    private static final int MEASURED_MESSAGES = 1000;
+
+    // Measured: 10 KB, 30 KB and 95 KB per message.
+    private static final long BUDGET_TERMINATOR = 13_000;
+    private static final long BUDGET_SINGLE = 37_000;
+    private static final long BUDGET_MULTI = 119_000;
+
+    private static volatile CountDownLatch _latch;
+
+    // The root logger, and the loggers of Mats and ActiveMQ explicitly, in case the runner's logback configuration has
+    // set any of them to DEBUG - which would then be counted on the StageProcessor threads.
+    private static final Logger[] _loggers = {
+            (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME),
+            (Logger) LoggerFactory.getLogger("com.stolsvik.mats"),
+            (Logger) LoggerFactory.getLogger("org.apache.activemq") };
+    private static final Level[] _loggerLevelsBefore = new Level[_loggers.length];
+
+    @BeforeClass
+    public static void setupLogging() {
+        // Measure as in production: No per-message log lines, and no DEBUG logging.
+        ((JmsMatsFactory<?>) MATS.getMatsFactory()).setPerMessageLogSampleRate(0);
+        for (int i = 0; i < _loggers.length; i++) {
+            _loggerLevelsBefore[i] = _loggers[i].getLevel();
+            _loggers[i].setLevel(Level.INFO);
+        }
+    }
+
+    @AfterClass
+    public static void restoreLogging() {
+        for (int i = 0; i < _loggers.length; i++) {
+            _loggers[i].setLevel(_loggerLevelsBefore[i]);
+        }
+    }
+
+    @BeforeClass
+    public static void setupEndpoints() {
+        // Concurrency 1 all over, to measure a steady flow through few threads.
+        MATS.getMatsFactory().terminator(TERMINATOR, StateTO.class, DataTO.class,
+                endpointConfig -> endpointConfig.setConcurrency(1),
+                stageConfig -> {
+                },
+                (context, sto, dto) -> _latch.countDown());
+        MATS.getMatsFactory().terminator(SINK, StateTO.class, DataTO.class,
+                endpointConfig -> endpointConfig.setConcurrency(1),
+                stageConfig -> {
+                },
+                (context, sto, dto) -> _latch.countDown());
+        MATS.getMatsFactory().single(SINGLE, DataTO.class, DataTO.class,
+                endpointConfig -> endpointConfig.setConcurrency(1),
+                stageConfig -> {
+                },
+                (context, dto) -> new DataTO(dto.number * 2, dto.string + ":FromSingle"));
+        MatsEndpoint<DataTO, StateTO> ep = MATS.getMatsFactory().staged(MULTI, DataTO.class, StateTO.class,
+                endpointConfig -> endpointConfig.setConcurrency(1));
+        ep.stage(DataTO.class, (context, sto, dto) -> {
+            sto.number1 = 1;
+            context.next(dto);
+        });
+        ep.stage(DataTO.class, (context, sto, dto) -> {
+            sto.number1 = 2;
+            context.next(dto);
+        });
+        ep.lastStage(DataTO.class, (context, sto, dto) -> new DataTO(dto.number * sto.number1,
+                dto.string + ":FromMulti"));
+    }
+
+    @Test
+    public void terminator() throws InterruptedException {
+        AllocationMeter.assertWithinBudget("Terminator", TERMINATOR + '#', WARMUP_MESSAGES, MEASURED_MESSAGES,
+                BUDGET_TERMINATOR, messages -> sendAndWait(TERMINATOR, false, messages));
+    }
+
+    @Test
+    public void singleStage() throws InterruptedException {
+        AllocationMeter.assertWithinBudget("Single-stage", SINGLE + '#', WARMUP_MESSAGES, MEASURED_MESSAGES,
+                BUDGET_SINGLE, messages -> sendAndWait(SINGLE, true, messages));
+    }
+
+    @Test
+    public void multiStage() throws InterruptedException {
+        // Notice: Contains all three stages, i.e. "Multi#", "Multi.stage1#" and "Multi.stage2#".
+        AllocationMeter.assertWithinBudget("Multi-stage", MULTI, WARMUP_MESSAGES, MEASURED_MESSAGES,
+                BUDGET_MULTI, messages -> sendAndWait(MULTI, true, messages));
+    }
+
+    private static void sendAndWait(String to, boolean request, int messages) throws InterruptedException {
+        _latch = new CountDownLatch(messages);
+        MATS.getMatsInitiator().initiateUnchecked((init) -> {
+            for (int i = 0; i < messages; i++) {
+                init.traceId(MatsTestHelp.traceId())
+                        .from(MatsTestHelp.from("measure"))
+                        .to(to);
+                if (request) {
+                    init.replyTo(SINK, new StateTO(i, i)).request(new DataTO(i, "Msg" + i));
+                }
+                else {
+                    init.send(new DataTO(i, "Msg" + i));
+                }
+            }
+        });
+        Assert.assertTrue("Did not get all messages", _latch.await(60, TimeUnit.SECONDS));
+    }
+}
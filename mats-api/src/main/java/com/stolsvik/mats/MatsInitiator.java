@@ -1,7 +1,12 @@
 package com.stolsvik.mats;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.stolsvik.mats.MatsEndpoint.DetachedProcessContext;
 import com.stolsvik.mats.MatsEndpoint.ProcessContext;
@@ -63,6 +68,71 @@ public interface MatsInitiator extends Closeable {
     void initiateUnchecked(InitiateLambda lambda) throws MatsBackendRuntimeException,
             MatsMessageSendRuntimeException;
 
+    /**
+     * Bulk variant of {@link #initiate(InitiateLambda)}, meant for initiating a large number of messages, e.g. when
+     * some batch job needs to fire off a message per row in a table: The items are consumed from the provided
+     * {@link Iterator}, and the {@link BulkInitiateLambda} is invoked once per item, with the {@link MatsInitiate}
+     * instance of the current <i>chunk</i>. Each chunk of <code>chunkSize</code> items is run in a separate
+     * transaction, i.e. the messages of a chunk are committed together, and then the next chunk is started. This
+     * amortizes the cost of the transaction commit (which for a persistent JMS message broker typically implies a disk
+     * sync) over many messages, while still bounding the size of each transaction.
+     * <p/>
+     * The implementation may perform the serialization of the outgoing messages of a chunk in parallel, as the JMS
+     * implementation does - i.e. the <code>BulkInitiateLambda</code> is invoked for all items of a chunk on the calling
+     * thread, but the serialization (and compression) of the resulting messages may be spread over multiple threads
+     * before they are sent on the calling thread.
+     * <p/>
+     * <b>Notice: If a chunk fails, the preceding chunks have already been committed</b>, and the exception is thrown
+     * out: The iterator will at that point have been consumed past the items of the failing chunk. The default
+     * implementation just loops over the items, invoking {@link #initiate(InitiateLambda)} per chunk.
+     *
+     * @param items
+     *            the items to initiate messages for - one invocation of the lambda per item.
+     * @param chunkSize
+     *            how many items to include per transaction - must be at least 1.
+     * @param lambda
+     *            invoked per item, with the {@link MatsInitiate} of the current chunk, and the item.
+     * @param <T>
+     *            the type of the items.
+     * @return a {@link BulkInitiateReport} with timings per chunk.
+     * @throws MatsBackendException
+     *             if the Mats implementation cannot connect to the underlying message broker, or are having problems
+     *             interacting with it - read more at {@link #initiate(InitiateLambda)}.
+     * @throws MatsMessageSendException
+     *             if the Mats implementation cannot send the messages after it has executed the initiation lambda and
+     *             committed external resources - read more at {@link #initiate(InitiateLambda)}.
+     */
+    default <T> BulkInitiateReport initiateBulk(Iterator<T> items, int chunkSize, BulkInitiateLambda<T> lambda)
+            throws MatsBackendException, MatsMessageSendException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be >= 1, was [" + chunkSize + "].");
+        }
+        long nanosStart = System.nanoTime();
+        List<ChunkReport> chunkReports = new ArrayList<>();
+        while (items.hasNext()) {
+            long nanosStartChunk = System.nanoTime();
+            int[] numberOfItems = new int[1];
+            initiate(init -> {
+                while ((numberOfItems[0] < chunkSize) && items.hasNext()) {
+                    lambda.initiate(init, items.next());
+                    numberOfItems[0]++;
+                }
+            });
+            chunkReports.add(new ChunkReport(chunkReports.size(), numberOfItems[0], -1, -1, -1, -1,
+                    (System.nanoTime() - nanosStartChunk) / 1_000_000d));
+        }
+        return new BulkInitiateReport(chunkReports, (System.nanoTime() - nanosStart) / 1_000_000d);
+    }
+
+    /**
+     * Convenience variant of {@link #initiateBulk(Iterator, int, BulkInitiateLambda)} taking a {@link Stream}, which
+     * is consumed via its {@link Stream#iterator() iterator}.
+     */
+    default <T> BulkInitiateReport initiateBulk(Stream<T> items, int chunkSize, BulkInitiateLambda<T> lambda)
+            throws MatsBackendException, MatsMessageSendException {
+        return initiateBulk(items.iterator(), chunkSize, lambda);
+    }
+
     /**
      * Will be thrown by the {@link MatsInitiator#initiate(InitiateLambda)}-method if it is not possible at this time to
      * establish a connection to the underlying messaging system (e.g. to ActiveMQ if used in JMS implementation with
@@ -173,11 +243,169 @@ public interface MatsInitiator extends Closeable {
         }
     }
 
+    /**
+     * Thrown out of the initiate-methods if the implementation employs throttling of initiations - e.g. rate limits or
+     * backpressure per target endpoint - and an outgoing message could not go within the allowed time. The initiation
+     * has then been rolled back, i.e. no messages were sent, and any external resource (typically database) has
+     * <b>not</b> been committed - so it is safe to retry later, or to answer e.g. "503 Service Unavailable". It is
+     * unchecked, as it only occurs if throttling is set up.
+     */
+    class MatsThrottledException extends RuntimeException {
+        private final String _targetEndpointId;
+
+        public MatsThrottledException(String message, String targetEndpointId) {
+            super(message);
+            _targetEndpointId = targetEndpointId;
+        }
+
+        /**
+         * @return the endpointId which the throttled message was to.
+         */
+        public String getTargetEndpointId() {
+            return _targetEndpointId;
+        }
+    }
+
     @FunctionalInterface
     interface InitiateLambda {
         void initiate(MatsInitiate init);
     }
 
+    /**
+     * The lambda employed by {@link #initiateBulk(Iterator, int, BulkInitiateLambda)}, invoked once per item.
+     */
+    @FunctionalInterface
+    interface BulkInitiateLambda<T> {
+        void initiate(MatsInitiate init, T item);
+    }
+
+    /**
+     * The result of {@link #initiateBulk(Iterator, int, BulkInitiateLambda)}: Timings for each chunk, and the total.
+     */
+    class BulkInitiateReport {
+        private final List<ChunkReport> _chunkReports;
+        private final double _millisTotal;
+
+        public BulkInitiateReport(List<ChunkReport> chunkReports, double millisTotal) {
+            _chunkReports = Collections.unmodifiableList(chunkReports);
+            _millisTotal = millisTotal;
+        }
+
+        /**
+         * @return the report for each of the chunks, in the order they were committed.
+         */
+        public List<ChunkReport> getChunkReports() {
+            return _chunkReports;
+        }
+
+        public int getNumberOfChunks() {
+            return _chunkReports.size();
+        }
+
+        /**
+         * @return the total number of items, i.e. invocations of the {@link BulkInitiateLambda}.
+         */
+        public int getNumberOfItems() {
+            int sum = 0;
+            for (ChunkReport chunkReport : _chunkReports) {
+                sum += chunkReport.getNumberOfItems();
+            }
+            return sum;
+        }
+
+        /**
+         * @return the total wall time of the bulk initiation, in milliseconds.
+         */
+        public double getMillisTotal() {
+            return _millisTotal;
+        }
+
+        @Override
+        public String toString() {
+            return "BulkInitiateReport[chunks:" + getNumberOfChunks() + ", items:" + getNumberOfItems()
+                    + ", total:" + _millisTotal + " ms]";
+        }
+    }
+
+    /**
+     * Timings for a single chunk of a {@link #initiateBulk(Iterator, int, BulkInitiateLambda) bulk initiation}. The
+     * split timings (produce, serialize, send, commit) are <code>-1</code> if the implementation does not measure them
+     * - the default implementation of <code>initiateBulk(..)</code> only measures the total.
+     */
+    class ChunkReport {
+        private final int _chunkIndex;
+        private final int _numberOfItems;
+        private final double _millisProduce;
+        private final double _millisSerialize;
+        private final double _millisSend;
+        private final double _millisCommit;
+        private final double _millisTotal;
+
+        public ChunkReport(int chunkIndex, int numberOfItems, double millisProduce, double millisSerialize,
+                double millisSend, double millisCommit, double millisTotal) {
+            _chunkIndex = chunkIndex;
+            _numberOfItems = numberOfItems;
+            _millisProduce = millisProduce;
+            _millisSerialize = millisSerialize;
+            _millisSend = millisSend;
+            _millisCommit = millisCommit;
+            _millisTotal = millisTotal;
+        }
+
+        /**
+         * @return the zero-based index of this chunk.
+         */
+        public int getChunkIndex() {
+            return _chunkIndex;
+        }
+
+        public int getNumberOfItems() {
+            return _numberOfItems;
+        }
+
+        /**
+         * @return time spent running the {@link BulkInitiateLambda} for the items of the chunk, in milliseconds.
+         */
+        public double getMillisProduce() {
+            return _millisProduce;
+        }
+
+        /**
+         * @return wall time spent serializing (and compressing) the outgoing messages of the chunk, in milliseconds.
+         */
+        public double getMillisSerialize() {
+            return _millisSerialize;
+        }
+
+        /**
+         * @return time spent sending the messages of the chunk (not yet committed), in milliseconds.
+         */
+        public double getMillisSend() {
+            return _millisSend;
+        }
+
+        /**
+         * @return time spent committing the chunk's transaction, in milliseconds.
+         */
+        public double getMillisCommit() {
+            return _millisCommit;
+        }
+
+        /**
+         * @return the total time for the chunk, including getting hold of the session, in milliseconds.
+         */
+        public double getMillisTotal() {
+            return _millisTotal;
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkReport#" + _chunkIndex + "[items:" + _numberOfItems + ", produce:" + _millisProduce
+                    + " ms, serialize:" + _millisSerialize + " ms, send:" + _millisSend + " ms, commit:"
+                    + _millisCommit + " ms, total:" + _millisTotal + " ms]";
+        }
+    }
+
     /**
      * Closes any underlying backend resource.
      */
@@ -0,0 +1,18 @@
+package com.stolsvik.mats.impl.jms;
+
+/**
+ * Tells whether an endpoint currently is overloaded, so that initiations sending to it should hold back, ref.
+ * {@link JmsMatsFactory#setInitiatorBackpressureSignal(JmsMatsBackpressureSignal)}. The implementation could e.g. look
+ * at the queue depths reported by the message broker's statistics or JMX, or at some application-level in-flight
+ * counter. It is invoked on the initiating threads for every initiation, so it must be thread safe and fast - i.e.
+ * typically answer from a periodically updated value.
+ */
+@FunctionalInterface
+public interface JmsMatsBackpressureSignal {
+    /**
+     * @param targetEndpointId
+     *            the endpointId that an initiation is about to send to.
+     * @return whether the endpoint currently is overloaded.
+     */
+    boolean isBackpressured(String targetEndpointId);
+}
@@ -81,9 +81,9 @@ public class JmsMatsEndpoint<R, S, Z> implements MatsEndpoint<R, S>, JmsMatsStat
 
         JmsMatsStage<R, S, I, Z> stage = new JmsMatsStage<>(this, stageId, _queue,
                 incomingClass, _stateClass, processor);
-        // :: Set this next stage's Id on the previous stage, unless we're first, in which case there is no previous.
+        // :: Set this next stage on the previous stage, unless we're first, in which case there is no previous.
         if (_stages.size() > 0) {
-            _stages.get(_stages.size() - 1).setNextStageId(stageId);
+            _stages.get(_stages.size() - 1).setNextStage(stage);
         }
         _stages.add(stage);
         stageConfigLambda.accept(stage.getStageConfig());
@@ -4,8 +4,12 @@ import java.io.BufferedInputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -20,8 +24,12 @@ import com.stolsvik.mats.MatsEndpoint.ProcessSingleLambda;
 import com.stolsvik.mats.MatsEndpoint.ProcessTerminatorLambda;
 import com.stolsvik.mats.MatsFactory;
 import com.stolsvik.mats.MatsInitiator;
+import com.stolsvik.mats.MatsInitiator.MatsThrottledException;
 import com.stolsvik.mats.MatsStage.StageConfig;
 import com.stolsvik.mats.serial.MatsSerializer;
+import com.stolsvik.mats.serial.MatsTrace;
+import com.stolsvik.mats.serial.MatsTrace.Call.Channel;
+import com.stolsvik.mats.serial.MatsTrace.Call.MessagingModel;
 
 public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsStartStoppable {
 
@@ -71,6 +79,7 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         _jmsMatsTransactionManager = jmsMatsTransactionManager;
         _matsSerializer = matsSerializer;
         _factoryConfig = new JmsMatsFactoryConfig();
+        _matsTraceMetaKey = _factoryConfig.getMatsTraceKey() + MatsSerializer.META_KEY_POSTFIX;
 
         log.info(LOG_PREFIX + "Created [" + idThis() + "].");
     }
@@ -110,6 +119,466 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         return _matsSerializer;
     }
 
+    /**
+     * Default for {@link #setParallelSerializationThreshold(int)}.
+     */
+    public static final int DEFAULT_PARALLEL_SERIALIZATION_THRESHOLD = 8;
+
+    private volatile int _parallelSerializationThreshold = DEFAULT_PARALLEL_SERIALIZATION_THRESHOLD;
+    private volatile ForkJoinPool _serializationForkJoinPool = ForkJoinPool.commonPool();
+
+    /**
+     * When a stage processing or an initiation produces at least this many outgoing messages (e.g. a scatter-gather
+     * stage doing many <code>context.request(..)</code>), the serialization and compression of the outgoing MatsTraces
+     * is spread over the {@link #setSerializationForkJoinPool(ForkJoinPool) serialization ForkJoinPool}, instead of
+     * being done sequentially on the stage or initiating thread. The serializations are joined before the JMS send.
+     * <p/>
+     * Notice: Below the threshold, each outgoing MatsTrace is serialized right away in the
+     * <code>context.request(..)</code>, <code>reply(..)</code>, <code>next(..)</code> etc., so that a failure is
+     * thrown from there, inside the user lambda. From the threshold-th message on, the serialization is deferred till
+     * after the user lambda, so a failure is then thrown from the sending instead.
+     * <p/>
+     * Default is {@link #DEFAULT_PARALLEL_SERIALIZATION_THRESHOLD}; set it to {@link Integer#MAX_VALUE} to never
+     * serialize in parallel.
+     *
+     * @param threshold
+     *            the number of outgoing messages at which to serialize in parallel, must be at least 2.
+     */
+    public void setParallelSerializationThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be >= 2, was [" + threshold + "].");
+        }
+        _parallelSerializationThreshold = threshold;
+    }
+
+    public int getParallelSerializationThreshold() {
+        return _parallelSerializationThreshold;
+    }
+
+    /**
+     * Sets the {@link ForkJoinPool} used for parallel serialization of outgoing messages, ref.
+     * {@link #setParallelSerializationThreshold(int)}. Default is {@link ForkJoinPool#commonPool()}.
+     *
+     * @param forkJoinPool
+     *            the pool to use for parallel serialization.
+     */
+    public void setSerializationForkJoinPool(ForkJoinPool forkJoinPool) {
+        if (forkJoinPool == null) {
+            throw new NullPointerException("forkJoinPool");
+        }
+        _serializationForkJoinPool = forkJoinPool;
+    }
+
+    public ForkJoinPool getSerializationForkJoinPool() {
+        return _serializationForkJoinPool;
+    }
+
+    private volatile JmsMatsMetrics _metrics = JmsMatsMetrics.NO_OP;
+
+    /**
+     * Sets the {@link JmsMatsMetrics} which receives the timings, message sizes and error counts of all Stages and
+     * Initiators of this factory. Default is {@link JmsMatsMetrics#NO_OP}.
+     *
+     * @param metrics
+     *            the metrics implementation to use.
+     */
+    public void setMetrics(JmsMatsMetrics metrics) {
+        if (metrics == null) {
+            throw new NullPointerException("metrics");
+        }
+        _metrics = metrics;
+    }
+
+    public JmsMatsMetrics getMetrics() {
+        return _metrics;
+    }
+
+    private volatile int _perMessageLogSampleRate = 1;
+    private final ConcurrentHashMap<String, Integer> _perMessageLogSampleRateOverrides = new ConcurrentHashMap<>();
+
+    /**
+     * Sets how often the per-message INFO log lines ("RECEIVED", "PRODUCED", "SENT" and "PROCESSED") are output: 1
+     * means for every message (the default), 0 means never, and N means for every N'th message (per StageProcessor)
+     * or initiation (randomly). The decision is taken once per message received or initiation performed, so either
+     * all or none of the lines for it are output. When not output, the log lines are not even constructed, nor are
+     * the MDC values that only serve them set. Errors and warnings are always logged.
+     *
+     * @param sampleRate
+     *            0 for never, 1 for every message, N for every N'th message.
+     */
+    public void setPerMessageLogSampleRate(int sampleRate) {
+        _perMessageLogSampleRate = validateSampleRate(sampleRate);
+    }
+
+    /**
+     * Overrides {@link #setPerMessageLogSampleRate(int)} for a specific Stage or Initiator - e.g. to silence a
+     * high-volume Stage, or to get all lines for a Stage under investigation.
+     *
+     * @param stageIdOrInitiatorName
+     *            the stageId of the Stage (for the initial Stage, this is the endpointId), or the name of the
+     *            Initiator.
+     * @param sampleRate
+     *            0 for never, 1 for every message, N for every N'th message - or -1 to remove the override.
+     */
+    public void setPerMessageLogSampleRate(String stageIdOrInitiatorName, int sampleRate) {
+        if (sampleRate == -1) {
+            _perMessageLogSampleRateOverrides.remove(stageIdOrInitiatorName);
+            return;
+        }
+        _perMessageLogSampleRateOverrides.put(stageIdOrInitiatorName, validateSampleRate(sampleRate));
+    }
+
+    /**
+     * @return the effective sample rate for the Stage or Initiator, ref. {@link #setPerMessageLogSampleRate(int)}.
+     */
+    public int getPerMessageLogSampleRate(String stageIdOrInitiatorName) {
+        // ?: Any overrides at all? (Avoiding the lookup in the common case)
+        if (!_perMessageLogSampleRateOverrides.isEmpty()) {
+            // -> Yes, so check if there is one for this Stage or Initiator.
+            Integer override = _perMessageLogSampleRateOverrides.get(stageIdOrInitiatorName);
+            if (override != null) {
+                return override;
+            }
+        }
+        return _perMessageLogSampleRate;
+    }
+
+    private volatile boolean _lazyOutgoingMdc;
+
+    /**
+     * If set, the MDC values for outgoing messages ("traceId" of the outgoing message, "mats.MatsMessageId.Out",
+     * "mats.MsgSend.From" etc.) are only set when the "PRODUCED" and "SENT" lines are actually output, ref.
+     * {@link #setPerMessageLogSampleRate(int)} - otherwise they are set for the sending of every outgoing message,
+     * so that e.g. any logging by the JMS provider gets them too. Default is <code>false</code>.
+     *
+     * @param lazyOutgoingMdc
+     *            whether to only set the outgoing MDC values when the message is logged.
+     */
+    public void setLazyOutgoingMdc(boolean lazyOutgoingMdc) {
+        _lazyOutgoingMdc = lazyOutgoingMdc;
+    }
+
+    public boolean isLazyOutgoingMdc() {
+        return _lazyOutgoingMdc;
+    }
+
+    private volatile boolean _pipelinedCommit;
+
+    /**
+     * If set, each StageProcessor employs two JMS Sessions, alternating between them: When the processing lambda and
+     * sending of outgoing messages are finished for a message on one Session, the commit of that Session is handed
+     * off to a committer thread owned by the StageProcessor, while the processor thread goes on to receive and
+     * deserialize the next message on the other Session. This hides the commit latency on high-latency links to the
+     * message broker. Since the broker may dispatch messages to both Sessions' MessageConsumers, each Session has a
+     * receiver thread which receives on it whenever the processor thread is done with it and its commit has finished,
+     * handing the message over - so that the processor thread takes the first message from either, without polling.
+     * Note that the broker will prefetch to both MessageConsumers, i.e. a StageProcessor has twice the prefetch.
+     * Default is <code>false</code>.
+     * <p/>
+     * Ordering: The commits are performed by a single committer thread, in the order the messages were received, and
+     * a Session is never used for a new message before its previous commit has finished. Any doAfterCommit lambda, and
+     * the "PROCESSED" log line, is run after the commit, and may thus be run on the committer thread. Note that if a
+     * commit fails, the message will be redelivered after the next message has been processed - just as with a
+     * StageProcessor concurrency above 1, no ordering between messages is guaranteed.
+     * <p/>
+     * The setting is read when the StageProcessors establish their JMS Sessions, so it should be set before the
+     * endpoints are created.
+     *
+     * @param pipelinedCommit
+     *            whether the StageProcessors should overlap the commit of one message with the reception of the next.
+     */
+    public void setPipelinedCommit(boolean pipelinedCommit) {
+        _pipelinedCommit = pipelinedCommit;
+    }
+
+    public boolean isPipelinedCommit() {
+        return _pipelinedCommit;
+    }
+
+    private volatile int _interactiveLaneConcurrency;
+    private final ConcurrentHashMap<String, JmsMatsStage<?, ?, ?, Z>> _interactiveLaneStages =
+            new ConcurrentHashMap<>();
+
+    /**
+     * If set above 0, each queue-based Stage of this MatsFactory gets an "interactive lane": A separate queue, named
+     * the stageId postfixed with {@value JmsMatsStatics#INTERACTIVE_LANE_POSTFIX}, consumed by this number of
+     * dedicated StageProcessors, in addition to the ordinary ones - and outgoing messages to such Stages that are
+     * flagged {@link com.stolsvik.mats.MatsInitiator.MatsInitiate#interactive() interactive} are sent to the Stage's
+     * interactive lane instead of its ordinary queue. This isolates the latency of user-facing flows from bulk load on
+     * the same stages, which the JMS priority alone does not, as it is not honored across the consumers' prefetch
+     * buffers. Topics are not affected. Default is 0, i.e. no interactive lanes.
+     * <p/>
+     * <b>Note:</b> Only Stages which this MatsFactory itself has started with an interactive lane are sent to on
+     * their lane, as only then is it known that someone consumes it - interactive messages to any other Stage, e.g.
+     * of other services, go to the ordinary queue as before (with the higher priority). Thus, this can be enabled on
+     * one service at a time, without coordination. The setting is read when the Stages are started.
+     *
+     * @param interactiveLaneConcurrency
+     *            the number of StageProcessors consuming each Stage's interactive lane, 0 for no interactive lanes.
+     */
+    public void setInteractiveLaneConcurrency(int interactiveLaneConcurrency) {
+        if (interactiveLaneConcurrency < 0) {
+            throw new IllegalArgumentException("interactiveLaneConcurrency must be >= 0, was ["
+                    + interactiveLaneConcurrency + "].");
+        }
+        _interactiveLaneConcurrency = interactiveLaneConcurrency;
+    }
+
+    public int getInteractiveLaneConcurrency() {
+        return _interactiveLaneConcurrency;
+    }
+
+    void registerInteractiveLaneStage(JmsMatsStage<?, ?, ?, Z> stage) {
+        _interactiveLaneStages.put(stage.getStageId(), stage);
+    }
+
+    void deregisterInteractiveLaneStage(JmsMatsStage<?, ?, ?, Z> stage) {
+        _interactiveLaneStages.remove(stage.getStageId(), stage);
+    }
+
+    /**
+     * @return whether the Stage has an interactive lane that is consumed, i.e. that it is a Stage of this MatsFactory
+     *         that is started with interactive lane StageProcessors, ref. {@link #setInteractiveLaneConcurrency(int)}.
+     */
+    boolean hasInteractiveLane(String stageId) {
+        // ?: Any Stages with interactive lanes at all? (Avoiding the lookup in the common case)
+        if (_interactiveLaneStages.isEmpty()) {
+            // -> No, so no interactive lane.
+            return false;
+        }
+        return _interactiveLaneStages.containsKey(stageId);
+    }
+
+    private volatile boolean _inlineNextStage;
+
+    /**
+     * If <code>true</code>, a {@link com.stolsvik.mats.MatsEndpoint.ProcessContext#next(Object) next(..)} which is the
+     * only outgoing message from a Stage is not sent via the broker, but handed directly to the next Stage of the
+     * endpoint: It is processed right away on the same thread, within the same transaction - thus trimming a broker
+     * roundtrip per stage-to-stage hop. Default is <code>false</code>.
+     * <p/>
+     * Since the Stages then share a transaction, a failure in a later Stage rolls back the whole chain, and the
+     * redelivery of the original message processes the earlier Stages again. The stages of an endpoint should thus
+     * be idempotent wrt. any side effects outside the transaction. Also, the chain is processed with the concurrency of
+     * the first Stage, and a long chain holds the transaction open for its entire duration.
+     *
+     * @param inlineNextStage
+     *            whether to process a lone next() directly, within the same transaction.
+     */
+    public void setInlineNextStage(boolean inlineNextStage) {
+        _inlineNextStage = inlineNextStage;
+    }
+
+    public boolean isInlineNextStage() {
+        return _inlineNextStage;
+    }
+
+    private volatile int _localShortCircuitConcurrency;
+    private final ConcurrentHashMap<String, JmsMatsStage<?, ?, ?, Z>> _localShortCircuitStages =
+            new ConcurrentHashMap<>();
+
+    /**
+     * If set above 0, {@link com.stolsvik.mats.MatsInitiator.MatsInitiate#nonPersistent() non-persistent} messages to
+     * queue-based Stages of this same MatsFactory are short-circuited in-JVM: Instead of being sent via the broker,
+     * they are handed, after the sender's transaction has committed, to an in-memory queue on the target Stage, which
+     * is consumed by this number of dedicated StageProcessors, in addition to the ordinary ones. The message is
+     * processed exactly as if it came from the broker (same MatsTrace, sideloads and properties), but skips the
+     * roundtrip to the broker. Default is 0, i.e. no short-circuiting.
+     * <p/>
+     * Non-persistent messages may be lost, and so it is here: If the JVM goes down, or the Stage is stopped, with
+     * short-circuited messages in the in-memory queue, they are lost. If the in-memory queue is full (ref.
+     * {@link #setLocalShortCircuitQueueCapacity(int)}), the message is instead sent via the broker, with its original
+     * persistence and priority. If the processing of a short-circuited message fails, or it is refused with
+     * MatsRefuseMessageException, it is forwarded with its remaining time-to-live to the Stage's queue on the broker,
+     * to get the ordinary redelivery and DLQ handling (a refused message thus goes to the DLQ if refused again) - unless
+     * its time-to-live has passed, in which case it is dropped, as the broker would have done. The setting is read when
+     * the Stages are started.
+     *
+     * @param localShortCircuitConcurrency
+     *            the number of StageProcessors consuming each Stage's in-memory queue, 0 for no short-circuiting.
+     */
+    public void setLocalShortCircuitConcurrency(int localShortCircuitConcurrency) {
+        if (localShortCircuitConcurrency < 0) {
+            throw new IllegalArgumentException("localShortCircuitConcurrency must be >= 0, was ["
+                    + localShortCircuitConcurrency + "].");
+        }
+        _localShortCircuitConcurrency = localShortCircuitConcurrency;
+    }
+
+    public int getLocalShortCircuitConcurrency() {
+        return _localShortCircuitConcurrency;
+    }
+
+    /**
+     * Default for {@link #setLocalShortCircuitQueueCapacity(int)}: 1000.
+     */
+    public static final int DEFAULT_LOCAL_SHORT_CIRCUIT_QUEUE_CAPACITY = 1000;
+
+    private volatile int _localShortCircuitQueueCapacity = DEFAULT_LOCAL_SHORT_CIRCUIT_QUEUE_CAPACITY;
+
+    /**
+     * The capacity of each Stage's in-memory queue of short-circuited messages, ref.
+     * {@link #setLocalShortCircuitConcurrency(int)}: When it is full, the messages are instead sent via the broker. It
+     * should be sized after the local StageProcessors' throughput, as a message may wait for all the ones before it,
+     * and all of them are lost if the JVM goes down. Default is {@link #DEFAULT_LOCAL_SHORT_CIRCUIT_QUEUE_CAPACITY}.
+     * The setting is read when the Stages are started.
+     *
+     * @param localShortCircuitQueueCapacity
+     *            the max number of short-circuited messages waiting in each Stage's in-memory queue, must be at least
+     *            1.
+     */
+    public void setLocalShortCircuitQueueCapacity(int localShortCircuitQueueCapacity) {
+        if (localShortCircuitQueueCapacity < 1) {
+            throw new IllegalArgumentException("localShortCircuitQueueCapacity must be >= 1, was ["
+                    + localShortCircuitQueueCapacity + "].");
+        }
+        _localShortCircuitQueueCapacity = localShortCircuitQueueCapacity;
+    }
+
+    public int getLocalShortCircuitQueueCapacity() {
+        return _localShortCircuitQueueCapacity;
+    }
+
+    void registerLocalShortCircuitStage(JmsMatsStage<?, ?, ?, Z> stage) {
+        _localShortCircuitStages.put(stage.getStageId(), stage);
+    }
+
+    void deregisterLocalShortCircuitStage(JmsMatsStage<?, ?, ?, Z> stage) {
+        _localShortCircuitStages.remove(stage.getStageId(), stage);
+    }
+
+    /**
+     * @return the local Stage to short-circuit the outgoing message to, or <code>null</code> if it shall go via the
+     *         broker, ref. {@link #setLocalShortCircuitConcurrency(int)}.
+     */
+    JmsMatsStage<?, ?, ?, Z> getLocalShortCircuitStage(MatsTrace<Z> outgoingMatsTrace) {
+        // ?: Any Stages to short-circuit to at all? (Fast path)
+        if (_localShortCircuitStages.isEmpty()) {
+            // -> No, so via the broker.
+            return null;
+        }
+        Channel to = outgoingMatsTrace.getCurrentCall().getTo();
+        // ?: Is this a non-persistent message to a queue?
+        if (!outgoingMatsTrace.isNonPersistent() || (to.getMessagingModel() != MessagingModel.QUEUE)) {
+            // -> No, so via the broker.
+            return null;
+        }
+        JmsMatsStage<?, ?, ?, Z> stage = _localShortCircuitStages.get(to.getId());
+        return (stage != null) && stage.hasLocalCapacity() ? stage : null;
+    }
+
+    /**
+     * Default for {@link #setInitiatorThrottleMaxWaitMillis(long)}: 0, i.e. fail fast.
+     */
+    public static final long DEFAULT_INITIATOR_THROTTLE_MAX_WAIT_MILLIS = 0;
+
+    private final ConcurrentHashMap<String, JmsMatsTokenBucket> _initiatorRateLimits = new ConcurrentHashMap<>();
+    private volatile JmsMatsBackpressureSignal _initiatorBackpressureSignal;
+    private volatile long _initiatorThrottleMaxWaitMillis = DEFAULT_INITIATOR_THROTTLE_MAX_WAIT_MILLIS;
+
+    /**
+     * Limits the rate of messages that initiations on this factory's MatsInitiators send to the specified endpoint,
+     * using a token bucket: Up to <code>burst</code> messages can go in one go, and then the rate is
+     * <code>messagesPerSecond</code>. An initiation that exceeds the rate is held back after its lambda has run, before
+     * its messages are sent (i.e. within the transaction), ref. {@link #setInitiatorThrottleMaxWaitMillis(long)}. The
+     * tokens for all of an initiation's messages to the endpoint are taken in one go, with a single wait - and an
+     * initiation with more messages to the endpoint than the burst is rejected up front, as it could never pass. A
+     * {@link MatsInitiator#initiateBulk(Iterator, int, MatsInitiator.BulkInitiateLambda) bulk initiation} instead ends a chunk when
+     * it reaches the burst, and waits for the refill between the chunks, i.e. outside of the transactions. Only
+     * initiations are limited, not messages sent by Stages. The time held back is recorded as
+     * {@link JmsMatsMetrics.Timing#THROTTLED}.
+     *
+     * @param targetEndpointId
+     *            the endpointId to limit the rate of initiated messages to.
+     * @param messagesPerSecond
+     *            the sustained rate, 0 removes the rate limit.
+     * @param burst
+     *            the number of messages that can go without being held back, must be at least 1.
+     */
+    public void setInitiatorRateLimit(String targetEndpointId, double messagesPerSecond, int burst) {
+        if (targetEndpointId == null) {
+            throw new NullPointerException("targetEndpointId");
+        }
+        if (messagesPerSecond == 0) {
+            _initiatorRateLimits.remove(targetEndpointId);
+            return;
+        }
+        if (!(messagesPerSecond > 0)) {
+            throw new IllegalArgumentException("messagesPerSecond must be > 0 (or 0 to remove), was ["
+                    + messagesPerSecond + "].");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be >= 1, was [" + burst + "].");
+        }
+        _initiatorRateLimits.put(targetEndpointId, new JmsMatsTokenBucket(messagesPerSecond, burst));
+    }
+
+    /**
+     * @return the rate limit for initiated messages to the endpoint, or <code>null</code> if none.
+     */
+    JmsMatsTokenBucket getInitiatorRateLimit(String targetEndpointId) {
+        // ?: Any rate limits at all? (Avoiding the lookup in the common case)
+        if (_initiatorRateLimits.isEmpty()) {
+            // -> No, so no rate limit.
+            return null;
+        }
+        return _initiatorRateLimits.get(targetEndpointId);
+    }
+
+    boolean hasInitiatorRateLimits() {
+        return !_initiatorRateLimits.isEmpty();
+    }
+
+    /**
+     * Sets a signal telling whether endpoints are overloaded: As long as an endpoint is backpressured, initiations
+     * sending to it are held back after their lambda has run, before their messages are sent, ref.
+     * {@link #setInitiatorThrottleMaxWaitMillis(long)}. The time held back is recorded as
+     * {@link JmsMatsMetrics.Timing#THROTTLED}. Default is <code>null</code>, i.e. no backpressure.
+     *
+     * @param backpressureSignal
+     *            the signal, or <code>null</code> to remove it.
+     */
+    public void setInitiatorBackpressureSignal(JmsMatsBackpressureSignal backpressureSignal) {
+        _initiatorBackpressureSignal = backpressureSignal;
+    }
+
+    public JmsMatsBackpressureSignal getInitiatorBackpressureSignal() {
+        return _initiatorBackpressureSignal;
+    }
+
+    /**
+     * The maximum time an initiation is held back by the {@link #setInitiatorRateLimit(String, double, int) rate
+     * limits} and the {@link #setInitiatorBackpressureSignal(JmsMatsBackpressureSignal) backpressure signal}: If it
+     * would have to wait longer, it instead fails with a {@link MatsThrottledException}, rolling back the initiation
+     * and giving back any rate limit tokens it took. 0 means fail fast, i.e. never wait, which is the default
+     * ({@link #DEFAULT_INITIATOR_THROTTLE_MAX_WAIT_MILLIS}).
+     * <p/>
+     * <b>Note that the waiting happens within the transaction</b>, i.e. holding a JMS Session (which might be capped,
+     * ref. {@link JmsMatsJmsSessionHandler_Pooling#setMaxSessionsPerConnection(int, long)}) and any SQL Connection
+     * for the duration - so if set, keep it short, e.g. some tens of milliseconds to smooth out bursts. Otherwise, let
+     * the caller handle the MatsThrottledException, e.g. by retrying later or answering "503 Service Unavailable".
+     *
+     * @param maxWaitMillis
+     *            the maximum time to hold back an initiation, 0 for fail fast.
+     */
+    public void setInitiatorThrottleMaxWaitMillis(long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis must be >= 0, was [" + maxWaitMillis + "].");
+        }
+        _initiatorThrottleMaxWaitMillis = maxWaitMillis;
+    }
+
+    public long getInitiatorThrottleMaxWaitMillis() {
+        return _initiatorThrottleMaxWaitMillis;
+    }
+
+    private static int validateSampleRate(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("sampleRate must be >= 0, was [" + sampleRate + "].");
+        }
+        return sampleRate;
+    }
+
     @Override
     public FactoryConfig getFactoryConfig() {
         return _factoryConfig;
@@ -251,6 +720,29 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
                 }
             }
 
+            @Override
+            public <T> BulkInitiateReport initiateBulk(Iterator<T> items, int chunkSize,
+                    BulkInitiateLambda<T> lambda) throws MatsBackendException, MatsMessageSendException {
+                Supplier<MatsInitiate> initiateSupplier = __stageDemarcatedMatsInitiate.get();
+                // ?: Are we within a MatsStage?
+                if (initiateSupplier != null) {
+                    // -> Evidently within a MatsStage, so the default implementation will end up using the
+                    // ThreadLocal MatsInitiate via initiate(..) above - i.e. all within the stage's transaction.
+                    return MatsInitiator.super.initiateBulk(items, chunkSize, lambda);
+                }
+                // E-> No, not within a MatsStage, so use the proper MatsInitiator, wrapping the lambda so that the
+                // __stageDemarcatedMatsInitiate is set before invoking the lambda.
+                return initiator.initiateBulk(items, chunkSize, (init, item) -> {
+                    __stageDemarcatedMatsInitiate.set(() -> init);
+                    try {
+                        lambda.initiate(init, item);
+                    }
+                    finally {
+                        __stageDemarcatedMatsInitiate.remove();
+                    }
+                });
+            }
+
             /**
              * Wrap a InitateLambda so that it sets the stage demarcated for nested calls.
              *
@@ -428,6 +920,31 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
                 log.warn("Got some throwable when starting endpoint [" + endpoint + "].", t);
             }
         }
+        // ?: Does the JMS Session handling want to be warmed up? (Otherwise, no default initiator or thread for it)
+        if (!_jmsMatsJmsSessionHandler.isWarmUpWanted()) {
+            // -> No, so then we're done.
+            return;
+        }
+        // :: Warm up the JMS Session handling for the initiators, so that the first initiation after deploy does not
+        // have to pay for creating the JMS Connection and Session.
+        // NOTE: On a separate thread, as getting a Connection might block, e.g. with a "failover:" URL and the broker
+        // down - and start() shall not block on the broker.
+        getOrCreateInitiator("default");
+        List<JmsMatsInitiator<?>> initiators = new ArrayList<>();
+        for (MatsInitiator initiator : getInitiators()) {
+            initiators.add((JmsMatsInitiator<?>) initiator);
+        }
+        Thread warmUpThread = new Thread(() -> {
+            try {
+                _jmsMatsJmsSessionHandler.warmUp(initiators);
+            }
+            catch (Throwable t) {
+                log.warn(LOG_PREFIX + "Got some throwable when warming up the JMS Session handling for the"
+                        + " initiators. Ignoring, as it will be retried upon first initiation.", t);
+            }
+        }, THREAD_PREFIX + idThis() + ":warmUp");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
     }
 
     @Override
@@ -497,6 +1014,32 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         return idThis();
     }
 
+    // Bumped on every change of the FactoryConfig, so that values derived from it can be cached.
+    private final AtomicInteger _factoryConfigGeneration = new AtomicInteger();
+
+    // The MapMessage key of the MatsTrace's meta, derived from the MatsTrace key - set in the constructor.
+    private volatile String _matsTraceMetaKey;
+
+    /**
+     * @return a number which changes whenever the {@link FactoryConfig} is changed - so that values derived from it,
+     *         e.g. identification Strings and MDC values, may be cached, and remade when it changes.
+     */
+    int getFactoryConfigGeneration() {
+        return _factoryConfigGeneration.get();
+    }
+
+    /**
+     * @return {@link FactoryConfig#getMatsTraceKey()} + {@link MatsSerializer#META_KEY_POSTFIX}, made once instead of
+     *         per message.
+     */
+    String getMatsTraceMetaKey() {
+        return _matsTraceMetaKey;
+    }
+
+    private void factoryConfigChanged() {
+        _factoryConfigGeneration.incrementAndGet();
+    }
+
     private class JmsMatsFactoryConfig implements FactoryConfig {
         // Set to default, which is 0 (which means default logic; 2x numCpus)
         private int _concurrency = 0;
@@ -517,6 +1060,7 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
             }
             String idBefore = idThis();
             _name = name;
+            factoryConfigChanged();
             log.info(LOG_PREFIX + "Set name to [" + name + "] for [" + idBefore + "], new id: [" + idThis() + "].");
         }
 
@@ -536,6 +1080,7 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
             log.info("MatsFactory's Mats Destination Prefix is set to [" + prefix + "] (was: [" + _matsDestinationPrefix
                     + "]).");
             _matsDestinationPrefix = prefix;
+            factoryConfigChanged();
             return this;
         }
 
@@ -548,6 +1093,8 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         public FactoryConfig setMatsTraceKey(String key) {
             log.info("MatsFactory's Mats Trace Key is set to [" + key + "] (was: [" + _matsTraceKey + "]).");
             _matsTraceKey = key;
+            _matsTraceMetaKey = key + MatsSerializer.META_KEY_POSTFIX;
+            factoryConfigChanged();
             return this;
         }
 
@@ -560,6 +1107,7 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         public FactoryConfig setConcurrency(int concurrency) {
             log.info("MatsFactory's Concurrency is set to [" + concurrency + "] (was: [" + _concurrency + "]).");
             _concurrency = concurrency;
+            factoryConfigChanged();
             return this;
         }
 
@@ -605,6 +1153,7 @@ public class JmsMatsFactory<Z> implements MatsFactory, JmsMatsStatics, JmsMatsSt
         @Override
         public FactoryConfig setNodename(String nodename) {
             _nodename = nodename;
+            factoryConfigChanged();
             return this;
         }
 
@@ -3,10 +3,12 @@ package com.stolsvik.mats.impl.jms;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -20,6 +22,8 @@ import com.stolsvik.mats.MatsEndpoint.ProcessLambda;
 import com.stolsvik.mats.MatsFactory.ContextLocal;
 import com.stolsvik.mats.MatsInitiator;
 import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler.JmsSessionHolder;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Origin;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Timing;
 import com.stolsvik.mats.impl.jms.JmsMatsProcessContext.DoAfterCommitRunnableHolder;
 import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.JmsMatsTxContextKey;
 import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.TransactionContext;
@@ -60,6 +64,134 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
 
     @Override
     public void initiate(InitiateLambda lambda) throws MatsBackendException, MatsMessageSendException {
+        initiate(lambda, null);
+    }
+
+    @Override
+    public <T> BulkInitiateReport initiateBulk(Iterator<T> items, int chunkSize, BulkInitiateLambda<T> lambda)
+            throws MatsBackendException, MatsMessageSendException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be >= 1, was [" + chunkSize + "].");
+        }
+        long nanosStart = System.nanoTime();
+        List<ChunkReport> chunkReports = new ArrayList<>();
+        Chunk<Z> previousChunk = null;
+        while (items.hasNext()) {
+            // ?: Did the previous chunk draw from any rate limits?
+            if ((previousChunk != null) && !previousChunk._messagesPerRateLimitedTarget.isEmpty()) {
+                // -> Yes, so wait for them to refill for a similar chunk - here, outside of the transaction.
+                awaitRateLimits(previousChunk._messagesPerRateLimitedTarget);
+            }
+            Chunk<Z> chunk = new Chunk<>();
+            int[] numberOfItems = new int[1];
+            initiate(init -> {
+                // Ending the chunk early if it has reached the burst of a rate limit, as it could not pass otherwise.
+                while ((numberOfItems[0] < chunkSize) && items.hasNext() && !chunk.isAtRateLimitBurst(
+                        _parentFactory)) {
+                    lambda.initiate(init, items.next());
+                    numberOfItems[0]++;
+                }
+            }, chunk);
+            ChunkReport chunkReport = chunk.toChunkReport(chunkReports.size(), numberOfItems[0]);
+            chunkReports.add(chunkReport);
+            if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "Bulk initiation committed " + chunkReport);
+            previousChunk = chunk;
+        }
+        BulkInitiateReport report = new BulkInitiateReport(chunkReports, (System.nanoTime() - nanosStart)
+                / 1_000_000d);
+        // Sampled as the per-message log lines, as bulk initiations might be frequent.
+        if (shouldLogMessages()) log.info(LOG_PREFIX + "Bulk initiation done: " + report);
+        return report;
+    }
+
+    /**
+     * A chunk of {@link #initiateBulk(Iterator, int, BulkInitiateLambda)}: Its timing points, and its messages per
+     * rate limited target - to end the chunk at the burst, and to wait for the refill before the next chunk.
+     */
+    private static class Chunk<Z> {
+        private final long _nanosStart = System.nanoTime();
+        private long _nanosAfterProduce;
+        private long _nanosAfterSerialize;
+        private long _nanosAfterSend;
+        private long _nanosAfterCommit;
+
+        private List<JmsMatsMessage<Z>> _messagesToSend;
+        private int _messagesCounted;
+        private boolean _atRateLimitBurst;
+        private final Map<String, Integer> _messagesPerRateLimitedTarget = new LinkedHashMap<>();
+
+        private boolean isAtRateLimitBurst(JmsMatsFactory<Z> factory) {
+            // ?: Any rate limits at all? (Fast path)
+            if (!factory.hasInitiatorRateLimits()) {
+                // -> No, so never at any burst.
+                return false;
+            }
+            // :: Count the messages added since last time.
+            for (; _messagesCounted < _messagesToSend.size(); _messagesCounted++) {
+                String to = _messagesToSend.get(_messagesCounted).getMatsTrace().getCurrentCall().getTo().getId();
+                JmsMatsTokenBucket rateLimit = factory.getInitiatorRateLimit(to);
+                if ((rateLimit != null)
+                        && (_messagesPerRateLimitedTarget.merge(to, 1, Integer::sum) >= rateLimit.getBurst())) {
+                    _atRateLimitBurst = true;
+                }
+            }
+            return _atRateLimitBurst;
+        }
+
+        private ChunkReport toChunkReport(int chunkIndex, int numberOfItems) {
+            return new ChunkReport(chunkIndex, numberOfItems,
+                    (_nanosAfterProduce - _nanosStart) / 1_000_000d,
+                    (_nanosAfterSerialize - _nanosAfterProduce) / 1_000_000d,
+                    (_nanosAfterSend - _nanosAfterSerialize) / 1_000_000d,
+                    (_nanosAfterCommit - _nanosAfterSend) / 1_000_000d,
+                    (_nanosAfterCommit - _nanosStart) / 1_000_000d);
+        }
+    }
+
+    /**
+     * Waits, outside of any transaction, until the rate limits have refilled for the specified number of messages per
+     * target (each capped at the burst) - a single wait for the longest of them.
+     */
+    private void awaitRateLimits(Map<String, Integer> messagesPerTarget) {
+        long waitNanos = 0;
+        String longestTo = null;
+        for (Map.Entry<String, Integer> entry : messagesPerTarget.entrySet()) {
+            JmsMatsTokenBucket rateLimit = _parentFactory.getInitiatorRateLimit(entry.getKey());
+            if (rateLimit != null) {
+                long nanos = rateLimit.nanosUntilAvailable(Math.min(entry.getValue(), rateLimit.getBurst()));
+                if (nanos > waitNanos) {
+                    waitNanos = nanos;
+                    longestTo = entry.getKey();
+                }
+            }
+        }
+        if (waitNanos > 0) {
+            sleepNanos(waitNanos, longestTo);
+            _parentFactory.getMetrics().recordTiming(Origin.INITIATOR, _name, Timing.THROTTLED, waitNanos);
+        }
+    }
+
+    /**
+     * @return whether the per-message log lines shall be output for this initiation, ref.
+     *         {@link JmsMatsFactory#setPerMessageLogSampleRate(int)}. Random sampling, as initiators are used by many
+     *         threads concurrently.
+     */
+    private boolean shouldLogMessages() {
+        int sampleRate = _parentFactory.getPerMessageLogSampleRate(_name);
+        // ?: Is it all or nothing?
+        if (sampleRate <= 1) {
+            // -> Yes, so 1 is all, 0 is nothing.
+            return sampleRate == 1;
+        }
+        return ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    /**
+     * @param chunk
+     *            if non-<code>null</code>, this is a chunk of a bulk initiation, and the timings are recorded.
+     */
+    private void initiate(InitiateLambda lambda, Chunk<Z> chunk) throws MatsBackendException,
+            MatsMessageSendException {
         // NOTICE! Due to multi-threading, whereby one Initiator might be used "globally" for e.g. a Servlet Container
         // having 200 threads, we cannot fetch a sole Session for the Initiator to be used for all initiations (as
         // it might be used concurrently by all the 200 Servlet Container threads). Thus, each initiation needs to
@@ -76,6 +208,7 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
             MDC.put(MDC_MATS_INITIATE, "true");
 
             long nanosStart = System.nanoTime();
+            boolean logMessages = shouldLogMessages();
             JmsSessionHolder jmsSessionHolder;
             try {
                 jmsSessionHolder = _jmsMatsJmsSessionHandler.getSessionHolder(this);
@@ -93,8 +226,22 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
                     List<JmsMatsMessage<Z>> messagesToSend = new ArrayList<>();
                     JmsMatsInitiate<Z> init = new JmsMatsInitiate<>(_parentFactory, messagesToSend,
                             jmsMatsMessageContext, doAfterCommitRunnableHolder);
+                    if (chunk != null) {
+                        chunk._messagesToSend = messagesToSend;
+                    }
                     ContextLocal.bindResource(MatsInitiate.class, init);
+                    long nanosStartLambda = System.nanoTime();
                     lambda.initiate(init);
+                    _parentFactory.getMetrics().recordTiming(Origin.INITIATOR, _name, Timing.LAMBDA,
+                            System.nanoTime() - nanosStartLambda);
+
+                    // ?: Is this a chunk of a bulk initiation?
+                    if (chunk != null) {
+                        // -> Yes, so serialize here (instead of in sendMatsMessages(..)), to get the timings.
+                        chunk._nanosAfterProduce = System.nanoTime();
+                        serializeMatsMessages(log, this, _parentFactory, messagesToSend, logMessages);
+                        chunk._nanosAfterSerialize = System.nanoTime();
+                    }
 
                     // Trick to get the commit of transaction to contain TraceIds of all outgoing messages
                     // - which should handle if we get any Exceptions when committing.
@@ -104,8 +251,21 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
                             .collect(Collectors.joining(";"));
                     MDC.put(MDC_TRACE_ID, traceId);
 
-                    sendMatsMessages(log, nanosStart, jmsSessionHolder, _parentFactory, messagesToSend);
+                    // :: Hold back if rate limited or backpressured (throws out if it would take too long).
+                    throttle(messagesToSend);
+
+                    sendMatsMessages(log, nanosStart, this, jmsMatsMessageContext, _parentFactory, messagesToSend,
+                            logMessages);
+
+                    if (chunk != null) {
+                        chunk._nanosAfterSend = System.nanoTime();
+                    }
                 });
+                if (chunk != null) {
+                    chunk._nanosAfterCommit = System.nanoTime();
+                }
+                _parentFactory.getMetrics().recordTiming(Origin.INITIATOR, _name, Timing.TOTAL,
+                        System.nanoTime() - nanosStart);
                 jmsSessionHolder.release();
                 // :: Handle the context.doAfterCommit(Runnable) lambda.
                 try {
@@ -152,6 +312,119 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
         }
     }
 
+    // How often to check the backpressure signal while held back.
+    private static final long BACKPRESSURE_POLL_MILLIS = 10;
+
+    /**
+     * Holds back the initiation as long as required by the rate limits and backpressure signal, ref.
+     * {@link JmsMatsFactory#setInitiatorRateLimit(String, double, int)} and
+     * {@link JmsMatsFactory#setInitiatorBackpressureSignal(JmsMatsBackpressureSignal)}. The tokens for all the
+     * messages to a target are taken in one go, and there is a single wait for the whole batch.
+     *
+     * @throws MatsThrottledException
+     *             if the batch to a target is larger than its rate limit's burst (which it thus never could pass), or
+     *             if it would be held back for longer than {@link JmsMatsFactory#getInitiatorThrottleMaxWaitMillis()} -
+     *             in which case any rate limit tokens taken for the messages are given back.
+     */
+    private void throttle(List<JmsMatsMessage<Z>> messagesToSend) {
+        JmsMatsBackpressureSignal backpressureSignal = _parentFactory.getInitiatorBackpressureSignal();
+        // ?: Is there any throttling in effect at all? (Fast path)
+        if ((backpressureSignal == null) && !_parentFactory.hasInitiatorRateLimits()) {
+            // -> No, so nothing to do.
+            return;
+        }
+        long nanosStart = System.nanoTime();
+        long nanosDeadline = nanosStart + (_parentFactory.getInitiatorThrottleMaxWaitMillis() * 1_000_000L);
+        boolean throttled = false;
+        Map<String, Integer> messagesPerTarget = new LinkedHashMap<>();
+        for (JmsMatsMessage<Z> message : messagesToSend) {
+            messagesPerTarget.merge(message.getMatsTrace().getCurrentCall().getTo().getId(), 1, Integer::sum);
+        }
+        // The rate limits which we have taken tokens from, to give them back if we end up not sending.
+        Map<JmsMatsTokenBucket, Integer> tokensTaken = null;
+        try {
+            // :: Backpressure: Wait as long as any of the targets are backpressured - before taking any tokens.
+            if (backpressureSignal != null) {
+                for (String to : messagesPerTarget.keySet()) {
+                    while (backpressureSignal.isBackpressured(to)) {
+                        throttled = true;
+                        // ?: Would another wait exceed the deadline?
+                        if ((System.nanoTime() + (BACKPRESSURE_POLL_MILLIS * 1_000_000L)) > nanosDeadline) {
+                            // -> Yes, so fail.
+                            throw new MatsThrottledException("Endpoint [" + to + "] is backpressured, and"
+                                    + " did not clear within max wait ["
+                                    + _parentFactory.getInitiatorThrottleMaxWaitMillis() + " ms].", to);
+                        }
+                        sleepNanos(BACKPRESSURE_POLL_MILLIS * 1_000_000L, to);
+                    }
+                }
+            }
+            // :: Rate limits: Take the tokens for the batch to each target in one go, and wait once for the longest.
+            long waitNanos = 0;
+            String longestTo = null;
+            for (Map.Entry<String, Integer> entry : messagesPerTarget.entrySet()) {
+                String to = entry.getKey();
+                int numberOfMessages = entry.getValue();
+                JmsMatsTokenBucket rateLimit = _parentFactory.getInitiatorRateLimit(to);
+                if (rateLimit == null) {
+                    continue;
+                }
+                throttled = true;
+                // ?: Is the batch larger than the burst?
+                if (numberOfMessages > rateLimit.getBurst()) {
+                    // -> Yes, so it could never pass - fail up front.
+                    throw new MatsThrottledException("The initiation has [" + numberOfMessages + "] messages to ["
+                            + to + "], which is more than the burst of its rate limit " + rateLimit
+                            + " - it can never pass. Send fewer messages per initiation.", to);
+                }
+                long nanos = rateLimit.take(numberOfMessages, nanosDeadline - System.nanoTime());
+                // ?: Would it take too long?
+                if (nanos < 0) {
+                    // -> Yes, so fail.
+                    throw new MatsThrottledException("Rate limit " + rateLimit + " to [" + to
+                            + "] would hold back initiation of [" + numberOfMessages + "] messages longer than"
+                            + " max wait [" + _parentFactory.getInitiatorThrottleMaxWaitMillis() + " ms].", to);
+                }
+                if (tokensTaken == null) {
+                    tokensTaken = new LinkedHashMap<>();
+                }
+                tokensTaken.put(rateLimit, numberOfMessages);
+                if (nanos > waitNanos) {
+                    waitNanos = nanos;
+                    longestTo = to;
+                }
+            }
+            sleepNanos(waitNanos, longestTo);
+        }
+        catch (MatsThrottledException e) {
+            // ?: Did we take any tokens?
+            if (tokensTaken != null) {
+                // -> Yes, so give them back, as the messages will not be sent.
+                tokensTaken.forEach(JmsMatsTokenBucket::giveBack);
+            }
+            throw e;
+        }
+        finally {
+            if (throttled) {
+                _parentFactory.getMetrics().recordTiming(Origin.INITIATOR, _name, Timing.THROTTLED,
+                        System.nanoTime() - nanosStart);
+            }
+        }
+    }
+
+    private static void sleepNanos(long nanos, String to) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(nanos / 1_000_000L, (int) (nanos % 1_000_000L));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MatsThrottledException("Got interrupted while held back sending to [" + to + "].", to);
+        }
+    }
+
     @Override
     public void initiateUnchecked(InitiateLambda lambda) throws MatsBackendRuntimeException,
             MatsMessageSendRuntimeException {
@@ -422,7 +695,7 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
             JmsMatsMessage<Z> request = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                     matsTrace, _props, _binaries, _strings, "new REQUEST",
                     _parentFactory.getFactoryConfig().getName());
-            _messagesToSend.add(request);
+            addMessageToSend(_parentFactory, _messagesToSend, request);
 
             // Reset, in preparation for more messages
             reset();
@@ -475,7 +748,7 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
             JmsMatsMessage<Z> request = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                     matsTrace, _props, _binaries, _strings, "new SEND",
                     _parentFactory.getFactoryConfig().getName());
-            _messagesToSend.add(request);
+            addMessageToSend(_parentFactory, _messagesToSend, request);
 
             // Reset, in preparation for more messages
             reset();
@@ -506,7 +779,7 @@ class JmsMatsInitiator<Z> implements MatsInitiator, JmsMatsTxContextKey, JmsMats
             JmsMatsMessage<Z> request = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                     matsTrace, _props, _binaries, _strings, "new PUBLISH",
                     _parentFactory.getFactoryConfig().getName());
-            _messagesToSend.add(request);
+            addMessageToSend(_parentFactory, _messagesToSend, request);
 
             // Reset, in preparation for more messages
             reset();
@@ -1,5 +1,7 @@
 package com.stolsvik.mats.impl.jms;
 
+import java.util.List;
+
 import javax.jms.Connection;
 import javax.jms.JMSException;
 import javax.jms.MessageProducer;
@@ -68,6 +70,30 @@ public interface JmsMatsJmsSessionHandler {
      */
     int closeAllAvailableSessions();
 
+    /**
+     * @return whether this implementation wants {@link #warmUp(List)} invoked when the {@link JmsMatsFactory} is
+     *         started - if not, the factory does not bother with it. The default implementation returns
+     *         <code>false</code>.
+     */
+    default boolean isWarmUpWanted() {
+        return false;
+    }
+
+    /**
+     * Invoked when the {@link JmsMatsFactory} is started, for all its initiators, if {@link #isWarmUpWanted()}, so
+     * that an implementation which pools Sessions can create the JMS Connections and some Sessions upfront, instead of
+     * having the first initiations after deploy pay for it. It is invoked on a separate thread, so that
+     * <code>start()</code> does not block if the broker is unavailable. The default implementation does nothing.
+     *
+     * @param initiators
+     *            the initiators in question.
+     * @throws JmsMatsJmsException
+     *             if there was a problem getting a Connection or Sessions.
+     */
+    default void warmUp(List<JmsMatsInitiator<?>> initiators) throws JmsMatsJmsException {
+        /* no-op */
+    }
+
     /**
      * A "sidecar object" for the JMS Session, so that additional stuff can be bound to it.
      */
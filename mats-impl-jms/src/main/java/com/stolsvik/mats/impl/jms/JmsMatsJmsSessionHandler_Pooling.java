@@ -1,14 +1,17 @@
 package com.stolsvik.mats.impl.jms;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -139,6 +142,41 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                 poolingKeyStageProcessor);
     }
 
+    /**
+     * Returns a JmsMatsJmsSessionHandler which have specific pooling derivation, and which stripes each pooling key
+     * over several JMS Connections, ref. {@link #setConnectionsPerPoolingKey(int)}. This is the middle ground between
+     * e.g. {@link PoolingKeyStageProcessor#FACTORY}, where all StageProcessors share a single JMS Connection (which
+     * for e.g. ActiveMQ is a single TCP socket with a single transport thread), and
+     * {@link PoolingKeyStageProcessor#STAGE_PROCESSOR}, where every StageProcessor has its own. A reasonable number
+     * is often the number of CPUs, ref. {@link #connectionsPerCpu(int)}.
+     *
+     * @param jmsConnectionFactory
+     *            the JMS {@link ConnectionFactory} to get JMS Connections from.
+     * @param poolingKeyInitiator
+     *            what kind of JMS Connection sharing to employ for Initiators.
+     * @param poolingKeyStageProcessor
+     *            what kind of JMS Connection sharing to employ for StageProcessors.
+     * @param connectionsPerPoolingKey
+     *            how many JMS Connections each pooling key shall be striped over.
+     * @return a JmsMatsJmsSessionHandler which has the specified pooling derivation and striping.
+     */
+    public static JmsMatsJmsSessionHandler_Pooling create(ConnectionFactory jmsConnectionFactory,
+            PoolingKeyInitiator poolingKeyInitiator, PoolingKeyStageProcessor poolingKeyStageProcessor,
+            int connectionsPerPoolingKey) {
+        return new JmsMatsJmsSessionHandler_Pooling(jmsConnectionFactory, poolingKeyInitiator,
+                poolingKeyStageProcessor).setConnectionsPerPoolingKey(connectionsPerPoolingKey);
+    }
+
+    /**
+     * @param connectionsPerCpu
+     *            how many JMS Connections per CPU.
+     * @return <code>connectionsPerCpu</code> x the number of CPUs available to the JVM, for use with
+     *         {@link #setConnectionsPerPoolingKey(int)}.
+     */
+    public static int connectionsPerCpu(int connectionsPerCpu) {
+        return Math.max(1, connectionsPerCpu * Runtime.getRuntime().availableProcessors());
+    }
+
     protected JmsMatsJmsSessionHandler_Pooling(ConnectionFactory jmsConnectionFactory,
             PoolingKeyInitiator poolingKeyInitiator, PoolingKeyStageProcessor poolingKeyStageProcessor) {
         _jmsConnectionFactory = jmsConnectionFactory;
@@ -146,6 +184,153 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
         _poolingKeyStageProcessor = poolingKeyStageProcessor;
     }
 
+    // :: Pool sizing and eviction config - all default to "off", i.e. the original unbounded on-demand behaviour.
+    protected volatile int _minIdleSessions = 0;
+    protected volatile int _maxSessionsPerConnection = 0;
+    protected volatile long _maxWaitForSessionMillis = 0;
+    protected volatile long _idleTimeoutMillis = 0;
+    protected volatile int _connectionsPerPoolingKey = 1;
+
+    /**
+     * Sets the number of Sessions that shall be created upfront for each initiator pooling key when the
+     * {@link JmsMatsFactory} is started (per JMS Connection, ref. {@link #setConnectionsPerPoolingKey(int)}), and
+     * which the {@link #setIdleTimeoutMillis(long) idle eviction} will not go below. Default is 0.
+     *
+     * @param minIdleSessions
+     *            the number of Sessions to warm up, and keep, per JMS Connection.
+     * @return <code>this</code>, for chaining.
+     */
+    public JmsMatsJmsSessionHandler_Pooling setMinIdleSessions(int minIdleSessions) {
+        if (minIdleSessions < 0) {
+            throw new IllegalArgumentException("minIdleSessions must be >= 0, was [" + minIdleSessions + "].");
+        }
+        _minIdleSessions = minIdleSessions;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of Sessions per JMS Connection. When the limit is reached and no Session is available,
+     * the getter will wait up to <code>maxWaitMillis</code> for a Session to be released, and then throw
+     * {@link JmsMatsJmsException} - if <code>maxWaitMillis</code> is 0, it fails fast. Default is 0, meaning no
+     * limit.
+     * <p/>
+     * <b>Notice: StageProcessors hold on to their Session for as long as they run</b>, so if the pooling key is shared
+     * between StageProcessors, the limit must be at least the number of StageProcessors on that key, or some of them
+     * will not be able to start consuming.
+     *
+     * @param maxSessionsPerConnection
+     *            the maximum number of Sessions per JMS Connection, 0 for no limit.
+     * @param maxWaitMillis
+     *            how long to wait for a Session to become available when the limit is reached, 0 for failing fast.
+     * @return <code>this</code>, for chaining.
+     */
+    public JmsMatsJmsSessionHandler_Pooling setMaxSessionsPerConnection(int maxSessionsPerConnection,
+            long maxWaitMillis) {
+        if (maxSessionsPerConnection < 0) {
+            throw new IllegalArgumentException("maxSessionsPerConnection must be >= 0, was ["
+                    + maxSessionsPerConnection + "].");
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis must be >= 0, was [" + maxWaitMillis + "].");
+        }
+        _maxSessionsPerConnection = maxSessionsPerConnection;
+        _maxWaitForSessionMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * Sets how long an available Session may sit idle in the pool before it is closed, as long as there are more than
+     * {@link #setMinIdleSessions(int) min idle} Sessions on the JMS Connection. If all Sessions on a JMS Connection are
+     * closed, the Connection is closed too. The eviction is performed opportunistically when Sessions are released, so
+     * a pool which gets no traffic at all keeps its Sessions until {@link #closeAllAvailableSessions()}. Default is 0,
+     * meaning no eviction.
+     *
+     * @param idleTimeoutMillis
+     *            how long an available Session may be idle before it is closed, 0 for never.
+     * @return <code>this</code>, for chaining.
+     */
+    public JmsMatsJmsSessionHandler_Pooling setIdleTimeoutMillis(long idleTimeoutMillis) {
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must be >= 0, was [" + idleTimeoutMillis + "].");
+        }
+        _idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sets how many JMS Connections to employ per pooling key, i.e. the pooling key (as derived by
+     * {@link PoolingKeyInitiator} and {@link PoolingKeyStageProcessor}) is divided into this many separate
+     * ConnectionWithSessionPools, each with its own JMS Connection - i.e. Sessions are striped over the Connections.
+     * StageProcessors are spread deterministically, so that the StageProcessors of a Stage land on consecutive
+     * Connections, and a StageProcessor gets the same Connection when it reconnects. Initiators are distributed
+     * round-robin. Striping makes no difference for {@link PoolingKeyStageProcessor#STAGE_PROCESSOR}, as there is
+     * only one StageProcessor per key. Default is 1.
+     *
+     * @param connectionsPerPoolingKey
+     *            the number of JMS Connections per pooling key.
+     * @return <code>this</code>, for chaining.
+     */
+    public JmsMatsJmsSessionHandler_Pooling setConnectionsPerPoolingKey(int connectionsPerPoolingKey) {
+        if (connectionsPerPoolingKey < 1) {
+            throw new IllegalArgumentException("connectionsPerPoolingKey must be >= 1, was ["
+                    + connectionsPerPoolingKey + "].");
+        }
+        _connectionsPerPoolingKey = connectionsPerPoolingKey;
+        return this;
+    }
+
+    /**
+     * The key used when there are {@link #setConnectionsPerPoolingKey(int) multiple Connections per pooling key}.
+     */
+    protected static final class StripedPoolingKey {
+        private final Object _poolingKey;
+        private final int _stripe;
+
+        protected StripedPoolingKey(Object poolingKey, int stripe) {
+            _poolingKey = poolingKey;
+            _stripe = stripe;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StripedPoolingKey)) {
+                return false;
+            }
+            StripedPoolingKey other = (StripedPoolingKey) o;
+            return (_poolingKey == other._poolingKey) && (_stripe == other._stripe);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(_poolingKey) * 31 + _stripe;
+        }
+
+        @Override
+        public String toString() {
+            return _poolingKey + "#stripe" + _stripe;
+        }
+    }
+
+    protected final AtomicInteger _roundRobinCounter = new AtomicInteger();
+
+    /**
+     * @return which of the {@link #setConnectionsPerPoolingKey(int) multiple Connections per pooling key} the
+     *         txContextKey shall get its Session from: For StageProcessors, this is derived from the stageId and the
+     *         processor number, while Initiators go round-robin.
+     */
+    protected int deriveStripe(JmsMatsTxContextKey txContextKey, int connectionsPerPoolingKey) {
+        // ?: Is this a StageProcessor?
+        if (txContextKey instanceof JmsMatsStageProcessor) {
+            // -> Yes, so spread the StageProcessors of the Stage over consecutive stripes, starting at an offset
+            // derived from the stageId so that the different Stages' processor #0 do not all land on the same.
+            JmsMatsStageProcessor<?, ?, ?, ?> stageProcessor = (JmsMatsStageProcessor<?, ?, ?, ?>) txContextKey;
+            return Math.floorMod(txContextKey.getStage().getStageId().hashCode()
+                    + stageProcessor.getProcessorNumber(), connectionsPerPoolingKey);
+        }
+        // E-> Initiator, so round-robin.
+        return Math.floorMod(_roundRobinCounter.getAndIncrement(), connectionsPerPoolingKey);
+    }
+
     @Override
     public JmsSessionHolder getSessionHolder(JmsMatsInitiator<?> initiator) throws JmsMatsJmsException {
         return getSessionHolder_internal(initiator);
@@ -157,37 +342,79 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
         return getSessionHolder_internal(stageProcessor);
     }
 
+    @Override
+    public boolean isWarmUpWanted() {
+        return _minIdleSessions > 0;
+    }
+
+    @Override
+    public void warmUp(List<JmsMatsInitiator<?>> initiators) throws JmsMatsJmsException {
+        int minIdleSessions = _minIdleSessions;
+        // ?: Any warm-up wanted?
+        if (minIdleSessions == 0) {
+            // -> No, so nothing to do.
+            return;
+        }
+        int connectionsPerPoolingKey = _connectionsPerPoolingKey;
+        // The initiators may share pooling keys (e.g. PoolingKeyInitiator.FACTORY), so warm each key only once.
+        Set<Object> warmedPoolingKeys = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (JmsMatsInitiator<?> initiator : initiators) {
+            Object poolingKey = derivePoolingKey(initiator);
+            // ?: Have we already warmed this pooling key?
+            if (!warmedPoolingKeys.add(poolingKey)) {
+                // -> Yes, so go to next.
+                continue;
+            }
+            log.info(LOG_PREFIX + "Warming up [" + minIdleSessions + "] Sessions on each of ["
+                    + connectionsPerPoolingKey + "] JMS Connections for [" + initiator + "].");
+            for (int stripe = 0; stripe < connectionsPerPoolingKey; stripe++) {
+                Object key = connectionsPerPoolingKey > 1
+                        ? new StripedPoolingKey(poolingKey, stripe)
+                        : poolingKey;
+                // :: Employ the min idle number of Sessions at the same time (thus creating them if not already
+                // there)..
+                List<JmsSessionHolder> holders = new ArrayList<>(minIdleSessions);
+                try {
+                    for (int i = 0; i < minIdleSessions; i++) {
+                        holders.add(getSessionHolder_internal(initiator, key));
+                    }
+                }
+                finally {
+                    // .. and then release them all back to the pool.
+                    for (JmsSessionHolder holder : holders) {
+                        holder.release();
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public int closeAllAvailableSessions() {
         log.info(LOG_PREFIX + "Closing all available SessionHolders in all pools,"
                 + " thus hoping to close all JMS Connections.");
-        int liveConnectionsBefore;
+        int liveConnectionsBefore = _liveConnectionWithSessionPools.size();
         int availableSessionsNowClosed = 0;
-        int liveConnectionsAfter;
-        int employedSessions = 0;
-        synchronized (this) {
-            liveConnectionsBefore = _liveConnectionWithSessionPools.size();
-            // Copying over the liveConnections, since it hopefully will be modified.
-            ArrayList<ConnectionWithSessionPool> connWithSessionPools = new ArrayList<>(_liveConnectionWithSessionPools
-                    .values());
-            // :: Iterate over the pools
-            for (ConnectionWithSessionPool connectionWithSessionPool : connWithSessionPools) {
-                // Copying over the availableSessionHolders, since it hopefully will be modified.
-                ArrayList<JmsSessionHolderImpl> availableSessionHolders = new ArrayList<>(
-                        connectionWithSessionPool._availableSessionHolders);
-                availableSessionsNowClosed += availableSessionHolders.size();
-                // :: Iterate over the available SessionHolders in each pool
-                for (JmsSessionHolderImpl availableHolder : availableSessionHolders) {
-                    connectionWithSessionPool.internalClose(availableHolder);
-                }
+        // Copying over the liveConnections, since it hopefully will be modified.
+        ArrayList<ConnectionWithSessionPool> connWithSessionPools = new ArrayList<>(_liveConnectionWithSessionPools
+                .values());
+        // :: Iterate over the pools
+        for (ConnectionWithSessionPool connectionWithSessionPool : connWithSessionPools) {
+            // :: Take out the available SessionHolders one by one, and close them.
+            // NOTICE: Polling them out of the pool, so that no other thread can concurrently employ the same one.
+            JmsSessionHolderImpl availableHolder;
+            while ((availableHolder = connectionWithSessionPool._availableSessionHolders.pollFirst()) != null) {
+                availableSessionsNowClosed++;
+                connectionWithSessionPool.internalClose(availableHolder, true);
             }
+        }
 
-            // ----- Closed all available JmsSessionHolders
+        // ----- Closed all available JmsSessionHolders
 
-            liveConnectionsAfter = _liveConnectionWithSessionPools.size();
-            for (ConnectionWithSessionPool connectionAndSession : connWithSessionPools) {
-                employedSessions += connectionAndSession._employedSessionHolders.size();
-            }
+        int liveConnectionsAfter = _liveConnectionWithSessionPools.size();
+        int employedSessions = 0;
+        for (ConnectionWithSessionPool connectionAndSession : connWithSessionPools) {
+            employedSessions += connectionAndSession._employedSessionHolders.size();
         }
         log.info(LOG_PREFIX + " \\- Before closing available sessions: Live Connections:[" + liveConnectionsBefore
                 + "], Available Sessions:[" + availableSessionsNowClosed
@@ -200,54 +427,242 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
     protected JmsSessionHolder getSessionHolder_internal(JmsMatsTxContextKey txContextKey) throws JmsMatsJmsException {
         // Get the pooling key.
         Object poolingKey = derivePoolingKey(txContextKey);
+        // ?: Are we employing multiple Connections per pooling key?
+        int connectionsPerPoolingKey = _connectionsPerPoolingKey;
+        if (connectionsPerPoolingKey > 1) {
+            // -> Yes, so find which of them.
+            poolingKey = new StripedPoolingKey(poolingKey,
+                    deriveStripe(txContextKey, connectionsPerPoolingKey));
+        }
+        return getSessionHolder_internal(txContextKey, poolingKey);
+    }
 
-        // :: Get-or-create ConnectionAndSession - record if we created it, as we then need to create the JMS Connection
-        boolean weCreatedConnectionWithSessionPool = false;
-        ConnectionWithSessionPool connectionWithSessionPool;
-        synchronized (this) {
+    protected JmsSessionHolder getSessionHolder_internal(JmsMatsTxContextKey txContextKey, Object poolingKey)
+            throws JmsMatsJmsException {
+        _statsSessionHolderGets.increment();
+
+        // NOTICE: Lock-free: The pool for the key might concurrently be removed (become empty, or crash) between our
+        // lookup and our employing a SessionHolder from it. In that case, the pool will tell us by returning null,
+        // and we'll just go around again, which will then find a new pool, or create it.
+        while (true) {
+            // :: Get-or-create ConnectionWithSessionPool - record if we created it, as we then need to create the JMS
+            // Connection
+            boolean weCreatedConnectionWithSessionPool = false;
             // Get the ConnectionWithSessionPool for the pooling key
-            connectionWithSessionPool = _liveConnectionWithSessionPools.get(poolingKey);
+            ConnectionWithSessionPool connectionWithSessionPool = _liveConnectionWithSessionPools.get(poolingKey);
             // ?: Was there a ConnectionWithSessionPool on this pooling key?
             if (connectionWithSessionPool == null) {
                 // -> No, no ConnectionWithSessionPool - so we must make it.
-                // *This thread* must initialize this ConnectionWithSessionPool
-                weCreatedConnectionWithSessionPool = true;
-                // Now create it..
-                connectionWithSessionPool = new ConnectionWithSessionPool(poolingKey);
-                // .. and put it into the map for this pooling key.
-                _liveConnectionWithSessionPools.put(poolingKey, connectionWithSessionPool);
+                ConnectionWithSessionPool newConnectionWithSessionPool = new ConnectionWithSessionPool(poolingKey);
+                // .. and put it into the map for this pooling key, unless someone beat us to it.
+                connectionWithSessionPool = _liveConnectionWithSessionPools.putIfAbsent(poolingKey,
+                        newConnectionWithSessionPool);
+                // ?: Did we win the race to put it in?
+                if (connectionWithSessionPool == null) {
+                    // -> Yes, so *this thread* must initialize this ConnectionWithSessionPool
+                    weCreatedConnectionWithSessionPool = true;
+                    connectionWithSessionPool = newConnectionWithSessionPool;
+                    _statsPoolsCreated.increment();
+                }
+                else {
+                    // -> No, someone else put one in concurrently: Record the contention, and use theirs.
+                    _statsContentionRetries.increment();
+                }
             }
-        }
 
-        // ?: Was *this thread* the creator of this ConnectionWithSessionPool?
-        if (weCreatedConnectionWithSessionPool) {
-            // -> Yes, so we must create the JMS Connection (Notice: Outside the synchronization)
-            connectionWithSessionPool.initializePoolByCreatingJmsConnection(txContextKey);
+            // ?: Was *this thread* the creator of this ConnectionWithSessionPool?
+            if (weCreatedConnectionWithSessionPool) {
+                // -> Yes, so we must create the JMS Connection (Notice: No-one else will do this, they'll wait)
+                connectionWithSessionPool.initializePoolByCreatingJmsConnection(txContextKey);
+            }
+
+            // ----- Either we got an existing JMS Connection (or the not-us fetcher got Exception) - or we just
+            // created it.
+
+            // Get-or-create a new SessionHolder.
+            JmsSessionHolderImpl jmsSessionHolder = connectionWithSessionPool
+                    .getOrCreateAndEmploySessionHolder(txContextKey);
+            // ?: Did the pool go away beneath our feet?
+            if (jmsSessionHolder == null) {
+                // -> Yes, so record the contention, and go around again.
+                _statsContentionRetries.increment();
+                continue;
+            }
+            if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "getSessionHolder(...) for [" + txContextKey
+                    + "], derived pool [" + connectionWithSessionPool + "], returning [" + jmsSessionHolder + "].");
+            return jmsSessionHolder;
         }
+    }
 
-        // ----- Either we got an existing JMS Connection (or the not-us fetcher got Exception) - or we just created it.
+    // NOTICE: The pooling keys are Mats objects that do not override equals/hashCode, so this is effectively identity.
+    protected final ConcurrentHashMap<Object, ConnectionWithSessionPool> _liveConnectionWithSessionPools = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Object, ConnectionWithSessionPool> _crashedConnectionWithSessionPools = new ConcurrentHashMap<>();
 
-        // Get-or-create a new SessionHolder.
-        // Synchronized internally
-        JmsSessionHolderImpl jmsSessionHolder = connectionWithSessionPool
-                .getOrCreateAndEmploySessionHolder(txContextKey);
-        if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "getSessionHolder(...) for [" + txContextKey
-                + "], derived pool [" + connectionWithSessionPool + "], returning [" + jmsSessionHolder + "].");
-        return jmsSessionHolder;
+    // :: Statistics
+    protected final LongAdder _statsSessionHolderGets = new LongAdder();
+    protected final LongAdder _statsSessionHoldersReused = new LongAdder();
+    protected final LongAdder _statsSessionHoldersCreated = new LongAdder();
+    protected final LongAdder _statsPoolsCreated = new LongAdder();
+    protected final LongAdder _statsContentionRetries = new LongAdder();
+    protected final LongAdder _statsWaitsForSession = new LongAdder();
+    protected final LongAdder _statsRejectedGets = new LongAdder();
+    protected final LongAdder _statsSessionHoldersEvicted = new LongAdder();
+
+    /**
+     * @return a snapshot of the statistics of this pool, which can be used to evaluate how the pool performs - in
+     *         particular, {@link PoolStatistics#getContentionRetries()} tells how often a thread had to retry due to
+     *         concurrent changes to the pool.
+     */
+    public PoolStatistics getPoolStatistics() {
+        int available = 0;
+        int employed = 0;
+        for (ConnectionWithSessionPool pool : _liveConnectionWithSessionPools.values()) {
+            available += pool._availableSessionHolders.size();
+            employed += pool._employedSessionHolders.size();
+        }
+        return new PoolStatistics(_statsSessionHolderGets.sum(), _statsSessionHoldersReused.sum(),
+                _statsSessionHoldersCreated.sum(), _statsPoolsCreated.sum(), _statsContentionRetries.sum(),
+                _statsWaitsForSession.sum(), _statsRejectedGets.sum(), _statsSessionHoldersEvicted.sum(),
+                _liveConnectionWithSessionPools.size(), _crashedConnectionWithSessionPools.size(),
+                available, employed);
     }
 
-    // Synchronized by /this/ (i.e. the JmsMatsJmsSessionHandler_Pooling instance)
-    protected IdentityHashMap<Object, ConnectionWithSessionPool> _liveConnectionWithSessionPools = new IdentityHashMap<>();
-    // Synchronized by /this/ (i.e. the JmsMatsJmsSessionHandler_Pooling instance)
-    protected IdentityHashMap<Object, ConnectionWithSessionPool> _crashedConnectionWithSessionPools = new IdentityHashMap<>();
+    /**
+     * Snapshot of the statistics of a {@link JmsMatsJmsSessionHandler_Pooling}, ref. {@link #getPoolStatistics()}.
+     * The counters are cumulative since creation of the pool handler, while the pool and session numbers are current.
+     */
+    public static class PoolStatistics {
+        private final long _sessionHolderGets;
+        private final long _sessionHoldersReused;
+        private final long _sessionHoldersCreated;
+        private final long _poolsCreated;
+        private final long _contentionRetries;
+        private final long _waitsForSession;
+        private final long _rejectedGets;
+        private final long _sessionHoldersEvicted;
+        private final int _livePools;
+        private final int _crashedPools;
+        private final int _availableSessions;
+        private final int _employedSessions;
+
+        public PoolStatistics(long sessionHolderGets, long sessionHoldersReused, long sessionHoldersCreated,
+                long poolsCreated, long contentionRetries, long waitsForSession, long rejectedGets,
+                long sessionHoldersEvicted, int livePools, int crashedPools,
+                int availableSessions, int employedSessions) {
+            _sessionHolderGets = sessionHolderGets;
+            _sessionHoldersReused = sessionHoldersReused;
+            _sessionHoldersCreated = sessionHoldersCreated;
+            _poolsCreated = poolsCreated;
+            _contentionRetries = contentionRetries;
+            _waitsForSession = waitsForSession;
+            _rejectedGets = rejectedGets;
+            _sessionHoldersEvicted = sessionHoldersEvicted;
+            _livePools = livePools;
+            _crashedPools = crashedPools;
+            _availableSessions = availableSessions;
+            _employedSessions = employedSessions;
+        }
+
+        /**
+         * @return the number of times a SessionHolder has been requested.
+         */
+        public long getSessionHolderGets() {
+            return _sessionHolderGets;
+        }
+
+        /**
+         * @return the number of times an available SessionHolder was reused from the pool.
+         */
+        public long getSessionHoldersReused() {
+            return _sessionHoldersReused;
+        }
+
+        /**
+         * @return the number of times a new SessionHolder (and thus JMS Session) had to be created.
+         */
+        public long getSessionHoldersCreated() {
+            return _sessionHoldersCreated;
+        }
+
+        /**
+         * @return the number of ConnectionWithSessionPools (and thus JMS Connections) created.
+         */
+        public long getPoolsCreated() {
+            return _poolsCreated;
+        }
+
+        /**
+         * @return the number of times a thread had to retry due to concurrent changes: Either it lost the race to
+         *         create a pool for a key, or the pool it found was concurrently removed or crashed.
+         */
+        public long getContentionRetries() {
+            return _contentionRetries;
+        }
+
+        /**
+         * @return the number of times a getter had to wait for a Session to be released, due to the
+         *         {@link #setMaxSessionsPerConnection(int, long) max sessions per connection}.
+         */
+        public long getWaitsForSession() {
+            return _waitsForSession;
+        }
+
+        /**
+         * @return the number of times a getter was rejected (failed fast, or waited too long), due to the
+         *         {@link #setMaxSessionsPerConnection(int, long) max sessions per connection}.
+         */
+        public long getRejectedGets() {
+            return _rejectedGets;
+        }
+
+        /**
+         * @return the number of Sessions closed due to {@link #setIdleTimeoutMillis(long) idle eviction}.
+         */
+        public long getSessionHoldersEvicted() {
+            return _sessionHoldersEvicted;
+        }
+
+        public int getLivePools() {
+            return _livePools;
+        }
+
+        public int getCrashedPools() {
+            return _crashedPools;
+        }
+
+        public int getAvailableSessions() {
+            return _availableSessions;
+        }
+
+        public int getEmployedSessions() {
+            return _employedSessions;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStatistics[gets:" + _sessionHolderGets + ", reused:" + _sessionHoldersReused
+                    + ", created:" + _sessionHoldersCreated + ", poolsCreated:" + _poolsCreated
+                    + ", contentionRetries:" + _contentionRetries + ", waits:" + _waitsForSession
+                    + ", rejected:" + _rejectedGets + ", evicted:" + _sessionHoldersEvicted
+                    + " | livePools:" + _livePools
+                    + ", crashedPools:" + _crashedPools + ", availableSessions:" + _availableSessions
+                    + ", employedSessions:" + _employedSessions + "]";
+        }
+    }
 
     protected class ConnectionWithSessionPool implements JmsMatsStatics {
         final Object _poolingKey;
 
-        // Synchronized by /this/ (i.e. the ConnectionWithSessionPool instance)
-        final Deque<JmsSessionHolderImpl> _availableSessionHolders = new ArrayDeque<>();
-        // Synchronized by /this/ (i.e. the ConnectionWithSessionPool instance)
-        final Set<JmsSessionHolderImpl> _employedSessionHolders = new HashSet<>();
+        // Lock-free, LIFO: The most recently released SessionHolder is the first to be employed again.
+        final ConcurrentLinkedDeque<JmsSessionHolderImpl> _availableSessionHolders = new ConcurrentLinkedDeque<>();
+        final Set<JmsSessionHolderImpl> _employedSessionHolders = ConcurrentHashMap.newKeySet();
+
+        /**
+         * The number of SessionHolders belonging to this pool, i.e. employed + available + any being created. When it
+         * goes to zero, the pool is removed, which is marked by setting it to -1, after which no new SessionHolders
+         * can be created in it, ref. {@link #reserveSessionHolder()}.
+         */
+        final AtomicInteger _sessionHolderCount = new AtomicInteger();
 
         final CountDownLatch _creatingConnectionCountDownLatch = new CountDownLatch(1);
 
@@ -270,9 +685,7 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                 // Also, will remove the newly created ConnectionWithSessionPool. No-one can have made a Session, and
                 // the next guy coming in should start anew.
                 setConnectionOrException_ReleaseWaiters(null, t);
-                synchronized (JmsMatsJmsSessionHandler_Pooling.this) {
-                    _liveConnectionWithSessionPools.remove(_poolingKey);
-                }
+                _liveConnectionWithSessionPools.remove(_poolingKey, this);
                 throw new JmsMatsJmsException("Got problems when trying to create & start a new JMS Connection.", t);
             }
         }
@@ -304,23 +717,79 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
             }
         }
 
+        /**
+         * @return an employed SessionHolder, or <code>null</code> if this pool was concurrently removed or crashed,
+         *         in which case the caller should look up the pool anew.
+         */
         JmsSessionHolderImpl getOrCreateAndEmploySessionHolder(JmsMatsTxContextKey txContextKey)
                 throws JmsMatsJmsException {
-            synchronized (this) {
+            long waitStartNanos = 0;
+            while (true) {
                 JmsSessionHolderImpl availableSessionHolder = _availableSessionHolders.pollFirst();
                 if (availableSessionHolder != null) {
                     availableSessionHolder.setCurrentContext("employed:" + txContextKey);
                     _employedSessionHolders.add(availableSessionHolder);
+                    _statsSessionHoldersReused.increment();
                     return availableSessionHolder;
                 }
+                // ----- No, there was no SessionHolder available, so we must make a new session
+
+                // ?: Is the pool crashed?
+                if (_poolIsCrashed_StackTrace != null) {
+                    // -> Yes, crashed, so tell caller to look up the pool anew.
+                    return null;
+                }
+                // Reserve a slot for the new SessionHolder
+                int maxSessions = _maxSessionsPerConnection;
+                int reservation = reserveSessionHolder(maxSessions);
+                // ?: Did we get the reservation?
+                if (reservation == RESERVED) {
+                    // -> Yes, so go create the Session.
+                    break;
+                }
+                // ?: Is the pool removed?
+                if (reservation == REMOVED) {
+                    // -> Yes, removed, so tell caller to look up the pool anew.
+                    return null;
+                }
+                // E-> The pool is full, so we must wait for a SessionHolder to be released - or fail.
+                long maxWaitMillis = _maxWaitForSessionMillis;
+                // ?: Is this the first time around?
+                if (waitStartNanos == 0) {
+                    // -> Yes, so record the start of the wait (and if we're failing fast, this is the rejection)
+                    waitStartNanos = System.nanoTime();
+                    if (maxWaitMillis > 0) {
+                        _statsWaitsForSession.increment();
+                    }
+                }
+                long remainingMillis = maxWaitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+                        - waitStartNanos);
+                // ?: Have we waited long enough (or shall we fail fast)?
+                if (remainingMillis <= 0) {
+                    // -> Yes, so reject.
+                    _statsRejectedGets.increment();
+                    throw new JmsMatsJmsException("All [" + maxSessions + "] JMS Sessions of [" + this + "] are"
+                            + " employed, and none was released within [" + maxWaitMillis + " ms] - cannot provide"
+                            + " a Session for [" + txContextKey + "].");
+                }
+                waitForSessionHolderReleased(maxSessions, remainingMillis);
             }
-            // ----- No, there was no SessionHolder available, so we must make a new session
+
+            // ----- We have a reservation for a new SessionHolder.
 
             // NOTE: This is async, so while we make the JMS Session, another might come in. No problem..
 
             // :: Get the Pool's JMS Connection (will wait if not already in place)
             // NOTE: Might throw if it was attempted created by someone else (concurrently), which threw.
-            Connection jmsConnection = getOrWaitForPoolJmsConnection();
+            Connection jmsConnection;
+            try {
+                jmsConnection = getOrWaitForPoolJmsConnection();
+            }
+            catch (JmsMatsJmsException e) {
+                // Give back the reservation, and throw on.
+                decrementSessionHolderCount_And_EvaluateIfEmpty();
+                throw e;
+            }
 
             // :: Create a new JMS Session and stick it into a SessionHolder, and employ it.
             try {
@@ -334,9 +803,8 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                 // Set context
                 jmsSessionHolder.setCurrentContext("employed:" + txContextKey);
                 // Employ it.
-                synchronized (this) {
-                    _employedSessionHolders.add(jmsSessionHolder);
-                }
+                _employedSessionHolders.add(jmsSessionHolder);
+                _statsSessionHoldersCreated.increment();
                 // Return it.
                 return jmsSessionHolder;
             }
@@ -347,11 +815,104 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                 // :: Crash this ConnectionWithSessionPool
                 // Need a dummy JmsSessionHolderImpl (The JMS objects are not touched by the crashed() method).
                 crashed(new JmsSessionHolderImpl(txContextKey, this, null, null), e);
+                // The dummy is not in the pool's sets, so give back the reservation (the crash closed the Connection)
+                decrementSessionHolderCount_And_EvaluateIfEmpty();
                 // Throw it out.
                 throw e;
             }
         }
 
+        protected static final int RESERVED = 0;
+        protected static final int REMOVED = 1;
+        protected static final int FULL = 2;
+
+        /**
+         * Reserves a slot for a new SessionHolder, unless the pool is removed or full.
+         *
+         * @param maxSessions
+         *            the max number of SessionHolders in this pool, 0 for no limit.
+         * @return {@link #RESERVED}, {@link #REMOVED} or {@link #FULL}.
+         */
+        protected int reserveSessionHolder(int maxSessions) {
+            while (true) {
+                int current = _sessionHolderCount.get();
+                // ?: Is the pool removed?
+                if (current < 0) {
+                    // -> Yes, removed.
+                    return REMOVED;
+                }
+                // ?: Is the pool full?
+                if ((maxSessions > 0) && (current >= maxSessions)) {
+                    // -> Yes, full.
+                    return FULL;
+                }
+                if (_sessionHolderCount.compareAndSet(current, current + 1)) {
+                    return RESERVED;
+                }
+                _statsContentionRetries.increment();
+            }
+        }
+
+        // :: Waiting for SessionHolders when the pool is full. The releaser only takes the monitor if there are waiters.
+        protected final Object _sessionReleasedMonitor = new Object();
+        protected final AtomicInteger _waitersForSessionHolder = new AtomicInteger();
+
+        protected void waitForSessionHolderReleased(int maxSessions, long maxWaitMillis) throws JmsMatsJmsException {
+            synchronized (_sessionReleasedMonitor) {
+                _waitersForSessionHolder.incrementAndGet();
+                try {
+                    // ?: Has anything changed since we found the pool full? (The releaser checks for waiters after
+                    // the change, so we either see the change here, or get notified.)
+                    if (_availableSessionHolders.isEmpty()
+                            && (_sessionHolderCount.get() >= maxSessions)
+                            && (_poolIsCrashed_StackTrace == null)) {
+                        // -> No, so wait for a release.
+                        _sessionReleasedMonitor.wait(maxWaitMillis);
+                    }
+                }
+                catch (InterruptedException e) {
+                    throw new JmsMatsJmsException("Got interrupted while waiting for a JMS Session to be released"
+                            + " in [" + this + "].", e);
+                }
+                finally {
+                    _waitersForSessionHolder.decrementAndGet();
+                }
+            }
+        }
+
+        protected void notifyWaitersForSessionHolder() {
+            // ?: Is there anyone waiting?
+            if (_waitersForSessionHolder.get() > 0) {
+                // -> Yes, so wake them.
+                synchronized (_sessionReleasedMonitor) {
+                    _sessionReleasedMonitor.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Decrements the count of SessionHolders, and if it went to zero, removes this pool.
+         *
+         * @return <code>true</code> if this pool was now removed, and thus the JMS Connection should be closed.
+         */
+        protected boolean decrementSessionHolderCount_And_EvaluateIfEmpty() {
+            int count = _sessionHolderCount.decrementAndGet();
+            // A slot was freed up, so anyone waiting on a full pool can now create a new SessionHolder.
+            notifyWaitersForSessionHolder();
+            // ?: Did we go to zero, and managed to mark it as removed? (if not, someone reserved concurrently)
+            if ((count == 0) && _sessionHolderCount.compareAndSet(0, -1)) {
+                // -> Yes, none in either employed nor available set, and none being created.
+                // Remove us from live map, if this is where this ConnectionWithSessionPool resides
+                _liveConnectionWithSessionPools.remove(_poolingKey, this);
+                // Remove us fom dead map, if this is where this ConnectionWithSessionPool resides
+                _crashedConnectionWithSessionPools.remove(_poolingKey, this);
+                // We removed the ConnectionWithSessionPool - so close the actual JMS Connection.
+                return true;
+            }
+            // E-> We did not remove the ConnectionWithSessionPool, so keep the JMS Connection open.
+            return false;
+        }
+
         protected volatile Exception _poolIsCrashed_StackTrace;
 
         /**
@@ -376,9 +937,63 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
             jmsSessionHolder.setCurrentContext("available");
             if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "release() invoked from [" + jmsSessionHolder
                     + "] on [" + this + "] -> moving from 'employed' to 'available' set.");
-            synchronized (this) {
-                _employedSessionHolders.remove(jmsSessionHolder);
-                _availableSessionHolders.addFirst(jmsSessionHolder);
+            _employedSessionHolders.remove(jmsSessionHolder);
+            jmsSessionHolder._lastReleasedNanos = System.nanoTime();
+            _availableSessionHolders.addFirst(jmsSessionHolder);
+            // ?: Did the pool crash while we enpooled? (The crash clears out the available SessionHolders, but might
+            // have done that before we added ours)
+            if ((_poolIsCrashed_StackTrace != null) && _availableSessionHolders.remove(jmsSessionHolder)) {
+                // -> Yes, and we got it out again, so clean it out ourselves.
+                jmsSessionHolder.setCurrentContext("crashed+released");
+                if (decrementSessionHolderCount_And_EvaluateIfEmpty()) {
+                    closeJmsConnection();
+                }
+                return;
+            }
+            // Wake anyone waiting on a full pool
+            notifyWaitersForSessionHolder();
+            // Evict any SessionHolders that have been idle for too long
+            evictIdleSessionHolders();
+        }
+
+        /**
+         * Closes available SessionHolders that have been idle longer than {@link #setIdleTimeoutMillis(long)}, as
+         * long as there are more than {@link #setMinIdleSessions(int)} available. Since the available SessionHolders
+         * are LIFO, the idle ones are at the tail.
+         */
+        protected void evictIdleSessionHolders() {
+            long idleTimeoutMillis = _idleTimeoutMillis;
+            // ?: Is idle eviction enabled?
+            if (idleTimeoutMillis == 0) {
+                // -> No, so nothing to do.
+                return;
+            }
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+            long now = System.nanoTime();
+            while (true) {
+                // ?: Would we go below min idle?
+                if (_availableSessionHolders.size() <= _minIdleSessions) {
+                    // -> Yes, so keep the rest.
+                    return;
+                }
+                // Take it out atomically, so that it cannot be employed and released between check and removal.
+                JmsSessionHolderImpl oldest = _availableSessionHolders.pollLast();
+                // ?: Did we get any?
+                if (oldest == null) {
+                    // -> No, so nothing more to evict.
+                    return;
+                }
+                // ?: Has it been idle for too long?
+                if ((now - oldest._lastReleasedNanos) < idleTimeoutNanos) {
+                    // -> No, so put it back where it was - and then none of the others have been idle for too long
+                    // either.
+                    _availableSessionHolders.offerLast(oldest);
+                    return;
+                }
+                _statsSessionHoldersEvicted.increment();
+                if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "Evicting [" + oldest + "] from [" + this
+                        + "], as it has been idle for more than [" + idleTimeoutMillis + " ms].");
+                internalClose(oldest, true);
             }
         }
 
@@ -405,7 +1020,7 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
             log.info(LOG_PREFIX + "close() invoked from [" + jmsSessionHolder + "] on [" + this + "] "
                     + " -> removing from pool and then physically closing JMS Session."
                     + " Underlying JMS Connection is [" + id(_jmsConnection) + ":" + _jmsConnection + "]");
-            internalClose(jmsSessionHolder);
+            internalClose(jmsSessionHolder, false);
         }
 
         /**
@@ -438,60 +1053,48 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                     + " is empty of SessionHolders (i.e. employed == 0), then close JMS Connection."
                     + " Underlying JMS Connection is [" + id(_jmsConnection) + ":" + _jmsConnection + "]");
 
-            // Lock both the whole Handler, and this ConnectionWithSessionPool instance, to avoid having threads sneak
-            // by and getting either an available Session, or the Connection.
-            // Lock order: Bigger to smaller objects.
             log.info(LOG_PREFIX + "Marking pool as crashed, clearing available SessionHolders, moving us"
                     + " from live to dead ConnectionWithSessionPool. [" + this + "].");
-            assertBigToSmallLockOrder();
-            synchronized (JmsMatsJmsSessionHandler_Pooling.this) {
-                synchronized (this) {
-                    // Crash this pool
-                    _poolIsCrashed_StackTrace = new Exception("This [" + this + "] was crashed.", reasonException);
-                    // Clear *available* SessionHolders. (Employed list will empty out eventually)
-                    // NOITE: Closing JMS Connection unconditionally, and thus Sessions, outside of synch..
-                    _availableSessionHolders.clear();
-                    // Removing this SessionHolder from employed
-                    boolean closeJmsConnection = removeSessionHolderFromPool_And_EvaluateIfEmpty(
-                            jmsSessionHolder);
-                    // ?: Was this the last session?
-                    if (!closeJmsConnection) {
-                        // -> No, it was not the last session, so move us to the crashed-set
-                        // Remove us from the live connections set.
-                        _liveConnectionWithSessionPools.remove(_poolingKey);
-                        // Add us to the crashed set
-                        _crashedConnectionWithSessionPools.put(_poolingKey, this);
-                    }
-                    /*
-                     * NOTE: Any other employed SessionHolders will invoke isConnectionLive(), and find that it is not
-                     * still active by getting a JmsMatsJmsException, thus come back with crashed(). Otherwise, they
-                     * will also come get a JMS Exception from other JMS actions, and come back with crashed(). It could
-                     * potentially also get a null from .receive(), and thus come back with close().
-                     */
-                }
+            // Crash this pool - after this, no new SessionHolders will be created in it, and any concurrent release()
+            // will clean out its SessionHolder instead of enpooling it.
+            _poolIsCrashed_StackTrace = new Exception("This [" + this + "] was crashed.", reasonException);
+            // Move us from the live set to the crashed set, so that new getters will make a new pool.
+            // NOTICE: Doing this before removing any SessionHolders, so that the removal of the last SessionHolder
+            // will find us in the crashed set.
+            _crashedConnectionWithSessionPools.put(_poolingKey, this);
+            _liveConnectionWithSessionPools.remove(_poolingKey, this);
+            // Clear *available* SessionHolders. (Employed list will empty out eventually)
+            // NOTICE: Closing JMS Connection unconditionally, and thus Sessions, below.
+            JmsSessionHolderImpl availableHolder;
+            while ((availableHolder = _availableSessionHolders.pollFirst()) != null) {
+                availableHolder.setCurrentContext("crashed+cleared");
+                decrementSessionHolderCount_And_EvaluateIfEmpty();
             }
+            // Removing this SessionHolder from employed
+            removeSessionHolderFromPool_And_EvaluateIfEmpty(jmsSessionHolder);
+            /*
+             * NOTE: Any other employed SessionHolders will invoke isConnectionLive(), and find that it is not still
+             * active by getting a JmsMatsJmsException, thus come back with crashed(). Otherwise, they will also come
+             * get a JMS Exception from other JMS actions, and come back with crashed(). It could potentially also get
+             * a null from .receive(), and thus come back with close().
+             */
+
             // :: Now close the JMS Connection, since this was a crash, and we want to get rid of it.
             // Closing JMS Connection will per JMS API close all Sessions, Consumers and Producers.
             closeJmsConnection();
         }
 
-        protected void assertBigToSmallLockOrder() {
-            // If we at this point only have 'this' locked, and not "mother", then we're screwed.
-            // Both none locked, and both locked, is OK.
-            if (Thread.holdsLock(this) && (!Thread.holdsLock(JmsMatsJmsSessionHandler_Pooling.this))) {
-                throw new AssertionError("When locking both '"
-                        + JmsMatsJmsSessionHandler_Pooling.class.getSimpleName()
-                        + "' and '" + ConnectionWithSessionPool.class.getSimpleName() + "', one shall not"
-                        + " start by having the pool locked, as that is the smaller, and the defined"
-                        + " locking order is big to small.");
-            }
-        }
-
-        protected void internalClose(JmsSessionHolderImpl jmsSessionHolder) {
+        /**
+         * @param alreadyOutOfSets
+         *            <code>true</code> if the SessionHolder is already taken out of the employed and available sets,
+         *            i.e. polled out of the available set by {@link #closeAllAvailableSessions()}.
+         */
+        protected void internalClose(JmsSessionHolderImpl jmsSessionHolder, boolean alreadyOutOfSets) {
             jmsSessionHolder.setCurrentContext("closed");
             // Remove this SessionHolder from pool, and remove ConnectionWithSessionPool if empty (if so, returns true)
-            boolean closeJmsConnection = removeSessionHolderFromPool_And_EvaluateIfEmpty(
-                    jmsSessionHolder);
+            boolean closeJmsConnection = alreadyOutOfSets
+                    ? decrementSessionHolderCount_And_EvaluateIfEmpty()
+                    : removeSessionHolderFromPool_And_EvaluateIfEmpty(jmsSessionHolder);
             // ?: Was this the last SessionHolder in use?
             if (closeJmsConnection) {
                 // -> Yes, last SessionHolder in this ConnectionWithSessionPool, so close the actual JMS Connection
@@ -519,30 +1122,16 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
                 JmsSessionHolderImpl jmsSessionHolder) {
             log.info(LOG_PREFIX + "Removing [" + jmsSessionHolder + "] from pool [" + this + "].");
 
-            // Lock both the whole Handler, and this ConnectionWithSessionPool instance, to avoid having threads sneak
-            // by and getting either an available Session, or the Connection.
-            // Lock order: Bigger to smaller objects.
-            assertBigToSmallLockOrder();
-            synchronized (JmsMatsJmsSessionHandler_Pooling.this) {
-                synchronized (this) {
-                    // Remove from employed (this is the normal place a SessionHolder live)
-                    _employedSessionHolders.remove(jmsSessionHolder);
-                    // Remove from available (this is where a SessionHolder lives if the pool is shutting down)
-                    _availableSessionHolders.remove(jmsSessionHolder);
-                    // ?: Is the ConnectionWithSessionPool now empty?
-                    if (_employedSessionHolders.isEmpty() && _availableSessionHolders.isEmpty()) {
-                        // -> Yes, none in either employed nor available set.
-                        // Remove us from live map, if this is where this ConnectionWithSessionPool resides
-                        _liveConnectionWithSessionPools.remove(_poolingKey);
-                        // Remove us fom dead map, if this is where this ConnectionWithSessionPool resides
-                        _crashedConnectionWithSessionPools.remove(_poolingKey);
-                        // We removed the ConnectionWithSessionPool - so close the actual JMS Connection.
-                        return true;
-                    }
-                    // E-> We did not remove the ConnectionWithSessionPool, so keep the JMS Connection open.
-                    return false;
-                }
+            // Remove from employed (this is the normal place a SessionHolder live)
+            boolean removed = _employedSessionHolders.remove(jmsSessionHolder);
+            // Remove from available (this is where a SessionHolder lives if the pool is shutting down)
+            removed |= _availableSessionHolders.remove(jmsSessionHolder);
+            // ?: Was it in either set? (If not, it is either already removed, or it is a dummy)
+            if (!removed) {
+                // -> No, so it does not count.
+                return false;
             }
+            return decrementSessionHolderCount_And_EvaluateIfEmpty();
         }
 
         protected void closeJmsConnection() {
@@ -571,11 +1160,8 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
 
         @Override
         public String toString() {
-            int available, employed;
-            synchronized (this) {
-                available = _availableSessionHolders.size();
-                employed = _employedSessionHolders.size();
-            }
+            int available = _availableSessionHolders.size();
+            int employed = _employedSessionHolders.size();
             return idThis() + "{pool:" + (_poolIsCrashed_StackTrace == null ? "live" : "crashed") + "|sess avail:"
                     + available + ",empl:" + employed + "}";
         }
@@ -598,6 +1184,9 @@ public class JmsMatsJmsSessionHandler_Pooling implements JmsMatsJmsSessionHandle
 
         protected Object _currentContext;
 
+        // When this SessionHolder was last put back into the available set, for idle eviction.
+        protected volatile long _lastReleasedNanos;
+
         protected void setCurrentContext(Object currentContext) {
             _currentContext = currentContext;
         }
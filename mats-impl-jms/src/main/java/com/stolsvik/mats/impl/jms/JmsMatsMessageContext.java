@@ -1,7 +1,11 @@
 package com.stolsvik.mats.impl.jms;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import javax.jms.MessageConsumer;
@@ -36,6 +40,23 @@ public class JmsMatsMessageContext {
         return Optional.ofNullable(_messageConsumer);
     }
 
+    private boolean _refusedWithoutMessageConsumer;
+
+    /**
+     * Set by the {@link JmsMatsTransactionManager} if the processing refused the message with
+     * {@link com.stolsvik.mats.MatsEndpoint.MatsRefuseMessageException MatsRefuseMessageException}, but there is no
+     * {@link MessageConsumer} to have the broker put it on the DLQ - which is the case for messages short-circuited
+     * in-JVM, ref. {@link JmsMatsFactory#setLocalShortCircuitConcurrency(int)}. The transaction has then been rolled
+     * back, and the {@link JmsMatsStageProcessor} must handle the refusal.
+     */
+    public void setRefusedWithoutMessageConsumer() {
+        _refusedWithoutMessageConsumer = true;
+    }
+
+    boolean isRefusedWithoutMessageConsumer() {
+        return _refusedWithoutMessageConsumer;
+    }
+
     private Supplier<Connection> _sqlConnectionSupplier;
 
     /**
@@ -81,4 +102,62 @@ public class JmsMatsMessageContext {
                 ? false
                 : _sqlConnectionEmployed.get();
     }
+
+    private List<Runnable> _afterJmsCommit;
+
+    /**
+     * Used by JMS Mats to do things when the JMS Session has committed, e.g. handing short-circuited messages to the
+     * local Stage, ref. {@link JmsMatsFactory#setLocalShortCircuitConcurrency(int)}.
+     */
+    void addAfterJmsCommit(Runnable runnable) {
+        if (_afterJmsCommit == null) {
+            _afterJmsCommit = new ArrayList<>();
+        }
+        _afterJmsCommit.add(runnable);
+    }
+
+    /**
+     * Invoked by the {@link JmsMatsTransactionManager} when the JMS Session has committed.
+     */
+    public void runAfterJmsCommit() {
+        if (_afterJmsCommit != null) {
+            _afterJmsCommit.forEach(Runnable::run);
+        }
+    }
+
+    private Executor _pipelinedCommitExecutor;
+    private CompletableFuture<Void> _pipelinedCommit;
+
+    /**
+     * Set by the {@link JmsMatsStageProcessor} if it runs with {@link JmsMatsFactory#setPipelinedCommit(boolean)
+     * pipelined commit}: The {@link JmsMatsTransactionManager} should then, instead of committing the JMS Session
+     * directly, hand the commit off to this Executor, and set the resulting future using
+     * {@link #setPipelinedCommit(CompletableFuture)}.
+     */
+    void setPipelinedCommitExecutor(Executor pipelinedCommitExecutor) {
+        _pipelinedCommitExecutor = pipelinedCommitExecutor;
+    }
+
+    /**
+     * @return the Executor to hand the JMS commit off to, or <code>null</code> if the commit should be done directly.
+     */
+    public Executor getPipelinedCommitExecutor() {
+        return _pipelinedCommitExecutor;
+    }
+
+    /**
+     * Set by the {@link JmsMatsTransactionManager} when it has handed the JMS commit off to the
+     * {@link #getPipelinedCommitExecutor() pipelined commit Executor}.
+     */
+    public void setPipelinedCommit(CompletableFuture<Void> pipelinedCommit) {
+        _pipelinedCommit = pipelinedCommit;
+    }
+
+    /**
+     * @return the future of the handed off JMS commit, or <code>null</code> if the commit was done directly (or the
+     *         transaction was rolled back).
+     */
+    CompletableFuture<Void> getPipelinedCommit() {
+        return _pipelinedCommit;
+    }
 }
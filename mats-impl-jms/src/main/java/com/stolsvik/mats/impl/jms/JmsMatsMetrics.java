@@ -0,0 +1,222 @@
+package com.stolsvik.mats.impl.jms;
+
+import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.JmsMatsTxContextKey;
+
+/**
+ * Metrics SPI for the JMS implementation of MATS: Receives the timings, message sizes and error events that the
+ * implementation already measures for its log lines (the "RECEIVED", "PRODUCED", "SENT" and "PROCESSED" lines), so
+ * that they can be fed to a metrics system - e.g. the Micrometer binding in the 'mats-metrics-micrometer' module.
+ * Install on the factory using {@link JmsMatsFactory#setMetrics(JmsMatsMetrics)}; the default is {@link #NO_OP}.
+ * <p/>
+ * Every event is recorded for an {@link Origin} - either a Stage, identified by its stageId, or an Initiator,
+ * identified by its name. The methods are invoked on the hot path, by the StageProcessor and initiating threads, so
+ * implementations must be thread safe, fast, and must not throw.
+ */
+public interface JmsMatsMetrics {
+    /**
+     * The default, which does nothing.
+     */
+    JmsMatsMetrics NO_OP = new JmsMatsMetrics() {
+        @Override
+        public String toString() {
+            return "JmsMatsMetrics.NO_OP";
+        }
+    };
+
+    /**
+     * Whether the event happened in a Stage or an Initiator.
+     */
+    enum Origin {
+        STAGE,
+
+        INITIATOR
+    }
+
+    /**
+     * The timings that are recorded.
+     */
+    enum Timing {
+        /**
+         * Stage: From the message was received from JMS, until the process lambda is invoked - i.e. decompression,
+         * deserialization of MatsTrace, state and DTO, and fetching of sideloads.
+         */
+        RECEIVE_TO_LAMBDA,
+
+        /**
+         * Stage: Decompression of the incoming MatsTrace.
+         */
+        DECOMPRESS,
+
+        /**
+         * Stage: Deserialization of the incoming MatsTrace.
+         */
+        DESERIALIZE,
+
+        /**
+         * Stage and Initiator: The user lambda.
+         */
+        LAMBDA,
+
+        /**
+         * Stage and Initiator: Serialization of an outgoing MatsTrace - recorded per message.
+         */
+        SERIALIZE,
+
+        /**
+         * Stage and Initiator: Compression of an outgoing MatsTrace - recorded per message.
+         */
+        COMPRESS,
+
+        /**
+         * Stage and Initiator: Creating the JMS Message and sending it - recorded per message.
+         */
+        SEND,
+
+        /**
+         * Stage and Initiator: Committing the JMS Session.
+         */
+        COMMIT,
+
+        /**
+         * Initiator: The time the initiation was held back by rate limits or backpressure before sending - only
+         * recorded for initiations that were subject to such throttling.
+         */
+        THROTTLED,
+
+        /**
+         * Stage: From the message was received from JMS, until the processing is finished, i.e. after commit and any
+         * doAfterCommit lambda. Initiator: The full initiation.
+         */
+        TOTAL
+    }
+
+    /**
+     * The message sizes that are recorded.
+     */
+    enum Size {
+        /**
+         * Stage: The incoming MatsTrace as received, i.e. compressed if compression was employed.
+         */
+        RECEIVED,
+
+        /**
+         * Stage: The incoming MatsTrace after decompression.
+         */
+        RECEIVED_DECOMPRESSED,
+
+        /**
+         * Stage and Initiator: The outgoing MatsTrace before compression.
+         */
+        SENT_UNCOMPRESSED,
+
+        /**
+         * Stage and Initiator: The outgoing MatsTrace as sent, i.e. compressed if compression was employed.
+         */
+        SENT
+    }
+
+    /**
+     * The errors that are counted.
+     */
+    enum ErrorKind {
+        /**
+         * The user lambda threw, and the transaction was rolled back - for a Stage, this means redelivery.
+         */
+        ROLLBACK,
+
+        /**
+         * The user lambda threw <code>MatsRefuseMessageException</code>, or the incoming message was not a valid MATS
+         * message, and the message was attempted sent directly to the DLQ.
+         */
+        REFUSED_TO_DLQ,
+
+        /**
+         * The JMS implementation had problems, and the JMS Session was rolled back and will be recreated.
+         */
+        JMS_PROBLEM,
+
+        /**
+         * The JMS Session could not be committed after the lambda finished (the "VERY BAD!" situation).
+         */
+        COMMIT_FAILED,
+
+        /**
+         * Initiator: The initiation was throttled by rate limits or backpressure for longer than allowed, and was rolled
+         * back, ref. {@link com.stolsvik.mats.MatsInitiator.MatsThrottledException}.
+         */
+        THROTTLED
+    }
+
+    /**
+     * Records a timing.
+     *
+     * @param origin
+     *            whether the timing comes from a Stage or an Initiator.
+     * @param id
+     *            the stageId or the Initiator name.
+     * @param timing
+     *            which timing.
+     * @param nanos
+     *            the time taken, in nanoseconds.
+     */
+    default void recordTiming(Origin origin, String id, Timing timing, long nanos) {
+        /* no-op */
+    }
+
+    /**
+     * Records a message size.
+     *
+     * @param origin
+     *            whether the message was received or sent by a Stage, or sent by an Initiator.
+     * @param id
+     *            the stageId or the Initiator name.
+     * @param size
+     *            which size.
+     * @param bytes
+     *            the size, in bytes.
+     */
+    default void recordSize(Origin origin, String id, Size size, int bytes) {
+        /* no-op */
+    }
+
+    /**
+     * Counts an error.
+     *
+     * @param origin
+     *            whether the error happened in a Stage or an Initiator.
+     * @param id
+     *            the stageId or the Initiator name.
+     * @param error
+     *            which error.
+     */
+    default void recordError(Origin origin, String id, ErrorKind error) {
+        /* no-op */
+    }
+
+    /**
+     * @return the {@link Origin} of the txContextKey.
+     */
+    static Origin originOf(JmsMatsTxContextKey txContextKey) {
+        return txContextKey.getStage() != null ? Origin.STAGE : Origin.INITIATOR;
+    }
+
+    /**
+     * @return the stageId if the txContextKey is a StageProcessor, or the name if it is an Initiator.
+     */
+    static String idOf(JmsMatsTxContextKey txContextKey) {
+        JmsMatsStage<?, ?, ?, ?> stage = txContextKey.getStage();
+        if (stage != null) {
+            return stage.getStageId();
+        }
+        return txContextKey instanceof JmsMatsInitiator
+                ? ((JmsMatsInitiator<?>) txContextKey).getName()
+                : txContextKey.toString();
+    }
+
+    /**
+     * @return the millis, as used in the MatsSerializer's timings, converted to nanos.
+     */
+    static long millisToNanos(double millis) {
+        return (long) (millis * 1_000_000d);
+    }
+}
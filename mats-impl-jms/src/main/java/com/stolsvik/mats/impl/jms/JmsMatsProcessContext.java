@@ -96,15 +96,28 @@ public class JmsMatsProcessContext<R, S, Z> implements ProcessContext<R>, JmsMat
      */
     static class DoAfterCommitRunnableHolder {
         private Runnable _doAfterCommit;
+        private DoAfterCommitRunnableHolder _next;
 
         void setDoAfterCommit(Runnable runnable) {
             _doAfterCommit = runnable;
         }
 
+        /**
+         * @return a new holder for a Stage processed within the same transaction, ref.
+         *         {@link JmsMatsFactory#setInlineNextStage(boolean)}, which is run after this one's.
+         */
+        DoAfterCommitRunnableHolder chainNext() {
+            _next = new DoAfterCommitRunnableHolder();
+            return _next;
+        }
+
         public void runDoAfterCommitIfAny() {
             if (_doAfterCommit != null) {
                 _doAfterCommit.run();
             }
+            if (_next != null) {
+                _next.runDoAfterCommitIfAny();
+            }
         }
     }
 
@@ -322,7 +335,7 @@ public class JmsMatsProcessContext<R, S, Z> implements ProcessContext<R>, JmsMat
         JmsMatsMessage<Z> request = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                 requestMatsTrace, _outgoingProps, _outgoingBinaries, _outgoingStrings, "REQUEST",
                 _parentFactory.getFactoryConfig().getName());
-        _messagesToSend.add(request);
+        addMessageToSend(_parentFactory, _messagesToSend, request);
 
         return new MessageReferenceImpl(matsMessageId);
     }
@@ -366,7 +379,7 @@ public class JmsMatsProcessContext<R, S, Z> implements ProcessContext<R>, JmsMat
         JmsMatsMessage<Z> reply = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                 replyMatsTrace, _outgoingProps, _outgoingBinaries, _outgoingStrings, "REPLY",
                 _parentFactory.getFactoryConfig().getName());
-        _messagesToSend.add(reply);
+        addMessageToSend(_parentFactory, _messagesToSend, reply);
 
         return new MessageReferenceImpl(matsMessageId);
     }
@@ -391,7 +404,7 @@ public class JmsMatsProcessContext<R, S, Z> implements ProcessContext<R>, JmsMat
         JmsMatsMessage<Z> next = produceJmsMatsMessage(log, nanosStart, _parentFactory.getMatsSerializer(),
                 nextMatsTrace, _outgoingProps, _outgoingBinaries, _outgoingStrings, "NEXT",
                 _parentFactory.getFactoryConfig().getName());
-        _messagesToSend.add(next);
+        addMessageToSend(_parentFactory, _messagesToSend, next);
 
         return new MessageReferenceImpl(matsMessageId);
     }
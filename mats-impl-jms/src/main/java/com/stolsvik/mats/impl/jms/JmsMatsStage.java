@@ -4,14 +4,25 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import javax.jms.DeliveryMode;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Session;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.stolsvik.mats.MatsConfig;
 import com.stolsvik.mats.MatsEndpoint.ProcessLambda;
 import com.stolsvik.mats.MatsStage;
+import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler.JmsSessionHolder;
+import com.stolsvik.mats.impl.jms.JmsMatsStageProcessor.ProcessorKind;
+import com.stolsvik.mats.impl.jms.JmsMatsStatics.JmsMatsMessage;
+import com.stolsvik.mats.serial.MatsTrace;
 
 /**
  * The JMS implementation of {@link MatsStage}.
@@ -75,14 +86,18 @@ public class JmsMatsStage<R, S, I, Z> implements MatsStage<R, S, I>, JmsMatsStat
         return _anyProcessorMadeConsumerLatch;
     }
 
-    private String _nextStageId;
+    private JmsMatsStage<R, S, ?, Z> _nextStage;
+
+    void setNextStage(JmsMatsStage<R, S, ?, Z> nextStage) {
+        _nextStage = nextStage;
+    }
 
-    void setNextStageId(String nextStageId) {
-        _nextStageId = nextStageId;
+    JmsMatsStage<R, S, ?, Z> getNextStage() {
+        return _nextStage;
     }
 
     String getNextStageId() {
-        return _nextStageId;
+        return _nextStage != null ? _nextStage.getStageId() : null;
     }
 
     JmsMatsEndpoint<R, S, Z> getParentEndpoint() {
@@ -130,7 +145,33 @@ public class JmsMatsStage<R, S, I, Z> implements MatsStage<R, S, I>, JmsMatsStat
         }
 
         for (int i = 0; i < numberOfProcessors; i++) {
-            _stageProcessors.add(new JmsMatsStageProcessor<>(this, i));
+            _stageProcessors.add(new JmsMatsStageProcessor<>(this, i, ProcessorKind.ORDINARY));
+        }
+
+        // :: Fire up the processors for the interactive lane, if in use (only for queues).
+        int interactiveLaneConcurrency = getParentFactory().getInteractiveLaneConcurrency();
+        if (_queue && (interactiveLaneConcurrency > 0)) {
+            // Numbering after the ordinary processors, so that the processor numbers are unique within the Stage.
+            for (int i = 0; i < interactiveLaneConcurrency; i++) {
+                _stageProcessors.add(new JmsMatsStageProcessor<>(this, numberOfProcessors + i,
+                        ProcessorKind.INTERACTIVE_LANE));
+            }
+            // Now that there are processors to consume it, let the factory send interactive messages to our lane.
+            _parentFactory.registerInteractiveLaneStage(this);
+        }
+
+        // :: Fire up the processors for the local short-circuit, if in use (only for queues).
+        int localShortCircuitConcurrency = getParentFactory().getLocalShortCircuitConcurrency();
+        if (_queue && (localShortCircuitConcurrency > 0)) {
+            // Numbering after the other processors, so that the processor numbers are unique within the Stage.
+            _localQueue = new LinkedBlockingQueue<>(getParentFactory().getLocalShortCircuitQueueCapacity());
+            int firstProcessorNumber = _stageProcessors.size();
+            for (int i = 0; i < localShortCircuitConcurrency; i++) {
+                _stageProcessors.add(new JmsMatsStageProcessor<>(this, firstProcessorNumber + i,
+                        ProcessorKind.LOCAL_SHORT_CIRCUIT));
+            }
+            // Now that there are processors to take them, let the factory short-circuit messages to us.
+            _parentFactory.registerLocalShortCircuitStage(this);
         }
     }
 
@@ -144,6 +185,141 @@ public class JmsMatsStage<R, S, I, Z> implements MatsStage<R, S, I>, JmsMatsStat
         }
     }
 
+    @Override
+    public void stopPhase0SetRunFlagFalseAndCloseSessionIfInReceive() {
+        // No more short-circuiting or sending to our interactive lane, as we're going down.
+        _parentFactory.deregisterLocalShortCircuitStage(this);
+        _parentFactory.deregisterInteractiveLaneStage(this);
+        JmsMatsStartStoppable.super.stopPhase0SetRunFlagFalseAndCloseSessionIfInReceive();
+        LinkedBlockingQueue<LocalDelivery<Z>> localQueue = _localQueue;
+        if ((localQueue != null) && !localQueue.isEmpty()) {
+            log.warn(LOG_PREFIX + "Stopping [" + _stageId + "] with [" + localQueue.size() + "] short-circuited"
+                    + " non-persistent messages not yet processed - these will be lost.");
+        }
+    }
+
+    // :: Local short-circuit, ref. JmsMatsFactory.setLocalShortCircuitConcurrency(int)
+
+    // Made when starting, with the capacity from JmsMatsFactory.setLocalShortCircuitQueueCapacity(int).
+    private volatile LinkedBlockingQueue<LocalDelivery<Z>> _localQueue;
+
+    /**
+     * A message short-circuited in-JVM to this Stage.
+     */
+    static class LocalDelivery<Z> {
+        private final JmsMatsMessage<Z> _jmsMatsMessage;
+        private final long _expiresAtMillis;
+
+        private LocalDelivery(JmsMatsMessage<Z> jmsMatsMessage) {
+            _jmsMatsMessage = jmsMatsMessage;
+            long timeToLive = jmsMatsMessage.getMatsTrace().getTimeToLive();
+            _expiresAtMillis = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+        }
+
+        JmsMatsMessage<Z> getJmsMatsMessage() {
+            return _jmsMatsMessage;
+        }
+
+        boolean isExpired() {
+            return (_expiresAtMillis != 0) && (System.currentTimeMillis() > _expiresAtMillis);
+        }
+
+        /**
+         * @return the time-to-live that is left of the message, for sending it via the broker: 0 if it has none (i.e.
+         *         lives forever, as with JMS), or -1 if it has expired.
+         */
+        long getRemainingTimeToLive() {
+            if (_expiresAtMillis == 0) {
+                return 0;
+            }
+            long remaining = _expiresAtMillis - System.currentTimeMillis();
+            return remaining > 0 ? remaining : -1;
+        }
+    }
+
+    /**
+     * @return whether there is room for more short-circuited messages - checked when sending, so that the message
+     *         goes via the broker instead if the local processors are behind.
+     */
+    boolean hasLocalCapacity() {
+        return _localQueue.remainingCapacity() > 0;
+    }
+
+    /**
+     * Invoked after the sender's transaction has committed. If the local queue turns out to be full (racing senders
+     * may have filled it since the capacity check), the message is instead sent via the broker, using the sender's
+     * JMS Session - which, having just committed, has no other work in it.
+     */
+    void deliverLocally(JmsMatsMessage<Z> jmsMatsMessage, JmsSessionHolder senderJmsSessionHolder) {
+        LocalDelivery<Z> localDelivery = new LocalDelivery<>(jmsMatsMessage);
+        // ?: Could we enqueue it?
+        if (_localQueue.offer(localDelivery)) {
+            // -> Yes, so it is on its way.
+            return;
+        }
+        // E-> No, so send it via the broker instead - unless it has expired, which the broker would then drop.
+        long timeToLive = localDelivery.getRemainingTimeToLive();
+        // ?: Has it expired?
+        if (timeToLive < 0) {
+            // -> Yes, so drop it.
+            log.info(LOG_PREFIX + "The local queue of [" + _stageId + "] is full, and the short-circuited message ["
+                    + jmsMatsMessage.getWhat() + "] has passed its time-to-live, so dropping it.");
+            return;
+        }
+        log.info(LOG_PREFIX + "The local queue of [" + _stageId + "] is full, so sending the short-circuited"
+                + " message [" + jmsMatsMessage.getWhat() + "] via the broker instead.");
+        try {
+            sendViaBroker(senderJmsSessionHolder, jmsMatsMessage, timeToLive);
+            senderJmsSessionHolder.getSession().commit();
+        }
+        catch (JmsMatsJmsException | JMSException e) {
+            // The sender's transaction is already committed, so the message is lost - which is within the contract
+            // of non-persistent messages.
+            log.error(LOG_PREFIX + "Could not send the short-circuited non-persistent message ["
+                    + jmsMatsMessage.getWhat() + "] to [" + _stageId + "] via the broker after the local queue"
+                    + " was full - it is lost.", e);
+        }
+    }
+
+    /**
+     * Sends a short-circuited message to this Stage's queue on the broker, with its original persistence and priority,
+     * and what is left of its time-to-live - it is up to the caller to commit the JMS Session. Employed when the local
+     * queue is full, and when the processing of a short-circuited message failed, so that it gets the ordinary
+     * redelivery and DLQ handling.
+     *
+     * @param timeToLive
+     *            the remaining time-to-live, 0 for none - ref. {@link LocalDelivery#getRemainingTimeToLive()}. An
+     *            expired message must be dropped by the caller, as JMS would take any time-to-live &lt;= 0 as "never
+     *            expires".
+     */
+    void sendViaBroker(JmsSessionHolder jmsSessionHolder, JmsMatsMessage<Z> jmsMatsMessage, long timeToLive)
+            throws JmsMatsJmsException {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("The short-circuited message [" + jmsMatsMessage.getWhat()
+                    + "] has expired, and must be dropped, not sent with timeToLive [" + timeToLive + "].");
+        }
+        try {
+            Session jmsSession = jmsSessionHolder.getSession();
+            MapMessage mapMessage = createMapMessage(jmsSession, jmsMatsMessage, _parentFactory);
+            Destination destination = jmsSession.createQueue(_parentFactory.getFactoryConfig()
+                    .getMatsDestinationPrefix() + _stageId);
+            MatsTrace<Z> matsTrace = jmsMatsMessage.getMatsTrace();
+            int deliveryMode = matsTrace.isNonPersistent()
+                    ? DeliveryMode.NON_PERSISTENT
+                    : DeliveryMode.PERSISTENT;
+            int priority = matsTrace.isInteractive() ? 9 : 4;
+            jmsSessionHolder.getDefaultNoDestinationMessageProducer().send(destination, mapMessage,
+                    deliveryMode, priority, timeToLive);
+        }
+        catch (JMSException e) {
+            throw new JmsMatsJmsException("Got problems sending short-circuited message to the broker.", e);
+        }
+    }
+
+    LocalDelivery<Z> pollLocalDelivery(long timeoutMillis) throws InterruptedException {
+        return _localQueue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public boolean stop(int gracefulShutdownMillis) {
         log.info(LOG_PREFIX + "Stopping [" + _stageId + "]: Stopping all StageProcessors.");
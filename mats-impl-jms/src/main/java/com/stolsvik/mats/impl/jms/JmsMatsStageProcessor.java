@@ -1,11 +1,24 @@
 package com.stolsvik.mats.impl.jms;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
 import javax.jms.Destination;
@@ -27,6 +40,9 @@ import com.stolsvik.mats.MatsInitiator.MatsInitiate;
 import com.stolsvik.mats.MatsStage.StageConfig;
 import com.stolsvik.mats.impl.jms.JmsMatsInitiator.JmsMatsInitiate;
 import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler.JmsSessionHolder;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Origin;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Size;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Timing;
 import com.stolsvik.mats.impl.jms.JmsMatsProcessContext.DoAfterCommitRunnableHolder;
 import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.JmsMatsTxContextKey;
 import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.TransactionContext;
@@ -34,6 +50,7 @@ import com.stolsvik.mats.serial.MatsSerializer;
 import com.stolsvik.mats.serial.MatsSerializer.DeserializedMatsTrace;
 import com.stolsvik.mats.serial.MatsTrace;
 import com.stolsvik.mats.serial.MatsTrace.Call;
+import com.stolsvik.mats.serial.MatsTrace.Call.CallType;
 
 /**
  * MessageConsumer-class for the {@link JmsMatsStage} which is instantiated {@link StageConfig#getConcurrency()} number
@@ -46,28 +63,168 @@ import com.stolsvik.mats.serial.MatsTrace.Call;
 class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxContextKey, JmsMatsStartStoppable {
     private static final Logger log = LoggerFactory.getLogger(JmsMatsStageProcessor.class);
 
-    private final String _randomInstanceId;
+    private final String _randomId;
     private final JmsMatsStage<R, S, I, Z> _jmsMatsStage;
     private final int _processorNumber;
+    private final ProcessorKind _kind;
     private final Thread _processorThread;
     private final TransactionContext _transactionContext;
 
-    JmsMatsStageProcessor(JmsMatsStage<R, S, I, Z> jmsMatsStage, int processorNumber) {
-        _randomInstanceId = randomString(5) + "@" + jmsMatsStage.getParentFactory();
+    JmsMatsStageProcessor(JmsMatsStage<R, S, I, Z> jmsMatsStage, int processorNumber, ProcessorKind kind) {
+        _randomId = randomString(5);
         _jmsMatsStage = jmsMatsStage;
         _processorNumber = processorNumber;
+        _kind = kind;
         _processorThread = new Thread(this::runner, THREAD_PREFIX + ident());
         _processorThread.start();
         _transactionContext = jmsMatsStage.getParentFactory()
                 .getJmsMatsTransactionManager().getTransactionContext(this);
     }
 
+    /**
+     * The kind of StageProcessor, deciding where it gets its messages from.
+     */
+    enum ProcessorKind {
+        /**
+         * Consumes the Stage's queue or topic.
+         */
+        ORDINARY(""),
+
+        /**
+         * Consumes the Stage's interactive lane, ref. {@link JmsMatsFactory#setInteractiveLaneConcurrency(int)}.
+         */
+        INTERACTIVE_LANE(JmsMatsStatics.INTERACTIVE_LANE_POSTFIX),
+
+        /**
+         * Takes the messages short-circuited in-JVM to the Stage, ref.
+         * {@link JmsMatsFactory#setLocalShortCircuitConcurrency(int)}.
+         */
+        LOCAL_SHORT_CIRCUIT(".local");
+
+        private final String _postfix;
+
+        ProcessorKind(String postfix) {
+            _postfix = postfix;
+        }
+    }
+
     private volatile boolean _runFlag = true; // Start off running.
 
     private volatile JmsSessionHolder _jmsSessionHolder;
 
+    // :: Only employed if pipelined commit, ref. JmsMatsFactory.setPipelinedCommit(..)
+    // The second JMS Session, which the processor alternates with the first.
+    private volatile JmsSessionHolder _pipelinedJmsSessionHolder;
+    // The lanes in use, so that stopping can wait for their pending commits.
+    private volatile PipelineLane[] _pipelineLanes;
+    // The single committer thread, created on first use - which thus performs the commits in receive order.
+    private ExecutorService _pipelinedCommitter;
+
+    /**
+     * With pipelined commit, a JMS Session with its MessageConsumer, and the commit of the last message received on
+     * it, which must have finished before the Session is used again. Each lane has a receiver thread, which receives
+     * on the Session only when the processor thread is done with it - ref. {@link #pipelinedReceiver(PipelineLane,
+     * BlockingQueue)}.
+     */
+    private static class PipelineLane {
+        private final JmsSessionHolder _jmsSessionHolder;
+        private final MessageConsumer _jmsConsumer;
+        private volatile CompletableFuture<Void> _pendingCommit;
+        // The permit to use the JMS Session, passed between the receiver thread and the processor thread.
+        private final Semaphore _free = new Semaphore(1);
+        private volatile Thread _receiverThread;
+
+        PipelineLane(JmsSessionHolder jmsSessionHolder, MessageConsumer jmsConsumer) {
+            _jmsSessionHolder = jmsSessionHolder;
+            _jmsConsumer = jmsConsumer;
+        }
+
+        /**
+         * Waits for any pending commit on this lane's JMS Session, throwing if it failed.
+         */
+        void awaitPendingCommit() throws JmsMatsJmsException {
+            CompletableFuture<Void> pendingCommit = _pendingCommit;
+            // ?: Is there a pending commit?
+            if (pendingCommit == null) {
+                // -> No, so nothing to wait for.
+                return;
+            }
+            _pendingCommit = null;
+            try {
+                pendingCommit.join();
+            }
+            catch (CompletionException e) {
+                throw new JmsMatsJmsException("The pipelined commit of the JMS Session failed.", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return the number of this StageProcessor within its Stage, 0 being the first.
+     */
+    int getProcessorNumber() {
+        return _processorNumber;
+    }
+
+    // Only accessed by the processor thread.
+    private long _messageCount;
+
+    /**
+     * @return whether the per-message log lines shall be output for the message just received, ref.
+     *         {@link JmsMatsFactory#setPerMessageLogSampleRate(int)}.
+     */
+    private boolean shouldLogMessages() {
+        int sampleRate = getFactory().getPerMessageLogSampleRate(_jmsMatsStage.getStageId());
+        // ?: Is it all or nothing?
+        if (sampleRate <= 1) {
+            // -> Yes, so 1 is all, 0 is nothing.
+            return sampleRate == 1;
+        }
+        return (_messageCount++ % sampleRate) == 0;
+    }
+
     private String ident() {
-        return _jmsMatsStage.getStageId() + '#' + _processorNumber + " {" + _randomInstanceId + '}';
+        return idents()._ident;
+    }
+
+    /**
+     * The identification Strings of this StageProcessor, made once instead of per message - but since they contain
+     * the {@link JmsMatsFactory#toString() MatsFactory's id}, which includes its name, they are remade if the
+     * FactoryConfig has been changed, ref. {@link JmsMatsFactory#getFactoryConfigGeneration()}.
+     */
+    private static class Idents {
+        private final int _factoryConfigGeneration;
+        private final String _ident;
+        // The "static" MDC values, set in one go for every message, ref. resetMdcToStaticValues().
+        private final Map<String, String> _staticMdcValues;
+
+        private Idents(JmsMatsStageProcessor<?, ?, ?, ?> processor, int factoryConfigGeneration) {
+            _factoryConfigGeneration = factoryConfigGeneration;
+            String processorId = processor._kind._postfix + '#' + processor._processorNumber
+                    + " {" + processor._randomId + '@' + processor.getFactory() + '}';
+            _ident = processor._jmsMatsStage.getStageId() + processorId;
+            Map<String, String> staticMdcValues = new HashMap<>();
+            staticMdcValues.put(MDC_MATS_STAGE_ID, processor._jmsMatsStage.getStageId());
+            // Notice that this is the qualifier of processor id, needs to take the stageId as prefix.
+            // .. but to save some space, we don't repeat that.
+            staticMdcValues.put(MDC_MATS_PROCESSOR_ID, processorId);
+            staticMdcValues.put(MDC_MATS_INCOMING, "true");
+            _staticMdcValues = Collections.unmodifiableMap(staticMdcValues);
+        }
+    }
+
+    private volatile Idents _idents;
+
+    private Idents idents() {
+        Idents idents = _idents;
+        int factoryConfigGeneration = getFactory().getFactoryConfigGeneration();
+        // ?: Have we made them yet, and is the FactoryConfig unchanged since?
+        if ((idents == null) || (idents._factoryConfigGeneration != factoryConfigGeneration)) {
+            // -> No, so (re)make them. (Racing threads may both make them, which is benign)
+            idents = new Idents(this, factoryConfigGeneration);
+            _idents = idents;
+        }
+        return idents;
     }
 
     @Override
@@ -190,6 +347,8 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
     }
 
     private void closeCurrentSessionHolder() {
+        // Let any pipelined commits finish before closing their JMS Sessions.
+        awaitPendingCommitsQuietly();
         JmsSessionHolder currentJmsSessionHolder = _jmsSessionHolder;
         if (currentJmsSessionHolder != null) {
             currentJmsSessionHolder.close();
@@ -197,8 +356,42 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
         else {
             log.info(LOG_PREFIX + "There was no JMS Session in place...");
         }
+        JmsSessionHolder pipelinedJmsSessionHolder = _pipelinedJmsSessionHolder;
+        if (pipelinedJmsSessionHolder != null) {
+            pipelinedJmsSessionHolder.close();
+        }
+    }
+
+    /**
+     * With pipelined commit, waits a bounded time for the pending commits - any failure has already been logged.
+     */
+    private void awaitPendingCommitsQuietly() {
+        PipelineLane[] lanes = _pipelineLanes;
+        if (lanes == null) {
+            return;
+        }
+        for (PipelineLane lane : lanes) {
+            CompletableFuture<Void> pendingCommit = lane._pendingCommit;
+            if (pendingCommit != null) {
+                try {
+                    pendingCommit.get(PIPELINED_COMMIT_AWAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                    log.info(LOG_PREFIX + "Got InterruptedException when waiting for pipelined commit.");
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                catch (ExecutionException | TimeoutException e) {
+                    log.info(LOG_PREFIX + "Pipelined commit did not finish nicely: [" + e.getClass().getSimpleName()
+                            + "].");
+                }
+            }
+        }
     }
 
+    private static final int PIPELINED_COMMIT_AWAIT_MILLIS = 5000;
+
+
     private void joinProcessorThread(int gracefulWaitMillis) {
         try {
             _processorThread.join(gracefulWaitMillis);
@@ -212,10 +405,8 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
     private void runner() {
         // :: OUTER RUN-LOOP, where we'll get a fresh JMS Session, Destination and MessageConsumer.
         OUTER: while (_runFlag) {
-            // :: Cleanup of MDC (for subsequent messages, also after Exceptions..)
-            MDC.clear();
-            // Set the "static" MDC values, since we just MDC.clear()'ed
-            setStaticMdcValues();
+            // :: Cleanup of MDC (for subsequent messages, also after Exceptions..), leaving the "static" values.
+            resetMdcToStaticValues();
             log.info(LOG_PREFIX + "Getting JMS Session, Destination and Consumer for stage ["
                     + _jmsMatsStage.getStageId() + "].");
             { // Local-scope the 'newJmsSessionHolder' variable.
@@ -234,6 +425,23 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                     chillWait();
                     continue;
                 }
+                // ?: Pipelined commit? (Read here, so that it takes effect when the JMS Sessions are established)
+                JmsSessionHolder newPipelinedJmsSessionHolder = null;
+                if (getFactory().isPipelinedCommit() && (_kind != ProcessorKind.LOCAL_SHORT_CIRCUIT)) {
+                    // -> Yes, so get the second JMS Session to alternate with.
+                    try {
+                        newPipelinedJmsSessionHolder = _jmsMatsStage.getParentFactory()
+                                .getJmsMatsJmsSessionHandler().getSessionHolder(this);
+                    }
+                    catch (JmsMatsJmsException | RuntimeException t) {
+                        log.warn(LOG_PREFIX + "Got " + t.getClass().getSimpleName() + " while trying to get second"
+                                + " JmsSessionHolder for pipelined commit. Chilling a bit, then looping to check"
+                                + " run-flag.", t);
+                        newJmsSessionHolder.close();
+                        chillWait();
+                        continue;
+                    }
+                }
                 // :: "Publish" the new JMS Session.
                 synchronized (this) {
                     // ?: Check the run-flag one more time!
@@ -242,19 +450,63 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                         // NOTICE! Since this JMS Session has not been "published" outside yet, we'll have to
                         // close it directly.
                         newJmsSessionHolder.close();
+                        if (newPipelinedJmsSessionHolder != null) {
+                            newPipelinedJmsSessionHolder.close();
+                        }
                         // Break out of run-loop.
                         break;
                     }
                     else {
                         // -> Yes, we're good! "Publish" the new JMS Session.
                         _jmsSessionHolder = newJmsSessionHolder;
+                        _pipelinedJmsSessionHolder = newPipelinedJmsSessionHolder;
                     }
                 }
             }
             try {
                 Session jmsSession = _jmsSessionHolder.getSession();
-                Destination destination = createJmsDestination(jmsSession, getFactory().getFactoryConfig());
-                MessageConsumer jmsConsumer = jmsSession.createConsumer(destination);
+                // ?: Are we taking short-circuited messages?
+                Destination destination = null;
+                MessageConsumer jmsConsumer = null;
+                if (_kind != ProcessorKind.LOCAL_SHORT_CIRCUIT) {
+                    // -> No, so consume from the broker.
+                    destination = createJmsDestination(jmsSession, getFactory().getFactoryConfig());
+                    jmsConsumer = jmsSession.createConsumer(destination);
+                }
+
+                // :: Set up the lanes: One for the standard mode, two alternating for pipelined commit.
+                PipelineLane[] lanes;
+                // Where the lanes' receiver threads hand over their messages, if pipelined commit.
+                BlockingQueue<PipelinedReceive> pipelinedReceives = null;
+                if (_pipelinedJmsSessionHolder == null) {
+                    lanes = new PipelineLane[] { new PipelineLane(_jmsSessionHolder, jmsConsumer) };
+                }
+                else {
+                    Session pipelinedJmsSession = _pipelinedJmsSessionHolder.getSession();
+                    lanes = new PipelineLane[] { new PipelineLane(_jmsSessionHolder, jmsConsumer),
+                            new PipelineLane(_pipelinedJmsSessionHolder, pipelinedJmsSession.createConsumer(
+                                    createJmsDestination(pipelinedJmsSession, getFactory().getFactoryConfig()))) };
+                    _pipelineLanes = lanes;
+                    if (_pipelinedCommitter == null) {
+                        _pipelinedCommitter = Executors.newSingleThreadExecutor(runnable -> {
+                            Thread thread = new Thread(runnable, THREAD_PREFIX + ident() + ":committer");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                    }
+                    // :: Start the lanes' receiver threads, which hand their messages over to us.
+                    pipelinedReceives = new LinkedBlockingQueue<>();
+                    for (int i = 0; i < lanes.length; i++) {
+                        PipelineLane lane = lanes[i];
+                        BlockingQueue<PipelinedReceive> handoff = pipelinedReceives;
+                        lane._receiverThread = new Thread(() -> pipelinedReceiver(lane, handoff),
+                                THREAD_PREFIX + ident() + ":receiver" + i);
+                        lane._receiverThread.setDaemon(true);
+                        lane._receiverThread.start();
+                    }
+                }
+                // With pipelined commit, the lane of the previous message, which we release when done with it.
+                PipelineLane previousLane = null;
 
                 // We've established the consumer, and hence will start to receive messages and process them.
                 // (Important for topics, where if we haven't established consumer, we won't get messages).
@@ -263,19 +515,42 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
 
                 // :: INNER RECEIVE-LOOP, where we'll use the JMS Session and MessageConsumer.receive().
                 while (_runFlag) {
-                    // :: Cleanup of MDC (for subsequent messages, also after Exceptions..)
-                    MDC.clear();
-                    // Set the "static" MDC values, since we just MDC.clear()'ed
-                    setStaticMdcValues();
-                    // Check whether Session/Connection is ok (per contract with JmsSessionHolder)
-                    _jmsSessionHolder.isSessionOk();
+                    // :: Cleanup of MDC (for subsequent messages, also after Exceptions..), leaving the "static" values.
+                    resetMdcToStaticValues();
+                    PipelineLane lane = lanes[0];
+                    // ?: Pipelined commit?
+                    if (pipelinedReceives != null) {
+                        // -> Yes, so we're done with the previous message's JMS Session: Let its receiver have it.
+                        if (previousLane != null) {
+                            previousLane._free.release();
+                        }
+                    }
+                    else {
+                        // -> No, so check whether Session/Connection is ok (per contract with JmsSessionHolder)
+                        lane._jmsSessionHolder.isSessionOk();
+                    }
                     // :: GET NEW MESSAGE!! THIS IS THE MESSAGE PUMP!
                     Message message;
                     try {
                         _processorInReceive = true;
                         if (log.isDebugEnabled()) log.debug(LOG_PREFIX
                                 + "Going into JMS consumer.receive() for [" + destination + "].");
-                        message = jmsConsumer.receive();
+                        // ?: Are we taking short-circuited messages?
+                        if (_kind == ProcessorKind.LOCAL_SHORT_CIRCUIT) {
+                            // -> Yes, so take from the Stage's in-memory queue.
+                            message = receiveLocal(lane._jmsSessionHolder.getSession());
+                        }
+                        // ?: Pipelined commit?
+                        else if (pipelinedReceives != null) {
+                            // -> Yes, so take the message from whichever lane's receiver got one first.
+                            PipelinedReceive pipelinedReceive = takePipelinedReceive(pipelinedReceives);
+                            lane = pipelinedReceive._lane;
+                            message = pipelinedReceive._message;
+                            previousLane = lane;
+                        }
+                        else {
+                            message = lane._jmsConsumer.receive();
+                        }
                     }
                     finally {
                         _processorInReceive = false;
@@ -290,11 +565,17 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                                     + " Breaking out of run-loop to exit.");
                             break OUTER;
                         }
+                        // ?: Short-circuited, where null just means that the poll timed out?
+                        else if (_kind == ProcessorKind.LOCAL_SHORT_CIRCUIT) {
+                            // -> Yes, so go try again. (A closed MessageConsumer throws on receive)
+                            continue;
+                        }
                         else {
                             // -> No, not down: Something strange has happened.
                             log.warn(LOG_PREFIX + "!! Got null from JMS consumer.receive(), but run-flag is still"
                                     + " true. Closing current JmsSessionHolder to clean up. Looping to get new.");
                             closeCurrentSessionHolder();
+                            stopPipelinedReceivers();
                             continue OUTER;
                         }
                     }
@@ -302,206 +583,31 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                     // :: Perform the work inside the TransactionContext
                     DoAfterCommitRunnableHolder doAfterCommitRunnableHolder = new DoAfterCommitRunnableHolder();
                     long nanosStart = System.nanoTime();
+                    // Whether to output the per-message log lines for this message
+                    boolean logMessages = shouldLogMessages();
+                    JmsMatsMessageContext jmsMatsMessageContext = new JmsMatsMessageContext(lane._jmsSessionHolder,
+                            lane._jmsConsumer);
+                    // ?: Pipelined commit?
+                    if (lanes.length > 1) {
+                        // -> Yes, so the TransactionManager shall hand the commit off to the committer thread.
+                        jmsMatsMessageContext.setPipelinedCommitExecutor(_pipelinedCommitter);
+                    }
                     try { // :: Going into Mats Transaction
 
-                        JmsMatsMessageContext jmsMatsMessageContext = new JmsMatsMessageContext(_jmsSessionHolder,
-                                jmsConsumer);
-
                         _transactionContext.doTransaction(jmsMatsMessageContext, () -> {
-                            // Assert that this is indeed a JMS MapMessage.
-                            if (!(message instanceof MapMessage)) {
-                                String msg = "Got some JMS Message that is not instanceof JMS MapMessage"
-                                        + " - cannot be a MATS message! Refusing this message!";
-                                log.error(LOG_PREFIX + msg + "\n" + message);
-                                throw new MatsRefuseMessageException(msg);
-                            }
-
-                            // ----- This is a MapMessage
-                            MapMessage mapMessage = (MapMessage) message;
-
-                            // :: Fetch Mats-specific message data from the JMS Message.
-
-                            byte[] matsTraceBytes;
-                            String matsTraceMeta;
-                            String jmsMessageId;
-                            try {
-                                String matsTraceKey = getFactory().getFactoryConfig().getMatsTraceKey();
-                                matsTraceBytes = mapMessage.getBytes(matsTraceKey);
-                                matsTraceMeta = mapMessage.getString(matsTraceKey
-                                        + MatsSerializer.META_KEY_POSTFIX);
-                                jmsMessageId = mapMessage.getJMSMessageID();
-                                MDC.put(MDC_JMS_MESSAGE_ID_IN, jmsMessageId);
-
-                                // :: Assert that we got some values
-                                if (matsTraceBytes == null) {
-                                    String msg = "Got some JMS Message that is missing MatsTrace byte array on"
-                                            + "JMS MapMessage key '" + matsTraceKey +
-                                            "' - cannot be a MATS message! Refusing this message!";
-                                    log.error(LOG_PREFIX + msg + "\n" + message);
-                                    throw new MatsRefuseMessageException(msg);
-                                }
-
-                                if (matsTraceMeta == null) {
-                                    String msg = "Got some JMS Message that is missing MatsTraceMeta String on"
-                                            + "JMS MapMessage key '" + MatsSerializer.META_KEY_POSTFIX
-                                            + "' - cannot be a MATS message! Refusing this message!";
-                                    log.error(LOG_PREFIX + msg + "\n" + message);
-                                    throw new MatsRefuseMessageException(msg);
-                                }
-                            }
-                            catch (JMSException e) {
-                                throw new JmsMatsJmsException("Got JMSException when getting the MatsTrace"
-                                        + " from the MapMessage by using mapMessage.get[Bytes|String](..)."
-                                        + " Pretty crazy.", e);
-                            }
-
-                            // :: Deserialize the MatsTrace from the message data.
-                            MatsSerializer<Z> matsSerializer = getFactory().getMatsSerializer();
-                            DeserializedMatsTrace<Z> matsTraceDeserialized = matsSerializer
-                                    .deserializeMatsTrace(matsTraceBytes, matsTraceMeta);
-                            MatsTrace<Z> matsTrace = matsTraceDeserialized.getMatsTrace();
-
-                            // :: Setting MDC values from MatsTrace
-                            MDC.put(MDC_TRACE_ID, matsTrace.getTraceId());
-                            MDC.put(MDC_MATS_RECEIVED_FROM, matsTrace.getCurrentCall().getFrom());
-                            MDC.put(MDC_MATS_MESSAGE_ID_IN, matsTrace.getCurrentCall().getMatsMessageId());
-
-                            // :: Current Call
-                            Call<Z> currentCall = matsTrace.getCurrentCall();
-                            // Assert that this is indeed a JMS Message meant for this Stage
-                            if (!_jmsMatsStage.getStageId().equals(currentCall.getTo().getId())) {
-                                String msg = "The incoming MATS message is not to this Stage! this:["
-                                        + _jmsMatsStage.getStageId() + "]," + " msg:[" + currentCall.getTo()
-                                        + "]. Refusing this message!";
-                                log.error(LOG_PREFIX + msg + "\n" + mapMessage);
-                                throw new MatsRefuseMessageException(msg);
-                            }
-
-                            // :: Current State: If null, make an empty object instead, unless Void -> null.
-                            S currentSto = handleIncomingState(matsSerializer, _jmsMatsStage.getStateClass(),
-                                    matsTrace.getCurrentState());
-
-                            // :: Incoming Message DTO
-                            I incomingDto = handleIncomingMessageMatsObject(matsSerializer,
-                                    _jmsMatsStage.getIncomingMessageClass(), currentCall.getData());
-
-                            double millisTaken = (System.nanoTime() - nanosStart) / 1_000_000d;
-
-                            log.info(LOG_PREFIX + "RECEIVED message from [" + currentCall.getFrom()
-                                    + "@" + currentCall.getCallingAppName()
-                                    + "{" + currentCall.getCallingAppVersion()
-                                    + "}@" + currentCall.getCallingHost()
-                                    + "], recv:[" + matsTraceBytes.length
-                                    + " B]->decomp:[" + matsTraceMeta
-                                    + " " + ms3(matsTraceDeserialized.getMillisDecompression())
-                                    + " ms]->deserialize:[" + matsTraceDeserialized.getSizeDecompressed()
-                                    + " B, " + ms3(matsTraceDeserialized.getMillisDeserialization())
-                                    + " ms]->MT - tot w/DTO&STO:[" + ms3(millisTaken) + " ms].");
-
-                            // :: Getting the 'sideloads'; Byte-arrays and Strings from the MapMessage.
-                            LinkedHashMap<String, byte[]> incomingBinaries = new LinkedHashMap<>();
-                            LinkedHashMap<String, String> incomingStrings = new LinkedHashMap<>();
-                            try {
-                                @SuppressWarnings("unchecked")
-                                Enumeration<String> mapNames = (Enumeration<String>) mapMessage.getMapNames();
-                                while (mapNames.hasMoreElements()) {
-                                    String name = mapNames.nextElement();
-                                    Object object = mapMessage.getObject(name);
-                                    if (object instanceof byte[]) {
-                                        incomingBinaries.put(name, (byte[]) object);
-                                    }
-                                    else if (object instanceof String) {
-                                        incomingStrings.put(name, (String) object);
-                                    }
-                                    else {
-                                        log.warn("Got some object in the MapMessage to ["
-                                                + _jmsMatsStage.getStageId()
-                                                + "] which is neither byte[] nor String - which should not"
-                                                + " happen - Ignoring.");
-                                    }
-                                }
-                            }
-                            catch (JMSException e) {
-                                throw new JmsMatsJmsException("Got JMSException when getting 'sideloads'"
-                                        + " from the MapMessage by using mapMessage.get[Bytes|String](..)."
-                                        + " Pretty crazy.", e);
-                            }
-
-                            List<JmsMatsMessage<Z>> messagesToSend = new ArrayList<>();
-                            LinkedHashMap<String, Object> outgoingProps = new LinkedHashMap<>();
-                            Supplier<MatsInitiate> initiateSupplier = () -> new JmsMatsInitiate<>(getFactory(),
-                                    messagesToSend, jmsMatsMessageContext, doAfterCommitRunnableHolder,
-                                    matsTrace, outgoingProps);
-
-                            __stageDemarcatedMatsInitiate.set(initiateSupplier);
-
-                            // :: Invoke the process lambda (the actual user code).
-
-                            // .. create the ProcessContext
-                            JmsMatsProcessContext<R, S, Z> processContext = new JmsMatsProcessContext<>(
-                                    getFactory(),
-                                    _jmsMatsStage.getParentEndpoint().getEndpointId(),
-                                    _jmsMatsStage.getStageId(),
-                                    jmsMessageId,
-                                    _jmsMatsStage.getNextStageId(),
-                                    matsTraceBytes, 0, matsTraceBytes.length, matsTraceMeta,
-                                    matsTrace,
-                                    currentSto,
-                                    initiateSupplier,
-                                    incomingBinaries, incomingStrings,
-                                    messagesToSend, jmsMatsMessageContext,
-                                    outgoingProps,
-                                    doAfterCommitRunnableHolder);
-
-                            // .. stick the ProcessContext into the ThreadLocal scope
-                            ContextLocal.bindResource(ProcessContext.class, processContext);
-
-                            // .. actually process the user code
-                            _jmsMatsStage.getProcessLambda().process(processContext, currentSto, incomingDto);
-
-                            // :: Trick to get the MDC.traceId on commit of transaction to contain TraceIds of all
-                            // outgoing messages
-                            // ?: Are there any outgoing messages? (There are none for e.g. Terminator)
-                            if (!messagesToSend.isEmpty()) {
-                                // -> Yes, there are outgoing messages.
-                                // Handle standard-case where there is only one outgoing (i.e. a Service which replied)
-                                // ?: Only one message
-                                if (messagesToSend.size() == 1) {
-                                    // ?: Is the traceId different from the one we are processing?
-                                    // (This can happen if it is a Terminator, but which send a new message)
-                                    if (!messagesToSend.get(0).getMatsTrace().getTraceId().equals(matsTrace
-                                            .getTraceId())) {
-                                        // -> Yes, different, so create a new MDC traceId value containing both.
-                                        String bothTraceIds = matsTrace.getTraceId()
-                                                + ';' + messagesToSend.get(0).getMatsTrace().getTraceId();
-                                        MDC.put(MDC_TRACE_ID, bothTraceIds);
-                                    }
-                                    // E-> They are the same - so do not change it.
-                                }
-                                else {
-                                    // -> There are more than 1 outgoing message. Collect and concat.
-                                    // Using TreeSet to both: 1) de-duplicate, 2) get sort.
-                                    Set<String> allTraceIds = new TreeSet<>();
-                                    // Add the TraceId for the message we are processing.
-                                    allTraceIds.add(matsTrace.getTraceId());
-                                    // :: Add TraceIds for all the outgoing messages
-                                    for (JmsMatsMessage<Z> msg : messagesToSend) {
-                                        allTraceIds.add(msg.getMatsTrace().getTraceId());
-                                    }
-                                    // Set new concat'ed traceId (will probably still just be one..)
-                                    MDC.put(MDC_TRACE_ID, String.join(";", allTraceIds));
-                                }
-                            }
-
-                            // :: Send any outgoing Mats messages (replies, requests, new messages etc..)
-                            sendMatsMessages(log, nanosStart, _jmsSessionHolder, getFactory(), messagesToSend);
-
+                            processWithinTransaction(_jmsMatsStage, message, jmsMatsMessageContext,
+                                    doAfterCommitRunnableHolder, nanosStart, logMessages);
                         }); // End: Mats Transaction
                     }
                     catch (RuntimeException e) {
                         log.info(LOG_PREFIX + "Got [" + e.getClass().getName()
                                 + "] inside transactional message processing, which shall have been handled by"
                                 + " the MATS TransactionManager (rollback). Looping to fetch next message.");
+                        // ?: Was this a short-circuited message? (There is no broker to redeliver it)
+                        if (_kind == ProcessorKind.LOCAL_SHORT_CIRCUIT) {
+                            // -> Yes, so forward it to the Stage's queue, to get the ordinary redelivery and DLQ.
+                            forwardToBroker(lane._jmsSessionHolder, "failed");
+                        }
                         // No more to do, so loop. Notice that this code is not involved in initiations..
                         continue;
                     }
@@ -511,21 +617,34 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                         ContextLocal.unbindResource(ProcessContext.class);
                     }
 
-                    // :: Handle the DoAfterCommit lambda.
-                    try {
-                        doAfterCommitRunnableHolder.runDoAfterCommitIfAny();
+                    // ?: Was a short-circuited message refused? (There is no broker to DLQ it)
+                    if (jmsMatsMessageContext.isRefusedWithoutMessageConsumer()) {
+                        // -> Yes, so forward it to the Stage's queue: If refused again, the broker DLQs it.
+                        forwardToBroker(lane._jmsSessionHolder, "refused");
+                        continue;
                     }
-                    catch (RuntimeException e) {
-                        // Message processing is per definition finished here, so no way to DLQ or otherwise
-                        // notify world except logging an error.
-                        log.error(LOG_PREFIX + "Got [" + e.getClass().getSimpleName()
-                                + "] when running the doAfterCommit Runnable. Ignoring.", e);
+
+                    // ?: Was the commit handed off to the committer thread?
+                    CompletableFuture<Void> pipelinedCommit = jmsMatsMessageContext.getPipelinedCommit();
+                    if (pipelinedCommit != null) {
+                        // -> Yes, so do the after-commit stuff when it has committed, with this message's MDC.
+                        Map<String, String> messageMdc = MDC.getCopyOfContextMap();
+                        lane._pendingCommit = pipelinedCommit.thenRun(() -> {
+                            Map<String, String> baseMdc = MDC.getCopyOfContextMap();
+                            try {
+                                restoreMdc(messageMdc);
+                                afterCommit(doAfterCommitRunnableHolder, nanosStart, logMessages);
+                            }
+                            finally {
+                                restoreMdc(baseMdc);
+                            }
+                        });
+                        // Go receive the next message on the other lane, while this commits.
+                        continue;
                     }
 
-                    // :: Log final stats
-                    double millisTotal = (System.nanoTime() - nanosStart) / 1_000_000d;
-                    log.info(LOG_PREFIX + "PROCESSED: Total time from received till finished processing: ["
-                            + ms3(millisTotal) + " ms].");
+                    // E-> No, committed directly.
+                    afterCommit(doAfterCommitRunnableHolder, nanosStart, logMessages);
                 } // End: INNER RECEIVE-LOOP
             }
 
@@ -571,7 +690,14 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
                                 ? " (NOTE: Interrupted status of Thread was 'true', now cleared)"
                                 : "")
                         + ", crashing JmsSessionHolder, chilling a bit, then looping.", t);
+                // Let any other pipelined commit finish before crashing.
+                awaitPendingCommitsQuietly();
+                stopPipelinedReceivers();
+                _pipelineLanes = null;
                 _jmsSessionHolder.crashed(t);
+                if (_pipelinedJmsSessionHolder != null) {
+                    _pipelinedJmsSessionHolder.crashed(t);
+                }
                 /*
                  * Doing a "chill-wait", so that if we're in a situation where this will tight-loop, we won't totally
                  * swamp both CPU and logs with meaninglessness.
@@ -583,21 +709,464 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
         // If we exited out while processing, just clean up so that the final line does not look like it came from msg.
 
         // NOTE: The StageProcessor /owns/ this thread, so we do not need to bother about cleanliness of MDC handling.
-        // Just clear the MDC.
-        MDC.clear();
-        // .. but set the "static" values again
-        setStaticMdcValues();
+        // Just reset the MDC to the "static" values.
+        resetMdcToStaticValues();
         log.info(LOG_PREFIX + ident() + " asked to exit, and that we do! Closing current JmsSessionHolder.");
         closeCurrentSessionHolder();
+        stopPipelinedReceivers();
+        if (_pipelinedCommitter != null) {
+            _pipelinedCommitter.shutdown();
+        }
         _jmsMatsStage.removeStageProcessorFromList(this);
     }
 
-    private void setStaticMdcValues() {
-        MDC.put(MDC_MATS_STAGE_ID, _jmsMatsStage.getStageId());
-        // Notice that this is the qualifier of processor id, needs to take the stageId as prefix.
-        // .. but to save some space, we don't repeat that.
-        MDC.put(MDC_MATS_PROCESSOR_ID, '#' + _processorNumber + " {" + _randomInstanceId + '}');
-        MDC.put(MDC_MATS_INCOMING, "true");
+    /**
+     * With pipelined commit, a message received by a lane's receiver thread - or the Throwable it got.
+     */
+    private static class PipelinedReceive {
+        private final PipelineLane _lane;
+        private final Message _message;
+        private final Throwable _throwable;
+
+        PipelinedReceive(PipelineLane lane, Message message, Throwable throwable) {
+            _lane = lane;
+            _message = message;
+            _throwable = throwable;
+        }
+    }
+
+    /**
+     * The run-loop of a lane's receiver thread, with pipelined commit: Receives on the lane's JMS Session only when the
+     * processor thread is done with it, and its previous commit has finished - so that the Session is only used by one
+     * thread at a time - and hands the message over. Thus, the processor thread gets the first message from either
+     * lane, without polling between them.
+     */
+    private void pipelinedReceiver(PipelineLane lane, BlockingQueue<PipelinedReceive> handoff) {
+        try {
+            while (_runFlag) {
+                // Wait for the processor thread to be done with the JMS Session..
+                lane._free.acquire();
+                // .. and for its commit to finish (throws out if it failed).
+                lane.awaitPendingCommit();
+                // Check whether Session/Connection is ok (per contract with JmsSessionHolder)
+                lane._jmsSessionHolder.isSessionOk();
+                Message message = lane._jmsConsumer.receive();
+                handoff.add(new PipelinedReceive(lane, message, null));
+                // ?: Did we get null, i.e. the Consumer, Session or Connection was closed?
+                if (message == null) {
+                    // -> Yes, so we're done - the processor thread handles it.
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // Asked to exit, ref. stopPipelinedReceivers().
+            log.debug(LOG_PREFIX + "Pipelined receiver got interrupted, exiting.");
+        }
+        catch (Throwable t) {
+            // Hand it over, so that the processor thread handles it as if it got it itself.
+            handoff.add(new PipelinedReceive(lane, null, t));
+        }
+    }
+
+    private PipelinedReceive takePipelinedReceive(BlockingQueue<PipelinedReceive> pipelinedReceives)
+            throws JmsMatsJmsException {
+        PipelinedReceive pipelinedReceive;
+        try {
+            pipelinedReceive = pipelinedReceives.take();
+        }
+        catch (InterruptedException e) {
+            throw new JmsMatsJmsException("Got interrupted while waiting for the pipelined receivers.", e);
+        }
+        // ?: Did the receiver get a Throwable?
+        if (pipelinedReceive._throwable != null) {
+            // -> Yes, so throw it out, as if we got it ourselves.
+            throw new JmsMatsJmsException("The pipelined receiver got [" + pipelinedReceive._throwable.getClass()
+                    .getSimpleName() + "].", pipelinedReceive._throwable);
+        }
+        return pipelinedReceive;
+    }
+
+    /**
+     * With pipelined commit, stops the lanes' receiver threads - any which are in receive have already been, or will
+     * be, thrown out by the closing of the JMS Sessions.
+     */
+    private void stopPipelinedReceivers() {
+        PipelineLane[] lanes = _pipelineLanes;
+        if (lanes == null) {
+            return;
+        }
+        for (PipelineLane lane : lanes) {
+            Thread receiverThread = lane._receiverThread;
+            if (receiverThread != null) {
+                receiverThread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs the doAfterCommit lambda, and records and logs the final stats - either directly by the processor thread,
+     * or when pipelined commit, after the handed off commit has finished.
+     */
+    private void afterCommit(DoAfterCommitRunnableHolder doAfterCommitRunnableHolder, long nanosStart,
+            boolean logMessages) {
+        // :: Handle the DoAfterCommit lambda.
+        try {
+            doAfterCommitRunnableHolder.runDoAfterCommitIfAny();
+        }
+        catch (RuntimeException e) {
+            // Message processing is per definition finished here, so no way to DLQ or otherwise
+            // notify world except logging an error.
+            log.error(LOG_PREFIX + "Got [" + e.getClass().getSimpleName()
+                    + "] when running the doAfterCommit Runnable. Ignoring.", e);
+        }
+
+        // :: Log final stats
+        long nanosTotal = System.nanoTime() - nanosStart;
+        getFactory().getMetrics().recordTiming(Origin.STAGE, _jmsMatsStage.getStageId(), Timing.TOTAL,
+                nanosTotal);
+        if (logMessages && log.isInfoEnabled()) log.info(LOG_PREFIX + "PROCESSED: Total time from"
+                + " received till finished processing: [" + ms3(nanosTotal / 1_000_000d) + " ms].");
+    }
+
+    /**
+     * Clears the MDC and sets the "static" values in one go - which with e.g. Logback is one copy of the MDC map,
+     * instead of one for the clear, and one per put.
+     */
+    private void resetMdcToStaticValues() {
+        MDC.setContextMap(idents()._staticMdcValues);
+    }
+
+    /**
+     * Processes the message for the given Stage, within the transaction: Deserializes the MatsTrace, invokes the user
+     * lambda, and sends the outgoing messages - or, ref. {@link JmsMatsFactory#setInlineNextStage(boolean)}, hands a
+     * lone next() directly to the next Stage.
+     */
+    private <IN> void processWithinTransaction(JmsMatsStage<R, S, IN, Z> stage, Message message,
+            JmsMatsMessageContext jmsMatsMessageContext, DoAfterCommitRunnableHolder doAfterCommitRunnableHolder,
+            long nanosStart, boolean logMessages) throws JmsMatsJmsException, MatsRefuseMessageException {
+        // Assert that this is indeed a JMS MapMessage.
+        if (!(message instanceof MapMessage)) {
+            String msg = "Got some JMS Message that is not instanceof JMS MapMessage"
+                    + " - cannot be a MATS message! Refusing this message!";
+            log.error(LOG_PREFIX + msg + "\n" + message);
+            throw new MatsRefuseMessageException(msg);
+        }
+
+        // ----- This is a MapMessage
+        MapMessage mapMessage = (MapMessage) message;
+
+        // :: Fetch Mats-specific message data from the JMS Message.
+
+        byte[] matsTraceBytes;
+        String matsTraceMeta;
+        String jmsMessageId;
+        try {
+            String matsTraceKey = getFactory().getFactoryConfig().getMatsTraceKey();
+            matsTraceBytes = mapMessage.getBytes(matsTraceKey);
+            matsTraceMeta = mapMessage.getString(getFactory().getMatsTraceMetaKey());
+            jmsMessageId = mapMessage.getJMSMessageID();
+            MDC.put(MDC_JMS_MESSAGE_ID_IN, jmsMessageId);
+
+            // :: Assert that we got some values
+            if (matsTraceBytes == null) {
+                String msg = "Got some JMS Message that is missing MatsTrace byte array on"
+                        + "JMS MapMessage key '" + matsTraceKey +
+                        "' - cannot be a MATS message! Refusing this message!";
+                log.error(LOG_PREFIX + msg + "\n" + message);
+                throw new MatsRefuseMessageException(msg);
+            }
+
+            if (matsTraceMeta == null) {
+                String msg = "Got some JMS Message that is missing MatsTraceMeta String on"
+                        + "JMS MapMessage key '" + MatsSerializer.META_KEY_POSTFIX
+                        + "' - cannot be a MATS message! Refusing this message!";
+                log.error(LOG_PREFIX + msg + "\n" + message);
+                throw new MatsRefuseMessageException(msg);
+            }
+        }
+        catch (JMSException e) {
+            throw new JmsMatsJmsException("Got JMSException when getting the MatsTrace"
+                    + " from the MapMessage by using mapMessage.get[Bytes|String](..)."
+                    + " Pretty crazy.", e);
+        }
+
+        // :: Deserialize the MatsTrace from the message data.
+        MatsSerializer<Z> matsSerializer = getFactory().getMatsSerializer();
+        DeserializedMatsTrace<Z> matsTraceDeserialized = matsSerializer
+                .deserializeMatsTrace(matsTraceBytes, matsTraceMeta);
+        MatsTrace<Z> matsTrace = matsTraceDeserialized.getMatsTrace();
+
+        // :: Setting MDC values from MatsTrace
+        MDC.put(MDC_TRACE_ID, matsTrace.getTraceId());
+        MDC.put(MDC_MATS_RECEIVED_FROM, matsTrace.getCurrentCall().getFrom());
+        MDC.put(MDC_MATS_MESSAGE_ID_IN, matsTrace.getCurrentCall().getMatsMessageId());
+
+        // :: Current Call
+        Call<Z> currentCall = matsTrace.getCurrentCall();
+        // Assert that this is indeed a JMS Message meant for this Stage
+        if (!stage.getStageId().equals(currentCall.getTo().getId())) {
+            String msg = "The incoming MATS message is not to this Stage! this:["
+                    + stage.getStageId() + "]," + " msg:[" + currentCall.getTo()
+                    + "]. Refusing this message!";
+            log.error(LOG_PREFIX + msg + "\n" + mapMessage);
+            throw new MatsRefuseMessageException(msg);
+        }
+
+        // :: Current State: If null, make an empty object instead, unless Void -> null.
+        S currentSto = handleIncomingState(matsSerializer, stage.getStateClass(),
+                matsTrace.getCurrentState());
+
+        // :: Incoming Message DTO
+        IN incomingDto = handleIncomingMessageMatsObject(matsSerializer,
+                stage.getIncomingMessageClass(), currentCall.getData());
+
+        double millisTaken = (System.nanoTime() - nanosStart) / 1_000_000d;
+
+        // :: Record the receive metrics
+        JmsMatsMetrics metrics = getFactory().getMetrics();
+        String stageId = stage.getStageId();
+        metrics.recordSize(Origin.STAGE, stageId, Size.RECEIVED, matsTraceBytes.length);
+        metrics.recordSize(Origin.STAGE, stageId, Size.RECEIVED_DECOMPRESSED,
+                matsTraceDeserialized.getSizeDecompressed());
+        metrics.recordTiming(Origin.STAGE, stageId, Timing.DECOMPRESS, JmsMatsMetrics
+                .millisToNanos(matsTraceDeserialized.getMillisDecompression()));
+        metrics.recordTiming(Origin.STAGE, stageId, Timing.DESERIALIZE, JmsMatsMetrics
+                .millisToNanos(matsTraceDeserialized.getMillisDeserialization()));
+
+        if (logMessages && log.isInfoEnabled()) log.info(LOG_PREFIX
+                + "RECEIVED message from [" + currentCall.getFrom()
+                + "@" + currentCall.getCallingAppName()
+                + "{" + currentCall.getCallingAppVersion()
+                + "}@" + currentCall.getCallingHost()
+                + "], recv:[" + matsTraceBytes.length
+                + " B]->decomp:[" + matsTraceMeta
+                + " " + ms3(matsTraceDeserialized.getMillisDecompression())
+                + " ms]->deserialize:[" + matsTraceDeserialized.getSizeDecompressed()
+                + " B, " + ms3(matsTraceDeserialized.getMillisDeserialization())
+                + " ms]->MT - tot w/DTO&STO:[" + ms3(millisTaken) + " ms].");
+
+        // :: Getting the 'sideloads'; Byte-arrays and Strings from the MapMessage.
+        LinkedHashMap<String, byte[]> incomingBinaries = new LinkedHashMap<>();
+        LinkedHashMap<String, String> incomingStrings = new LinkedHashMap<>();
+        try {
+            @SuppressWarnings("unchecked")
+            Enumeration<String> mapNames = (Enumeration<String>) mapMessage.getMapNames();
+            while (mapNames.hasMoreElements()) {
+                String name = mapNames.nextElement();
+                Object object = mapMessage.getObject(name);
+                if (object instanceof byte[]) {
+                    incomingBinaries.put(name, (byte[]) object);
+                }
+                else if (object instanceof String) {
+                    incomingStrings.put(name, (String) object);
+                }
+                else {
+                    log.warn("Got some object in the MapMessage to ["
+                            + stage.getStageId()
+                            + "] which is neither byte[] nor String - which should not"
+                            + " happen - Ignoring.");
+                }
+            }
+        }
+        catch (JMSException e) {
+            throw new JmsMatsJmsException("Got JMSException when getting 'sideloads'"
+                    + " from the MapMessage by using mapMessage.get[Bytes|String](..)."
+                    + " Pretty crazy.", e);
+        }
+
+        List<JmsMatsMessage<Z>> messagesToSend = new ArrayList<>();
+        LinkedHashMap<String, Object> outgoingProps = new LinkedHashMap<>();
+        Supplier<MatsInitiate> initiateSupplier = () -> new JmsMatsInitiate<>(getFactory(),
+                messagesToSend, jmsMatsMessageContext, doAfterCommitRunnableHolder,
+                matsTrace, outgoingProps);
+
+        __stageDemarcatedMatsInitiate.set(initiateSupplier);
+
+        // :: Invoke the process lambda (the actual user code).
+
+        // .. create the ProcessContext
+        JmsMatsProcessContext<R, S, Z> processContext = new JmsMatsProcessContext<>(
+                getFactory(),
+                stage.getParentEndpoint().getEndpointId(),
+                stage.getStageId(),
+                jmsMessageId,
+                stage.getNextStageId(),
+                matsTraceBytes, 0, matsTraceBytes.length, matsTraceMeta,
+                matsTrace,
+                currentSto,
+                initiateSupplier,
+                incomingBinaries, incomingStrings,
+                messagesToSend, jmsMatsMessageContext,
+                outgoingProps,
+                doAfterCommitRunnableHolder);
+
+        // .. stick the ProcessContext into the ThreadLocal scope
+        ContextLocal.bindResource(ProcessContext.class, processContext);
+
+        // .. actually process the user code
+        long nanosStartLambda = System.nanoTime();
+        metrics.recordTiming(Origin.STAGE, stageId, Timing.RECEIVE_TO_LAMBDA,
+                nanosStartLambda - nanosStart);
+        stage.getProcessLambda().process(processContext, currentSto, incomingDto);
+        metrics.recordTiming(Origin.STAGE, stageId, Timing.LAMBDA,
+                System.nanoTime() - nanosStartLambda);
+
+        // :: Trick to get the MDC.traceId on commit of transaction to contain TraceIds of all
+        // outgoing messages
+        // ?: Are there any outgoing messages? (There are none for e.g. Terminator)
+        if (!messagesToSend.isEmpty()) {
+            // -> Yes, there are outgoing messages.
+            // Handle standard-case where there is only one outgoing (i.e. a Service which replied)
+            // ?: Only one message
+            if (messagesToSend.size() == 1) {
+                // ?: Is the traceId different from the one we are processing?
+                // (This can happen if it is a Terminator, but which send a new message)
+                if (!messagesToSend.get(0).getMatsTrace().getTraceId().equals(matsTrace
+                        .getTraceId())) {
+                    // -> Yes, different, so create a new MDC traceId value containing both.
+                    String bothTraceIds = matsTrace.getTraceId()
+                            + ';' + messagesToSend.get(0).getMatsTrace().getTraceId();
+                    MDC.put(MDC_TRACE_ID, bothTraceIds);
+                }
+                // E-> They are the same - so do not change it.
+            }
+            else {
+                // -> There are more than 1 outgoing message. Collect and concat.
+                // Using TreeSet to both: 1) de-duplicate, 2) get sort.
+                Set<String> allTraceIds = new TreeSet<>();
+                // Add the TraceId for the message we are processing.
+                allTraceIds.add(matsTrace.getTraceId());
+                // :: Add TraceIds for all the outgoing messages
+                for (JmsMatsMessage<Z> msg : messagesToSend) {
+                    allTraceIds.add(msg.getMatsTrace().getTraceId());
+                }
+                // Set new concat'ed traceId (will probably still just be one..)
+                MDC.put(MDC_TRACE_ID, String.join(";", allTraceIds));
+            }
+        }
+
+        // ?: Shall a lone next() be handed directly to the next Stage, within this same transaction?
+        JmsMatsStage<R, S, ?, Z> nextStage = stage.getNextStage();
+        if (getFactory().isInlineNextStage() && (nextStage != null) && (messagesToSend.size() == 1)
+                && isNextTo(messagesToSend.get(0), nextStage)) {
+            // -> Yes, so process it here and now, instead of sending it.
+            processInlineNext(nextStage, messagesToSend.get(0), jmsMatsMessageContext,
+                    doAfterCommitRunnableHolder, logMessages);
+            return;
+        }
+
+        // :: Send any outgoing Mats messages (replies, requests, new messages etc..)
+        sendMatsMessages(log, nanosStart, this, jmsMatsMessageContext, getFactory(),
+                messagesToSend, logMessages);
+    }
+
+    private boolean isNextTo(JmsMatsMessage<Z> jmsMatsMessage, JmsMatsStage<R, S, ?, Z> nextStage) {
+        Call<Z> call = jmsMatsMessage.getMatsTrace().getCurrentCall();
+        return (call.getCallType() == CallType.NEXT) && nextStage.getStageId().equals(call.getTo().getId());
+    }
+
+    /**
+     * Hands the outgoing NEXT message directly to the next Stage, processing it on this thread within the current
+     * transaction, ref. {@link JmsMatsFactory#setInlineNextStage(boolean)}.
+     */
+    private void processInlineNext(JmsMatsStage<R, S, ?, Z> nextStage, JmsMatsMessage<Z> nextMessage,
+            JmsMatsMessageContext jmsMatsMessageContext, DoAfterCommitRunnableHolder doAfterCommitRunnableHolder,
+            boolean logMessages) throws JmsMatsJmsException, MatsRefuseMessageException {
+        long nanosStart = System.nanoTime();
+        // The MatsTrace is still serialized, so that the next Stage gets its own copy, just as via the broker.
+        serializeMatsMessages(log, this, getFactory(), Collections.singletonList(nextMessage), logMessages);
+        MapMessage mapMessage;
+        try {
+            // Make the same MapMessage as would have been received from the broker.
+            mapMessage = createMapMessage(jmsMatsMessageContext.getJmsSessionHolder().getSession(), nextMessage,
+                    getFactory());
+            mapMessage.setJMSMessageID("ID:inline:" + nextMessage.getMatsTrace().getCurrentCall()
+                    .getMatsMessageId());
+        }
+        catch (JMSException e) {
+            throw new JmsMatsJmsException("Got JMSException when creating MapMessage for the inline next.", e);
+        }
+        if (logMessages) log.info(LOG_PREFIX + "NEXT [" + nextMessage.getWhat() + "] handed directly to ["
+                + nextStage.getStageId() + "], within the same transaction.");
+        MDC.put(MDC_MATS_STAGE_ID, nextStage.getStageId());
+        processWithinTransaction(nextStage, mapMessage, jmsMatsMessageContext,
+                doAfterCommitRunnableHolder.chainNext(), nanosStart, logMessages);
+    }
+
+    private static final int LOCAL_RECEIVE_POLL_MILLIS = 100;
+
+    // The short-circuited message being processed, for forwarding it to the broker if it fails. Only accessed by the
+    // processor thread.
+    private JmsMatsStage.LocalDelivery<Z> _currentLocalDelivery;
+
+    /**
+     * Takes a message short-circuited to the Stage, and makes a JMS MapMessage of it - so that it is processed just
+     * like one received from the broker.
+     *
+     * @return the message, or <code>null</code> if none arrived within the poll time, or it had expired.
+     */
+    private Message receiveLocal(Session jmsSession) throws JMSException {
+        JmsMatsStage.LocalDelivery<Z> localDelivery;
+        try {
+            localDelivery = _jmsMatsStage.pollLocalDelivery(LOCAL_RECEIVE_POLL_MILLIS);
+        }
+        catch (InterruptedException e) {
+            log.info(LOG_PREFIX + "Got interrupted while waiting for short-circuited message.");
+            return null;
+        }
+        // ?: Did we get one?
+        if (localDelivery == null) {
+            // -> No, so return null to loop and check run-flag.
+            return null;
+        }
+        JmsMatsMessage<Z> jmsMatsMessage = localDelivery.getJmsMatsMessage();
+        // ?: Has it expired? (Same as the broker would do with a time-to-live)
+        if (localDelivery.isExpired()) {
+            // -> Yes, so drop it.
+            log.info(LOG_PREFIX + "Dropping short-circuited message [" + jmsMatsMessage.getWhat() + "] to ["
+                    + _jmsMatsStage.getStageId() + "], as its time-to-live has passed.");
+            return null;
+        }
+        MapMessage mapMessage = createMapMessage(jmsSession, jmsMatsMessage, getFactory());
+        mapMessage.setJMSMessageID("ID:local:" + jmsMatsMessage.getMatsTrace().getCurrentCall().getMatsMessageId());
+        _currentLocalDelivery = localDelivery;
+        return mapMessage;
+    }
+
+    /**
+     * Sends the short-circuited message which failed or was refused in processing to the Stage's queue on the broker,
+     * with what is left of its time-to-live, so that it gets the ordinary redelivery and DLQ handling. The processing
+     * transaction has been rolled back, so this is done in a new transaction on the same JMS Session, demarcated by the
+     * TransactionManager as usual.
+     *
+     * @throws JmsMatsJmsException
+     *             if the forwarding failed, the message then being lost - the JMS Session is then probably unstable.
+     */
+    private void forwardToBroker(JmsSessionHolder jmsSessionHolder, String what) throws JmsMatsJmsException {
+        JmsMatsStage.LocalDelivery<Z> localDelivery = _currentLocalDelivery;
+        _currentLocalDelivery = null;
+        JmsMatsMessage<Z> jmsMatsMessage = localDelivery.getJmsMatsMessage();
+        long timeToLive = localDelivery.getRemainingTimeToLive();
+        // ?: Has it expired while being processed? (The broker would then drop it, so do that right away)
+        if (timeToLive < 0) {
+            // -> Yes, so drop it.
+            log.info(LOG_PREFIX + "Dropping the " + what + " short-circuited message [" + jmsMatsMessage.getWhat()
+                    + "], as its time-to-live has passed.");
+            return;
+        }
+        log.info(LOG_PREFIX + "Forwarding the " + what + " short-circuited message [" + jmsMatsMessage.getWhat()
+                + "] to the queue of [" + _jmsMatsStage.getStageId() + "] on the broker, with remaining time-to-live ["
+                + timeToLive + " ms].");
+        try {
+            _transactionContext.doTransaction(new JmsMatsMessageContext(jmsSessionHolder, null),
+                    () -> _jmsMatsStage.sendViaBroker(jmsSessionHolder, jmsMatsMessage, timeToLive));
+        }
+        catch (JmsMatsJmsException | RuntimeException e) {
+            log.error(LOG_PREFIX + "Could not forward the " + what + " short-circuited non-persistent message ["
+                    + jmsMatsMessage.getWhat() + "] to the broker - it is lost.", e);
+            throw e;
+        }
     }
 
     private void chillWait(long millis) {
@@ -616,7 +1185,8 @@ class JmsMatsStageProcessor<R, S, I, Z> implements JmsMatsStatics, JmsMatsTxCont
 
     private Destination createJmsDestination(Session jmsSession, FactoryConfig factoryConfig) throws JMSException {
         Destination destination;
-        String destinationName = factoryConfig.getMatsDestinationPrefix() + _jmsMatsStage.getStageId();
+        String destinationName = factoryConfig.getMatsDestinationPrefix() + _jmsMatsStage.getStageId()
+                + _kind._postfix;
         if (_jmsMatsStage.isQueue()) {
             destination = jmsSession.createQueue(destinationName);
         }
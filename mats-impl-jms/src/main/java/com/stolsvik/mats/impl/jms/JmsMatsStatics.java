@@ -1,9 +1,12 @@
 package com.stolsvik.mats.impl.jms;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
@@ -21,6 +24,9 @@ import org.slf4j.MDC;
 import com.stolsvik.mats.MatsEndpoint.MatsObject;
 import com.stolsvik.mats.MatsFactory.FactoryConfig;
 import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler.JmsSessionHolder;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Origin;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Size;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Timing;
 import com.stolsvik.mats.impl.jms.JmsMatsTransactionManager.JmsMatsTxContextKey;
 import com.stolsvik.mats.serial.MatsSerializer;
 import com.stolsvik.mats.serial.MatsSerializer.SerializedMatsTrace;
@@ -64,6 +70,12 @@ public interface JmsMatsStatics {
     String JMS_MSG_PROP_MATS_MSG_ID = "mats.MatsMsgId"; // String
     String JMS_MSG_PROP_TRACE_ID = "mats.TraceId"; // String
 
+    /**
+     * Postfix to the stageId for the interactive lane's queue, ref.
+     * {@link JmsMatsFactory#setInteractiveLaneConcurrency(int)}.
+     */
+    String INTERACTIVE_LANE_POSTFIX = ".interactive";
+
     /**
      * Number of milliseconds to "extra wait" after timeoutMillis or gracefulShutdownMillis is gone.
      */
@@ -80,9 +92,13 @@ public interface JmsMatsStatics {
         private final Map<String, byte[]> _bytes;
         private final Map<String, String> _strings;
 
-        private final SerializedMatsTrace _serializedOutgoingMatsTrace;
+        // Not final, as the serialization might be deferred till right before sending, ref. serialize(..)
+        private SerializedMatsTrace _serializedOutgoingMatsTrace;
 
-        private final double _totalProductionTimeMillis;
+        // Whether the serialization has been recorded to metrics and logged as "PRODUCED" - done on sending.
+        private boolean _reported;
+
+        private double _totalProductionTimeMillis;
 
         public JmsMatsMessage(String what, MatsTrace<Z> matsTrace, Map<String, byte[]> bytes,
                 Map<String, String> strings,
@@ -118,10 +134,43 @@ public interface JmsMatsStatics {
         public double getTotalProductionTimeMillis() {
             return _totalProductionTimeMillis;
         }
+
+        boolean isSerialized() {
+            return _serializedOutgoingMatsTrace != null;
+        }
+
+        boolean isReported() {
+            return _reported;
+        }
+
+        void setReported() {
+            _reported = true;
+        }
+
+        /**
+         * Serializes the MatsTrace, if not already done. The serialization and compression time is added to the
+         * {@link #getTotalProductionTimeMillis() total production time}.
+         * <p/>
+         * Might be invoked on a different thread than the one producing and sending the message - the joining of the
+         * serialization task provides the memory visibility.
+         */
+        void serialize(MatsSerializer<Z> serializer) {
+            // ?: Already serialized?
+            if (_serializedOutgoingMatsTrace != null) {
+                // -> Yes, so nothing to do.
+                return;
+            }
+            SerializedMatsTrace serialized = serializer.serializeMatsTrace(_matsTrace);
+            _totalProductionTimeMillis += serialized.getMillisSerialization() + serialized.getMillisCompression();
+            _serializedOutgoingMatsTrace = serialized;
+        }
     }
 
     /**
-     * Common message production method - handles commonalities.
+     * Common message production method - handles commonalities. Notice that the MatsTrace is not serialized here:
+     * That is done when adding the message, by {@link #addMessageToSend(JmsMatsFactory, List, JmsMatsMessage)
+     * addMessageToSend(..)}, or - if there are many outgoing messages - deferred to {@link #sendMatsMessages
+     * sendMatsMessages(..)}.
      *
      * <b>Notice that the props-, bytes- and Strings-Maps come back cleared.</b>
      */
@@ -131,80 +180,222 @@ public interface JmsMatsStatics {
             HashMap<String, Object> props,
             HashMap<String, byte[]> bytes,
             HashMap<String, String> strings, String what, String matsFactoryName) {
-        String existingTraceId = MDC.get(MDC_TRACE_ID);
-        try { // :: try-finally: Restore MDC
-            MDC.put(MDC_MATS_OUTGOING, "true");
-            MDC.put(MDC_TRACE_ID, outgoingMatsTrace.getTraceId());
-            MDC.put(MDC_MATS_MESSAGE_ID_OUT, outgoingMatsTrace.getCurrentCall().getMatsMessageId());
-            MDC.put(MDC_MATS_MESSAGE_SEND_FROM, outgoingMatsTrace.getCurrentCall().getFrom());
-            MDC.put(MDC_MATS_MESSAGE_SEND_TO, outgoingMatsTrace.getCurrentCall().getTo().getId());
-            MDC.put(MDC_MATS_MESSAGE_SEND_AUDIT, "" + (!outgoingMatsTrace.isNoAudit()));
-            // :: Add the MatsTrace properties
-            for (Entry<String, Object> entry : props.entrySet()) {
-                outgoingMatsTrace.setTraceProperty(entry.getKey(), serializer.serializeObject(entry.getValue()));
+        // NOTE: No MDC juggling here, as nothing is logged - the outgoing MDC is set when the message is logged.
+        // :: Add the MatsTrace properties
+        for (Entry<String, Object> entry : props.entrySet()) {
+            outgoingMatsTrace.setTraceProperty(entry.getKey(), serializer.serializeObject(entry.getValue()));
+        }
+        // Clear the props-map
+        props.clear();
+
+        // :: Clone the bytes and strings Maps, and then clear the local Maps for any next message.
+        @SuppressWarnings("unchecked")
+        HashMap<String, byte[]> bytesCopied = (HashMap<String, byte[]>) bytes.clone();
+        bytes.clear();
+        @SuppressWarnings("unchecked")
+        HashMap<String, String> stringsCopied = (HashMap<String, String>) strings.clone();
+        strings.clear();
+
+        double totalProductionTimeMillis = (System.nanoTime() - nanosStart) / 1_000_000d;
+
+        // Produce the JmsMatsMessage - the "PRODUCED" line is logged when it is serialized.
+        return new JmsMatsMessage<>(what, outgoingMatsTrace, bytesCopied, stringsCopied, null,
+                totalProductionTimeMillis);
+    }
+
+    /**
+     * Adds the produced message to the outgoing messages, and serializes its MatsTrace right away - so that any
+     * failure serializing is thrown out of the <code>context.request(..)</code>, <code>reply(..)</code>,
+     * <code>next(..)</code> etc., where the user lambda may catch it. However, when the number of outgoing messages
+     * reaches the {@link JmsMatsFactory#setParallelSerializationThreshold(int) parallel serialization threshold}, the
+     * serialization of this and any further messages is deferred to {@link #sendMatsMessages sendMatsMessages(..)},
+     * where they are serialized in parallel - and a failure is then thrown from there, i.e. after the user lambda.
+     */
+    default <Z> void addMessageToSend(JmsMatsFactory<Z> jmsMatsFactory, List<JmsMatsMessage<Z>> messagesToSend,
+            JmsMatsMessage<Z> message) {
+        messagesToSend.add(message);
+        // ?: Are we still below the threshold for serializing in parallel?
+        if (messagesToSend.size() < jmsMatsFactory.getParallelSerializationThreshold()) {
+            // -> Yes, so serialize it now, sequentially on this thread.
+            message.serialize(jmsMatsFactory.getMatsSerializer());
+        }
+        // E-> No, so defer it, to be serialized in parallel when sending.
+    }
+
+    /**
+     * Sets the MDC for an outgoing message in one go, i.e. the base MDC (as gotten from
+     * {@link MDC#getCopyOfContextMap()} before the first outgoing message) with the outgoing values on top. This is
+     * one copy of the MDC map, instead of one put and one remove per value. Restore using
+     * {@link #restoreMdc(Map)}.
+     */
+    default void setOutgoingMdc(Map<String, String> baseMdc, MatsTrace<?> outgoingMatsTrace) {
+        HashMap<String, String> mdc = baseMdc != null ? new HashMap<>(baseMdc) : new HashMap<>();
+        mdc.put(MDC_MATS_OUTGOING, "true");
+        mdc.put(MDC_TRACE_ID, outgoingMatsTrace.getTraceId());
+        mdc.put(MDC_MATS_MESSAGE_ID_OUT, outgoingMatsTrace.getCurrentCall().getMatsMessageId());
+        mdc.put(MDC_MATS_MESSAGE_SEND_FROM, outgoingMatsTrace.getCurrentCall().getFrom());
+        mdc.put(MDC_MATS_MESSAGE_SEND_TO, outgoingMatsTrace.getCurrentCall().getTo().getId());
+        mdc.put(MDC_MATS_MESSAGE_SEND_AUDIT, outgoingMatsTrace.isNoAudit() ? "false" : "true");
+        MDC.setContextMap(mdc);
+    }
+
+    /**
+     * Restores the MDC to the base gotten from {@link MDC#getCopyOfContextMap()}, ref.
+     * {@link #setOutgoingMdc(Map, MatsTrace)}.
+     */
+    default void restoreMdc(Map<String, String> baseMdc) {
+        // ?: Was there any MDC?
+        if (baseMdc == null) {
+            // -> No, so clear it.
+            MDC.clear();
+        }
+        else {
+            // -> Yes, so set it back.
+            MDC.setContextMap(baseMdc);
+        }
+    }
+
+    default <Z> void logProducedMessage(Logger log, JmsMatsMessage<Z> jmsMatsMessage, String matsFactoryName) {
+        SerializedMatsTrace serializedOutgoingMatsTrace = jmsMatsMessage.getSerializedOutgoingMatsTrace();
+        log.info(LOG_PREFIX + "PRODUCED [" + jmsMatsMessage.getWhat() + "] message to [" + matsFactoryName + "|"
+                + jmsMatsMessage.getMatsTrace().getCurrentCall().getTo()
+                + "], MT->serialize:[" + serializedOutgoingMatsTrace.getSizeUncompressed()
+                + " B, " + ms3(serializedOutgoingMatsTrace.getMillisSerialization())
+                + " ms]->comp:[" + serializedOutgoingMatsTrace.getMeta()
+                + " " + ms3(serializedOutgoingMatsTrace.getMillisCompression())
+                + " ms]->final:[" + serializedOutgoingMatsTrace.getMatsTraceBytes().length
+                + " B] - tot.prod.time w/DTO&STO:[" + ms3(jmsMatsMessage.getTotalProductionTimeMillis()) + " ms]");
+    }
+
+    /**
+     * Serializes (and compresses) any not yet serialized {@link JmsMatsMessage}s. If the number of messages is at or
+     * above the {@link JmsMatsFactory#setParallelSerializationThreshold(int) parallel serialization threshold}, the work
+     * is spread over the {@link JmsMatsFactory#setSerializationForkJoinPool(ForkJoinPool) serialization ForkJoinPool},
+     * with the calling thread also taking part - otherwise it is done sequentially on the calling thread. All
+     * serializations are joined before returning. Then the serialization of each message not already reported -
+     * including those serialized when added - is recorded to the metrics, and if <code>logMessages</code>, the
+     * "PRODUCED" log line is output on the calling thread, with the outgoing MDC set.
+     *
+     * @return the wall time spent, in milliseconds.
+     */
+    default <Z> double serializeMatsMessages(Logger log, JmsMatsTxContextKey txContextKey,
+            JmsMatsFactory<Z> jmsMatsFactory, List<JmsMatsMessage<Z>> messages, boolean logMessages) {
+        long nanosStart = System.nanoTime();
+        List<JmsMatsMessage<Z>> toReport = new ArrayList<>(messages.size());
+        List<JmsMatsMessage<Z>> toSerialize = new ArrayList<>(messages.size());
+        for (JmsMatsMessage<Z> message : messages) {
+            if (!message.isReported()) {
+                toReport.add(message);
+            }
+            if (!message.isSerialized()) {
+                toSerialize.add(message);
             }
-            // Clear the props-map
-            props.clear();
-
-            // Serialize the outgoing MatsTrace
-            SerializedMatsTrace serializedOutgoingMatsTrace = serializer.serializeMatsTrace(outgoingMatsTrace);
-
-            // :: Clone the bytes and strings Maps, and then clear the local Maps for any next message.
-            @SuppressWarnings("unchecked")
-            HashMap<String, byte[]> bytesCopied = (HashMap<String, byte[]>) bytes.clone();
-            bytes.clear();
-            @SuppressWarnings("unchecked")
-            HashMap<String, String> stringsCopied = (HashMap<String, String>) strings.clone();
-            strings.clear();
-
-            double totalProductionTimeMillis = (System.nanoTime() - nanosStart) / 1_000_000d;
-
-            // Produce the JmsMatsMessage
-            JmsMatsMessage<Z> jmsMatsMessage = new JmsMatsMessage<>(what, outgoingMatsTrace, bytesCopied, stringsCopied,
-                    serializedOutgoingMatsTrace, totalProductionTimeMillis);
-
-            // Log
-            log.info(LOG_PREFIX + "PRODUCED [" + what + "] message to [" + matsFactoryName + "|"
-                    + outgoingMatsTrace.getCurrentCall().getTo()
-                    + "], MT->serialize:[" + serializedOutgoingMatsTrace.getSizeUncompressed()
-                    + " B, " + ms3(serializedOutgoingMatsTrace.getMillisSerialization())
-                    + " ms]->comp:[" + serializedOutgoingMatsTrace.getMeta()
-                    + " " + ms3(serializedOutgoingMatsTrace.getMillisCompression())
-                    + " ms]->final:[" + serializedOutgoingMatsTrace.getMatsTraceBytes().length
-                    + " B] - tot.prod.time w/DTO&STO:[" + ms3(totalProductionTimeMillis) + " ms]");
-
-            // Return masterpiece
-            return jmsMatsMessage;
         }
-        finally {
-            // :: Restore MDC
-            // TraceId
-            if (existingTraceId == null) {
-                MDC.remove(MDC_TRACE_ID);
+        // ?: Anything to do?
+        // NOTE: A message not yet serialized is neither reported.
+        if (toReport.isEmpty()) {
+            // -> No, so return.
+            return 0d;
+        }
+        MatsSerializer<Z> serializer = jmsMatsFactory.getMatsSerializer();
+        // NOTE: The messages below the threshold were serialized when added, ref. addMessageToSend(..).
+        boolean parallel = (toSerialize.size() > 1)
+                && (messages.size() >= jmsMatsFactory.getParallelSerializationThreshold());
+        // ?: Enough messages to warrant going parallel?
+        if (parallel) {
+            // -> Yes, so fork all but the first, which we do ourselves.
+            ForkJoinPool forkJoinPool = jmsMatsFactory.getSerializationForkJoinPool();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(toSerialize.size() - 1);
+            for (int i = 1; i < toSerialize.size(); i++) {
+                JmsMatsMessage<Z> message = toSerialize.get(i);
+                tasks.add(forkJoinPool.submit(() -> message.serialize(serializer)));
             }
-            else {
-                MDC.put(MDC_TRACE_ID, existingTraceId);
+            try {
+                toSerialize.get(0).serialize(serializer);
+                // :: Join - any Exception in the serialization is rethrown here, on the calling thread.
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
             }
-            // The rest..
-            MDC.remove(MDC_MATS_OUTGOING);
-            MDC.remove(MDC_MATS_MESSAGE_ID_OUT);
-            MDC.remove(MDC_MATS_MESSAGE_SEND_FROM);
-            MDC.remove(MDC_MATS_MESSAGE_SEND_TO);
-            MDC.remove(MDC_MATS_MESSAGE_SEND_AUDIT);
+            finally {
+                // If the serialization threw, inline or in a task, the messages will not be sent: Cancel the tasks not
+                // yet run, so that they do not occupy the pool in vain. (No-op for the tasks that have completed)
+                for (ForkJoinTask<?> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+        else {
+            // -> No, so just serialize sequentially on this thread.
+            for (JmsMatsMessage<Z> message : toSerialize) {
+                message.serialize(serializer);
+            }
+        }
+        double millisSerializing = (System.nanoTime() - nanosStart) / 1_000_000d;
+        // :: Record metrics
+        JmsMatsMetrics metrics = jmsMatsFactory.getMetrics();
+        // ?: Are there any metrics to record to? (Avoid deriving origin and id if not)
+        if (metrics != JmsMatsMetrics.NO_OP) {
+            // -> Yes, so record the serialization timings and sizes for each message.
+            Origin origin = JmsMatsMetrics.originOf(txContextKey);
+            String id = JmsMatsMetrics.idOf(txContextKey);
+            for (JmsMatsMessage<Z> message : toReport) {
+                SerializedMatsTrace serialized = message.getSerializedOutgoingMatsTrace();
+                metrics.recordTiming(origin, id, Timing.SERIALIZE,
+                        JmsMatsMetrics.millisToNanos(serialized.getMillisSerialization()));
+                metrics.recordTiming(origin, id, Timing.COMPRESS,
+                        JmsMatsMetrics.millisToNanos(serialized.getMillisCompression()));
+                metrics.recordSize(origin, id, Size.SENT_UNCOMPRESSED, serialized.getSizeUncompressed());
+                metrics.recordSize(origin, id, Size.SENT, serialized.getMatsTraceBytes().length);
+            }
+        }
+        for (JmsMatsMessage<Z> message : toReport) {
+            message.setReported();
+        }
+        // ?: Shall we log the PRODUCED lines? (If not, we also skip the MDC juggling)
+        if (!(logMessages && log.isInfoEnabled())) {
+            // -> No, so we're done.
+            return millisSerializing;
+        }
+        // :: Log the PRODUCED lines, with MDC
+        Map<String, String> baseMdc = MDC.getCopyOfContextMap();
+        try { // :: try-finally: Restore MDC
+            for (JmsMatsMessage<Z> message : toReport) {
+                setOutgoingMdc(baseMdc, message.getMatsTrace());
+                logProducedMessage(log, message, jmsMatsFactory.getFactoryConfig().getName());
+            }
+        }
+        finally {
+            restoreMdc(baseMdc);
         }
+        if (parallel && log.isDebugEnabled()) log.debug(LOG_PREFIX + "Serialized [" + toSerialize.size()
+                + "] messages in parallel using ForkJoinPool, took:[" + ms3(millisSerializing) + " ms].");
+        return millisSerializing;
     }
 
     /**
      * Send a bunch of {@link JmsMatsMessage}s.
      */
-    default <Z> void sendMatsMessages(Logger log, long nanosStart, JmsSessionHolder jmsSessionHolder,
-            JmsMatsFactory<Z> jmsMatsFactory, List<JmsMatsMessage<Z>> messagesToSend) throws JmsMatsJmsException {
-        try { // :: try-finally: Remove MDC_MATS_OUTGOING
-            MDC.put(MDC_MATS_OUTGOING, "true");
-            if (messagesToSend.isEmpty()) {
-                if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "No messages to send.");
-                return;
-            }
+    default <Z> void sendMatsMessages(Logger log, long nanosStart, JmsMatsTxContextKey txContextKey,
+            JmsMatsMessageContext jmsMatsMessageContext, JmsMatsFactory<Z> jmsMatsFactory,
+            List<JmsMatsMessage<Z>> messagesToSend, boolean logMessages) throws JmsMatsJmsException {
+        if (messagesToSend.isEmpty()) {
+            if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "No messages to send.");
+            return;
+        }
+        // Serialize the outgoing MatsTraces, in parallel if there are many - any already serialized are skipped.
+        serializeMatsMessages(log, txContextKey, jmsMatsFactory, messagesToSend, logMessages);
+        // Only construct the SENT lines if they are to be output.
+        boolean logSent = logMessages && log.isInfoEnabled();
+        // Only set the outgoing MDC if the SENT lines are output, or if we're not lazy about it.
+        boolean setMdc = logSent || (!jmsMatsFactory.isLazyOutgoingMdc());
+        Map<String, String> baseMdc = setMdc ? MDC.getCopyOfContextMap() : null;
+        try { // :: try-finally: Restore MDC
+            JmsMatsMetrics metrics = jmsMatsFactory.getMetrics();
+            Origin metricsOrigin = JmsMatsMetrics.originOf(txContextKey);
+            String metricsId = JmsMatsMetrics.idOf(txContextKey);
+
+            JmsSessionHolder jmsSessionHolder = jmsMatsMessageContext.getJmsSessionHolder();
             Session jmsSession = jmsSessionHolder.getSession();
             if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "Sending [" + messagesToSend.size() + "] messages.");
 
@@ -215,44 +406,33 @@ public interface JmsMatsStatics {
                 long nanosStartSend = System.nanoTime();
                 MatsTrace<Z> outgoingMatsTrace = jmsMatsMessage.getMatsTrace();
                 Channel toChannel = outgoingMatsTrace.getCurrentCall().getTo();
-                // :: Keep MDC's TraceId to restore
-                String existingTraceId = MDC.get(MDC_TRACE_ID);
-                try { // :: try-finally: Restore MDC
-                    // Set MDC for this outgoing message
-                    MDC.put(MDC_TRACE_ID, outgoingMatsTrace.getTraceId());
-                    MDC.put(MDC_MATS_MESSAGE_ID_OUT, outgoingMatsTrace.getCurrentCall().getMatsMessageId());
-                    MDC.put(MDC_MATS_MESSAGE_SEND_FROM, outgoingMatsTrace.getCurrentCall().getFrom());
-                    MDC.put(MDC_MATS_MESSAGE_SEND_TO, toChannel.getId());
-                    MDC.put(MDC_MATS_MESSAGE_SEND_AUDIT, "" + (!outgoingMatsTrace.isNoAudit()));
-                    byte[] matsTraceBytes = jmsMatsMessage.getSerializedOutgoingMatsTrace().getMatsTraceBytes();
+                try {
+                    // ?: Shall we set MDC for this outgoing message?
+                    if (setMdc) {
+                        // -> Yes, so set all the values in one go.
+                        setOutgoingMdc(baseMdc, outgoingMatsTrace);
+                    }
+
+                    // ?: Shall this message be short-circuited to a Stage in this MatsFactory?
+                    JmsMatsStage<?, ?, ?, Z> localStage = jmsMatsFactory.getLocalShortCircuitStage(outgoingMatsTrace);
+                    if (localStage != null) {
+                        // -> Yes, so hand it to the Stage when (if) the transaction commits, instead of sending it.
+                        jmsMatsMessageContext.addAfterJmsCommit(() -> localStage.deliverLocally(jmsMatsMessage,
+                                jmsSessionHolder));
+                        long nanosAtSent = System.nanoTime();
+                        metrics.recordTiming(metricsOrigin, metricsId, Timing.SEND, nanosAtSent - nanosStartSend);
+                        if (logSent) log.info(LOG_PREFIX + "SENT [" + jmsMatsMessage.getWhat() + "] message to ["
+                                + jmsMatsFactory.getFactoryConfig().getName() + "|local:" + toChannel.getId()
+                                + "], short-circuited in-JVM (production was:["
+                                + ms3(jmsMatsMessage.getTotalProductionTimeMillis()) + " ms]).");
+                        continue;
+                    }
 
                     // Get FactoryConfig
                     FactoryConfig factoryConfig = jmsMatsFactory.getFactoryConfig();
 
                     // Create the JMS MapMessage that will be sent.
-                    MapMessage mm = jmsSession.createMapMessage();
-                    // Set the MatsTrace.
-                    mm.setBytes(factoryConfig.getMatsTraceKey(), matsTraceBytes);
-                    mm.setString(factoryConfig.getMatsTraceKey() + MatsSerializer.META_KEY_POSTFIX,
-                            jmsMatsMessage.getSerializedOutgoingMatsTrace().getMeta());
-
-                    // :: Add the Mats properties to the MapMessage
-                    for (Entry<String, byte[]> entry : jmsMatsMessage.getBytes().entrySet()) {
-                        mm.setBytes(entry.getKey(), entry.getValue());
-                    }
-                    for (Entry<String, String> entry : jmsMatsMessage.getStrings().entrySet()) {
-                        mm.setString(entry.getKey(), entry.getValue());
-                    }
-
-                    // :: Add some JMS Properties to simplify logging on MQ
-                    mm.setStringProperty(JMS_MSG_PROP_TRACE_ID, outgoingMatsTrace.getTraceId());
-                    mm.setStringProperty(JMS_MSG_PROP_MATS_MSG_ID, outgoingMatsTrace.getCurrentCall()
-                            .getMatsMessageId());
-                    mm.setStringProperty(JMS_MSG_PROP_FROM, outgoingMatsTrace.getCurrentCall().getFrom());
-                    mm.setStringProperty(JMS_MSG_PROP_TO, toChannel.getId());
-                    if (outgoingMatsTrace.isNoAudit()) {
-                        mm.setBooleanProperty(JMS_MSG_PROP_NO_AUDIT, true);
-                    }
+                    MapMessage mm = createMapMessage(jmsSession, jmsMatsMessage, jmsMatsFactory);
 
                     // Setting DeliveryMode: NonPersistent or Persistent
                     int deliveryMode = outgoingMatsTrace.isNonPersistent()
@@ -267,20 +447,34 @@ public interface JmsMatsStatics {
 
                     // :: Create the JMS Queue or Topic.
                     // TODO: OPTIMIZE: Cache these?!
-                    Destination destination = toChannel.getMessagingModel() == MessagingModel.QUEUE
-                            ? jmsSession.createQueue(factoryConfig.getMatsDestinationPrefix() + toChannel.getId())
-                            : jmsSession.createTopic(factoryConfig.getMatsDestinationPrefix() + toChannel.getId());
+                    Destination destination;
+                    if (toChannel.getMessagingModel() == MessagingModel.QUEUE) {
+                        String queueName = factoryConfig.getMatsDestinationPrefix() + toChannel.getId();
+                        // ?: Is this interactive, and is the target stage's interactive lane known to be consumed?
+                        if (outgoingMatsTrace.isInteractive() && jmsMatsFactory.hasInteractiveLane(toChannel.getId())) {
+                            // -> Yes, so send it to the stage's interactive lane.
+                            queueName += INTERACTIVE_LANE_POSTFIX;
+                        }
+                        destination = jmsSession.createQueue(queueName);
+                    }
+                    else {
+                        destination = jmsSession.createTopic(factoryConfig.getMatsDestinationPrefix()
+                                + toChannel.getId());
+                    }
 
                     // :: Send the message (but since transactional, won't be committed until TransactionContext does).
                     messageProducer.send(destination, mm, deliveryMode, priority, timeToLive);
 
                     // We now have a JMSMessageID, so set it on MDC for outgoing.
-                    MDC.put(MDC_JMS_MESSAGE_ID_OUT, mm.getJMSMessageID());
+                    if (setMdc) {
+                        MDC.put(MDC_JMS_MESSAGE_ID_OUT, mm.getJMSMessageID());
+                    }
 
                     // Log it.
                     long nanosAtSent = System.nanoTime();
+                    metrics.recordTiming(metricsOrigin, metricsId, Timing.SEND, nanosAtSent - nanosStartSend);
                     double millisSend = (nanosAtSent - nanosStartSend) / 1_000_000d;
-                    log.info(LOG_PREFIX + "SENT [" + jmsMatsMessage.getWhat() + "] message to ["
+                    if (logSent) log.info(LOG_PREFIX + "SENT [" + jmsMatsMessage.getWhat() + "] message to ["
                             + jmsMatsFactory.getFactoryConfig().getName() + "|" + destination
                             + "], msg creation + send took:[" + ms3(millisSend) + " ms] (production was:["
                             + ms3(jmsMatsMessage.getTotalProductionTimeMillis()) + " ms])"
@@ -293,26 +487,11 @@ public interface JmsMatsStatics {
                     throw new JmsMatsJmsException("Got problems sending [" + jmsMatsMessage.getWhat()
                             + "] to [" + toChannel + "] via JMS API.", e);
                 }
-                finally {
-                    // :: Restore MDC
-                    // TraceId
-                    if (existingTraceId == null) {
-                        MDC.remove(MDC_TRACE_ID);
-                    }
-                    else {
-                        MDC.put(MDC_TRACE_ID, existingTraceId);
-                    }
-                    // The rest..
-                    MDC.remove(MDC_MATS_MESSAGE_ID_OUT);
-                    MDC.remove(MDC_JMS_MESSAGE_ID_OUT);
-
-                    MDC.remove(MDC_MATS_MESSAGE_SEND_FROM);
-                    MDC.remove(MDC_MATS_MESSAGE_SEND_TO);
-                    MDC.remove(MDC_MATS_MESSAGE_SEND_AUDIT);
-                }
             }
             // Only log tally-line if we sent more than one message
-            if (messagesToSend.size() > 1) {
+            if (logSent && (messagesToSend.size() > 1)) {
+                // The tally-line is not about any specific outgoing message, so log it with the base MDC.
+                restoreMdc(baseMdc);
                 long nanosFinal = System.nanoTime();
                 double millisSendingMessags = (nanosFinal - nanosStartSendingMessages) / 1_000_000d;
                 double millisTotal = (nanosFinal - nanosStart) / 1_000_000d;
@@ -322,9 +501,44 @@ public interface JmsMatsStatics {
             }
         }
         finally {
-            // :: Clean MDC: Outgoing
-            MDC.remove(MDC_MATS_OUTGOING);
+            // :: Restore MDC
+            if (setMdc) {
+                restoreMdc(baseMdc);
+            }
+        }
+    }
+
+    /**
+     * Creates the JMS MapMessage for the {@link JmsMatsMessage}, containing the serialized MatsTrace, the sideloads,
+     * and some JMS properties to simplify logging on the MQ.
+     */
+    default <Z> MapMessage createMapMessage(Session jmsSession, JmsMatsMessage<Z> jmsMatsMessage,
+            JmsMatsFactory<Z> jmsMatsFactory) throws JMSException {
+        MatsTrace<Z> outgoingMatsTrace = jmsMatsMessage.getMatsTrace();
+        MapMessage mm = jmsSession.createMapMessage();
+        // Set the MatsTrace.
+        mm.setBytes(jmsMatsFactory.getFactoryConfig().getMatsTraceKey(),
+                jmsMatsMessage.getSerializedOutgoingMatsTrace().getMatsTraceBytes());
+        mm.setString(jmsMatsFactory.getMatsTraceMetaKey(),
+                jmsMatsMessage.getSerializedOutgoingMatsTrace().getMeta());
+
+        // :: Add the Mats properties to the MapMessage
+        for (Entry<String, byte[]> entry : jmsMatsMessage.getBytes().entrySet()) {
+            mm.setBytes(entry.getKey(), entry.getValue());
+        }
+        for (Entry<String, String> entry : jmsMatsMessage.getStrings().entrySet()) {
+            mm.setString(entry.getKey(), entry.getValue());
+        }
+
+        // :: Add some JMS Properties to simplify logging on MQ
+        mm.setStringProperty(JMS_MSG_PROP_TRACE_ID, outgoingMatsTrace.getTraceId());
+        mm.setStringProperty(JMS_MSG_PROP_MATS_MSG_ID, outgoingMatsTrace.getCurrentCall().getMatsMessageId());
+        mm.setStringProperty(JMS_MSG_PROP_FROM, outgoingMatsTrace.getCurrentCall().getFrom());
+        mm.setStringProperty(JMS_MSG_PROP_TO, outgoingMatsTrace.getCurrentCall().getTo().getId());
+        if (outgoingMatsTrace.isNoAudit()) {
+            mm.setBooleanProperty(JMS_MSG_PROP_NO_AUDIT, true);
         }
+        return mm;
     }
 
     default <S, Z> S handleIncomingState(MatsSerializer<Z> matsSerializer, Class<S> stateClass, Z data) {
@@ -0,0 +1,89 @@
+package com.stolsvik.mats.impl.jms;
+
+/**
+ * A token bucket, employed for the per target endpoint rate limits of initiations, ref.
+ * {@link JmsMatsFactory#setInitiatorRateLimit(String, double, int)}. The bucket is refilled continuously at the given
+ * rate up to the burst size. A taker takes the tokens for its whole batch of messages in one go: If they are not
+ * all there, it reserves the missing ones (the bucket may thus go negative), and is told how long to wait for them -
+ * so that the waiting happens outside of the lock, and only once per batch.
+ */
+class JmsMatsTokenBucket {
+    private final double _messagesPerSecond;
+    private final int _burst;
+    private final double _tokensPerNano;
+
+    private double _tokens;
+    private long _nanosLastRefill;
+
+    JmsMatsTokenBucket(double messagesPerSecond, int burst) {
+        _messagesPerSecond = messagesPerSecond;
+        _burst = burst;
+        _tokensPerNano = messagesPerSecond / 1_000_000_000d;
+        // Start off full.
+        _tokens = burst;
+        _nanosLastRefill = System.nanoTime();
+    }
+
+    int getBurst() {
+        return _burst;
+    }
+
+    /**
+     * Takes the tokens for a batch of messages in one go, if necessary by reserving the tokens not yet refilled - all
+     * or nothing.
+     *
+     * @param tokens
+     *            the number of tokens to take, must not exceed the {@link #getBurst() burst}, as the bucket can never
+     *            hold more than that.
+     * @param maxWaitNanos
+     *            the maximum time the caller is willing to wait for the tokens.
+     * @return the nanos the caller must wait before it has the tokens (0 if they were available), or -1 if the wait
+     *         would exceed the max - in which case no tokens were taken.
+     */
+    synchronized long take(int tokens, long maxWaitNanos) {
+        long waitNanos = refillAndGetNanosUntil(tokens);
+        // ?: Is that longer than the caller is willing to wait? (Which may be negative if its deadline has passed)
+        if ((waitNanos > 0) && (waitNanos > maxWaitNanos)) {
+            // -> Yes, so do not take them.
+            return -1;
+        }
+        // E-> No, so take them (reserving any not yet refilled).
+        _tokens -= tokens;
+        return waitNanos;
+    }
+
+    /**
+     * @return the nanos until the specified number of tokens are available (0 if they are now) - without taking
+     *         them, for waiting outside of a transaction before taking them.
+     */
+    synchronized long nanosUntilAvailable(int tokens) {
+        return refillAndGetNanosUntil(tokens);
+    }
+
+    /**
+     * Gives back tokens that were {@link #take(int, long) taken}, when the messages they were taken for were not sent
+     * after all.
+     */
+    synchronized void giveBack(int tokens) {
+        refillAndGetNanosUntil(0);
+        _tokens = Math.min(_burst, _tokens + tokens);
+    }
+
+    private long refillAndGetNanosUntil(int tokens) {
+        long nanosNow = System.nanoTime();
+        _tokens = Math.min(_burst, _tokens + ((nanosNow - _nanosLastRefill) * _tokensPerNano));
+        _nanosLastRefill = nanosNow;
+        // ?: Are the tokens available?
+        if (_tokens >= tokens) {
+            // -> Yes, so no wait.
+            return 0;
+        }
+        // E-> No, so find how long until they (after any already reserved) are refilled.
+        return (long) Math.ceil((tokens - _tokens) / _tokensPerNano);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucket[" + _messagesPerSecond + " msgs/s, burst:" + _burst + "]";
+    }
+}
@@ -1,16 +1,24 @@
 package com.stolsvik.mats.impl.jms;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import javax.jms.MessageConsumer;
 import javax.jms.Session;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import com.stolsvik.mats.MatsEndpoint.MatsRefuseMessageException;
 import com.stolsvik.mats.MatsInitiator;
+import com.stolsvik.mats.MatsInitiator.MatsThrottledException;
 import com.stolsvik.mats.impl.jms.JmsMatsJmsSessionHandler.JmsSessionHolder;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.ErrorKind;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics.Timing;
 
 /**
  * Implementation of {@link JmsMatsTransactionManager} handling only JMS (getting Connections, and creating Sessions),
@@ -45,9 +53,17 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
     public static class TransactionalContext_Jms implements TransactionContext, JmsMatsStatics {
 
         protected final JmsMatsTxContextKey _txContextKey;
+        protected final JmsMatsMetrics.Origin _metricsOrigin;
+        protected final String _metricsId;
 
         public TransactionalContext_Jms(JmsMatsTxContextKey txContextKey) {
             _txContextKey = txContextKey;
+            _metricsOrigin = JmsMatsMetrics.originOf(txContextKey);
+            _metricsId = JmsMatsMetrics.idOf(txContextKey);
+        }
+
+        protected void recordError(ErrorKind errorKind) {
+            _txContextKey.getFactory().getMetrics().recordError(_metricsOrigin, _metricsId, errorKind);
         }
 
         @Override
@@ -82,10 +98,19 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
                 log.error(LOG_PREFIX + "ROLLBACK JMS: Got a " + MatsRefuseMessageException.class.getSimpleName() +
                         " while transacting " + stageOrInit(_txContextKey) + " (most probably from the user code)."
                         + " Rolling back the JMS transaction - trying to ensure that it goes directly to DLQ.", e);
+                recordError(ErrorKind.REFUSED_TO_DLQ);
                 Optional<MessageConsumer> messageConsumer = jmsSessionMessageContext.getMessageConsumer();
                 if (!messageConsumer.isPresent()) {
-                    log.error(e.getClass().getName() + " was raised in a wrong context where no JMS MessageConsumer is"
-                            + " present (i.e. initiation). This shall not be possible - 'sneaky throws' in play?.", e);
+                    // ?: Is this a Stage? (Then the message was short-circuited in-JVM, not received from the broker)
+                    if (_txContextKey.getStage() != null) {
+                        // -> Yes, so let the StageProcessor handle the refusal, as there is no broker to DLQ it.
+                        jmsSessionMessageContext.setRefusedWithoutMessageConsumer();
+                    }
+                    else {
+                        log.error(e.getClass().getName() + " was raised in a wrong context where no JMS"
+                                + " MessageConsumer is present (i.e. initiation). This shall not be possible -"
+                                + " 'sneaky throws' in play?.", e);
+                    }
                     rollback(jmsSession, e);
                 }
                 else {
@@ -106,10 +131,23 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
                         + " while transacting " + stageOrInit(_txContextKey)
                         + ", indicating that the MATS JMS implementation had problems performing"
                         + " some operation. Rolling back JMS Session, throwing on to get new JMS Connection.", e);
+                recordError(ErrorKind.JMS_PROBLEM);
                 rollback(jmsSession, e);
                 // Throwing out, since the JMS Connection most probably is unstable.
                 throw e;
             }
+            catch (MatsThrottledException e) {
+                /*
+                 * The initiation was held back by rate limits or backpressure for longer than allowed - this is an
+                 * expected situation under load, so no stack trace.
+                 */
+                log.warn(LOG_PREFIX + "ROLLBACK JMS: Throttled while transacting " + stageOrInit(_txContextKey)
+                        + ": " + e.getMessage() + " Rolling back the JMS session.");
+                recordError(ErrorKind.THROTTLED);
+                rollback(jmsSession, e);
+                // Throw on, so that it percolates out of the initiate-call.
+                throw e;
+            }
             catch (RuntimeException | Error e) {
                 /*
                  * Should only be user code, as errors from "ourselves" (the JMS MATS impl) should throw
@@ -118,6 +156,7 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
                 log.error(LOG_PREFIX + "ROLLBACK JMS: Got a " + e.getClass().getSimpleName() + " while transacting "
                         + stageOrInit(_txContextKey) + " (should only be from user code)."
                         + " Rolling back the JMS session.", e);
+                recordError(ErrorKind.ROLLBACK);
                 rollback(jmsSession, e);
                 // Throw on, so that if this is in an initiate-call, it will percolate all the way out.
                 // (NOTE! Inside JmsMatsStageProcessor, RuntimeExceptions won't recreate the JMS Connection..)
@@ -130,6 +169,7 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
                 log.error(LOG_PREFIX + "ROLLBACK JMS: " + t.getClass().getSimpleName() + " while transacting "
                         + stageOrInit(_txContextKey) + " (probably 'sneaky throws' of checked exception)."
                         + " Rolling back the JMS session.", t);
+                recordError(ErrorKind.ROLLBACK);
                 rollback(jmsSession, t);
                 // Throw on, so that if this is in an initiate-call, it will percolate all the way out.
                 // (Inside JmsMatsStage, RuntimeExceptions won't recreate the JMS Connection..)
@@ -139,11 +179,46 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
 
             // ----- The ProcessingLambda went OK, no Exception was raised.
 
+            // ?: Has the StageProcessor asked for a pipelined commit?
+            Executor pipelinedCommitExecutor = jmsSessionMessageContext.getPipelinedCommitExecutor();
+            if (pipelinedCommitExecutor != null) {
+                // -> Yes, so hand the commit off, and return so that the StageProcessor can receive the next message.
+                log.debug(LOG_PREFIX + "COMMIT JMS: ProcessingLambda finished, handing off commit of JMS Session.");
+                // The committer thread gets this message's MDC, so that its log lines can be correlated.
+                Map<String, String> messageMdc = MDC.getCopyOfContextMap();
+                jmsSessionMessageContext.setPipelinedCommit(CompletableFuture.runAsync(() -> {
+                    restoreMdc(messageMdc);
+                    try {
+                        commitJmsSession(jmsSessionMessageContext, jmsSession);
+                    }
+                    catch (JmsMatsJmsException e) {
+                        throw new CompletionException(e);
+                    }
+                    finally {
+                        MDC.clear();
+                    }
+                }, pipelinedCommitExecutor));
+                return;
+            }
+
+            // E-> No, so commit directly.
             log.debug(LOG_PREFIX + "COMMIT JMS: ProcessingLambda finished, committing JMS Session.");
+            commitJmsSession(jmsSessionMessageContext, jmsSession);
+        }
+
+        /**
+         * Commits the JMS Session, handling the "VERY BAD!" situation if this fails.
+         */
+        protected void commitJmsSession(JmsMatsMessageContext jmsSessionMessageContext, Session jmsSession)
+                throws JmsMatsJmsException {
             try {
+                long nanosStartCommit = System.nanoTime();
                 jmsSession.commit();
+                _txContextKey.getFactory().getMetrics().recordTiming(_metricsOrigin, _metricsId, Timing.COMMIT,
+                        System.nanoTime() - nanosStartCommit);
             }
             catch (Throwable t) {
+                recordError(ErrorKind.COMMIT_FAILED);
                 /*
                  * WARNING WARNING! COULD NOT COMMIT JMS! Besides indicating that we have a JMS problem, we also have a
                  * potential bad situation with potentially committed external state changes, but where the JMS Message
@@ -183,6 +258,16 @@ public class JmsMatsTransactionManager_Jms implements JmsMatsTransactionManager,
 
             // -> The JMS Session nicely committed.
             log.debug(LOG_PREFIX + "JMS Session committed.");
+
+            // :: Do what JMS Mats itself shall do after commit (e.g. hand off short-circuited messages).
+            try {
+                jmsSessionMessageContext.runAfterJmsCommit();
+            }
+            catch (RuntimeException e) {
+                // The transaction is committed, so nothing to do but log.
+                log.error(LOG_PREFIX + "Got [" + e.getClass().getSimpleName() + "] when running after-JMS-commit"
+                        + " tasks. Ignoring.", e);
+            }
         }
     }
 
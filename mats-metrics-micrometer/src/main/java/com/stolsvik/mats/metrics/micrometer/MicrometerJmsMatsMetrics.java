@@ -0,0 +1,153 @@
+package com.stolsvik.mats.metrics.micrometer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.stolsvik.mats.impl.jms.JmsMatsFactory;
+import com.stolsvik.mats.impl.jms.JmsMatsMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Binds the {@link JmsMatsMetrics} SPI to Micrometer. Install using
+ * <code>jmsMatsFactory.setMetrics(MicrometerJmsMatsMetrics.create(meterRegistry, jmsMatsFactory))</code>. Creates
+ * these meters, all tagged with <code>factory</code> (the name of the MatsFactory), <code>origin</code> ("stage" or
+ * "initiator") and <code>id</code> (the stageId or the Initiator name):
+ * <ul>
+ * <li><b>{@value #TIMER_NAME}</b> - {@link Timer}, additionally tagged with <code>timing</code>, ref.
+ * {@link Timing}.</li>
+ * <li><b>{@value #SIZE_NAME}</b> - {@link DistributionSummary} in bytes, additionally tagged with <code>size</code>,
+ * ref. {@link Size}.</li>
+ * <li><b>{@value #ERROR_NAME}</b> - {@link Counter}, additionally tagged with <code>error</code>, ref.
+ * {@link ErrorKind}.</li>
+ * </ul>
+ * The meters are created lazily on first record, and then cached, so that the hot path does not go through the
+ * registry's lookup.
+ */
+public class MicrometerJmsMatsMetrics implements JmsMatsMetrics {
+    public static final String TIMER_NAME = "mats.timing";
+    public static final String SIZE_NAME = "mats.message.size";
+    public static final String ERROR_NAME = "mats.errors";
+
+    private final MeterRegistry _meterRegistry;
+    private final Tags _commonTags;
+
+    private final ConcurrentHashMap<String, MetersForId> _stageMeters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, MetersForId> _initiatorMeters = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry
+     *            the Micrometer registry to create the meters in.
+     * @param jmsMatsFactory
+     *            the factory, whose name is used for the <code>factory</code> tag.
+     * @return a MicrometerJmsMatsMetrics, to be installed on the factory.
+     */
+    public static MicrometerJmsMatsMetrics create(MeterRegistry meterRegistry, JmsMatsFactory<?> jmsMatsFactory) {
+        return new MicrometerJmsMatsMetrics(meterRegistry,
+                Tags.of("factory", jmsMatsFactory.getFactoryConfig().getName()));
+    }
+
+    /**
+     * @param meterRegistry
+     *            the Micrometer registry to create the meters in.
+     * @param commonTags
+     *            tags that are added to all meters.
+     * @return a MicrometerJmsMatsMetrics, to be installed on the factory.
+     */
+    public static MicrometerJmsMatsMetrics create(MeterRegistry meterRegistry, Tags commonTags) {
+        return new MicrometerJmsMatsMetrics(meterRegistry, commonTags);
+    }
+
+    protected MicrometerJmsMatsMetrics(MeterRegistry meterRegistry, Tags commonTags) {
+        _meterRegistry = meterRegistry;
+        _commonTags = commonTags;
+    }
+
+    @Override
+    public void recordTiming(Origin origin, String id, Timing timing, long nanos) {
+        metersForId(origin, id).timer(timing).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordSize(Origin origin, String id, Size size, int bytes) {
+        metersForId(origin, id).summary(size).record(bytes);
+    }
+
+    @Override
+    public void recordError(Origin origin, String id, ErrorKind error) {
+        metersForId(origin, id).counter(error).increment();
+    }
+
+    protected MetersForId metersForId(Origin origin, String id) {
+        ConcurrentHashMap<String, MetersForId> map = origin == Origin.STAGE ? _stageMeters : _initiatorMeters;
+        MetersForId meters = map.get(id);
+        // ?: Did we have it? (Avoiding the lambda allocation of computeIfAbsent in the common case)
+        if (meters == null) {
+            // -> No, so create it.
+            meters = map.computeIfAbsent(id, k -> new MetersForId(_commonTags.and("origin",
+                    origin.name().toLowerCase(), "id", k)));
+        }
+        return meters;
+    }
+
+    /**
+     * The meters for a specific Stage or Initiator. Racing creations of the same meter is benign, as the registry
+     * returns the same instance for the same name and tags.
+     */
+    protected class MetersForId {
+        private final Tags _tags;
+        private final AtomicReferenceArray<Timer> _timers = new AtomicReferenceArray<>(Timing.values().length);
+        private final AtomicReferenceArray<DistributionSummary> _summaries = new AtomicReferenceArray<>(
+                Size.values().length);
+        private final AtomicReferenceArray<Counter> _counters = new AtomicReferenceArray<>(
+                ErrorKind.values().length);
+
+        protected MetersForId(Tags tags) {
+            _tags = tags;
+        }
+
+        protected Timer timer(Timing timing) {
+            Timer timer = _timers.get(timing.ordinal());
+            if (timer == null) {
+                timer = Timer.builder(TIMER_NAME)
+                        .tags(_tags).tag("timing", timing.name().toLowerCase())
+                        .register(_meterRegistry);
+                _timers.set(timing.ordinal(), timer);
+            }
+            return timer;
+        }
+
+        protected DistributionSummary summary(Size size) {
+            DistributionSummary summary = _summaries.get(size.ordinal());
+            if (summary == null) {
+                summary = DistributionSummary.builder(SIZE_NAME)
+                        .baseUnit("bytes")
+                        .tags(_tags).tag("size", size.name().toLowerCase())
+                        .register(_meterRegistry);
+                _summaries.set(size.ordinal(), summary);
+            }
+            return summary;
+        }
+
+        protected Counter counter(ErrorKind error) {
+            Counter counter = _counters.get(error.ordinal());
+            if (counter == null) {
+                counter = Counter.builder(ERROR_NAME)
+                        .tags(_tags).tag("error", error.name().toLowerCase())
+                        .register(_meterRegistry);
+                _counters.set(error.ordinal(), counter);
+            }
+            return counter;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MicrometerJmsMatsMetrics[" + _meterRegistry + ", " + _commonTags + "]";
+    }
+}
@@ -0,0 +1,274 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timing wheel for keeping track of a large number of timeouts, with O(1) {@link #schedule(Object, long)
+ * schedule} and {@link Timeout#cancel() cancel}, as employed by the {@link MatsFuturizer} for the timeouts of its
+ * Promises. Time is divided into ticks of a fixed duration, and the wheel is a ring of buckets, one per tick: A timeout
+ * is put in the bucket of the tick of its deadline, along with how many full rotations of the wheel remain before it
+ * is due. The wheel is driven by a single thread invoking {@link #advance(long)} at least once per tick, which goes
+ * through the buckets of the ticks passed, and returns the items that have become due.
+ * <p/>
+ * Scheduling and cancelling may be done from any thread, and do not share any lock with each other or with the
+ * advancing thread: They only put the timeout on lock-free queues, which the advancing thread drains into or out of
+ * the buckets. An item is never returned before its deadline, but may be up to one tick (plus the scheduling jitter of
+ * the advancing thread) late.
+ *
+ * @param <T>
+ *            the type of the items that time out.
+ */
+public class HashedTimingWheel<T> {
+    private final long _tickMillis;
+    private final Bucket<T>[] _buckets;
+    private final int _mask;
+    private final long _startMillis;
+
+    // Timeouts scheduled, not yet put in a bucket by the advancing thread.
+    private final ConcurrentLinkedQueue<Timeout<T>> _scheduled = new ConcurrentLinkedQueue<>();
+    // Timeouts cancelled, not yet taken out of their bucket by the advancing thread.
+    private final ConcurrentLinkedQueue<Timeout<T>> _cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _pending = new AtomicInteger();
+
+    // Only accessed by the advancing thread: The next tick to go through.
+    private long _nextTick;
+
+    /**
+     * @param tickMillis
+     *            the duration of a tick, i.e. the resolution of the timeouts - e.g. 10 ms.
+     * @param ticksPerWheel
+     *            the number of buckets, which is rounded up to a power of two. Timeouts further out than a full
+     *            rotation are kept in their bucket with a count of remaining rotations, so this only affects the
+     *            number of timeouts the advancing thread must look at per tick.
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int ticksPerWheel) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be > 0, was [" + tickMillis + "].");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel must be > 0 and <= 2^30, was [" + ticksPerWheel + "].");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        _tickMillis = tickMillis;
+        _buckets = (Bucket<T>[]) new Bucket<?>[size];
+        for (int i = 0; i < size; i++) {
+            _buckets[i] = new Bucket<>();
+        }
+        _mask = size - 1;
+        _startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the duration of a tick.
+     */
+    public long getTickMillis() {
+        return _tickMillis;
+    }
+
+    /**
+     * @return the number of scheduled timeouts that have neither become due nor been cancelled.
+     */
+    public int getPendingCount() {
+        return _pending.get();
+    }
+
+    /**
+     * Schedules the item to time out at the given deadline. May be invoked from any thread.
+     *
+     * @param item
+     *            the item which {@link #advance(long)} shall return when it becomes due.
+     * @param deadlineMillis
+     *            the timestamp (as {@link System#currentTimeMillis()}) when the item is due.
+     * @return the {@link Timeout}, which can be {@link Timeout#cancel() cancelled}.
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(this, item, deadlineMillis);
+        _pending.incrementAndGet();
+        _scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to the given time, going through the buckets of all the ticks passed since last invocation.
+     * Must only be invoked by a single thread, the "advancing thread", which should do it at least once per
+     * {@link #getTickMillis() tick}.
+     *
+     * @param nowMillis
+     *            the current time, as {@link System#currentTimeMillis()}.
+     * @return the items that have become due, sorted by their deadline - empty if none.
+     */
+    public List<T> advance(long nowMillis) {
+        // :: Take out the cancelled timeouts (they may not yet be in a bucket, in which case they'll be skipped below).
+        Timeout<T> timeout;
+        while ((timeout = _cancelled.poll()) != null) {
+            if (timeout._bucket != null) {
+                timeout._bucket.remove(timeout);
+            }
+        }
+        // :: Put the newly scheduled timeouts in their buckets.
+        List<Timeout<T>> due = new ArrayList<>();
+        while ((timeout = _scheduled.poll()) != null) {
+            // ?: Was it cancelled before we got to it?
+            if (timeout._state.get() != Timeout.PENDING) {
+                // -> Yes, so skip it.
+                continue;
+            }
+            // ?: Is it already due?
+            if (timeout._deadlineMillis <= nowMillis) {
+                // -> Yes, so don't bother with a bucket (its tick might already have been passed).
+                timeout.expire(due);
+                continue;
+            }
+            // The tick of the deadline, rounded up so that it never becomes due before its deadline.
+            long deadlineTick = Math.max(_nextTick, ceilDiv(timeout._deadlineMillis - _startMillis, _tickMillis));
+            timeout._remainingRounds = (deadlineTick - _nextTick) / _buckets.length;
+            _buckets[(int) (deadlineTick & _mask)].add(timeout);
+        }
+        // :: Go through the buckets of the ticks passed, collecting the due timeouts.
+        long currentTick = (nowMillis - _startMillis) / _tickMillis;
+        while (_nextTick <= currentTick) {
+            _buckets[(int) (_nextTick & _mask)].expire(due);
+            _nextTick++;
+        }
+        // ?: Anything due?
+        if (due.isEmpty()) {
+            // -> No, so return empty.
+            return new ArrayList<>(0);
+        }
+        // Several ticks may have passed, and a bucket is not sorted, so sort to time them out in deadline order.
+        due.sort(Comparator.comparingLong(t -> t._deadlineMillis));
+        List<T> items = new ArrayList<>(due.size());
+        for (Timeout<T> dueTimeout : due) {
+            items.add(dueTimeout._item);
+        }
+        return items;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return dividend <= 0 ? 0 : ((dividend + divisor - 1) / divisor);
+    }
+
+    /**
+     * A scheduled timeout, which can be {@link #cancel() cancelled}.
+     */
+    public static final class Timeout<T> {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel<T> _wheel;
+        private final T _item;
+        private final long _deadlineMillis;
+        private final AtomicInteger _state = new AtomicInteger(PENDING);
+
+        // :: Only accessed by the advancing thread.
+        private long _remainingRounds;
+        private Bucket<T> _bucket;
+        private Timeout<T> _prev;
+        private Timeout<T> _next;
+
+        private Timeout(HashedTimingWheel<T> wheel, T item, long deadlineMillis) {
+            _wheel = wheel;
+            _item = item;
+            _deadlineMillis = deadlineMillis;
+        }
+
+        /**
+         * @return the deadline given when scheduled.
+         */
+        public long getDeadlineMillis() {
+            return _deadlineMillis;
+        }
+
+        /**
+         * Cancels the timeout, so that the item will not be returned from {@link #advance(long)}. O(1), and may be
+         * invoked from any thread. The timeout is taken out of its bucket on the next advance.
+         *
+         * @return <code>true</code> if it was cancelled, <code>false</code> if it was already cancelled, or had
+         *         already become due.
+         */
+        public boolean cancel() {
+            // ?: Did we get to cancel it?
+            if (!_state.compareAndSet(PENDING, CANCELLED)) {
+                // -> No, already cancelled or due.
+                return false;
+            }
+            _wheel._pending.decrementAndGet();
+            _wheel._cancelled.add(this);
+            return true;
+        }
+
+        private void expire(List<Timeout<T>> due) {
+            // ?: Did we get to expire it, i.e. beat any cancel?
+            if (_state.compareAndSet(PENDING, EXPIRED)) {
+                // -> Yes, so it is due.
+                _wheel._pending.decrementAndGet();
+                due.add(this);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, only accessed by the advancing thread.
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> _head;
+        private Timeout<T> _tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout._bucket = this;
+            if (_head == null) {
+                _head = _tail = timeout;
+            }
+            else {
+                _tail._next = timeout;
+                timeout._prev = _tail;
+                _tail = timeout;
+            }
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout._prev != null) {
+                timeout._prev._next = timeout._next;
+            }
+            else {
+                _head = timeout._next;
+            }
+            if (timeout._next != null) {
+                timeout._next._prev = timeout._prev;
+            }
+            else {
+                _tail = timeout._prev;
+            }
+            timeout._prev = null;
+            timeout._next = null;
+            timeout._bucket = null;
+        }
+
+        private void expire(List<Timeout<T>> due) {
+            Timeout<T> timeout = _head;
+            while (timeout != null) {
+                Timeout<T> next = timeout._next;
+                // ?: Is it in this rotation?
+                if (timeout._remainingRounds <= 0) {
+                    // -> Yes, so it is due - take it out.
+                    remove(timeout);
+                    timeout.expire(due);
+                }
+                else {
+                    // -> No, a later rotation.
+                    timeout._remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
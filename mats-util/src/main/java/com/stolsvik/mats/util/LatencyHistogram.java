@@ -0,0 +1,151 @@
+package com.stolsvik.mats.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram, as employed by the {@link MatsFuturizer} for its
+ * metrics: The values are counted in log-linear buckets - each power of two is split into {@value #SUB_BUCKET_COUNT}
+ * linear sub-buckets - so that the percentiles are accurate to within about 3%, whatever the magnitude, with a fixed
+ * and small footprint. Values below {@value #SUB_BUCKET_COUNT}*2 are counted exactly. The histogram has no notion of
+ * unit - the MatsFuturizer records microseconds.
+ * <p/>
+ * {@link #record(long) Recording} may be done from any number of threads concurrently, and is a few atomic increments.
+ * A {@link #snapshot() snapshot} is not atomic with respect to concurrent recording, i.e. the count might be off by the
+ * values recorded while it was taken - which is fine for metrics.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values above this are counted in the last bucket: 2^36 micros is more than 19 hours.
+    static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+    private static final int BUCKET_COUNT = _index(MAX_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _sum = new LongAdder();
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records the value. Negative values, which might come from clock adjustments, are recorded as zero.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_TRACKABLE_VALUE));
+        _counts.incrementAndGet(_index(clamped));
+        _count.increment();
+        _sum.add(clamped);
+        _max.accumulate(clamped);
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * @return a snapshot of the histogram, from which to get the percentiles.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = _counts.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, _sum.sum(), _max.get());
+    }
+
+    static int _index(long value) {
+        // ?: Is it in the exactly counted range?
+        if (value < (SUB_BUCKET_COUNT << 1)) {
+            // -> Yes, so it is its own bucket.
+            return (int) value;
+        }
+        // E-> No, so find the power of two, and the linear sub-bucket within it.
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    static long _highestValueOfIndex(int index) {
+        // ?: Is it in the exactly counted range?
+        if (index < (SUB_BUCKET_COUNT << 1)) {
+            // -> Yes, so it is the value itself.
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * A point-in-time copy of a {@link LatencyHistogram}.
+     */
+    public static class Snapshot {
+        private final long[] _counts;
+        private final long _count;
+        private final long _sum;
+        private final long _max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            _counts = counts;
+            _count = count;
+            _sum = sum;
+            _max = max;
+        }
+
+        /**
+         * @return the number of values recorded.
+         */
+        public long getCount() {
+            return _count;
+        }
+
+        /**
+         * @return the mean of the values recorded, or 0 if none.
+         */
+        public double getMean() {
+            return _count == 0 ? 0 : (double) _sum / _count;
+        }
+
+        /**
+         * @return the largest value recorded, exactly.
+         */
+        public long getMax() {
+            return _max;
+        }
+
+        /**
+         * @param percentile
+         *            the percentile, from 0 to 100, e.g. 99.9.
+         * @return the value at or below which the given percentile of the recorded values are - as the highest value of
+         *         its bucket, but never above the max. 0 if no values are recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100, was [" + percentile + "].");
+            }
+            if (_count == 0) {
+                return 0;
+            }
+            long countAtPercentile = Math.max(1, (long) Math.ceil((percentile / 100) * _count));
+            long cumulative = 0;
+            for (int i = 0; i < _counts.length; i++) {
+                cumulative += _counts[i];
+                if (cumulative >= countAtPercentile) {
+                    return Math.min(_highestValueOfIndex(i), _max);
+                }
+            }
+            return _max;
+        }
+
+        @Override
+        public String toString() {
+            return "count:" + _count + ", mean:" + Math.round(getMean())
+                    + ", p50:" + getValueAtPercentile(50) + ", p99:" + getValueAtPercentile(99)
+                    + ", p99.9:" + getValueAtPercentile(99.9) + ", max:" + _max;
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package com.stolsvik.mats.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.stolsvik.mats.MatsEndpoint;
 import com.stolsvik.mats.MatsEndpoint.DetachedProcessContext;
 import com.stolsvik.mats.MatsEndpoint.MatsObject;
@@ -96,9 +115,42 @@ public class MatsFuturizer implements AutoCloseable {
      *         SubscriptionTerminator}.
      */
     public static MatsFuturizer createMatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix) {
+        return createMatsFuturizer(matsFactory, endpointIdPrefix, ReplyMode.SUBSCRIPTION_TOPIC);
+    }
+
+    /**
+     * How the replies get back to the MatsFuturizer holding the Promise - i.e. to this node.
+     */
+    public enum ReplyMode {
+        /**
+         * The default: The replies go to a {@link MatsFactory#subscriptionTerminator(String, Class, Class,
+         * ProcessTerminatorLambda) SubscriptionTerminator} on a node-specific topic. Topics are non-persistent, so a
+         * reply published while this node is not subscribed, e.g. during a restart or a broker failover, is lost - but
+         * then again, so is the Promise.
+         */
+        SUBSCRIPTION_TOPIC,
+
+        /**
+         * The replies go to an ordinary {@link MatsFactory#terminator(String, Class, Class, ProcessTerminatorLambda)
+         * Terminator} on a node-specific queue, i.e. point-to-point, with the delivery guarantees of a queue: A reply
+         * of a persistent flow survives a broker restart, and no topic semantics are involved per reply. Notice that
+         * the queue is named after the node, so if the node names are not stable across restarts (e.g. random
+         * hostnames in a container orchestrator), each new name leaves behind a queue on the broker, along with any
+         * replies that arrived after its node went away.
+         */
+        NODE_QUEUE
+    }
+
+    /**
+     * Variant of {@link #createMatsFuturizer(MatsFactory, String)} where you specify the {@link ReplyMode}, i.e. how the
+     * replies get back to this node. The default is {@link ReplyMode#SUBSCRIPTION_TOPIC}.
+     */
+    public static MatsFuturizer createMatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix,
+            ReplyMode replyMode) {
         int corePoolSize = Math.max(5, matsFactory.getFactoryConfig().getConcurrency() * 4);
         int maximumPoolSize = Math.max(100, matsFactory.getFactoryConfig().getConcurrency() * 20);
-        return createMatsFuturizer(matsFactory, endpointIdPrefix, corePoolSize, maximumPoolSize, 50_000);
+        return createMatsFuturizer(matsFactory, endpointIdPrefix, corePoolSize, maximumPoolSize, 50_000,
+                DEFAULT_TIMEOUT_TICK_MILLIS, replyMode);
     }
 
     /**
@@ -131,30 +183,156 @@ public class MatsFuturizer implements AutoCloseable {
         return new MatsFuturizer(matsFactory, endpointIdPrefix, corePoolSize, maxPoolSize, maxOutstandingPromises);
     }
 
+    /**
+     * The default duration of the ticks of the timing wheel that keeps track of the Promises' timeouts, i.e. the
+     * resolution of the timeouts: 10 ms.
+     */
+    public static final int DEFAULT_TIMEOUT_TICK_MILLIS = 10;
+
+    /**
+     * Variant of {@link #createMatsFuturizer(MatsFactory, String, int, int, int)} where you also specify the duration
+     * of the ticks of the timing wheel that keeps track of the Promises' timeouts: A Promise times out at the first
+     * tick after its timeout, so this is the resolution of the timeouts - while a shorter tick means that the
+     * Timeouter-thread wakes up more often. The default is {@link #DEFAULT_TIMEOUT_TICK_MILLIS}.
+     *
+     * @param timeoutTickMillis
+     *            the duration of the ticks of the timeout wheel.
+     */
+    public static MatsFuturizer createMatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix,
+            int corePoolSize, int maxPoolSize, int maxOutstandingPromises, int timeoutTickMillis) {
+        return new MatsFuturizer(matsFactory, endpointIdPrefix, corePoolSize, maxPoolSize, maxOutstandingPromises,
+                timeoutTickMillis);
+    }
+
+    /**
+     * Variant of {@link #createMatsFuturizer(MatsFactory, String, int, int, int, int)} where you also specify the
+     * {@link ReplyMode}.
+     */
+    public static MatsFuturizer createMatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix,
+            int corePoolSize, int maxPoolSize, int maxOutstandingPromises, int timeoutTickMillis,
+            ReplyMode replyMode) {
+        return new MatsFuturizer(matsFactory, endpointIdPrefix, null, corePoolSize, maxPoolSize,
+                maxOutstandingPromises, timeoutTickMillis, replyMode);
+    }
+
+    /**
+     * Variant of {@link #createMatsFuturizer(MatsFactory, String, int, int, int)} where you supply the {@link Executor}
+     * that shall complete the futures, instead of the MatsFuturizer creating its own thread pool - notice that the
+     * futures' dependent stages, e.g. <code>thenApply(..)</code>, are run by the thread completing the future. The
+     * Executor is not shut down on {@link #close()}. Examples:
+     * <ul>
+     * <li>{@link ForkJoinPool#commonPool()}, or some other ForkJoinPool: Work-stealing, cheap handoffs - but do not
+     * block in the dependent stages.</li>
+     * <li><code>Runnable::run</code>, i.e. "caller runs": The futures are completed directly on the thread of the
+     * reply-handling SubscriptionTerminator, which is the cheapest possible, but holds up the reception of the next
+     * replies while the dependent stages run - so only use this if they are very quick.</li>
+     * </ul>
+     * Either way, when more replies come in than there are completers running, the replies are queued and the running
+     * completers complete several futures per task, instead of a task per reply.
+     *
+     * @param completerExecutor
+     *            the Executor that shall complete the futures.
+     * @param maxConcurrentCompleters
+     *            the max number of tasks concurrently completing futures on the Executor - above this, replies are
+     *            queued and picked up by the running tasks.
+     */
+    public static MatsFuturizer createMatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix,
+            Executor completerExecutor, int maxConcurrentCompleters, int maxOutstandingPromises) {
+        if (completerExecutor == null) {
+            throw new IllegalArgumentException("completerExecutor must be set.");
+        }
+        return new MatsFuturizer(matsFactory, endpointIdPrefix, completerExecutor, 0, maxConcurrentCompleters,
+                maxOutstandingPromises, DEFAULT_TIMEOUT_TICK_MILLIS, ReplyMode.SUBSCRIPTION_TOPIC);
+    }
+
     protected final MatsFactory _matsFactory;
     protected final MatsInitiator _matsInitiator;
     protected final String _terminatorEndpointId;
+    protected final ReplyMode _replyMode;
+    // null if supplied Executor.
     protected final ThreadPoolExecutor _futureCompleterThreadPool;
+    protected final Executor _futureCompleterExecutor;
+    protected final int _maxConcurrentCompleters;
     protected final int _maxOutstandingPromises;
+    protected final Semaphore _outstandingPermits;
     protected final MatsEndpoint<Void, String> _replyHandlerEndpoint;
 
     protected MatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix, int corePoolSize, int maxPoolSize,
             int maxOutstandingPromises) {
+        this(matsFactory, endpointIdPrefix, corePoolSize, maxPoolSize, maxOutstandingPromises,
+                DEFAULT_TIMEOUT_TICK_MILLIS);
+    }
+
+    protected MatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix, int corePoolSize, int maxPoolSize,
+            int maxOutstandingPromises, int timeoutTickMillis) {
+        this(matsFactory, endpointIdPrefix, null, corePoolSize, maxPoolSize, maxOutstandingPromises,
+                timeoutTickMillis, ReplyMode.SUBSCRIPTION_TOPIC);
+    }
+
+    /**
+     * @param completerExecutor
+     *            the Executor completing the futures - if <code>null</code>, a thread pool is created by
+     *            {@link #_newThreadPool(int, int)} with the given 'corePoolSize' and 'maxPoolSize'.
+     * @param maxPoolSize
+     *            the max number of threads of the created thread pool, and also the max number of concurrent tasks
+     *            completing futures on the Executor.
+     * @param replyMode
+     *            how the replies get back to this node.
+     */
+    protected MatsFuturizer(MatsFactory matsFactory, String endpointIdPrefix, Executor completerExecutor,
+            int corePoolSize, int maxPoolSize, int maxOutstandingPromises, int timeoutTickMillis,
+            ReplyMode replyMode) {
+        if (replyMode == null) {
+            throw new IllegalArgumentException("replyMode must be set.");
+        }
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("maxPoolSize / maxConcurrentCompleters must be > 0, was ["
+                    + maxPoolSize + "].");
+        }
         _matsFactory = matsFactory;
         _matsInitiator = matsFactory.getDefaultInitiator();
         _terminatorEndpointId = endpointIdPrefix + ".private.Futurizer."
                 + _matsFactory.getFactoryConfig().getNodename();
-        _futureCompleterThreadPool = _newThreadPool(corePoolSize, maxPoolSize);
+        _replyMode = replyMode;
+        // ?: Did we get an Executor?
+        if (completerExecutor == null) {
+            // -> No, so make our own thread pool.
+            _futureCompleterThreadPool = _newThreadPool(corePoolSize, maxPoolSize);
+            _futureCompleterExecutor = _futureCompleterThreadPool;
+        }
+        else {
+            // -> Yes, so use it.
+            _futureCompleterThreadPool = null;
+            _futureCompleterExecutor = completerExecutor;
+        }
+        _maxConcurrentCompleters = maxPoolSize;
         _maxOutstandingPromises = maxOutstandingPromises;
-        _replyHandlerEndpoint = _matsFactory.subscriptionTerminator(_terminatorEndpointId, String.class,
-                MatsObject.class,
-                this::_handleRepliesForPromises);
+        // Fair, so that those waiting for admission get it in the order they came.
+        _outstandingPermits = new Semaphore(maxOutstandingPromises, true);
+        // 512 buckets, i.e. a rotation of ~5 seconds with the default tick: Longer timeouts sit in their bucket for
+        // some rotations, which only costs a decrement per rotation.
+        _timeoutWheel = new HashedTimingWheel<>(timeoutTickMillis, 512);
+        // ?: Shall the replies come on a node-specific queue?
+        if (replyMode == ReplyMode.NODE_QUEUE) {
+            // -> Yes, queue, so an ordinary Terminator.
+            _replyHandlerEndpoint = _matsFactory.terminator(_terminatorEndpointId, String.class, MatsObject.class,
+                    this::_handleRepliesForPromises);
+        }
+        else {
+            // -> No, topic, so a SubscriptionTerminator.
+            _replyHandlerEndpoint = _matsFactory.subscriptionTerminator(_terminatorEndpointId, String.class,
+                    MatsObject.class,
+                    this::_handleRepliesForPromises);
+        }
         _startTimeouterThread();
         log.info(LOG_PREFIX + "MatsFuturizer created."
                 + " EndpointIdPrefix:[" + endpointIdPrefix
+                + "], completerExecutor:[" + (completerExecutor == null ? "own pool" : completerExecutor)
                 + "], corePoolSize:[" + corePoolSize
                 + "], maxPoolSize:[" + maxPoolSize
-                + "], maxOutstandingPromises:[" + maxOutstandingPromises + "]");
+                + "], maxOutstandingPromises:[" + maxOutstandingPromises
+                + "], timeoutTickMillis:[" + timeoutTickMillis
+                + "], replyMode:[" + replyMode + "]");
     }
 
     /**
@@ -191,6 +369,126 @@ public class MatsFuturizer implements AutoCloseable {
         }
     }
 
+    /**
+     * One of several requests sent in a single initiation, by
+     * {@link #futurizeGather(String, int, TimeUnit, Class, List, InitiateLambda) futurizeGather(..)} or
+     * {@link ReactiveMatsFuturizer#publishAll(String, int, TimeUnit, Class, List, InitiateLambda)
+     * ReactiveMatsFuturizer.publishAll(..)}: Each gets its own Promise, and thus its own reply.
+     */
+    public static class ScatterRequest {
+        private final String traceId;
+        private final String to;
+        private final Object request;
+
+        /**
+         * @param traceId
+         *            TraceId of the resulting Mats call flow, see {@link MatsInitiate#traceId(String)} - which also
+         *            is how the replies can be told apart, by {@link DetachedProcessContext#getTraceId()}.
+         * @param to
+         *            to which Mats endpoint the request should go, see {@link MatsInitiate#to(String)}
+         * @param request
+         *            the request DTO that should be sent to the endpoint, see {@link MatsInitiate#request(Object)}
+         */
+        public ScatterRequest(String traceId, String to, Object request) {
+            this.traceId = traceId;
+            this.to = to;
+            this.request = request;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public Object getRequest() {
+            return request;
+        }
+    }
+
+    /**
+     * The result of {@link #futurizeGather(String, int, TimeUnit, Class, List, InitiateLambda) futurizeGather(..)}:
+     * For each of the {@link ScatterRequest}s, by index, either the {@link Reply}, or the failure - typically a
+     * {@link MatsFuturizerTimeoutException}.
+     *
+     * @param <T>
+     *            the type of the reply class.
+     */
+    public static class GatherResult<T> {
+        private final List<ScatterRequest> requests;
+        private final Reply<T>[] replies;
+        private final Throwable[] failures;
+
+        public GatherResult(List<ScatterRequest> requests, Reply<T>[] replies, Throwable[] failures) {
+            this.requests = requests;
+            this.replies = replies;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the number of parts, i.e. requests.
+         */
+        public int size() {
+            return requests.size();
+        }
+
+        /**
+         * @return the request of the specified part.
+         */
+        public ScatterRequest getRequest(int index) {
+            return requests.get(index);
+        }
+
+        /**
+         * @return the Reply of the specified part, or <code>null</code> if it failed.
+         */
+        public Reply<T> getReply(int index) {
+            return replies[index];
+        }
+
+        /**
+         * @return the failure of the specified part, or <code>null</code> if it was replied.
+         */
+        public Throwable getFailure(int index) {
+            return failures[index];
+        }
+
+        /**
+         * @return the Replies of the parts that were replied, in the order of the requests - i.e. skipping the failed.
+         */
+        public List<Reply<T>> getReplies() {
+            List<Reply<T>> list = new ArrayList<>(replies.length);
+            for (Reply<T> reply : replies) {
+                if (reply != null) {
+                    list.add(reply);
+                }
+            }
+            return list;
+        }
+
+        /**
+         * @return the number of failed parts.
+         */
+        public int getFailedCount() {
+            int count = 0;
+            for (Throwable failure : failures) {
+                if (failure != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return whether all parts were replied, i.e. none failed.
+         */
+        public boolean isComplete() {
+            return getFailedCount() == 0;
+        }
+    }
+
     /**
      * This exception is raised through the {@link CompletableFuture} if the timeout specified when getting the
      * {@link CompletableFuture} is reached (to get yourself a future, use the
@@ -216,6 +514,28 @@ public class MatsFuturizer implements AutoCloseable {
         }
     }
 
+    /**
+     * This exception is thrown by the <code>futurize..(..)</code> methods if the Promise could not be admitted, either
+     * because the {@link #getMaxOutstandingPromises() max number of outstanding Promises} was reached, or because the
+     * {@link #setMaxOutstandingPromisesPerFrom(int) max number of outstanding Promises per "from"} was reached for the
+     * "from" of the Promise - and this did not change within the {@link #setAdmissionTimeout(long, TimeUnit) admission
+     * timeout}. It extends {@link IllegalStateException}, which is what was thrown before admission control was
+     * introduced. Use {@link #tryFuturize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda)
+     * tryFuturize(..)} if you'd rather get an empty Optional.
+     */
+    public static class MatsFuturizerRejectedException extends IllegalStateException {
+        private final String from;
+
+        public MatsFuturizerRejectedException(String message, String from) {
+            super(message);
+            this.from = from;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+    }
+
     /**
      * <b>NOTICE: This variant must <u>only</u> be used for "GET-style" Requests where none of the endpoints the call
      * flow passes will add, remove or alter any state of the system!</b>.
@@ -326,13 +646,245 @@ public class MatsFuturizer implements AutoCloseable {
      */
     public <T> CompletableFuture<Reply<T>> futurize(String traceId, String from, String to,
             int timeout, TimeUnit unit, Class<T> replyClass, Object request, InitiateLambda customInit) {
-        Promise<T> promise = _createPromise(traceId, from, replyClass, timeout, unit);
+        Promise<T> promise = _createPromise(traceId, from, to, replyClass, timeout, unit);
         _assertFuturizerRunning();
         _enqueuePromise(promise);
         _sendRequestToFulfillPromise(from, to, traceId, request, customInit, promise);
         return promise._future;
     }
 
+    /**
+     * Variant of {@link #futurize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda) futurize(..)}
+     * which never waits for admission, and instead of throwing {@link MatsFuturizerRejectedException} returns an empty
+     * Optional if the Promise could not be admitted right away - i.e. if the max number of outstanding Promises, in
+     * total or for this "from", is reached, or if others are already waiting for admission (which they then shall get
+     * first). Nothing is sent if empty. This is meant for the edge facing the client, e.g. to answer with "503 Service
+     * Unavailable" instead of a 500 when the system is saturated.
+     *
+     * @return the {@link CompletableFuture} as with <code>futurize(..)</code>, or empty if not admitted.
+     */
+    public <T> Optional<CompletableFuture<Reply<T>>> tryFuturize(String traceId, String from, String to,
+            int timeout, TimeUnit unit, Class<T> replyClass, Object request, InitiateLambda customInit) {
+        Promise<T> promise = _createPromise(traceId, from, to, replyClass, timeout, unit);
+        _assertFuturizerRunning();
+        // ?: Did we get admitted right away?
+        if (!_acquireAdmission(promise, 0)) {
+            // -> No, so return empty.
+            return Optional.empty();
+        }
+        _registerPromise(promise);
+        _sendRequestToFulfillPromise(from, to, traceId, request, customInit, promise);
+        return Optional.of(promise._future);
+    }
+
+    /**
+     * "Scatter-gather": Sends all the requests in a single initiation, i.e. a single transaction, instead of one per
+     * request as with N x <code>futurize(..)</code> and <code>CompletableFuture.allOf(..)</code>. Each request still
+     * has its own Promise with its own timeout, but these are completed directly on the thread getting the reply (or
+     * timing it out), only recording the outcome - and it is just the returned future that is completed on the
+     * completer thread, when all parts have either been replied or timed out. It is completed normally with a
+     * {@link GatherResult} also if some parts failed, which thus is a partial result - check
+     * {@link GatherResult#isComplete()}. Each part counts towards the max outstanding Promises: All parts are admitted
+     * at once, waiting as for <code>futurize(..)</code>, or none are - and a gather with more parts than the max
+     * outstanding Promises, in total or per "from", is rejected right away. If you
+     * {@link CompletableFuture#cancel(boolean) cancel} the returned future, the outstanding parts are cancelled.
+     *
+     * @param from
+     *            the "from" of the initiation, see {@link MatsInitiate#from(String)}
+     * @param timeout
+     *            the timeout of each of the parts.
+     * @param unit
+     *            the unit of time of the 'timeout' parameter.
+     * @param replyClass
+     *            which expected reply DTO class that the requested endpoints reply with.
+     * @param requests
+     *            the requests, each with its traceId and endpoint.
+     * @param customInit
+     *            the {@link InitiateLambda} applied to each of the outgoing messages.
+     * @param <T>
+     *            the type of the reply DTO.
+     * @return a {@link CompletableFuture} which will be resolved with a {@link GatherResult} when all parts are done.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<GatherResult<T>> futurizeGather(String from, int timeout, TimeUnit unit,
+            Class<T> replyClass, List<ScatterRequest> requests, InitiateLambda customInit) {
+        List<ScatterRequest> parts = new ArrayList<>(requests);
+        CompletableFuture<GatherResult<T>> aggregate = new CompletableFuture<>();
+        Reply<T>[] replies = (Reply<T>[]) new Reply<?>[parts.size()];
+        Throwable[] failures = new Throwable[parts.size()];
+        GatherResult<T> result = new GatherResult<>(parts, replies, failures);
+        // ?: Nothing to gather?
+        if (parts.isEmpty()) {
+            // -> Yes, so done already.
+            aggregate.complete(result);
+            return aggregate;
+        }
+        // ?: Can this gather ever be admitted?
+        if ((parts.size() > _maxOutstandingPromises) || (parts.size() > _maxOutstandingPromisesPerFrom)) {
+            // -> No, so reject it right away.
+            _rejectedCount.add(parts.size());
+            throw new MatsFuturizerRejectedException("The gather has [" + parts.size() + "] parts, which is more than"
+                    + " the limit of outstanding Promises [" + _maxOutstandingPromises + "], or per \"from\" ["
+                    + _maxOutstandingPromisesPerFrom + "] - so it can never be admitted. From:[" + from + "].", from);
+        }
+        _assertFuturizerRunning();
+        List<Promise<T>> promises = new ArrayList<>(parts.size());
+        for (ScatterRequest part : parts) {
+            Promise<T> promise = _createPromise(part.getTraceId(), from, part.getTo(), replyClass, timeout, unit);
+            // The parts only record their outcome, so complete them directly, without a completer hop.
+            promise._completerExecutor = Runnable::run;
+            promises.add(promise);
+        }
+        // Admitting all the parts at once, so that two gathers cannot each hold some permits while waiting for more.
+        if (!_acquireAdmission(promises, _admissionTimeoutNanos)) {
+            throw new MatsFuturizerRejectedException("There are too many Promises outstanding, so cannot add the ["
+                    + parts.size() + "] parts of the gather - limit is [" + _maxOutstandingPromises + "], and per"
+                    + " \"from\" [" + _maxOutstandingPromisesPerFrom + "]. Outstanding: ["
+                    + getOutstandingPromiseCount() + "], from:[" + from + "].", from);
+        }
+        for (Promise<T> promise : promises) {
+            _registerPromise(promise);
+        }
+        try {
+            _sendRequestsToFulfillPromises(from, parts, customInit, promises);
+        }
+        catch (RuntimeException e) {
+            // The initiation failed, so cancel the parts, thus giving back their permits.
+            for (Promise<T> promise : promises) {
+                _cancelPromise(promise);
+            }
+            throw e;
+        }
+        // :: Record the outcome of each part, completing the aggregate when the last is in.
+        // NOTE: The arrays are safely published to the completing thread by the AtomicInteger.
+        AtomicInteger remaining = new AtomicInteger(parts.size());
+        for (int i = 0; i < promises.size(); i++) {
+            int index = i;
+            promises.get(i)._future.whenComplete((reply, throwable) -> {
+                if (throwable != null) {
+                    failures[index] = throwable;
+                }
+                else {
+                    replies[index] = reply;
+                }
+                // ?: Was this the last part?
+                if (remaining.decrementAndGet() == 0) {
+                    // -> Yes, so complete the aggregate, on the completer.
+                    _executeCompletion(() -> aggregate.complete(result));
+                }
+            });
+        }
+        // If the aggregate is cancelled, cancel the outstanding parts.
+        aggregate.whenComplete((gatherResult, throwable) -> {
+            if (aggregate.isCancelled()) {
+                for (Promise<T> promise : promises) {
+                    _cancelPromise(promise);
+                }
+            }
+        });
+        return aggregate;
+    }
+
+    /**
+     * "Single-flight" variant of {@link #futurize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda)
+     * futurize(..)}, for idempotent, read-only requests: If there already is an outstanding single-flight request with
+     * an equal key, no new request is sent, and the returned future is completed from the reply of that one - so that
+     * a spike of identical requests results in a single outstanding Mats request. If a
+     * {@link #setSingleFlightCacheTtl(long, TimeUnit, int) cache TTL} is set, a reply is also reused for that long
+     * after it came. Notice:
+     * <ul>
+     * <li>The key is the 'to', the reply class, and the provided 'key' - or if <code>null</code>, the request DTO
+     * serialized to JSON. Thus the request DTO must then be serializable by Jackson, with its fields.</li>
+     * <li>For the joining calls, their 'traceId', 'timeout' and 'customInit' are not used: It is the first call's
+     * request that is sent, and if it times out, they all time out. Their traceId is logged on DEBUG.</li>
+     * <li>They all get the same {@link Reply} instance, with the context of the first call's request - so the reply DTO
+     * must be treated as immutable.</li>
+     * <li>Each gets its own future, so cancelling one does not affect the others - but when all that share a request
+     * have cancelled, its Promise is cancelled too, so that it does not linger until the reply or the timeout.</li>
+     * </ul>
+     *
+     * @param key
+     *            the key deciding which requests are equal, for the same 'to' and 'replyClass' - if <code>null</code>,
+     *            the request DTO serialized to JSON is used.
+     * @return a {@link CompletableFuture} which will be resolved with the {@link Reply}, possibly shared.
+     * @throws IllegalArgumentException
+     *             if both the key and the request DTO are <code>null</code>.
+     */
+    public <T> CompletableFuture<Reply<T>> futurizeSingleFlight(String key, String traceId, String from, String to,
+            int timeout, TimeUnit unit, Class<T> replyClass, Object request, InitiateLambda customInit) {
+        if ((key == null) && (request == null)) {
+            throw new IllegalArgumentException("With no key provided, the request DTO is used as key, and thus cannot"
+                    + " be null.");
+        }
+        String flightKey = to + '|' + replyClass.getName() + '|' + (key != null ? key : _singleFlightKey(request));
+
+        // ?: Do we have a cached reply?
+        CachedReply cached = _singleFlightCache.get(flightKey);
+        if (cached != null) {
+            // -> Yes, but is it still fresh?
+            if (System.nanoTime() - cached._expiresNanoTime < 0) {
+                // -> Yes, so use it.
+                _singleFlightCacheHitCount.increment();
+                return _joinSingleFlight(CompletableFuture.completedFuture(cached._reply));
+            }
+            // E-> No, so get rid of it.
+            _singleFlightCache.remove(flightKey, cached);
+        }
+
+        SingleFlight flight = new SingleFlight(flightKey);
+        flight.join();
+        while (true) {
+            // ?: Is there already a request in flight for this key?
+            SingleFlight existing = _singleFlights.putIfAbsent(flightKey, flight);
+            if (existing == null) {
+                // -> No, so we're the first, and shall send the request.
+                break;
+            }
+            // ?: Did we get to join it? (Not if all that joined it have cancelled, and it is thus going away)
+            if (existing.join()) {
+                // -> Yes, so use it.
+                _singleFlightCoalescedCount.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug(LOG_PREFIX + "Single-flight: Request with traceId [" + traceId + "] from [" + from
+                            + "] to [" + to + "] joins the outstanding request with the equal key.");
+                }
+                return _joinSingleFlight(existing);
+            }
+            // E-> No, so help it go away, and try again.
+            _singleFlights.remove(flightKey, existing);
+        }
+
+        // E-> We're the first, and shall send the request.
+        try {
+            Promise<T> promise = _createPromise(traceId, from, to, replyClass, timeout, unit);
+            flight._promise = promise;
+            promise._future.whenComplete((reply, throwable) -> {
+                // ?: Replied, and shall we cache it?
+                if ((throwable == null) && (_singleFlightCacheTtlNanos > 0)) {
+                    // -> Yes, so cache it - before removing the flight, so that there is no gap.
+                    _cacheSingleFlightReply(flightKey, reply);
+                }
+                _singleFlights.remove(flightKey, flight);
+                if (throwable != null) {
+                    flight._shared.completeExceptionally(throwable);
+                }
+                else {
+                    flight._shared.complete(reply);
+                }
+            });
+            _assertFuturizerRunning();
+            _enqueuePromise(promise);
+            _sendRequestToFulfillPromise(from, to, traceId, request, customInit, promise);
+        }
+        catch (RuntimeException e) {
+            // Any that joined in the meantime shall get the same.
+            _singleFlights.remove(flightKey, flight);
+            flight._shared.completeExceptionally(e);
+            throw e;
+        }
+        return _joinSingleFlight(flight);
+    }
+
     /**
      * @deprecated use {@link #futurize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda)} instead.
      */
@@ -346,35 +898,374 @@ public class MatsFuturizer implements AutoCloseable {
      * @return the number of outstanding promises, not yet completed or timed out.
      */
     public int getOutstandingPromiseCount() {
-        synchronized (_correlationIdToPromiseMap) {
-            return _correlationIdToPromiseMap.size();
+        return _correlationIdToPromiseMap.size();
+    }
+
+    /**
+     * @return the max number of outstanding Promises, as given at creation.
+     */
+    public int getMaxOutstandingPromises() {
+        return _maxOutstandingPromises;
+    }
+
+    protected volatile long _admissionTimeoutNanos;
+
+    /**
+     * Sets how long the <code>futurize..(..)</code> methods shall wait for admission when the max number of outstanding
+     * Promises, in total or for the "from", is reached, before throwing {@link MatsFuturizerRejectedException}. Waiters
+     * are admitted in the order they came. The default is zero, i.e. reject right away. Notice that the timeout of the
+     * Promise is counted from before the wait, so the wait eats of the Promise's timeout.
+     *
+     * @param admissionTimeout
+     *            how long to wait for admission, zero means not at all.
+     * @param unit
+     *            the unit of the 'admissionTimeout' parameter.
+     */
+    public void setAdmissionTimeout(long admissionTimeout, TimeUnit unit) {
+        if (admissionTimeout < 0) {
+            throw new IllegalArgumentException("admissionTimeout must be >= 0, was [" + admissionTimeout + "].");
+        }
+        _admissionTimeoutNanos = unit.toNanos(admissionTimeout);
+    }
+
+    /**
+     * @return the admission timeout, in milliseconds - read {@link #setAdmissionTimeout(long, TimeUnit)}.
+     */
+    public long getAdmissionTimeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(_admissionTimeoutNanos);
+    }
+
+    protected volatile int _maxOutstandingPromisesPerFrom = Integer.MAX_VALUE;
+    // "from" -> permits. Only used if max outstanding per "from" is set.
+    protected final ConcurrentHashMap<String, Semaphore> _perFromPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the max number of outstanding Promises for each "from" (the 'from' parameter of the
+     * <code>futurize..(..)</code> methods), so that a single caller, e.g. a batch job doing a bunch of requests, cannot
+     * starve everybody else by taking all the {@link #getMaxOutstandingPromises() max outstanding Promises}. The default
+     * is {@link Integer#MAX_VALUE}, i.e. no such limit. Must be set before the first Promise is futurized.
+     *
+     * @param maxOutstandingPromisesPerFrom
+     *            the max number of outstanding Promises per "from".
+     */
+    public void setMaxOutstandingPromisesPerFrom(int maxOutstandingPromisesPerFrom) {
+        if (maxOutstandingPromisesPerFrom <= 0) {
+            throw new IllegalArgumentException("maxOutstandingPromisesPerFrom must be > 0, was ["
+                    + maxOutstandingPromisesPerFrom + "].");
+        }
+        // ?: Have we already handed out any permits per "from"?
+        if (!_perFromPermits.isEmpty()) {
+            // -> Yes, and changing the limit of these is not supported.
+            throw new IllegalStateException("The max number of outstanding Promises per \"from\" must be set before"
+                    + " the first Promise is futurized.");
+        }
+        _maxOutstandingPromisesPerFrom = maxOutstandingPromisesPerFrom;
+    }
+
+    /**
+     * @return the max number of outstanding Promises per "from" - read {@link #setMaxOutstandingPromisesPerFrom(int)}.
+     */
+    public int getMaxOutstandingPromisesPerFrom() {
+        return _maxOutstandingPromisesPerFrom;
+    }
+
+    protected final LongAdder _admittedCount = new LongAdder();
+    protected final LongAdder _admittedAfterWaitCount = new LongAdder();
+    protected final LongAdder _admissionWaitNanos = new LongAdder();
+    protected final LongAdder _rejectedCount = new LongAdder();
+
+    /**
+     * @return the number of Promises admitted since creation.
+     */
+    public long getAdmittedCount() {
+        return _admittedCount.sum();
+    }
+
+    /**
+     * @return the number of Promises that were admitted, but had to wait for it.
+     */
+    public long getAdmittedAfterWaitCount() {
+        return _admittedAfterWaitCount.sum();
+    }
+
+    /**
+     * @return the total time, in milliseconds, spent waiting for admission, by both admitted and rejected - divide by
+     *         (admitted after wait + rejected) for an average.
+     */
+    public long getAdmissionWaitMillisTotal() {
+        return TimeUnit.NANOSECONDS.toMillis(_admissionWaitNanos.sum());
+    }
+
+    /**
+     * @return the number of Promises rejected since creation, either by
+     *         {@link MatsFuturizerRejectedException MatsFuturizerRejectedException} or by an empty
+     *         {@link #tryFuturize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda) tryFuturize(..)}.
+     */
+    public long getRejectedCount() {
+        return _rejectedCount.sum();
+    }
+
+    /**
+     * @return an estimate of the number of threads currently waiting for admission due to the max number of outstanding
+     *         Promises (not counting those waiting due to the max per "from").
+     */
+    public int getAdmissionQueueLength() {
+        return _outstandingPermits.getQueueLength();
+    }
+
+    // Target endpointId -> metrics. Endpoints are few, so these are never removed.
+    protected final ConcurrentHashMap<String, EndpointMetrics> _endpointIdToMetrics = new ConcurrentHashMap<>();
+    protected final LatencyHistogram _completerQueueTime = new LatencyHistogram();
+    protected final LongAdder _lateReplyCount = new LongAdder();
+
+    /**
+     * The metrics of the Promises for a target endpoint, i.e. the 'to' of the <code>futurize..(..)</code> methods -
+     * which is where to look for which backend endpoints drive the tail latency. All recording is lock-free.
+     */
+    public static class EndpointMetrics {
+        private final String _endpointId;
+        private final LatencyHistogram _replyLatency = new LatencyHistogram();
+        private final LongAdder _timeoutCount = new LongAdder();
+
+        public EndpointMetrics(String endpointId) {
+            _endpointId = endpointId;
+        }
+
+        public String getEndpointId() {
+            return _endpointId;
+        }
+
+        /**
+         * @return a snapshot of the latencies, in <b>microseconds</b>, from the Promise was created (i.e. before
+         *         admission and initiation) until the reply was received by the reply-handling Terminator - that is,
+         *         not including the completer queue time, read {@link MatsFuturizer#getCompleterQueueTimeMicros()}.
+         */
+        public LatencyHistogram.Snapshot getReplyLatencyMicros() {
+            return _replyLatency.snapshot();
+        }
+
+        /**
+         * @return the number of Promises replied.
+         */
+        public long getReplyCount() {
+            return _replyLatency.getCount();
+        }
+
+        /**
+         * @return the number of Promises timed out.
+         */
+        public long getTimeoutCount() {
+            return _timeoutCount.sum();
+        }
+
+        protected void recordReply(long latencyNanos) {
+            _replyLatency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        }
+
+        protected void recordTimeout() {
+            _timeoutCount.increment();
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointMetrics[" + _endpointId + "; replies:[" + getReplyLatencyMicros() + "] micros, timeouts:"
+                    + getTimeoutCount() + "]";
+        }
+    }
+
+    /**
+     * @return the {@link EndpointMetrics} for each target endpoint that has been futurized to, sorted by endpointId.
+     *         The metrics are live, i.e. they continue to count - take snapshots of the latencies.
+     */
+    public SortedMap<String, EndpointMetrics> getEndpointMetrics() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(_endpointIdToMetrics));
+    }
+
+    /**
+     * @return a snapshot of the time, in <b>microseconds</b>, that the completions (replies and timeouts) waited for a
+     *         completer - if this is high, the completers are saturated, read
+     *         {@link #createMatsFuturizer(MatsFactory, String, Executor, int, int)}. Not counting Promises that are
+     *         completed on their own Executor, e.g. by the {@link ReactiveMatsFuturizer}.
+     */
+    public LatencyHistogram.Snapshot getCompleterQueueTimeMicros() {
+        return _completerQueueTime.snapshot();
+    }
+
+    /**
+     * @return the number of replies that came after their Promise was timed out or cancelled ("Promise gone!").
+     */
+    public long getLateReplyCount() {
+        return _lateReplyCount.sum();
+    }
+
+    // The key of the single-flight requests -> the request in flight.
+    protected final ConcurrentHashMap<String, SingleFlight> _singleFlights = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<String, CachedReply> _singleFlightCache = new ConcurrentHashMap<>();
+    protected volatile long _singleFlightCacheTtlNanos;
+    protected volatile int _singleFlightCacheMaxEntries;
+    protected final LongAdder _singleFlightCoalescedCount = new LongAdder();
+    protected final LongAdder _singleFlightCacheHitCount = new LongAdder();
+
+    /**
+     * Sets for how long the replies of the
+     * {@link #futurizeSingleFlight(String, String, String, String, int, TimeUnit, Class, Object, InitiateLambda)
+     * single-flight} requests shall be reused after they came - this should be short, e.g. a second, as it is a way to
+     * take the top off a spike, not a proper cache. The default is zero, i.e. no caching, only coalescing of the
+     * concurrent requests. Expired entries are removed when looked up, or when the cache is full - and if it is still
+     * full, the reply is not cached.
+     *
+     * @param ttl
+     *            how long to reuse a reply, zero means not at all.
+     * @param unit
+     *            the unit of the 'ttl' parameter.
+     * @param maxEntries
+     *            the max number of cached replies.
+     */
+    public void setSingleFlightCacheTtl(long ttl, TimeUnit unit, int maxEntries) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("ttl must be >= 0, was [" + ttl + "].");
         }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0, was [" + maxEntries + "].");
+        }
+        _singleFlightCacheMaxEntries = maxEntries;
+        _singleFlightCacheTtlNanos = unit.toNanos(ttl);
+        // ?: Turned off?
+        if (ttl == 0) {
+            // -> Yes, so don't hold on to the replies.
+            _singleFlightCache.clear();
+        }
+    }
+
+    /**
+     * @return the single-flight cache TTL, in milliseconds - read {@link #setSingleFlightCacheTtl(long, TimeUnit, int)}.
+     */
+    public long getSingleFlightCacheTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(_singleFlightCacheTtlNanos);
+    }
+
+    /**
+     * @return the number of single-flight requests that joined an outstanding request instead of sending their own.
+     */
+    public long getSingleFlightCoalescedCount() {
+        return _singleFlightCoalescedCount.sum();
+    }
+
+    /**
+     * @return the number of single-flight requests that got a cached reply.
+     */
+    public long getSingleFlightCacheHitCount() {
+        return _singleFlightCacheHitCount.sum();
+    }
+
+    protected EndpointMetrics _endpointMetrics(String to) {
+        // NOTE: A null 'to' fails the initiation - but its Promise is still timed out.
+        String endpointId = to != null ? to : "null";
+        EndpointMetrics metrics = _endpointIdToMetrics.get(endpointId);
+        // ?: Did we have it? (Checking first, as computeIfAbsent(..) might lock even if present)
+        if (metrics != null) {
+            // -> Yes, so return it.
+            return metrics;
+        }
+        return _endpointIdToMetrics.computeIfAbsent(endpointId, EndpointMetrics::new);
+    }
+
+    protected volatile boolean _eagerReplyDeserialization;
+    protected volatile Set<String> _slimContextSideloadKeys = Collections.emptySet();
+    protected volatile Map<String, Class<?>> _slimContextTraceProperties = Collections.emptyMap();
+
+    /**
+     * Sets whether the replies shall be deserialized eagerly, on the reply-handling Terminator's thread, instead of on
+     * the completer thread. With eager deserialization, the {@link Reply#context Reply's context} is a slim
+     * {@link DetachedProcessContext} holding only the metadata (traceId, stageIds, messageIds, flags) and the sideloads
+     * and trace properties set to be retained by {@link #setSlimReplyContextRetention(Collection, Map)} - instead of the
+     * actual ProcessContext, which holds on to the entire incoming MatsTrace, both serialized and deserialized. This
+     * considerably cuts the heap retained per Reply if the Replies are held on to, e.g. cached. The default is
+     * <code>false</code>, i.e. deserialization on the completer thread, with the full context.
+     *
+     * @param eagerReplyDeserialization
+     *            whether to deserialize the replies on the Terminator's thread, and give the Reply a slim context.
+     */
+    public void setEagerReplyDeserialization(boolean eagerReplyDeserialization) {
+        _eagerReplyDeserialization = eagerReplyDeserialization;
+    }
+
+    /**
+     * @return whether the replies are deserialized eagerly - read {@link #setEagerReplyDeserialization(boolean)}.
+     */
+    public boolean isEagerReplyDeserialization() {
+        return _eagerReplyDeserialization;
+    }
+
+    /**
+     * Sets which sideloads and trace properties the slim context shall retain when using
+     * {@link #setEagerReplyDeserialization(boolean) eager deserialization} - any other are not available, and asking
+     * for them throws {@link IllegalStateException}. The default is none.
+     *
+     * @param sideloadKeys
+     *            the keys of the {@link DetachedProcessContext#getBytes(String) bytes} and
+     *            {@link DetachedProcessContext#getString(String) Strings} sideloads to retain.
+     * @param traceProperties
+     *            the names of the {@link DetachedProcessContext#getTraceProperty(String, Class) trace properties} to
+     *            retain, with the class they shall be deserialized to.
+     */
+    public void setSlimReplyContextRetention(Collection<String> sideloadKeys,
+            Map<String, Class<?>> traceProperties) {
+        _slimContextSideloadKeys = Collections.unmodifiableSet(new LinkedHashSet<>(sideloadKeys));
+        _slimContextTraceProperties = Collections.unmodifiableMap(new HashMap<>(traceProperties));
     }
 
     /**
      * @return the future-completer-thread-pool, for introspection. If you mess with it, you <i>will</i> be sorry..!
+     *         <code>null</code> if the MatsFuturizer was created with a supplied {@link Executor}.
      */
     public ThreadPoolExecutor getCompleterThreadPool() {
         return _futureCompleterThreadPool;
     }
 
+    /**
+     * @return the {@link ReplyMode}, i.e. how the replies get back to this node.
+     */
+    public ReplyMode getReplyMode() {
+        return _replyMode;
+    }
+
+    /**
+     * @return the {@link Executor} completing the futures - either the {@link #getCompleterThreadPool() own thread
+     *         pool}, or the supplied Executor.
+     */
+    public Executor getCompleterExecutor() {
+        return _futureCompleterExecutor;
+    }
+
     // ===== Internal classes and methods, can be overridden if you want to make a customized MatsFuturizer
 
     protected static class Promise<T> implements Comparable<Promise<?>> {
         public final String _traceId;
         public final String _correlationId;
         public final String _from;
+        public final String _to;
         public final long _initiationTimestamp;
+        // For the latency metrics, as currentTimeMillis() is not monotonic.
+        public final long _initiationNanoTime;
         public final long _timeoutTimestamp;
         public final Class<T> _replyClass;
         public final CompletableFuture<Reply<T>> _future;
+        // Set when enqueued, so that the timeout can be cancelled when the reply comes.
+        public volatile HashedTimingWheel.Timeout<Promise<?>> _timeout;
+        // Set when admitted, if there is a max outstanding per "from", so that the permit can be given back.
+        public volatile Semaphore _fromPermits;
+        // If set (before enqueued), the Promise is completed directly on this, not handed to the completers.
+        public volatile Executor _completerExecutor;
 
-        public Promise(String traceId, String correlationId, String from, long initiationTimestamp,
+        public Promise(String traceId, String correlationId, String from, String to, long initiationTimestamp,
                 long timeoutTimestamp, Class<T> replyClass, CompletableFuture<Reply<T>> future) {
             _traceId = traceId;
             _correlationId = correlationId;
             _from = from;
+            _to = to;
             _initiationTimestamp = initiationTimestamp;
+            _initiationNanoTime = System.nanoTime();
             _timeoutTimestamp = timeoutTimestamp;
             _replyClass = replyClass;
             _future = future;
@@ -392,6 +1283,142 @@ public class MatsFuturizer implements AutoCloseable {
         }
     }
 
+    /**
+     * The slim {@link DetachedProcessContext} of a Reply when using {@link #setEagerReplyDeserialization(boolean) eager
+     * deserialization}: Only the metadata, and the retained sideloads and trace properties.
+     */
+    protected static class SlimReplyContext implements DetachedProcessContext {
+        private final String _traceId;
+        private final String _endpointId;
+        private final String _stageId;
+        private final String _fromStageId;
+        private final String _matsMessageId;
+        private final String _systemMessageId;
+        private final boolean _nonPersistent;
+        private final boolean _interactive;
+        private final boolean _noAudit;
+        private final Set<String> _retainedSideloadKeys;
+        private final Map<String, byte[]> _bytes;
+        private final Map<String, String> _strings;
+        private final Map<String, Object> _traceProperties;
+
+        public SlimReplyContext(DetachedProcessContext context, Set<String> sideloadKeys,
+                Map<String, Class<?>> traceProperties) {
+            _traceId = context.getTraceId();
+            _endpointId = context.getEndpointId();
+            _stageId = context.getStageId();
+            _fromStageId = context.getFromStageId();
+            _matsMessageId = context.getMatsMessageId();
+            _systemMessageId = context.getSystemMessageId();
+            _nonPersistent = context.isNonPersistent();
+            _interactive = context.isInteractive();
+            _noAudit = context.isNoAudit();
+            _retainedSideloadKeys = sideloadKeys;
+            // :: Pick out the retained, and only keep the maps if there is anything in them.
+            Map<String, byte[]> bytes = new HashMap<>();
+            Map<String, String> strings = new HashMap<>();
+            for (String key : sideloadKeys) {
+                byte[] b = context.getBytes(key);
+                if (b != null) {
+                    bytes.put(key, b);
+                }
+                String str = context.getString(key);
+                if (str != null) {
+                    strings.put(key, str);
+                }
+            }
+            _bytes = bytes.isEmpty() ? Collections.emptyMap() : bytes;
+            _strings = strings.isEmpty() ? Collections.emptyMap() : strings;
+            Map<String, Object> props = new HashMap<>();
+            for (Map.Entry<String, Class<?>> entry : traceProperties.entrySet()) {
+                // NOTE: Retaining null too, i.e. "not present", to tell it from "not retained".
+                props.put(entry.getKey(), context.getTraceProperty(entry.getKey(), entry.getValue()));
+            }
+            _traceProperties = props.isEmpty() ? Collections.emptyMap() : props;
+        }
+
+        @Override
+        public String getTraceId() {
+            return _traceId;
+        }
+
+        @Override
+        public String getEndpointId() {
+            return _endpointId;
+        }
+
+        @Override
+        public String getStageId() {
+            return _stageId;
+        }
+
+        @Override
+        public String getFromStageId() {
+            return _fromStageId;
+        }
+
+        @Override
+        public String getMatsMessageId() {
+            return _matsMessageId;
+        }
+
+        @Override
+        public String getSystemMessageId() {
+            return _systemMessageId;
+        }
+
+        @Override
+        public boolean isNonPersistent() {
+            return _nonPersistent;
+        }
+
+        @Override
+        public boolean isInteractive() {
+            return _interactive;
+        }
+
+        @Override
+        public boolean isNoAudit() {
+            return _noAudit;
+        }
+
+        @Override
+        public byte[] getBytes(String key) {
+            assertSideloadRetained(key);
+            return _bytes.get(key);
+        }
+
+        @Override
+        public String getString(String key) {
+            assertSideloadRetained(key);
+            return _strings.get(key);
+        }
+
+        private void assertSideloadRetained(String key) {
+            if (!_retainedSideloadKeys.contains(key)) {
+                throw new IllegalStateException("The sideload [" + key + "] is not retained in the slim Reply context"
+                        + " - set it with MatsFuturizer.setSlimReplyContextRetention(..).");
+            }
+        }
+
+        @Override
+        public <T> T getTraceProperty(String propertyName, Class<T> clazz) {
+            if (!_traceProperties.containsKey(propertyName)) {
+                throw new IllegalStateException("The trace property [" + propertyName + "] is not retained in the"
+                        + " slim Reply context - set it with MatsFuturizer.setSlimReplyContextRetention(..).");
+            }
+            return clazz.cast(_traceProperties.get(propertyName));
+        }
+
+        @Override
+        public String toString() {
+            return "SlimReplyContext[traceId:[" + _traceId + "], stageId:[" + _stageId + "], fromStageId:["
+                    + _fromStageId + "], matsMessageId:[" + _matsMessageId + "], nonPersistent:[" + _nonPersistent
+                    + "], interactive:[" + _interactive + "], noAudit:[" + _noAudit + "], retained sideloads:"
+                    + _retainedSideloadKeys + ", retained trace properties:" + _traceProperties.keySet() + "]";
+        }
+    }
+
     protected final AtomicInteger _threadNumber = new AtomicInteger();
 
     protected ThreadPoolExecutor _newThreadPool(int corePoolSize, int maximumPoolSize) {
@@ -423,7 +1450,7 @@ public class MatsFuturizer implements AutoCloseable {
         return threadPool;
     }
 
-    protected <T> Promise<T> _createPromise(String traceId, String from, Class<T> replyClass,
+    protected <T> Promise<T> _createPromise(String traceId, String from, String to, Class<T> replyClass,
             int timeout, TimeUnit unit) {
         long timeoutMillis = unit.toMillis(timeout);
         if (timeoutMillis <= 0) {
@@ -433,26 +1460,124 @@ public class MatsFuturizer implements AutoCloseable {
         String correlationId = RandomString.randomCorrelationId();
         long timestamp = System.currentTimeMillis();
         CompletableFuture<Reply<T>> future = new CompletableFuture<>();
-        return new Promise<>(traceId, correlationId, from, timestamp, timestamp + timeoutMillis, replyClass, future);
+        return new Promise<>(traceId, correlationId, from, to, timestamp, timestamp + timeoutMillis, replyClass,
+                future);
     }
 
     protected <T> void _enqueuePromise(Promise<T> promise) {
-        synchronized (_correlationIdToPromiseMap) {
-            if (_correlationIdToPromiseMap.size() >= _maxOutstandingPromises) {
-                throw new IllegalStateException("There are too many Promises outstanding, so cannot add more"
-                        + " - limit is [" + _maxOutstandingPromises + "].");
+        // ?: Did we get admitted, possibly after waiting?
+        if (!_acquireAdmission(promise, _admissionTimeoutNanos)) {
+            // -> No, so reject.
+            throw new MatsFuturizerRejectedException("There are too many Promises outstanding, so cannot add more"
+                    + " - limit is [" + _maxOutstandingPromises + "], and per \"from\" ["
+                    + _maxOutstandingPromisesPerFrom + "]. Outstanding: [" + getOutstandingPromiseCount()
+                    + "], from:[" + promise._from + "].", promise._from);
+        }
+        _registerPromise(promise);
+    }
+
+    /**
+     * Acquires the permits for the Promise: First for its "from", if there is a max per "from", then of the total.
+     * These are given back by {@link #_releaseAdmission(Promise)} by whoever removes the Promise from the map.
+     *
+     * @return <code>true</code> if admitted, <code>false</code> if not within the timeout (or interrupted, in which case
+     *         the interrupted flag is set again).
+     */
+    protected boolean _acquireAdmission(Promise<?> promise, long timeoutNanos) {
+        return _acquireAdmission(Collections.singletonList(promise), timeoutNanos);
+    }
+
+    /**
+     * Acquires the permits for all the Promises at once, or none - they must have the same "from". Read
+     * {@link #_acquireAdmission(Promise, long)}.
+     */
+    protected boolean _acquireAdmission(List<? extends Promise<?>> promises, long timeoutNanos) {
+        long startNanos = System.nanoTime();
+        int permits = promises.size();
+        Semaphore fromPermits = null;
+        int maxPerFrom = _maxOutstandingPromisesPerFrom;
+        // ?: Is there a max per "from"?
+        if (maxPerFrom != Integer.MAX_VALUE) {
+            // -> Yes, so get the permits for this "from".
+            fromPermits = _perFromPermits.computeIfAbsent(promises.get(0)._from,
+                    from -> new Semaphore(maxPerFrom, true));
+        }
+        boolean admitted = false;
+        boolean waited = false;
+        try {
+            // Fast path, not waiting.
+            admitted = _tryAcquirePermits(fromPermits, permits, 0);
+            // ?: Not admitted right away, but should we wait?
+            if ((!admitted) && (timeoutNanos > 0)) {
+                // -> Yes, so wait.
+                waited = true;
+                admitted = _tryAcquirePermits(fromPermits, permits, timeoutNanos);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (waited) {
+            _admissionWaitNanos.add(System.nanoTime() - startNanos);
+        }
+        // ?: Admitted?
+        if (admitted) {
+            // -> Yes, admitted.
+            for (Promise<?> promise : promises) {
+                promise._fromPermits = fromPermits;
             }
-            // This is the lookup that the reply-handler uses to get to the promise from the correlationId.
-            _correlationIdToPromiseMap.put(promise._correlationId, promise);
-            // This is the priority queue that the timeouter-thread uses to get the next Promise to timeout.
-            _timeoutSortedPromises.add(promise);
-            // ?: Have the earliest Promise to timeout changed by adding this Promise?
-            if (_nextInLineToTimeout != _timeoutSortedPromises.peek()) {
-                // -> Yes, this was evidently earlier than the one we had "next in line", so notify the timeouter-thread
-                // that a new promise was entered, to re-evaluate "next to timeout".
-                _correlationIdToPromiseMap.notifyAll();
+            _admittedCount.add(permits);
+            if (waited) {
+                _admittedAfterWaitCount.add(permits);
             }
         }
+        else {
+            // -> No, rejected.
+            _rejectedCount.add(permits);
+        }
+        return admitted;
+    }
+
+    protected boolean _tryAcquirePermits(Semaphore fromPermits, int permits, long timeoutNanos)
+            throws InterruptedException {
+        long startNanos = System.nanoTime();
+        // NOTICE: Even the zero-timeout tryAcquire(..) honors fairness, i.e. fails if others are already waiting.
+        // ?: Is there a max per "from", and did we NOT get its permit?
+        if ((fromPermits != null) && (!fromPermits.tryAcquire(permits, timeoutNanos, TimeUnit.NANOSECONDS))) {
+            // -> Yes, so not admitted.
+            return false;
+        }
+        boolean acquired = false;
+        try {
+            long remainingNanos = Math.max(0, timeoutNanos - (System.nanoTime() - startNanos));
+            acquired = _outstandingPermits.tryAcquire(permits, remainingNanos, TimeUnit.NANOSECONDS);
+            return acquired;
+        }
+        finally {
+            // ?: Did we fail getting the permit of the total (or got interrupted), having gotten the one for "from"?
+            if ((!acquired) && (fromPermits != null)) {
+                // -> Yes, so give back the ones for the "from".
+                fromPermits.release(permits);
+            }
+        }
+    }
+
+    /**
+     * Gives back the permits acquired by {@link #_acquireAdmission(Promise, long)} - must be invoked exactly once per
+     * admitted Promise, by whoever removes it from the map.
+     */
+    protected void _releaseAdmission(Promise<?> promise) {
+        _outstandingPermits.release();
+        if (promise._fromPermits != null) {
+            promise._fromPermits.release();
+        }
+    }
+
+    protected <T> void _registerPromise(Promise<T> promise) {
+        // This is the lookup that the reply-handler uses to get to the promise from the correlationId.
+        _correlationIdToPromiseMap.put(promise._correlationId, promise);
+        // This is the timing wheel that the timeouter-thread advances to find the Promises to timeout.
+        promise._timeout = _timeoutWheel.schedule(promise, promise._timeoutTimestamp);
     }
 
     protected volatile boolean _replyHandlerEndpointStarted;
@@ -479,43 +1604,71 @@ public class MatsFuturizer implements AutoCloseable {
 
     protected <T> void _sendRequestToFulfillPromise(String from, String endpointId, String traceId, Object request,
             InitiateLambda extraMessageInit, Promise<T> promise) {
+        _matsInitiator.initiateUnchecked(msg -> _request(msg, from, endpointId, traceId, request, extraMessageInit,
+                promise));
+    }
+
+    /**
+     * Sends the requests for all the Promises in a single initiation, i.e. a single transaction - the Promises and the
+     * {@link ScatterRequest}s must be in the same order.
+     */
+    protected void _sendRequestsToFulfillPromises(String from, List<ScatterRequest> requests,
+            InitiateLambda extraMessageInit, List<? extends Promise<?>> promises) {
         _matsInitiator.initiateUnchecked(msg -> {
-            // Stash in the standard stuff
-            msg.traceId(traceId)
-                    .from(from)
-                    .to(endpointId)
-                    .replyToSubscription(_terminatorEndpointId, promise._correlationId);
-            // Stash up with any extra initialization stuff
-            extraMessageInit.initiate(msg);
-            // Do the request.
-            msg.request(request);
+            for (int i = 0; i < requests.size(); i++) {
+                ScatterRequest request = requests.get(i);
+                _request(msg, from, request.getTo(), request.getTraceId(), request.getRequest(), extraMessageInit,
+                        promises.get(i));
+            }
         });
     }
 
-    // Synchronized on itself
-    protected final HashMap<String, Promise<?>> _correlationIdToPromiseMap = new HashMap<>();
-    // Synchronized on the HashMap above (i.e. all three are synchronized on the HashMap).
-    protected final PriorityQueue<Promise<?>> _timeoutSortedPromises = new PriorityQueue<>();
-    // Synchronized on the HashMap above (i.e. all three are synchronized on the HashMap).
-    protected Promise<?> _nextInLineToTimeout;
+    protected void _request(MatsInitiate msg, String from, String endpointId, String traceId, Object request,
+            InitiateLambda extraMessageInit, Promise<?> promise) {
+        // Stash in the standard stuff
+        msg.traceId(traceId)
+                .from(from)
+                .to(endpointId);
+        // ?: Shall the reply come on the node-specific queue?
+        if (_replyMode == ReplyMode.NODE_QUEUE) {
+            // -> Yes, queue.
+            msg.replyTo(_terminatorEndpointId, promise._correlationId);
+        }
+        else {
+            // -> No, topic.
+            msg.replyToSubscription(_terminatorEndpointId, promise._correlationId);
+        }
+        // Stash up with any extra initialization stuff
+        extraMessageInit.initiate(msg);
+        // Do the request.
+        msg.request(request);
+    }
+
+    // The registry of outstanding Promises: Whoever removes a Promise from this map owns it, i.e. shall complete it -
+    // which is how the reply-handler and the timeouter-thread are kept from racing without a common lock.
+    protected final ConcurrentHashMap<String, Promise<?>> _correlationIdToPromiseMap = new ConcurrentHashMap<>();
+    // The timeouts of the Promises, advanced by the timeouter-thread. Replied Promises' timeouts are cancelled.
+    protected final HashedTimingWheel<Promise<?>> _timeoutWheel;
 
     protected void _handleRepliesForPromises(ProcessContext<Void> context, String correlationId,
             MatsObject matsObject) {
-        // Immediately pick this out of the map & queue
-        Promise<?> promise;
-        synchronized (_correlationIdToPromiseMap) {
-            // Find the Promise from the CorrelationId
-            promise = _correlationIdToPromiseMap.remove(correlationId);
-            // Did we find it?
-            if (promise != null) {
-                // -> Yes, found - remove it from the PriorityQueue too.
-                _timeoutSortedPromises.remove(promise);
+        // Immediately pick this out of the map - whoever removes it, owns it.
+        Promise<?> promise = _correlationIdToPromiseMap.remove(correlationId);
+        // ?: Did we find it?
+        if (promise != null) {
+            // -> Yes, so record the latency, and let in the next.
+            _endpointMetrics(promise._to).recordReply(System.nanoTime() - promise._initiationNanoTime);
+            _releaseAdmission(promise);
+            // ?: Is its timeout scheduled? (Might not yet be, if the reply was extremely fast)
+            if (promise._timeout != null) {
+                // -> Yes, so cancel the timeout, O(1).
+                promise._timeout.cancel();
             }
-            // NOTE: We don't bother pinging the Timeouter, as he'll find out himself soon enough if this was first.
         }
         // ?: Did we still have the Promise?
         if (promise == null) {
             // -> Promise gone, log on INFO and exit (it was logged on WARN when it was actually timed out).
+            _lateReplyCount.increment();
             MDC.put("traceId", context.getTraceId());
             log.info(LOG_PREFIX + "Promise gone! Got reply from [" + context
                     .getFromStageId() + "] for Future with traceId:[" + context.getTraceId()
@@ -524,9 +1677,16 @@ public class MatsFuturizer implements AutoCloseable {
             return;
         }
 
+        // ?: Shall we deserialize right here, and make a slim context?
+        if (_eagerReplyDeserialization) {
+            // -> Yes, so that neither the MatsObject nor the ProcessContext is held on to after this.
+            _eagerlyDeserializeAndComplete(context, matsObject, promise);
+            return;
+        }
+
         // ----- We have Promise, and shall now fulfill it. Send off to pool thread.
 
-        _futureCompleterThreadPool.execute(() -> {
+        _executeCompletion(promise, () -> {
             try {
                 MDC.put("traceId", promise._traceId);
                 // NOTICE! We don't log here, as the SubscriptionTerminator already has logged the ordinary mats lines.
@@ -560,12 +1720,271 @@ public class MatsFuturizer implements AutoCloseable {
         });
     }
 
+    // Completions not yet picked up by a completer task.
+    protected final ConcurrentLinkedQueue<Runnable> _pendingCompletions = new ConcurrentLinkedQueue<>();
+    // The number of completer tasks running (or submitted) on the Executor, max _maxConcurrentCompleters.
+    protected final AtomicInteger _activeCompleters = new AtomicInteger();
+
+    /**
+     * Hands the completion off to the Executor: It is queued, and if fewer than max completer tasks are running, a new
+     * one is submitted - otherwise, one of the running picks it up when done with what it has. Thus, at low rates it is
+     * a task per completion, while when saturated, each task completes several, instead of piling up tasks.
+     */
+    protected void _executeCompletion(Runnable completion) {
+        long enqueuedNanoTime = System.nanoTime();
+        _pendingCompletions.add(() -> {
+            _completerQueueTime.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - enqueuedNanoTime));
+            completion.run();
+        });
+        // ?: Can we start another completer task?
+        if (_tryIncrementActiveCompleters()) {
+            // -> Yes, so do it.
+            try {
+                _futureCompleterExecutor.execute(this::_runCompletions);
+            }
+            catch (RejectedExecutionException e) {
+                _activeCompleters.decrementAndGet();
+                throw e;
+            }
+        }
+        // E-> No, max completer tasks running, and one of them will pick it up.
+    }
+
+    /**
+     * Hands the completion of the Promise off to its own Executor if it has one, otherwise as
+     * {@link #_executeCompletion(Runnable)}.
+     */
+    protected void _executeCompletion(Promise<?> promise, Runnable completion) {
+        // ?: Does the Promise have its own Executor?
+        if (promise._completerExecutor != null) {
+            // -> Yes, so complete directly on it.
+            promise._completerExecutor.execute(completion);
+            return;
+        }
+        _executeCompletion(completion);
+    }
+
+    /**
+     * Cancels the Promise: Removes it from the map right away, thus letting in the next, cancels its timeout, and
+     * {@link CompletableFuture#cancel(boolean) cancels} its future. Any reply coming later is logged as for a timed out
+     * Promise.
+     *
+     * @return <code>true</code> if cancelled, <code>false</code> if it was already replied, timed out or cancelled.
+     */
+    protected boolean _cancelPromise(Promise<?> promise) {
+        // ?: Did we get to remove it, i.e. own it?
+        if (!_correlationIdToPromiseMap.remove(promise._correlationId, promise)) {
+            // -> No, so someone else has already handled it.
+            return false;
+        }
+        _releaseAdmission(promise);
+        if (promise._timeout != null) {
+            promise._timeout.cancel();
+        }
+        promise._future.cancel(false);
+        return true;
+    }
+
+    // For the single-flight keys: The fields, in the same way as Mats' JSON serialization, and sorted map keys.
+    protected static final ObjectMapper SINGLE_FLIGHT_KEY_MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    protected String _singleFlightKey(Object request) {
+        try {
+            return request.getClass().getName() + '|' + SINGLE_FLIGHT_KEY_MAPPER.writeValueAsString(request);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize the request DTO of class ["
+                    + request.getClass().getName() + "] to make the single-flight key - provide the key instead.", e);
+        }
+    }
+
+    /**
+     * A single-flight request in flight, counting those that have joined it - so that when all of them have
+     * cancelled, the Promise can be cancelled too.
+     */
+    protected static class SingleFlight {
+        public final String _flightKey;
+        public final CompletableFuture<Reply<?>> _shared = new CompletableFuture<>();
+        // Set by the first, before anyone else can leave the flight (since the first is still on it).
+        public volatile Promise<?> _promise;
+        // Guarded by this.
+        private int _joiners;
+        private boolean _abandoned;
+
+        public SingleFlight(String flightKey) {
+            _flightKey = flightKey;
+        }
+
+        /**
+         * @return <code>false</code> if it could not be joined, as all that joined it have cancelled.
+         */
+        public synchronized boolean join() {
+            // ?: Has everybody left it?
+            if (_abandoned) {
+                // -> Yes, so it is going away - cannot join.
+                return false;
+            }
+            _joiners++;
+            return true;
+        }
+
+        /**
+         * @return <code>true</code> if this was the last one on the flight, which thus is abandoned.
+         */
+        public synchronized boolean leave() {
+            _joiners--;
+            // ?: Was this the last one, and is the flight still outstanding?
+            if ((_joiners == 0) && !_shared.isDone()) {
+                // -> Yes, so it is abandoned.
+                _abandoned = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Joins the flight with a future of its own, which when cancelled leaves the flight - cancelling the Promise if it
+     * was the last one on it.
+     */
+    protected <T> CompletableFuture<Reply<T>> _joinSingleFlight(SingleFlight flight) {
+        CompletableFuture<Reply<T>> future = _joinSingleFlight(flight._shared);
+        future.whenComplete((reply, throwable) -> {
+            // ?: Was it cancelled, and was it the last one on the flight?
+            if (future.isCancelled() && flight.leave()) {
+                // -> Yes, so nobody wants the reply: Cancel the Promise, which completes the flight and removes it.
+                if (log.isDebugEnabled()) log.debug(LOG_PREFIX + "Single-flight: All requests on the flight with key"
+                        + " [" + flight._flightKey + "] have cancelled, so cancelling its Promise.");
+                _singleFlights.remove(flight._flightKey, flight);
+                _cancelPromise(flight._promise);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * A future of its own for the caller, so that cancelling it does not affect the others sharing the flight.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> CompletableFuture<Reply<T>> _joinSingleFlight(CompletableFuture<? extends Reply<?>> flight) {
+        CompletableFuture<Reply<T>> future = new CompletableFuture<>();
+        flight.whenComplete((reply, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            }
+            else {
+                future.complete((Reply<T>) reply);
+            }
+        });
+        return future;
+    }
+
+    protected void _cacheSingleFlightReply(String flightKey, Reply<?> reply) {
+        // ?: Is the cache full?
+        if (_singleFlightCache.size() >= _singleFlightCacheMaxEntries) {
+            // -> Yes, so get rid of the expired.
+            long now = System.nanoTime();
+            _singleFlightCache.values().removeIf(cached -> now - cached._expiresNanoTime >= 0);
+            // ?: Still full?
+            if (_singleFlightCache.size() >= _singleFlightCacheMaxEntries) {
+                // -> Yes, so don't cache this one.
+                return;
+            }
+        }
+        _singleFlightCache.put(flightKey, new CachedReply(reply, System.nanoTime() + _singleFlightCacheTtlNanos));
+    }
+
+    protected static class CachedReply {
+        public final Reply<?> _reply;
+        public final long _expiresNanoTime;
+
+        public CachedReply(Reply<?> reply, long expiresNanoTime) {
+            _reply = reply;
+            _expiresNanoTime = expiresNanoTime;
+        }
+    }
+
+    protected void _runCompletions() {
+        do {
+            Runnable completion;
+            while ((completion = _pendingCompletions.poll()) != null) {
+                // NOTE: The completions handle their own Throwables.
+                completion.run();
+            }
+            _activeCompleters.decrementAndGet();
+            // NOTE: A completion added after we found the queue empty, but before we decremented, found us counted
+            // as running - so check again, and continue if we still can.
+        } while ((!_pendingCompletions.isEmpty()) && _tryIncrementActiveCompleters());
+    }
+
+    private boolean _tryIncrementActiveCompleters() {
+        int active;
+        while ((active = _activeCompleters.get()) < _maxConcurrentCompleters) {
+            if (_activeCompleters.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void _eagerlyDeserializeAndComplete(ProcessContext<Void> context, MatsObject matsObject,
+            Promise<?> promise) {
+        Object replyObject = null;
+        IllegalArgumentException deserializationException = null;
+        try {
+            replyObject = _deserializeReply(matsObject, promise._replyClass);
+        }
+        catch (IllegalArgumentException e) {
+            log.error("Got problems completing Future due to failing to deserialize the incoming object to"
+                    + " expected class [" + promise._replyClass.getName() + "], thus doing"
+                    + " future.completeExceptionally(..) with the [" + e.getClass().getSimpleName() + "]."
+                    + " Initiated from [" + promise._from + "], with reply from [" + context.getFromStageId()
+                    + "], traceId [" + context.getTraceId() + "]", e);
+            deserializationException = e;
+        }
+        DetachedProcessContext slimContext = new SlimReplyContext(context, _slimContextSideloadKeys,
+                _slimContextTraceProperties);
+        Object finalReplyObject = replyObject;
+        IllegalArgumentException finalDeserializationException = deserializationException;
+        _executeCompletion(promise, () -> {
+            try {
+                MDC.put("traceId", promise._traceId);
+                log.debug(LOG_PREFIX + "Completing promise from [" + promise._from + "]: [" + promise + "]");
+                // ?: Did the deserialization fail?
+                if (finalDeserializationException != null) {
+                    // -> Yes, so complete exceptionally (it is logged above).
+                    promise._future.completeExceptionally(finalDeserializationException);
+                    return;
+                }
+                _uncheckedComplete(slimContext, finalReplyObject, promise);
+            }
+            // NOTICE! This catch will probably never be triggered, as if .thenAccept() and similar throws,
+            // the CompletableFuture evidently handles it and completes the future exceptionally.
+            catch (Throwable t) {
+                log.error(LOG_PREFIX + "Got problems completing Future initiated from [" + promise._from
+                        + "], with reply from [" + slimContext.getFromStageId()
+                        + "], traceId:[" + slimContext.getTraceId() + "]", t);
+            }
+            finally {
+                MDC.remove("traceId");
+            }
+        });
+    }
+
     protected Object _deserializeReply(MatsObject matsObject, Class<?> toClass) {
         return matsObject.toClass(toClass);
     }
 
     @SuppressWarnings("unchecked")
     protected void _uncheckedComplete(ProcessContext<Void> context, Object replyObject, Promise<?> promise) {
+        _uncheckedComplete((DetachedProcessContext) context, replyObject, promise);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void _uncheckedComplete(DetachedProcessContext context, Object replyObject, Promise<?> promise) {
         Reply<?> tReply = new Reply<>(context, replyObject, promise._initiationTimestamp);
         promise._future.complete((Reply) tReply);
     }
@@ -574,72 +1993,62 @@ public class MatsFuturizer implements AutoCloseable {
 
     protected void _startTimeouterThread() {
         Runnable timeouter = () -> {
-            log.info(LOG_PREFIX + "MatsFuturizer Timeouter-thread: Started!");
+            long tickMillis = _timeoutWheel.getTickMillis();
+            log.info(LOG_PREFIX + "MatsFuturizer Timeouter-thread: Started! Tick: [" + tickMillis + " ms].");
+            long nextTickAt = System.currentTimeMillis() + tickMillis;
             while (_runFlag) {
                 List<Promise<?>> promisesToTimeout = new ArrayList<>();
-                synchronized (_correlationIdToPromiseMap) {
-                    while (_runFlag) {
-                        try {
-                            long sleepMillis;
-                            long now = System.currentTimeMillis();
-                            Promise<?> peekPromise = _timeoutSortedPromises.peek();
-                            if (peekPromise != null) {
-                                // ?: Is this Promise overdue? I.e. current time has passed timeout timestamp of
-                                // promise.
-                                if (now >= peekPromise._timeoutTimestamp) {
-                                    // -> Yes, timed out. remove from both collections
-                                    // It is the first, since it is the object we peeked at.
-                                    _timeoutSortedPromises.remove();
-                                    // Remove explicitly by CorrelationId.
-                                    _correlationIdToPromiseMap.remove(peekPromise._correlationId);
-                                    // Put it in the list to timeout
-                                    promisesToTimeout.add(peekPromise);
-                                    // Check next in line
-                                    continue;
-                                }
-                                // E-> This is the Promise that is next in line to timeout.
-                                _nextInLineToTimeout = peekPromise;
-                                // This Promise has >0 milliseconds left before timeout, so calculate how long to sleep.
-                                sleepMillis = peekPromise._timeoutTimestamp - now;
-                            }
-                            else {
-                                // We have no Promise next in line to timeout.
-                                _nextInLineToTimeout = null;
-                                // Chill for a while, then just check to be on the safe side..
-                                sleepMillis = 30_000;
-                            }
-                            // ?: Do we have any Promises to timeout?
-                            if (!promisesToTimeout.isEmpty()) {
-                                // -> Yes, Promises to timeout - exit out of synch and inner run-loop to do that.
-                                break;
-                            }
-                            // ----- We've found a new sleep time, go sleep.
-                            // Now go to sleep, waiting for signal from "new element added" or close()
-                            _correlationIdToPromiseMap.wait(sleepMillis);
-                        }
-                        // :: Protection against bad code - catch-all Throwables in hope that it will auto-correct.
-                        catch (Throwable t) {
-                            log.error(LOG_PREFIX + "Got an unexpected Throwable in the promise-timeouter-thread."
-                                    + " Loop and check whether to exit.", t);
-                            // If exiting, do it now.
-                            if (!_runFlag) {
-                                break;
-                            }
-                            // :: Protection against bad code - sleep a tad to not tight-loop.
-                            try {
-                                Thread.sleep(10_000);
-                            }
-                            catch (InterruptedException e) {
-                                e.printStackTrace();
-                            }
+                try {
+                    // :: Sleep till next tick - no signalling from the enqueue or reply paths, we just tick along.
+                    long sleepMillis = nextTickAt - System.currentTimeMillis();
+                    if (sleepMillis > 0) {
+                        Thread.sleep(sleepMillis);
+                    }
+                    nextTickAt += tickMillis;
+                    long now = System.currentTimeMillis();
+                    // ?: Have we fallen more than a tick behind? (e.g. GC pause, or suspended machine)
+                    if (nextTickAt < now) {
+                        // -> Yes, so don't try to catch up by tight-looping, the wheel handles the passed ticks.
+                        nextTickAt = now + tickMillis;
+                    }
+                    for (Promise<?> promise : _timeoutWheel.advance(now)) {
+                        // ?: Did we get to remove it from the map, i.e. beat any reply coming in now?
+                        if (_correlationIdToPromiseMap.remove(promise._correlationId, promise)) {
+                            // -> Yes, so let in the next, and put it in the list to timeout
+                            _releaseAdmission(promise);
+                            promisesToTimeout.add(promise);
                         }
                     }
                 }
+                // :: Protection against bad code - catch-all Throwables in hope that it will auto-correct.
+                catch (Throwable t) {
+                    log.error(LOG_PREFIX + "Got an unexpected Throwable in the promise-timeouter-thread."
+                            + " Loop and check whether to exit.", t);
+                    // If exiting, do it now.
+                    if (!_runFlag) {
+                        break;
+                    }
+                    // :: Protection against bad code - sleep a tad to not tight-loop.
+                    try {
+                        Thread.sleep(10_000);
+                    }
+                    catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    nextTickAt = System.currentTimeMillis() + tickMillis;
+                }
 
-                // ----- This is outside the synch block
-
-                // :: Timing out Promises that was found to be overdue.
+                // ?: Any Promises found to be overdue?
+                if (promisesToTimeout.isEmpty()) {
+                    // -> No, so go for next tick.
+                    continue;
+                }
+                // :: Timing out Promises that was found to be overdue - in a single task, so that the Promises due in
+                // the same tick are completed in deadline order, not raced by the completer threads.
+                List<Promise<?>> batch = new ArrayList<>(promisesToTimeout.size());
+                List<String> msgs = new ArrayList<>(promisesToTimeout.size());
                 for (Promise<?> promise : promisesToTimeout) {
+                    _endpointMetrics(promise._to).recordTimeout();
                     MDC.put("traceId", promise._traceId);
                     String msg = "The Promise/Future timed out! It was initiated from:[" + promise._from
                             + "] with traceId:[" + promise._traceId + "]."
@@ -649,30 +2058,48 @@ public class MatsFuturizer implements AutoCloseable {
                                     - promise._initiationTimestamp) + "].";
                     log.warn(LOG_PREFIX + msg);
                     MDC.remove("traceId");
-                    _futureCompleterThreadPool.execute(() -> {
-                        try {
-                            MDC.put("traceId", promise._traceId);
-                            _timeoutCompleteExceptionally(promise, msg);
-                        }
-                        // NOTICE! This catch will probably never be triggered, as if .thenAccept() and similar throws,
-                        // the CompletableFuture evidently handles it and completes the future exceptionally.
-                        catch (Throwable t) {
-                            log.error(LOG_PREFIX + "Got problems timing out Promise/Future initiated from:["
-                                    + promise._from + "] with traceId:[" + promise._traceId + "]", t);
-                        }
-                        finally {
-                            MDC.remove("traceId");
+                    // ?: Does this Promise have its own Executor?
+                    if (promise._completerExecutor != null) {
+                        // -> Yes, so time it out there, by itself.
+                        _executeCompletion(promise, () -> _timeoutPromise(promise, msg));
+                    }
+                    else {
+                        // -> No, so in the batch.
+                        batch.add(promise);
+                        msgs.add(msg);
+                    }
+                }
+                // ?: Anything in the batch?
+                if (!batch.isEmpty()) {
+                    // -> Yes, so time them out.
+                    _executeCompletion(() -> {
+                        for (int i = 0; i < batch.size(); i++) {
+                            _timeoutPromise(batch.get(i), msgs.get(i));
                         }
                     });
                 }
-                promisesToTimeout.clear();
-                // .. will now loop into the synch block again.
             }
             log.info("MatsFuturizer Timeouter-thread: We got asked to exit, and that we do!");
         };
         new Thread(timeouter, "MatsFuturizer Timeouter").start();
     }
 
+    protected void _timeoutPromise(Promise<?> promise, String msg) {
+        try {
+            MDC.put("traceId", promise._traceId);
+            _timeoutCompleteExceptionally(promise, msg);
+        }
+        // NOTICE! This catch will probably never be triggered, as if .thenAccept() and similar throws,
+        // the CompletableFuture evidently handles it and completes the future exceptionally.
+        catch (Throwable t) {
+            log.error(LOG_PREFIX + "Got problems timing out Promise/Future initiated from:["
+                    + promise._from + "] with traceId:[" + promise._traceId + "]", t);
+        }
+        finally {
+            MDC.remove("traceId");
+        }
+    }
+
     protected void _timeoutCompleteExceptionally(Promise<?> promise, String msg) {
         promise._future.completeExceptionally(new MatsFuturizerTimeoutException(
                 msg, promise._initiationTimestamp, promise._traceId));
@@ -692,17 +2119,22 @@ public class MatsFuturizer implements AutoCloseable {
                 + " and cancelling any outstanding futures.");
         _runFlag = false;
         _replyHandlerEndpoint.remove(5000);
-        _futureCompleterThreadPool.shutdown();
+        // ?: Is the thread pool our own?
+        if (_futureCompleterThreadPool != null) {
+            // -> Yes, so shut it down (a supplied Executor is the supplier's business).
+            _futureCompleterThreadPool.shutdown();
+        }
         // :: Find all remaining Promises, and notify Timeouter-thread that we're dead.
         List<Promise<?>> promisesToCancel = new ArrayList<>();
-        synchronized (_correlationIdToPromiseMap) {
-            promisesToCancel.addAll(_timeoutSortedPromises);
-            // Clear the collections, just to have a clear conscience.
-            _timeoutSortedPromises.clear();
-            _correlationIdToPromiseMap.clear();
-            // Notify the Timeouter-thread that shit is going down.
-            _correlationIdToPromiseMap.notifyAll();
+        // Whoever removes a Promise from the map owns it, so remove one by one, not to race with reply-handler.
+        for (String correlationId : _correlationIdToPromiseMap.keySet()) {
+            Promise<?> promise = _correlationIdToPromiseMap.remove(correlationId);
+            if (promise != null) {
+                _releaseAdmission(promise);
+                promisesToCancel.add(promise);
+            }
         }
+        // NOTE: The Timeouter-thread exits on its next tick, as the runFlag is false.
         // :: Cancel all outstanding Promises.
         for (Promise<?> promise : promisesToCancel) {
             try {
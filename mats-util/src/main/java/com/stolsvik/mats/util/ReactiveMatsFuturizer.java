@@ -0,0 +1,320 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.stolsvik.mats.MatsInitiator.InitiateLambda;
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerRejectedException;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerTimeoutException;
+import com.stolsvik.mats.util.MatsFuturizer.Promise;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+import com.stolsvik.mats.util.MatsFuturizer.ScatterRequest;
+
+/**
+ * A <a href="http://www.reactive-streams.org/">Reactive Streams</a> variant of the {@link MatsFuturizer}, for reactive
+ * stacks (e.g. Project Reactor's <code>Mono.from(..)</code> and <code>Flux.from(..)</code>): Instead of a
+ * {@link java.util.concurrent.CompletableFuture CompletableFuture}, you get a {@link Publisher} of the {@link Reply}, or
+ * Replies. The underlying MatsFuturizer does all the work of keeping track of the Promises, but the replies are not
+ * handed to its completer pool: They are signalled directly on the "scheduler" {@link Executor} given at creation,
+ * which typically is the event loop or scheduler of the reactive stack - thus saving a thread hop.
+ * <p/>
+ * The Publishers are <i>cold</i>: Nothing is sent until subscribed to, and each subscription sends anew. Cancelling
+ * the {@link Subscription} removes the outstanding Promises from the MatsFuturizer right away, thus letting in others
+ * if the {@link MatsFuturizer#getMaxOutstandingPromises() max outstanding} is reached - any replies coming later are
+ * dropped. If a Promise times out, the subscriber gets {@link Subscriber#onError(Throwable) onError(..)} with a
+ * {@link MatsFuturizerTimeoutException}. Subscribing never waits for admission: If the Promise cannot be admitted
+ * right away, the subscriber gets onError(..) with a {@link MatsFuturizerRejectedException}.
+ * <p/>
+ * <b>Notice: The reactive-streams API is an optional dependency of mats-util, so you must have it on the classpath to
+ * use this class</b> - which you have if you use any reactive stack.
+ */
+public class ReactiveMatsFuturizer {
+    private final MatsFuturizer _futurizer;
+    private final Executor _scheduler;
+
+    /**
+     * @param futurizer
+     *            the MatsFuturizer that shall keep track of the Promises.
+     * @param scheduler
+     *            the Executor on which the replies (and timeouts) are signalled to the subscribers - it is the thread
+     *            completing the Promise, so it must not block. <code>Runnable::run</code> signals directly on the thread
+     *            of the reply-handling Terminator.
+     * @return a ReactiveMatsFuturizer.
+     */
+    public static ReactiveMatsFuturizer create(MatsFuturizer futurizer, Executor scheduler) {
+        return new ReactiveMatsFuturizer(futurizer, scheduler);
+    }
+
+    protected ReactiveMatsFuturizer(MatsFuturizer futurizer, Executor scheduler) {
+        if (futurizer == null) {
+            throw new IllegalArgumentException("futurizer must be set.");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler must be set.");
+        }
+        _futurizer = futurizer;
+        _scheduler = scheduler;
+    }
+
+    /**
+     * The reactive variant of {@link MatsFuturizer#futurize(String, String, String, int, TimeUnit, Class, Object,
+     * InitiateLambda) MatsFuturizer.futurize(..)}, read its JavaDoc: The returned Publisher emits the single Reply and
+     * then completes, or signals an error.
+     *
+     * @return a cold {@link Publisher} of the single {@link Reply}.
+     */
+    public <T> Publisher<Reply<T>> publish(String traceId, String from, String to, int timeout, TimeUnit unit,
+            Class<T> replyClass, Object request, InitiateLambda customInit) {
+        return publishAll(from, timeout, unit, replyClass,
+                Collections.singletonList(new ScatterRequest(traceId, to, request)), customInit);
+    }
+
+    /**
+     * Variant of {@link #publish(String, String, String, int, TimeUnit, Class, Object, InitiateLambda) publish(..)}
+     * for "GET-style" requests, read {@link MatsFuturizer#futurizeNonessential(String, String, String, Class, Object)
+     * MatsFuturizer.futurizeNonessential(..)}.
+     *
+     * @return a cold {@link Publisher} of the single {@link Reply}.
+     */
+    public <T> Publisher<Reply<T>> publishNonessential(String traceId, String from, String to, Class<T> replyClass,
+            Object request) {
+        return publish(traceId, from, to, 2, TimeUnit.MINUTES, replyClass, request,
+                msg -> msg.nonPersistent().interactive().noAudit());
+    }
+
+    /**
+     * "Scatter-gather": Sends all the requests in a single initiation (i.e. a single transaction), each with its own
+     * Promise, and emits the Replies in the order they come back, completing when all have come. The Replies can be
+     * told apart by their context's {@link MatsFuturizer.ScatterRequest#getTraceId() traceId}. If any of the Promises
+     * times out, the subscriber gets {@link Subscriber#onError(Throwable) onError(..)} with a
+     * {@link MatsFuturizerTimeoutException}, and the rest are cancelled.
+     *
+     * @param from
+     *            the "from" of the initiation, see {@link MatsInitiate#from(String)}
+     * @param timeout
+     *            the timeout of each of the Promises.
+     * @param unit
+     *            the unit of time of the 'timeout' parameter.
+     * @param replyClass
+     *            which expected reply DTO class that the requested endpoints reply with.
+     * @param requests
+     *            the requests, each with its traceId and endpoint.
+     * @param customInit
+     *            the {@link InitiateLambda} applied to each of the outgoing messages, read
+     *            {@link MatsFuturizer#futurize(String, String, String, int, TimeUnit, Class, Object, InitiateLambda)
+     *            MatsFuturizer.futurize(..)}.
+     * @return a cold {@link Publisher} of the {@link Reply Replies}, in order of arrival.
+     */
+    public <T> Publisher<Reply<T>> publishAll(String from, int timeout, TimeUnit unit, Class<T> replyClass,
+            List<ScatterRequest> requests, InitiateLambda customInit) {
+        List<ScatterRequest> copiedRequests = new ArrayList<>(requests);
+        return subscriber -> new RepliesSubscription<>(_futurizer, _scheduler, subscriber, from, timeout, unit,
+                replyClass, copiedRequests, customInit).start();
+    }
+
+    /**
+     * The {@link Subscription}, which also is what receives the completions of the Promises. Signals to the subscriber
+     * are serialized by the "work in progress" counter: Whoever increments it from zero drains, others just leave a
+     * note for the drainer to loop once more.
+     */
+    private static class RepliesSubscription<T> implements Subscription {
+        private final MatsFuturizer _futurizer;
+        private final Executor _scheduler;
+        private final Subscriber<? super Reply<T>> _subscriber;
+        private final String _from;
+        private final int _timeout;
+        private final TimeUnit _unit;
+        private final Class<T> _replyClass;
+        private final List<ScatterRequest> _requests;
+        private final InitiateLambda _customInit;
+
+        private final ConcurrentLinkedQueue<Promise<T>> _promises = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Reply<T>> _arrived = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Throwable> _error = new AtomicReference<>();
+        private final AtomicLong _requested = new AtomicLong();
+        private final AtomicInteger _wip = new AtomicInteger();
+        private volatile boolean _cancelled;
+        // Only accessed by the draining thread.
+        private int _delivered;
+        private boolean _done;
+
+        private RepliesSubscription(MatsFuturizer futurizer, Executor scheduler,
+                Subscriber<? super Reply<T>> subscriber, String from, int timeout, TimeUnit unit,
+                Class<T> replyClass, List<ScatterRequest> requests, InitiateLambda customInit) {
+            _futurizer = futurizer;
+            _scheduler = scheduler;
+            _subscriber = subscriber;
+            _from = from;
+            _timeout = timeout;
+            _unit = unit;
+            _replyClass = replyClass;
+            _requests = requests;
+            _customInit = customInit;
+        }
+
+        private void start() {
+            _subscriber.onSubscribe(this);
+            // ?: Did the subscriber cancel already in onSubscribe(..)?
+            if (_cancelled) {
+                // -> Yes, so don't send anything.
+                return;
+            }
+            List<Promise<T>> promises = new ArrayList<>(_requests.size());
+            try {
+                _futurizer._assertFuturizerRunning();
+                for (ScatterRequest request : _requests) {
+                    Promise<T> promise = _futurizer._createPromise(request.getTraceId(), _from, request.getTo(),
+                            _replyClass, _timeout, _unit);
+                    promise._completerExecutor = _scheduler;
+                    // NOTE: Never waiting for admission, as subscribing shall not block.
+                    if (!_futurizer._acquireAdmission(promise, 0)) {
+                        throw new MatsFuturizerRejectedException("There are too many Promises outstanding, so cannot"
+                                + " add more - limit is [" + _futurizer.getMaxOutstandingPromises()
+                                + "], and per \"from\" [" + _futurizer.getMaxOutstandingPromisesPerFrom() + "].",
+                                _from);
+                    }
+                    _futurizer._registerPromise(promise);
+                    promises.add(promise);
+                    _promises.add(promise);
+                }
+                // ?: Did the subscriber cancel while we were enqueuing?
+                if (_cancelled) {
+                    // -> Yes, so cancel what we have enqueued, and don't send anything.
+                    _cancelPromises();
+                    return;
+                }
+                _futurizer._sendRequestsToFulfillPromises(_from, _requests, _customInit, promises);
+            }
+            catch (RuntimeException e) {
+                // E.g. rejected admission, or failing initiation.
+                _error.compareAndSet(null, e);
+                drain();
+                return;
+            }
+            for (Promise<T> promise : promises) {
+                promise._future.whenComplete(this::onPromiseCompleted);
+            }
+            // In case of no requests at all, this completes.
+            drain();
+        }
+
+        private void onPromiseCompleted(Reply<T> reply, Throwable throwable) {
+            // ?: Exceptional?
+            if (throwable != null) {
+                // -> Yes, so error - unless it is our own cancellation.
+                if (!(throwable instanceof CancellationException)) {
+                    _error.compareAndSet(null, throwable instanceof CompletionException
+                            ? throwable.getCause()
+                            : throwable);
+                }
+            }
+            else {
+                _arrived.add(reply);
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            // ?: Is the request valid? (Reactive Streams §3.9)
+            if (n <= 0) {
+                // -> No, so error.
+                _error.compareAndSet(null, new IllegalArgumentException("Reactive Streams §3.9: request(n) must be"
+                        + " > 0, was [" + n + "]."));
+            }
+            else {
+                // Add, capping at Long.MAX_VALUE, i.e. "unbounded".
+                long current;
+                long next;
+                do {
+                    current = _requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!_requested.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            _cancelled = true;
+            _cancelPromises();
+        }
+
+        private void _cancelPromises() {
+            for (Promise<T> promise : _promises) {
+                _futurizer._cancelPromise(promise);
+            }
+        }
+
+        private void drain() {
+            // ?: Is some other thread already draining?
+            if (_wip.getAndIncrement() != 0) {
+                // -> Yes, so it'll loop once more.
+                return;
+            }
+            int missed = 1;
+            do {
+                // ?: Are we done, or cancelled?
+                if (_done || _cancelled) {
+                    // -> Yes, so drop any further replies.
+                    _arrived.clear();
+                }
+                else {
+                    _emit();
+                }
+                missed = _wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void _emit() {
+            Throwable error = _error.get();
+            // ?: Error?
+            if (error != null) {
+                // -> Yes, so cancel the rest, and signal it.
+                _done = true;
+                _cancelPromises();
+                _subscriber.onError(error);
+                return;
+            }
+            long requested = _requested.get();
+            long emitted = 0;
+            Reply<T> reply;
+            while ((emitted < requested) && ((reply = _arrived.poll()) != null)) {
+                _subscriber.onNext(reply);
+                emitted++;
+                _delivered++;
+                // ?: Did the subscriber cancel in onNext(..)?
+                if (_cancelled) {
+                    // -> Yes, so stop.
+                    return;
+                }
+            }
+            if ((emitted > 0) && (requested != Long.MAX_VALUE)) {
+                _requested.addAndGet(-emitted);
+            }
+            // ?: Have we delivered all?
+            if (_delivered == _requests.size()) {
+                // -> Yes, so complete.
+                _done = true;
+                _subscriber.onComplete();
+            }
+        }
+    }
+}
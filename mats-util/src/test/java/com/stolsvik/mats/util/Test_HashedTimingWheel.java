@@ -0,0 +1,90 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.stolsvik.mats.util.HashedTimingWheel.Timeout;
+
+/**
+ * Tests the {@link HashedTimingWheel} which keeps track of the timeouts of the {@link MatsFuturizer}, by driving it
+ * with a synthetic "now": Timeouts shall never come before their deadline, nor more than a tick late, shall come in
+ * deadline order, and cancelled timeouts shall never come.
+ */
+public class Test_HashedTimingWheel {
+    private static final long TICK = 10;
+
+    @Test
+    public void manyTimeoutsWithHalfCancelled() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(TICK, 64);
+        long base = System.currentTimeMillis();
+
+        // :: Schedule a bunch spread over many rotations of the wheel (64 x 10 ms = 640 ms per rotation).
+        int count = 200_000;
+        long[] deadlines = new long[count];
+        List<Timeout<Integer>> timeouts = new ArrayList<>(count);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            deadlines[i] = base + random.nextInt(5_000);
+            timeouts.add(wheel.schedule(i, deadlines[i]));
+        }
+        // :: Cancel every other.
+        for (int i = 0; i < count; i += 2) {
+            Assert.assertTrue(timeouts.get(i).cancel());
+        }
+        Assert.assertEquals(count / 2, wheel.getPendingCount());
+
+        // :: Advance through the time, in steps of a tick.
+        boolean[] gotten = new boolean[count];
+        int gottenCount = 0;
+        for (long now = base; now <= base + 5_000 + (2 * TICK); now += TICK) {
+            long previousDeadline = Long.MIN_VALUE;
+            for (Integer item : wheel.advance(now)) {
+                Assert.assertTrue("Cancelled timeout came: " + item, (item % 2) == 1);
+                Assert.assertFalse("Timeout came twice: " + item, gotten[item]);
+                gotten[item] = true;
+                gottenCount++;
+                Assert.assertTrue("Timeout came before its deadline", deadlines[item] <= now);
+                Assert.assertTrue("Timeout came more than a tick late", now - deadlines[item] <= TICK);
+                Assert.assertTrue("Timeouts not in deadline order", deadlines[item] >= previousDeadline);
+                previousDeadline = deadlines[item];
+            }
+        }
+        Assert.assertEquals(count / 2, gottenCount);
+        Assert.assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void cancelRacesWithExpiry() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(TICK, 8);
+        long base = System.currentTimeMillis();
+        Timeout<String> expiring = wheel.schedule("expiring", base + 20);
+        Timeout<String> cancelled = wheel.schedule("cancelled", base + 20);
+
+        // Not yet due.
+        Assert.assertTrue(wheel.advance(base).isEmpty());
+        Assert.assertTrue(cancelled.cancel());
+        // Cancelling twice does nothing.
+        Assert.assertFalse(cancelled.cancel());
+
+        List<String> due = wheel.advance(base + 100);
+        Assert.assertEquals(1, due.size());
+        Assert.assertEquals("expiring", due.get(0));
+        // Cannot cancel what has already become due.
+        Assert.assertFalse(expiring.cancel());
+        Assert.assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void overdueWhenScheduledComesOnNextAdvance() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(TICK, 8);
+        long base = System.currentTimeMillis();
+        wheel.advance(base + 1000);
+        wheel.schedule("late", base);
+        List<String> due = wheel.advance(base + 1000);
+        Assert.assertEquals(1, due.size());
+    }
+}
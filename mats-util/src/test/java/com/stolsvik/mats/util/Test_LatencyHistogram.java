@@ -0,0 +1,67 @@
+package com.stolsvik.mats.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link LatencyHistogram} of the {@link MatsFuturizer} metrics: The buckets shall be contiguous, and the
+ * percentiles shall be within the relative error of the sub-buckets of the exact percentiles.
+ */
+public class Test_LatencyHistogram {
+    @Test
+    public void bucketsAreContiguous() {
+        int previousIndex = 0;
+        for (long value = 1; value < 100_000; value++) {
+            int index = LatencyHistogram._index(value);
+            Assert.assertTrue("Index shall increase by at most one, value " + value,
+                    (index == previousIndex) || (index == previousIndex + 1));
+            Assert.assertTrue("Value shall be at most the highest of its bucket, value " + value,
+                    value <= LatencyHistogram._highestValueOfIndex(index));
+            previousIndex = index;
+        }
+        // The last bucket shall end exactly at the max trackable value.
+        Assert.assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, LatencyHistogram._highestValueOfIndex(
+                LatencyHistogram._index(LatencyHistogram.MAX_TRACKABLE_VALUE)));
+    }
+
+    @Test
+    public void percentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        int count = 100_000;
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Log-normal'ish, from micros to seconds, as latencies tend to be.
+            values[i] = (long) Math.exp(random.nextGaussian() * 2 + 8);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(count, snapshot.getCount());
+        Assert.assertEquals(values[count - 1], snapshot.getMax());
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            long exact = values[(int) Math.ceil(percentile / 100 * count) - 1];
+            long estimate = snapshot.getValueAtPercentile(percentile);
+            Assert.assertTrue("p" + percentile + ": estimate " + estimate + " shall be >= exact " + exact,
+                    estimate >= exact);
+            Assert.assertTrue("p" + percentile + ": estimate " + estimate + " shall be within 1/"
+                    + LatencyHistogram.SUB_BUCKET_COUNT + " of exact " + exact,
+                    estimate <= exact + (exact / LatencyHistogram.SUB_BUCKET_COUNT) + 1);
+        }
+    }
+
+    @Test
+    public void emptyAndClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(2, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getValueAtPercentile(50));
+        Assert.assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, snapshot.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,123 @@
+package com.stolsvik.mats.util;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerRejectedException;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerTimeoutException;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+
+/**
+ * Tests the admission control of the MatsFuturizer: Rejection when the max outstanding Promises is reached, both by
+ * <code>tryFuturize(..)</code> and by <code>futurize(..)</code>, waiting for admission with an admission timeout, and the max
+ * outstanding Promises per "from". There is no consumer for the sent messages, so the Promises stay outstanding until
+ * they time out - which is what lets in the next.
+ */
+public class Test_MatsFuturizer_Backpressure {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+
+    @Test
+    public void rejectWhenFull() {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("rejectWhenFull"), 1, 5, 2)) {
+            Assert.assertTrue(futureToEmptiness(futurizer, "from.A", 10_000).isPresent());
+            Assert.assertTrue(futureToEmptiness(futurizer, "from.A", 10_000).isPresent());
+            Assert.assertEquals(2, futurizer.getOutstandingPromiseCount());
+
+            // :: Full, so tryFuturize(..) is empty..
+            Assert.assertFalse(futureToEmptiness(futurizer, "from.A", 10_000).isPresent());
+            // .. and futurize(..) throws.
+            try {
+                futurizer.futurize(MatsTestHelp.traceId(), "from.A", SERVICE, 10, TimeUnit.SECONDS, DataTO.class,
+                        new DataTO(1, "one"), MatsInitiate::nonPersistent);
+                Assert.fail("Should have gotten MatsFuturizerRejectedException.");
+            }
+            catch (MatsFuturizerRejectedException e) {
+                Assert.assertEquals("from.A", e.getFrom());
+            }
+            Assert.assertEquals(2, futurizer.getAdmittedCount());
+            Assert.assertEquals(2, futurizer.getRejectedCount());
+            Assert.assertEquals(2, futurizer.getOutstandingPromiseCount());
+        }
+    }
+
+    @Test
+    public void waitForAdmission() throws InterruptedException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("waitForAdmission"), 1, 5, 1)) {
+            futurizer.setAdmissionTimeout(30, TimeUnit.SECONDS);
+            // The first send may be slowish, so give it ample time so that the second surely has to wait.
+            CompletableFuture<Reply<DataTO>> first = futureToEmptiness(futurizer, "from.A", 1000).get();
+
+            // This must wait for the first to time out, which lets it in.
+            long startNanos = System.nanoTime();
+            CompletableFuture<Reply<DataTO>> second = futurizer.futurize(MatsTestHelp.traceId(), "from.A", SERVICE,
+                    100, TimeUnit.MILLISECONDS, DataTO.class, new DataTO(2, "two"), MatsInitiate::nonPersistent);
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            Assert.assertTrue("Should have waited for the first Promise to time out, waited [" + waitedMillis
+                    + " ms].", waitedMillis >= 200);
+            // NOTE: The permit is given back before the future is completed on the completer thread, so wait for it.
+            assertTimedOut(first);
+            assertTimedOut(second);
+            Assert.assertEquals(2, futurizer.getAdmittedCount());
+            Assert.assertEquals(1, futurizer.getAdmittedAfterWaitCount());
+            Assert.assertEquals(0, futurizer.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void maxPerFrom() {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("maxPerFrom"), 1, 5, 10)) {
+            futurizer.setMaxOutstandingPromisesPerFrom(1);
+            Assert.assertTrue(futureToEmptiness(futurizer, "from.A", 10_000).isPresent());
+            // "from.A" has its one..
+            Assert.assertFalse(futureToEmptiness(futurizer, "from.A", 10_000).isPresent());
+            // .. but "from.B" is not starved.
+            Assert.assertTrue(futureToEmptiness(futurizer, "from.B", 10_000).isPresent());
+            Assert.assertEquals(2, futurizer.getOutstandingPromiseCount());
+            Assert.assertEquals(1, futurizer.getRejectedCount());
+
+            // Can't change it after use.
+            try {
+                futurizer.setMaxOutstandingPromisesPerFrom(2);
+                Assert.fail("Should have gotten IllegalStateException.");
+            }
+            catch (IllegalStateException e) {
+                // expected.
+            }
+        }
+    }
+
+    private Optional<CompletableFuture<Reply<DataTO>>> futureToEmptiness(MatsFuturizer futurizer, String from,
+            int timeoutMillis) {
+        return futurizer.tryFuturize(MatsTestHelp.traceId(), from, SERVICE, timeoutMillis, TimeUnit.MILLISECONDS,
+                DataTO.class, new DataTO(42, "TheAnswer"), MatsInitiate::nonPersistent);
+    }
+
+    private void assertTimedOut(CompletableFuture<Reply<DataTO>> future) throws InterruptedException,
+            TimeoutException {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Should have gotten ExecutionException with MatsFuturizerTimeoutException.");
+        }
+        catch (ExecutionException e) {
+            Assert.assertEquals(MatsFuturizerTimeoutException.class, e.getCause().getClass());
+        }
+    }
+}
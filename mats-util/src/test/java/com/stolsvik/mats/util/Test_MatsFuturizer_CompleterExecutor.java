@@ -0,0 +1,103 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+
+/**
+ * Tests the MatsFuturizer with a supplied {@link Executor}: "Caller runs", where the futures are completed on the
+ * reply-handling SubscriptionTerminator's thread, and that when the max concurrent completers are busy, the replies are
+ * queued and completed in batch by the running completer instead of as a task each.
+ */
+public class Test_MatsFuturizer_CompleterExecutor {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+
+    @BeforeClass
+    public static void setupService() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, msg) -> new DataTO(msg.number * 2, msg.string + ":FromService"));
+    }
+
+    @Test
+    public void callerRuns() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("callerRuns"), Runnable::run, 1, 1000)) {
+            CompletableFuture<String> threadName = futurizer.futurizeNonessential(MatsTestHelp.traceId(),
+                    MatsTestHelp.from("callerRuns"), SERVICE, DataTO.class, new DataTO(1, "one"))
+                    .thenApply(reply -> Thread.currentThread().getName());
+            String name = threadName.get(10, TimeUnit.SECONDS);
+            Assert.assertFalse(name, name.startsWith("MatsFuturizer completer"));
+            Assert.assertNull(futurizer.getCompleterThreadPool());
+        }
+    }
+
+    @Test
+    public void batchedCompletionWhenCompleterBusy() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        ExecutorService delegate = Executors.newFixedThreadPool(1);
+        AtomicInteger tasks = new AtomicInteger();
+        CountDownLatch holdFirstTask = new CountDownLatch(1);
+        // Counts the tasks, and holds the first until all replies are in.
+        Executor countingExecutor = runnable -> {
+            boolean first = tasks.getAndIncrement() == 0;
+            delegate.execute(() -> {
+                if (first) {
+                    try {
+                        holdFirstTask.await(30, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e) {
+                        throw new AssertionError("Interrupted", e);
+                    }
+                }
+                runnable.run();
+            });
+        };
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("batched"), countingExecutor, 1, 1000)) {
+            int count = 100;
+            List<CompletableFuture<Reply<DataTO>>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                futures.add(futurizer.futurizeNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("batched"),
+                        SERVICE, DataTO.class, new DataTO(i, "num" + i)));
+            }
+            // :: Wait till all replies are in, i.e. no more outstanding Promises, only pending completions.
+            long until = System.currentTimeMillis() + 30_000;
+            while ((futurizer.getOutstandingPromiseCount() > 0) && (System.currentTimeMillis() < until)) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+            holdFirstTask.countDown();
+
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(new DataTO(i * 2, "num" + i + ":FromService"),
+                        futures.get(i).get(10, TimeUnit.SECONDS).reply);
+            }
+            // All the replies came while the single completer task was held, so it completed them all.
+            Assert.assertEquals(1, tasks.get());
+        }
+        finally {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.stolsvik.mats.util;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsEndpoint.DetachedProcessContext;
+import com.stolsvik.mats.MatsEndpoint.ProcessContext;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+
+/**
+ * Tests {@link MatsFuturizer#setEagerReplyDeserialization(boolean)}: The reply shall be as usual, but the Reply's
+ * context shall be the slim variant, having only the metadata and the sideloads and trace properties set to be
+ * retained.
+ */
+public class Test_MatsFuturizer_EagerReplyDeserialization {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+
+    private static final String KEY_RETAINED_STRING = "retainedString";
+    private static final String KEY_DROPPED_BYTES = "droppedBytes";
+    private static final String KEY_TRACE_PROPERTY = "traceProperty";
+
+    @BeforeClass
+    public static void setupService() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class, (context, msg) -> {
+            context.addString(KEY_RETAINED_STRING, "retained");
+            context.addBytes(KEY_DROPPED_BYTES, new byte[] { 1, 2, 3 });
+            context.setTraceProperty(KEY_TRACE_PROPERTY, new DataTO(7, "prop"));
+            return new DataTO(msg.number * 2, msg.string + ":FromService");
+        });
+    }
+
+    @Test
+    public void slimContext() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("eager"))) {
+            futurizer.setEagerReplyDeserialization(true);
+            futurizer.setSlimReplyContextRetention(Collections.singleton(KEY_RETAINED_STRING),
+                    Collections.singletonMap(KEY_TRACE_PROPERTY, DataTO.class));
+
+            String traceId = MatsTestHelp.traceId();
+            DataTO dto = new DataTO(42, "TheAnswer");
+            Reply<DataTO> reply = futurizer.futurizeNonessential(traceId, MatsTestHelp.from("slimContext"),
+                    SERVICE, DataTO.class, dto).get(10, TimeUnit.SECONDS);
+
+            Assert.assertEquals(new DataTO(dto.number * 2, dto.string + ":FromService"), reply.reply);
+
+            DetachedProcessContext context = reply.getContext();
+            Assert.assertFalse("Should be the slim context, not the ProcessContext",
+                    context instanceof ProcessContext);
+            Assert.assertEquals(traceId, context.getTraceId());
+            Assert.assertEquals(SERVICE, context.getFromStageId());
+            Assert.assertTrue(context.isNonPersistent());
+            Assert.assertEquals("retained", context.getString(KEY_RETAINED_STRING));
+            Assert.assertEquals(new DataTO(7, "prop"), context.getTraceProperty(KEY_TRACE_PROPERTY, DataTO.class));
+            try {
+                context.getBytes(KEY_DROPPED_BYTES);
+                Assert.fail("Should have gotten IllegalStateException, as the bytes were not retained.");
+            }
+            catch (IllegalStateException e) {
+                // expected.
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.stolsvik.mats.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.GatherResult;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerRejectedException;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerTimeoutException;
+import com.stolsvik.mats.util.MatsFuturizer.ScatterRequest;
+
+/**
+ * Tests {@link MatsFuturizer#futurizeGather(String, int, TimeUnit, Class, List, MatsInitiate.InitiateLambda)
+ * futurizeGather(..)}: All replied, partial result when one part times out, cancelling the aggregate, and that the
+ * parts are admitted all at once or not at all.
+ */
+public class Test_MatsFuturizer_Gather {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    // No consumer for this one, so the Promises stay outstanding until cancelled or timed out.
+    private static final String NOWHERE = MatsTestHelp.endpointId("Nowhere");
+
+    @BeforeClass
+    public static void setupService() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, msg) -> new DataTO(msg.number * 2, msg.string + ":FromService"));
+    }
+
+    @Test
+    public void allReplied() throws InterruptedException, ExecutionException, TimeoutException {
+        MatsFuturizer futurizer = MATS.getMatsFuturizer();
+        List<ScatterRequest> requests = Arrays.asList(
+                new ScatterRequest("Gather.0", SERVICE, new DataTO(0, "zero")),
+                new ScatterRequest("Gather.1", SERVICE, new DataTO(1, "one")),
+                new ScatterRequest("Gather.2", SERVICE, new DataTO(2, "two")));
+        GatherResult<DataTO> result = futurizer.futurizeGather(MatsTestHelp.from("allReplied"), 10,
+                TimeUnit.SECONDS, DataTO.class, requests, MatsInitiate::nonPersistent).get(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue(result.isComplete());
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals(3, result.getReplies().size());
+        for (int i = 0; i < result.size(); i++) {
+            DataTO request = (DataTO) result.getRequest(i).getRequest();
+            Assert.assertEquals(new DataTO(request.number * 2, request.string + ":FromService"),
+                    result.getReply(i).reply);
+            Assert.assertEquals("Gather." + i, result.getReply(i).getContext().getTraceId());
+            Assert.assertNull(result.getFailure(i));
+        }
+        Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+    }
+
+    @Test
+    public void partialResultOnTimeout() throws InterruptedException, ExecutionException, TimeoutException {
+        MatsFuturizer futurizer = MATS.getMatsFuturizer();
+        List<ScatterRequest> requests = Arrays.asList(
+                new ScatterRequest("Partial.0", SERVICE, new DataTO(0, "zero")),
+                new ScatterRequest("Partial.1", NOWHERE, new DataTO(1, "one")),
+                new ScatterRequest("Partial.2", SERVICE, new DataTO(2, "two")),
+                new ScatterRequest("Partial.3", SERVICE, new DataTO(3, "three")));
+        GatherResult<DataTO> result = futurizer.futurizeGather(MatsTestHelp.from("partial"), 1000,
+                TimeUnit.MILLISECONDS, DataTO.class, requests, MatsInitiate::nonPersistent).get(10,
+                        TimeUnit.SECONDS);
+
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(1, result.getFailedCount());
+        Assert.assertEquals(3, result.getReplies().size());
+        Assert.assertNull(result.getReply(1));
+        Assert.assertEquals(MatsFuturizerTimeoutException.class, result.getFailure(1).getClass());
+        Assert.assertEquals(new DataTO(6, "three:FromService"), result.getReply(3).reply);
+        Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+    }
+
+    @Test
+    public void cancelAggregateCancelsParts() {
+        MatsFuturizer futurizer = MATS.getMatsFuturizer();
+        List<ScatterRequest> requests = Arrays.asList(
+                new ScatterRequest("Cancel.0", NOWHERE, new DataTO(0, "zero")),
+                new ScatterRequest("Cancel.1", NOWHERE, new DataTO(1, "one")));
+        CompletableFuture<GatherResult<DataTO>> future = futurizer.futurizeGather(MatsTestHelp.from("cancel"), 1,
+                TimeUnit.MINUTES, DataTO.class, requests, MatsInitiate::nonPersistent);
+        Assert.assertEquals(2, futurizer.getOutstandingPromiseCount());
+
+        future.cancel(false);
+
+        Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+    }
+
+    @Test
+    public void largerThanQuotaRejectedUpFront() {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("quota"))) {
+            futurizer.setMaxOutstandingPromisesPerFrom(2);
+            List<ScatterRequest> requests = Arrays.asList(
+                    new ScatterRequest("Quota.0", NOWHERE, new DataTO(0, "zero")),
+                    new ScatterRequest("Quota.1", NOWHERE, new DataTO(1, "one")),
+                    new ScatterRequest("Quota.2", NOWHERE, new DataTO(2, "two")));
+            try {
+                futurizer.futurizeGather(MatsTestHelp.from("quota"), 1, TimeUnit.MINUTES, DataTO.class, requests,
+                        MatsInitiate::nonPersistent);
+                Assert.fail("Should have been rejected, as there are more parts than the quota.");
+            }
+            catch (MatsFuturizerRejectedException e) {
+                // expected.
+            }
+            Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+            Assert.assertEquals(3, futurizer.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void admittedAllOrNothing() {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("allOrNothing"), 5, 5, 3)) {
+            // :: Take 2 of the 3 permits.
+            futurizer.futurizeGather(MatsTestHelp.from("first"), 1, TimeUnit.MINUTES, DataTO.class, Arrays.asList(
+                    new ScatterRequest("AllOrNothing.0", NOWHERE, new DataTO(0, "zero")),
+                    new ScatterRequest("AllOrNothing.1", NOWHERE, new DataTO(1, "one"))),
+                    MatsInitiate::nonPersistent);
+            // :: A gather of 2 cannot get in, and shall not take the remaining permit.
+            try {
+                futurizer.futurizeGather(MatsTestHelp.from("second"), 1, TimeUnit.MINUTES, DataTO.class,
+                        Arrays.asList(new ScatterRequest("AllOrNothing.2", NOWHERE, new DataTO(2, "two")),
+                                new ScatterRequest("AllOrNothing.3", NOWHERE, new DataTO(3, "three"))),
+                        MatsInitiate::nonPersistent);
+                Assert.fail("Should have been rejected, as there is only 1 permit left.");
+            }
+            catch (MatsFuturizerRejectedException e) {
+                // expected.
+            }
+            Assert.assertEquals(2, futurizer.getOutstandingPromiseCount());
+            // .. thus, a single one still gets in.
+            futurizer.futurizeNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("single"), NOWHERE,
+                    DataTO.class, new DataTO(4, "four"));
+            Assert.assertEquals(3, futurizer.getOutstandingPromiseCount());
+        }
+    }
+}
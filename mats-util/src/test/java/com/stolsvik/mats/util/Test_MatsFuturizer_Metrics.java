@@ -0,0 +1,82 @@
+package com.stolsvik.mats.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.EndpointMetrics;
+
+/**
+ * Tests the metrics of the MatsFuturizer: Reply latencies and timeouts per target endpoint, the completer queue time,
+ * and the late replies coming after their Promise has timed out.
+ */
+public class Test_MatsFuturizer_Metrics {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final String SLOW_SERVICE = MatsTestHelp.endpointId("SlowService");
+
+    @BeforeClass
+    public static void setupServices() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, msg) -> new DataTO(msg.number * 2, msg.string + ":FromService"));
+        MATS.getMatsFactory().single(SLOW_SERVICE, DataTO.class, DataTO.class, (context, msg) -> {
+            try {
+                Thread.sleep(500);
+            }
+            catch (InterruptedException e) {
+                throw new AssertionError("Interrupted", e);
+            }
+            return new DataTO(msg.number * 2, msg.string + ":FromSlowService");
+        });
+    }
+
+    @Test
+    public void repliesTimeoutsAndLateReplies() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("metrics"))) {
+            // :: Some replies from the service
+            for (int i = 0; i < 10; i++) {
+                futurizer.futurizeNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("replies"), SERVICE,
+                        DataTO.class, new DataTO(i, "num" + i)).get(10, TimeUnit.SECONDS);
+            }
+            // :: One timing out on the slow service, whose reply then comes late.
+            try {
+                futurizer.futurize(MatsTestHelp.traceId(), MatsTestHelp.from("timeout"), SLOW_SERVICE, 100,
+                        TimeUnit.MILLISECONDS, DataTO.class, new DataTO(1, "one"), MatsInitiate::nonPersistent)
+                        .get(10, TimeUnit.SECONDS);
+                Assert.fail("Should have timed out.");
+            }
+            catch (ExecutionException e) {
+                Assert.assertEquals(MatsFuturizer.MatsFuturizerTimeoutException.class, e.getCause().getClass());
+            }
+            long until = System.currentTimeMillis() + 10_000;
+            while ((futurizer.getLateReplyCount() == 0) && (System.currentTimeMillis() < until)) {
+                Thread.sleep(5);
+            }
+
+            EndpointMetrics service = futurizer.getEndpointMetrics().get(SERVICE);
+            Assert.assertEquals(10, service.getReplyCount());
+            Assert.assertEquals(0, service.getTimeoutCount());
+            Assert.assertTrue(service.getReplyLatencyMicros().getValueAtPercentile(99) > 0);
+
+            EndpointMetrics slowService = futurizer.getEndpointMetrics().get(SLOW_SERVICE);
+            Assert.assertEquals(0, slowService.getReplyCount());
+            Assert.assertEquals(1, slowService.getTimeoutCount());
+
+            Assert.assertEquals(1, futurizer.getLateReplyCount());
+            // 10 replies and 1 timeout went through the completers.
+            Assert.assertEquals(11, futurizer.getCompleterQueueTimeMicros().getCount());
+        }
+    }
+}
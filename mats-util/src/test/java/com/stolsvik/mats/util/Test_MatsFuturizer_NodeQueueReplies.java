@@ -0,0 +1,78 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+import com.stolsvik.mats.util.MatsFuturizer.ReplyMode;
+
+/**
+ * Tests the MatsFuturizer with {@link ReplyMode#NODE_QUEUE}, where the replies come on a node-specific queue to an
+ * ordinary Terminator instead of on a topic: Both a non-persistent and a persistent request, and a bunch concurrently.
+ */
+public class Test_MatsFuturizer_NodeQueueReplies {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+
+    private static MatsFuturizer _futurizer;
+
+    @BeforeClass
+    public static void setupServiceAndFuturizer() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, msg) -> new DataTO(msg.number * 2, msg.string + ":FromService"));
+        _futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("NodeQueue"), ReplyMode.NODE_QUEUE);
+    }
+
+    @AfterClass
+    public static void closeFuturizer() {
+        _futurizer.close();
+    }
+
+    @Test
+    public void nonPersistent() throws InterruptedException, ExecutionException, TimeoutException {
+        Assert.assertEquals(ReplyMode.NODE_QUEUE, _futurizer.getReplyMode());
+        DataTO dto = new DataTO(42, "TheAnswer");
+        Reply<DataTO> reply = _futurizer.futurizeNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("test"),
+                SERVICE, DataTO.class, dto).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(new DataTO(dto.number * 2, dto.string + ":FromService"), reply.reply);
+    }
+
+    @Test
+    public void persistent() throws InterruptedException, ExecutionException, TimeoutException {
+        DataTO dto = new DataTO(13, "Persistent");
+        Reply<DataTO> reply = _futurizer.futurize(MatsTestHelp.traceId(), MatsTestHelp.from("test"), SERVICE,
+                10, TimeUnit.SECONDS, DataTO.class, dto, MatsInitiate::interactive).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(new DataTO(dto.number * 2, dto.string + ":FromService"), reply.reply);
+    }
+
+    @Test
+    public void many() throws InterruptedException, ExecutionException, TimeoutException {
+        List<CompletableFuture<Reply<DataTO>>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(_futurizer.futurizeNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("many"),
+                    SERVICE, DataTO.class, new DataTO(i, "num" + i)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertEquals(new DataTO(i * 2, "num" + i + ":FromService"),
+                    futures.get(i).get(10, TimeUnit.SECONDS).reply);
+        }
+        Assert.assertEquals(0, _futurizer.getOutstandingPromiseCount());
+    }
+}
@@ -0,0 +1,151 @@
+package com.stolsvik.mats.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+
+/**
+ * Tests {@link MatsFuturizer#futurizeSingleFlight(String, String, String, String, int, TimeUnit, Class, Object,
+ * MatsInitiate.InitiateLambda) single-flight}: Concurrent equal requests shall result in a single request to the
+ * service, both with the key from the request DTO and a provided key, and the reply shall be reused within the cache
+ * TTL. When all sharing a request have cancelled, its Promise shall be cancelled too.
+ */
+public class Test_MatsFuturizer_SingleFlight {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    private static final AtomicInteger _invocations = new AtomicInteger();
+
+    @BeforeClass
+    public static void setupService() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class, (context, msg) -> {
+            _invocations.incrementAndGet();
+            // Slow, so that the requests surely are concurrent.
+            try {
+                Thread.sleep(300);
+            }
+            catch (InterruptedException e) {
+                throw new AssertionError("Interrupted", e);
+            }
+            return new DataTO(msg.number * 2, msg.string + ":FromService");
+        });
+    }
+
+    @Before
+    public void resetInvocations() {
+        _invocations.set(0);
+    }
+
+    @Test
+    public void coalescedOnRequestDto() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("dtoKey"))) {
+            List<CompletableFuture<Reply<DataTO>>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(singleFlight(futurizer, null, new DataTO(21, "Same")));
+            }
+            // A different request is not coalesced with those.
+            CompletableFuture<Reply<DataTO>> other = singleFlight(futurizer, null, new DataTO(1, "Other"));
+
+            for (CompletableFuture<Reply<DataTO>> future : futures) {
+                Assert.assertEquals(new DataTO(42, "Same:FromService"), future.get(10, TimeUnit.SECONDS).reply);
+            }
+            Assert.assertEquals(new DataTO(2, "Other:FromService"), other.get(10, TimeUnit.SECONDS).reply);
+            Assert.assertEquals(2, _invocations.get());
+            Assert.assertEquals(19, futurizer.getSingleFlightCoalescedCount());
+
+            // :: After the flight has landed, a new request goes to the service.
+            singleFlight(futurizer, null, new DataTO(21, "Same")).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(3, _invocations.get());
+        }
+    }
+
+    @Test
+    public void coalescedOnProvidedKey() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("providedKey"))) {
+            CompletableFuture<Reply<DataTO>> first = singleFlight(futurizer, "TheKey", new DataTO(1, "First"));
+            CompletableFuture<Reply<DataTO>> second = singleFlight(futurizer, "TheKey", new DataTO(2, "Second"));
+            // Cancelling one shall not affect the other.
+            second.cancel(false);
+
+            // Both get the reply to the first's request.
+            Assert.assertEquals(new DataTO(2, "First:FromService"), first.get(10, TimeUnit.SECONDS).reply);
+            Assert.assertTrue(second.isCancelled());
+            Assert.assertEquals(1, _invocations.get());
+            Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+        }
+    }
+
+    @Test
+    public void allCancelledCancelsPromise() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("allCancelled"))) {
+            CompletableFuture<Reply<DataTO>> first = singleFlight(futurizer, "TheKey", new DataTO(1, "First"));
+            CompletableFuture<Reply<DataTO>> second = singleFlight(futurizer, "TheKey", new DataTO(2, "Second"));
+            Assert.assertEquals(1, futurizer.getOutstandingPromiseCount());
+
+            // :: Cancelling one keeps the Promise, cancelling both cancels it.
+            first.cancel(false);
+            Assert.assertEquals(1, futurizer.getOutstandingPromiseCount());
+            second.cancel(false);
+            Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+
+            // :: The next with the same key does not join the abandoned flight, but sends anew.
+            Assert.assertEquals(new DataTO(6, "Third:FromService"), singleFlight(futurizer, "TheKey",
+                    new DataTO(3, "Third")).get(10, TimeUnit.SECONDS).reply);
+            Assert.assertEquals(1, futurizer.getSingleFlightCoalescedCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullRequestWithoutKeyRejected() {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("nullRequest"))) {
+            singleFlight(futurizer, null, null);
+        }
+    }
+
+    @Test
+    public void cachedWithinTtl() throws InterruptedException, ExecutionException, TimeoutException {
+        try (MatsFuturizer futurizer = MatsFuturizer.createMatsFuturizer(MATS.getMatsFactory(),
+                MatsTestHelp.endpointId("cached"))) {
+            futurizer.setSingleFlightCacheTtl(1, TimeUnit.MINUTES, 100);
+            Reply<DataTO> reply = singleFlight(futurizer, null, new DataTO(5, "Cached")).get(10, TimeUnit.SECONDS);
+            Reply<DataTO> cachedReply = singleFlight(futurizer, null, new DataTO(5, "Cached")).get(10,
+                    TimeUnit.SECONDS);
+
+            Assert.assertSame(reply, cachedReply);
+            Assert.assertEquals(1, _invocations.get());
+            Assert.assertEquals(1, futurizer.getSingleFlightCacheHitCount());
+
+            // :: Turning off the cache drops the cached replies.
+            futurizer.setSingleFlightCacheTtl(0, TimeUnit.MINUTES, 100);
+            singleFlight(futurizer, null, new DataTO(5, "Cached")).get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(2, _invocations.get());
+        }
+    }
+
+    private static CompletableFuture<Reply<DataTO>> singleFlight(MatsFuturizer futurizer, String key,
+            DataTO request) {
+        return futurizer.futurizeSingleFlight(key, MatsTestHelp.traceId(), MatsTestHelp.from("singleFlight"),
+                SERVICE, 10, TimeUnit.SECONDS, DataTO.class, request, MatsInitiate::nonPersistent);
+    }
+}
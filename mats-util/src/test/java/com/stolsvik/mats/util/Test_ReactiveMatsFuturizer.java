@@ -0,0 +1,174 @@
+package com.stolsvik.mats.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.stolsvik.mats.MatsInitiator.MatsInitiate;
+import com.stolsvik.mats.lib_test.DataTO;
+import com.stolsvik.mats.test.MatsTestHelp;
+import com.stolsvik.mats.test.junit.Rule_Mats;
+import com.stolsvik.mats.util.MatsFuturizer.MatsFuturizerTimeoutException;
+import com.stolsvik.mats.util.MatsFuturizer.Reply;
+import com.stolsvik.mats.util.MatsFuturizer.ScatterRequest;
+
+/**
+ * Tests the {@link ReactiveMatsFuturizer}: That the Replies are signalled on the scheduler, scatter-gather with
+ * backpressure, cancellation removing the Promise right away, and timeout as onError.
+ */
+public class Test_ReactiveMatsFuturizer {
+    @ClassRule
+    public static final Rule_Mats MATS = Rule_Mats.create();
+
+    private static final String SERVICE = MatsTestHelp.service();
+    // No consumer for this one, so the Promises stay outstanding until cancelled or timed out.
+    private static final String NOWHERE = MatsTestHelp.endpointId("Nowhere");
+    private static final String SCHEDULER_THREAD_NAME = "Test reactive scheduler";
+
+    private static ExecutorService _scheduler;
+    private static ReactiveMatsFuturizer _reactive;
+
+    @BeforeClass
+    public static void setup() {
+        MATS.getMatsFactory().single(SERVICE, DataTO.class, DataTO.class,
+                (context, msg) -> new DataTO(msg.number * 2, msg.string + ":FromService"));
+        _scheduler = Executors.newSingleThreadExecutor(r -> new Thread(r, SCHEDULER_THREAD_NAME));
+        _reactive = ReactiveMatsFuturizer.create(MATS.getMatsFuturizer(), _scheduler);
+    }
+
+    @AfterClass
+    public static void shutdownScheduler() {
+        _scheduler.shutdown();
+    }
+
+    @Test
+    public void singleReplyOnScheduler() throws InterruptedException {
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        _reactive.publishNonessential(MatsTestHelp.traceId(), MatsTestHelp.from("single"), SERVICE, DataTO.class,
+                new DataTO(21, "Half")).subscribe(subscriber);
+
+        subscriber.awaitTerminated();
+        Assert.assertNull(subscriber._error);
+        Assert.assertEquals(1, subscriber._replies.size());
+        Assert.assertEquals(new DataTO(42, "Half:FromService"), subscriber._replies.get(0).reply);
+        Assert.assertEquals(SCHEDULER_THREAD_NAME, subscriber._onNextThreadName);
+    }
+
+    @Test
+    public void scatterGatherWithBackpressure() throws InterruptedException {
+        List<ScatterRequest> requests = Arrays.asList(
+                new ScatterRequest("Scatter.0", SERVICE, new DataTO(0, "zero")),
+                new ScatterRequest("Scatter.1", SERVICE, new DataTO(1, "one")),
+                new ScatterRequest("Scatter.2", SERVICE, new DataTO(2, "two")));
+        // Only request 1 to begin with.
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        _reactive.publishAll(MatsTestHelp.from("scatter"), 10, TimeUnit.SECONDS, DataTO.class, requests,
+                MatsInitiate::nonPersistent).subscribe(subscriber);
+
+        // :: Wait till all replies are in, which is when there are no outstanding Promises.
+        long until = System.currentTimeMillis() + 10_000;
+        while ((MATS.getMatsFuturizer().getOutstandingPromiseCount() > 0) && (System.currentTimeMillis() < until)) {
+            Thread.sleep(5);
+        }
+        // Let any signalling on the scheduler finish.
+        Thread.sleep(50);
+        Assert.assertEquals("Only one requested, so only one shall have come", 1, subscriber._replies.size());
+        Assert.assertFalse(subscriber._completed);
+
+        subscriber._subscription.request(2);
+        subscriber.awaitTerminated();
+        Assert.assertNull(subscriber._error);
+        Assert.assertTrue(subscriber._completed);
+        Set<String> traceIds = new HashSet<>();
+        for (Reply<DataTO> reply : subscriber._replies) {
+            traceIds.add(reply.getContext().getTraceId());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Scatter.0", "Scatter.1", "Scatter.2")), traceIds);
+    }
+
+    @Test
+    public void cancelRemovesPromise() throws InterruptedException {
+        MatsFuturizer futurizer = MATS.getMatsFuturizer();
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        _reactive.publish(MatsTestHelp.traceId(), MatsTestHelp.from("cancel"), NOWHERE, 1, TimeUnit.MINUTES,
+                DataTO.class, new DataTO(1, "one"), MatsInitiate::nonPersistent).subscribe(subscriber);
+        Assert.assertEquals(1, futurizer.getOutstandingPromiseCount());
+
+        subscriber._subscription.cancel();
+
+        Assert.assertEquals(0, futurizer.getOutstandingPromiseCount());
+        Thread.sleep(50);
+        Assert.assertTrue(subscriber._replies.isEmpty());
+        Assert.assertNull(subscriber._error);
+        Assert.assertFalse(subscriber._completed);
+    }
+
+    @Test
+    public void timeoutIsError() throws InterruptedException {
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        _reactive.publish(MatsTestHelp.traceId(), MatsTestHelp.from("timeout"), NOWHERE, 50,
+                TimeUnit.MILLISECONDS, DataTO.class, new DataTO(1, "one"), MatsInitiate::nonPersistent)
+                .subscribe(subscriber);
+
+        subscriber.awaitTerminated();
+        Assert.assertEquals(MatsFuturizerTimeoutException.class, subscriber._error.getClass());
+        Assert.assertTrue(subscriber._replies.isEmpty());
+        Assert.assertEquals(0, MATS.getMatsFuturizer().getOutstandingPromiseCount());
+    }
+
+    private static class CollectingSubscriber implements Subscriber<Reply<DataTO>> {
+        private final long _initialRequest;
+        private final CountDownLatch _terminated = new CountDownLatch(1);
+        private final List<Reply<DataTO>> _replies = new CopyOnWriteArrayList<>();
+        private volatile Subscription _subscription;
+        private volatile String _onNextThreadName;
+        private volatile Throwable _error;
+        private volatile boolean _completed;
+
+        CollectingSubscriber(long initialRequest) {
+            _initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            _subscription = subscription;
+            subscription.request(_initialRequest);
+        }
+
+        @Override
+        public void onNext(Reply<DataTO> reply) {
+            _onNextThreadName = Thread.currentThread().getName();
+            _replies.add(reply);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            _error = t;
+            _terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            _completed = true;
+            _terminated.countDown();
+        }
+
+        void awaitTerminated() throws InterruptedException {
+            Assert.assertTrue("Not terminated", _terminated.await(10, TimeUnit.SECONDS));
+        }
+    }
+}